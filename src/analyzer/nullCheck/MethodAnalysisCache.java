@@ -0,0 +1,184 @@
+package analyzer.nullCheck;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import graph.cfg.ControlFlowGraph;
+import graph.cfg.analyzer.DominateNodeAnalyzer;
+import graph.cfg.analyzer.ReachNameAnalyzer;
+import graph.cfg.creator.CFGCreator;
+import nameTable.NameTableManager;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameScope.CompilationUnitScope;
+import sourceCodeAST.CompilationUnitRecorder;
+import sourceCodeAST.SourceCodeFile;
+import sourceCodeAST.SourceCodeFileSet;
+
+/**
+ * A bounded cache of the analyzed control flow graphs of methods, shared by the analyzers in this package. A cached graph has
+ * NullCheckReferenceRecorder in its execution points, and the reach names, dominate nodes, node references and null-checked
+ * references in the recorders have been analyzed, so it can be used by all of MethodNullCheckCollector, MethodCallStatementAnalyzer,
+ * MethodReturnValueAnalyzer and MethodReturnStatementCollector.
+ * <p>The graphs are keyed by the method definitions, and each graph records the source code file object, the length and the last
+ * modified time of its file. If the file has been changed (e.g. updated by NameTableUpdater), the graph is created again. The least
+ * recently used graph is removed when the number of graphs exceeds the capacity. Note that a cached graph keeps the AST of its
+ * compilation unit alive even if the AST is released from the source code file set.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017920
+ * @version 1.0
+ *
+ */
+public class MethodAnalysisCache {
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private static MethodAnalysisCache defaultCache = new MethodAnalysisCache(DEFAULT_CAPACITY);
+
+	private int capacity = DEFAULT_CAPACITY;
+	private LinkedHashMap<MethodDefinition, CacheEntry> entryMap = null;
+
+	private int hitNumber = 0;
+	private int missNumber = 0;
+	private int staleNumber = 0;
+	private int evictionNumber = 0;
+
+	public MethodAnalysisCache(int capacity) {
+		if (capacity < 1) throw new AssertionError("The capacity of method analysis cache should be positive, but it is " + capacity);
+		this.capacity = capacity;
+		// Use the access order, so the eldest entry is the least recently used one
+		entryMap = new LinkedHashMap<MethodDefinition, CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<MethodDefinition, CacheEntry> eldest) {
+				if (size() <= MethodAnalysisCache.this.capacity) return false;
+				evictionNumber++;
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Return the cache shared by the analyzers in this package
+	 */
+	public static MethodAnalysisCache getDefaultCache() {
+		return defaultCache;
+	}
+
+	/**
+	 * Get the analyzed control flow graph of the method. Return null if the method has no body or its AST can not be found.
+	 */
+	public ControlFlowGraph getAnalyzedCFG(NameTableManager manager, MethodDefinition method) {
+		CompilationUnitScope unitScope = manager.getEnclosingCompilationUnitScope(method);
+		if (unitScope == null) return null;
+		String unitFileName = unitScope.getUnitName();
+		SourceCodeFileSet sourceCodeFileSet = manager.getSouceCodeFileSet();
+		SourceCodeFile codeFile = sourceCodeFileSet.findSourceCodeFileByFileUnitName(unitFileName);
+		if (codeFile == null) return null;
+
+		synchronized (this) {
+			CacheEntry entry = entryMap.get(method);
+			if (entry != null) {
+				if (entry.isCreatedFrom(manager, codeFile)) {
+					hitNumber++;
+					return entry.graph;
+				}
+				entryMap.remove(method);
+				staleNumber++;
+			}
+			missNumber++;
+		}
+
+		CompilationUnit astRoot = sourceCodeFileSet.findSourceCodeFileASTRootByFileUnitName(unitFileName);
+		if (astRoot == null) return null;
+		CompilationUnitRecorder unitRecorder = new CompilationUnitRecorder(unitFileName, astRoot);
+		ControlFlowGraph graph = CFGCreator.create(manager, unitRecorder, method);
+		if (graph != null) {
+			MethodNullCheckCollector.setNullCheckReferenceRecorder(graph);
+			ReachNameAnalyzer.reachNameAnalysis(manager, unitRecorder, method, graph);
+			DominateNodeAnalyzer.dominateNodeAnalysis(graph, method);
+			MethodNullCheckCollector.NullCheckReferenceAnalysis(manager, unitRecorder, method, graph);
+		}
+
+		synchronized (this) {
+			entryMap.put(method, new CacheEntry(manager, codeFile, graph));
+		}
+		return graph;
+	}
+
+	/**
+	 * Remove all cached graphs. The counters are not changed.
+	 */
+	public synchronized void clear() {
+		entryMap.clear();
+	}
+
+	public synchronized int size() {
+		return entryMap.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized int getHitNumber() {
+		return hitNumber;
+	}
+
+	public synchronized int getMissNumber() {
+		return missNumber;
+	}
+
+	/**
+	 * Return the number of graphs which are created again since their source code files have been changed
+	 */
+	public synchronized int getStaleNumber() {
+		return staleNumber;
+	}
+
+	public synchronized int getEvictionNumber() {
+		return evictionNumber;
+	}
+
+	public synchronized void resetCounters() {
+		hitNumber = 0;
+		missNumber = 0;
+		staleNumber = 0;
+		evictionNumber = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "MethodAnalysisCache[size " + entryMap.size() + "/" + capacity + ", hit " + hitNumber + ", miss " + missNumber +
+				", stale " + staleNumber + ", eviction " + evictionNumber + "]";
+	}
+
+	/**
+	 * A cached graph (may be null for the methods without body) and the stamp of the source code file when it is created
+	 */
+	static class CacheEntry {
+		NameTableManager manager = null;
+		SourceCodeFile codeFile = null;
+		long fileLength = 0;
+		long lastModified = 0;
+		ControlFlowGraph graph = null;
+
+		CacheEntry(NameTableManager manager, SourceCodeFile codeFile, ControlFlowGraph graph) {
+			this.manager = manager;
+			this.codeFile = codeFile;
+			File handle = codeFile.getFileHandle();
+			this.fileLength = handle.length();
+			this.lastModified = handle.lastModified();
+			this.graph = graph;
+		}
+
+		boolean isCreatedFrom(NameTableManager manager, SourceCodeFile codeFile) {
+			if (this.manager != manager || this.codeFile != codeFile) return false;
+			File handle = codeFile.getFileHandle();
+			return fileLength == handle.length() && lastModified == handle.lastModified();
+		}
+	}
+}
@@ -7,8 +7,6 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.eclipse.jdt.core.dom.CompilationUnit;
-
 import analyzer.dataTable.DataTableManager;
 import graph.basic.GraphNode;
 import graph.cfg.CFGNode;
@@ -16,9 +14,7 @@ import graph.cfg.CFGNodeType;
 import graph.cfg.ControlFlowGraph;
 import graph.cfg.ExecutionPoint;
 import graph.cfg.analyzer.ReachNameDefinition;
-import graph.cfg.analyzer.DominateNodeAnalyzer;
 import graph.cfg.analyzer.ReachNameAnalyzer;
-import graph.cfg.creator.CFGCreator;
 import nameTable.NameTableManager;
 import nameTable.filter.NameDefinitionKindFilter;
 import nameTable.nameDefinition.DetailedTypeDefinition;
@@ -33,7 +29,6 @@ import nameTable.nameReference.referenceGroup.NameReferenceGroup;
 import nameTable.nameReference.referenceGroup.NameReferenceGroupKind;
 import nameTable.nameScope.CompilationUnitScope;
 import nameTable.visitor.NameDefinitionVisitor;
-import sourceCodeAST.CompilationUnitRecorder;
 import sourceCodeAST.SourceCodeFileSet;
 import sourceCodeAST.SourceCodeLocation;
 import util.Debug;
@@ -42,6 +37,10 @@ import util.Debug;
  * @author Zhou Xiaocong
  * @since 2017716
  * @version 1.0
+ * @update 2017/09/20
+ * 		Get the analyzed control flow graph of a method from MethodAnalysisCache
+ * @update 2017/10/06
+ * 		Release the AST of a compilation unit once after its last method is analyzed, since releaseAST() really drops the AST
  *
  */
 public class MethodCallStatementAnalyzer {
@@ -183,6 +182,10 @@ public class MethodCallStatementAnalyzer {
 		StringBuilder message = new StringBuilder("No\tCaller\tCallee\tLeftValue\tStatus\tReturnNull\tIsChecked\tIsUsed\tIsPrimitive\tIsConstructor\tCalleeLocation\tCallRef\tCallRefLocation\tExpression");
 		writer.println(message.toString());
 		
+		// The methods of a compilation unit are visited one by one, so the AST of the unit is released when the analysis goes to
+		// the methods of the next unit
+		SourceCodeFileSet sourceCodeFileSet = manager.getSouceCodeFileSet();
+		String lastUnitFileName = null;
 		for (NameDefinition nameDefinition : methodList) {
 //			if (!nameDefinition.getFullQualifiedName().contains("getSpearmanCoefficient")) continue;
 			
@@ -194,6 +197,14 @@ public class MethodCallStatementAnalyzer {
 			DetailedTypeDefinition type = (DetailedTypeDefinition)enclosingType;
 			if (type.isAnonymous()) continue;
 			
+			CompilationUnitScope unitScope = manager.getEnclosingCompilationUnitScope(method);
+			String unitFileName = unitScope.getUnitName();
+			if (lastUnitFileName != null && !lastUnitFileName.equals(unitFileName)) {
+				sourceCodeFileSet.releaseAST(lastUnitFileName);
+				sourceCodeFileSet.releaseFileContent(lastUnitFileName);
+			}
+			lastUnitFileName = unitFileName;
+			
 			List<MethodCallExpressionRecorder> infoList = collectMethodCallExpressionRecorder(manager, method);
 			
 			for (MethodCallExpressionRecorder info : infoList) {
@@ -244,37 +255,26 @@ public class MethodCallStatementAnalyzer {
 				writer.println(message);
 			}
 		}
+		if (lastUnitFileName != null) {
+			sourceCodeFileSet.releaseAST(lastUnitFileName);
+			sourceCodeFileSet.releaseFileContent(lastUnitFileName);
+		}
 		writer.flush();
 	}
 	
+	/**
+	 * Collect the method call expressions of a method. The AST of the compilation unit of the method is not released, and the caller
+	 * should release it after the last method of the unit is analyzed.
+	 */
 	public static List<MethodCallExpressionRecorder> collectMethodCallExpressionRecorder(NameTableManager manager, MethodDefinition method) {
 		List<MethodCallExpressionRecorder> result = new ArrayList<MethodCallExpressionRecorder>();
 
-		CompilationUnitScope unitScope = manager.getEnclosingCompilationUnitScope(method);
-		String unitFileName = unitScope.getUnitName();
-		CompilationUnit astRoot = manager.getSouceCodeFileSet().findSourceCodeFileASTRootByFileUnitName(unitFileName);
-		CompilationUnitRecorder unitRecorder = new CompilationUnitRecorder(unitFileName, astRoot);
-		SourceCodeFileSet sourceCodeFileSet = manager.getSouceCodeFileSet();
-		
-		// Create a ControFlowGraph object
-		ControlFlowGraph graph = CFGCreator.create(manager, unitRecorder, method);
-		if (graph == null) {
-			sourceCodeFileSet.releaseAST(unitFileName);
-			sourceCodeFileSet.releaseFileContent(unitFileName);
-			return result;
-		}
+		// Get the analyzed ControFlowGraph object from the cache shared by the analyzers
+		ControlFlowGraph graph = MethodAnalysisCache.getDefaultCache().getAnalyzedCFG(manager, method);
+		if (graph == null) return result;
 		
 		List<GraphNode> nodeList = graph.getAllNodes();
-		if (nodeList == null) {
-			sourceCodeFileSet.releaseAST(unitFileName);
-			sourceCodeFileSet.releaseFileContent(unitFileName);
-			return result;
-		}
-		
-		MethodNullCheckCollector.setNullCheckReferenceRecorder(graph);
-		ReachNameAnalyzer.reachNameAnalysis(manager, unitRecorder, method, graph);
-		DominateNodeAnalyzer.dominateNodeAnalysis(graph, method);
-		MethodNullCheckCollector.NullCheckReferenceAnalysis(manager, unitRecorder, method, graph);
+		if (nodeList == null) return result;
 		
 		for (GraphNode node : nodeList) {
 			CFGNode cfgNode = (CFGNode)node;
@@ -314,8 +314,6 @@ public class MethodCallStatementAnalyzer {
 			}
 		}
 		
-		sourceCodeFileSet.releaseAST(unitFileName);
-		sourceCodeFileSet.releaseFileContent(unitFileName);
 		return result;
 	}
 
@@ -6,14 +6,11 @@ import java.io.PrintWriter;
 import java.util.List;
 
 import org.eclipse.jdt.core.dom.ASTNode;
-import org.eclipse.jdt.core.dom.CompilationUnit;
 
 import graph.basic.GraphNode;
 import graph.cfg.ControlFlowGraph;
 import graph.cfg.ExecutionPoint;
 import graph.cfg.analyzer.ReachNameDefinition;
-import graph.cfg.analyzer.ReachNameAnalyzer;
-import graph.cfg.creator.CFGCreator;
 import nameTable.NameTableManager;
 import nameTable.creator.NameReferenceCreator;
 import nameTable.filter.NameDefinitionKindFilter;
@@ -26,7 +23,6 @@ import nameTable.nameReference.NameReference;
 import nameTable.nameReference.NameReferenceKind;
 import nameTable.nameReference.referenceGroup.NameReferenceGroup;
 import nameTable.nameReference.referenceGroup.NameReferenceGroupKind;
-import nameTable.nameScope.CompilationUnitScope;
 import nameTable.visitor.NameDefinitionVisitor;
 import sourceCodeAST.CompilationUnitRecorder;
 import sourceCodeAST.SourceCodeFileSet;
@@ -37,6 +33,10 @@ import util.Debug;
  * @author Zhou Xiaocong
  * @since 2017910
  * @version 1.0
+ * @update 2017/09/20
+ * 		Get the analyzed control flow graph of a method from MethodAnalysisCache
+ * @update 2017/10/06
+ * 		Release the AST of a compilation unit once after its last method is scanned, since releaseAST() really drops the AST
  *
  */
 public class MethodNullCheckCollector {
@@ -107,6 +107,9 @@ public class MethodNullCheckCollector {
 		int counter = 0;
 		String message = "No\tUnitFile\tClass\tMethod\tLocation\tCheckedReference\tBindDefinition\tAssigned\tIsField\tFirstAssignedValue\tOtherAssignedValue";
 		writer.println(message);
+		// The methods of a compilation unit are visited one by one, so the AST of the unit is released when the scanning goes to
+		// the methods of the next unit
+		String lastUnitFileName = null;
 		for (NameDefinition nameDefinition : methodList) {
 			MethodDefinition method = (MethodDefinition)nameDefinition;
 			if (method.isAutoGenerated()) continue; 
@@ -119,6 +122,12 @@ public class MethodNullCheckCollector {
 			String className = type.getSimpleName();
 			String methodName = method.getSimpleName() + "()";
 
+			if (lastUnitFileName != null && !lastUnitFileName.equals(unitFileName)) {
+				sourceCodeFileSet.releaseAST(lastUnitFileName);
+				sourceCodeFileSet.releaseFileContent(lastUnitFileName);
+			}
+			lastUnitFileName = unitFileName;
+
 			Debug.println("Method: " + method.getUniqueId());
 
 			ControlFlowGraph currentCFG = createCFGWithNullCheckedReferenceInCFGNode(manager, method);
@@ -173,28 +182,19 @@ public class MethodNullCheckCollector {
 					writer.println(message);
 				}
 			}
-			
-			sourceCodeFileSet.releaseAST(unitFileName);
-			sourceCodeFileSet.releaseFileContent(unitFileName);
+		}
+		if (lastUnitFileName != null) {
+			sourceCodeFileSet.releaseAST(lastUnitFileName);
+			sourceCodeFileSet.releaseFileContent(lastUnitFileName);
 		}
 	}
 	
+	/**
+	 * Get the control flow graph with null checked references in its nodes. The graph is shared by the analyzers in this package
+	 * through MethodAnalysisCache, so the caller should not change the recorders of the graph.
+	 */
 	public static ControlFlowGraph createCFGWithNullCheckedReferenceInCFGNode(NameTableManager nameTable, MethodDefinition method) {
-		CompilationUnitScope unitScope = nameTable.getEnclosingCompilationUnitScope(method);
-		if (unitScope == null) return null;
-		String sourceFileName = unitScope.getUnitName();
-		CompilationUnit astRoot = nameTable.getSouceCodeFileSet().findSourceCodeFileASTRootByFileUnitName(sourceFileName);
-		if (astRoot == null) return null;
-		CompilationUnitRecorder unitRecorder = new CompilationUnitRecorder(sourceFileName, astRoot);
-		
-		// Create a ControFlowGraph object
-		ControlFlowGraph currentCFG = CFGCreator.create(nameTable, method);
-		if (currentCFG == null) return null;
-		
-		setNullCheckReferenceRecorder(currentCFG);
-		ReachNameAnalyzer.reachNameAnalysis(nameTable, unitRecorder, method, currentCFG);
-		NullCheckReferenceAnalysis(nameTable, unitRecorder, method, currentCFG);
-		return currentCFG;
+		return MethodAnalysisCache.getDefaultCache().getAnalyzedCFG(nameTable, method);
 	}
 	
 	static void setNullCheckReferenceRecorder(ControlFlowGraph currentCFG) {
@@ -15,7 +15,6 @@ import graph.cfg.ControlFlowGraph;
 import graph.cfg.ExecutionPoint;
 import graph.cfg.ExecutionPointLabel;
 import graph.cfg.ExecutionPointType;
-import graph.cfg.creator.CFGCreator;
 import nameTable.NameTableManager;
 import nameTable.creator.NameReferenceCreator;
 import nameTable.filter.NameDefinitionKindFilter;
@@ -123,8 +122,8 @@ public class MethodReturnStatementCollector {
 			}
 			if (NameReferenceLabel.isPrimitiveTypeName(returnType.getName()) && !returnType.isArrayType()) continue;
 			
-			// Create a ControFlowGraph object
-			ControlFlowGraph graph = CFGCreator.create(manager, method);
+			// Get the ControFlowGraph object from the cache shared by the analyzers
+			ControlFlowGraph graph = MethodAnalysisCache.getDefaultCache().getAnalyzedCFG(manager, method);
 			if (graph == null) continue;
 			List<GraphNode> nodeList = graph.getAllNodes();
 			if (nodeList == null) continue;
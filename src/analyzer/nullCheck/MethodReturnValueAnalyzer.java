@@ -2,12 +2,22 @@ package analyzer.nullCheck;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.BodyDeclaration;
@@ -17,6 +27,7 @@ import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
 import graph.basic.GraphNode;
+import graph.callGraph.CallGraph;
 import graph.cfg.CFGNode;
 import graph.cfg.CFGNodeType;
 import graph.cfg.ControlFlowGraph;
@@ -25,7 +36,6 @@ import graph.cfg.ExecutionPointLabel;
 import graph.cfg.ExecutionPointType;
 import graph.cfg.analyzer.ReachNameDefinition;
 import graph.cfg.analyzer.ReachNameAnalyzer;
-import graph.cfg.creator.CFGCreator;
 import nameTable.NameTableASTBridge;
 import nameTable.NameTableManager;
 import nameTable.creator.NameReferenceCreator;
@@ -46,7 +56,6 @@ import nameTable.nameReference.referenceGroup.NameReferenceGroup;
 import nameTable.nameReference.referenceGroup.NameReferenceGroupKind;
 import nameTable.nameScope.CompilationUnitScope;
 import nameTable.visitor.NameDefinitionVisitor;
-import sourceCodeAST.CompilationUnitRecorder;
 import sourceCodeAST.SourceCodeFileSet;
 import sourceCodeAST.SourceCodeLocation;
 import util.Debug;
@@ -55,12 +64,28 @@ import util.Debug;
  * @author Zhou Xiaocong
  * @since 2017718
  * @version 1.0
+ * @update 2017/09/20
+ * 		Get the analyzed control flow graph of a method from MethodAnalysisCache
+ * @update 2017/10/04
+ * 		Restructure the analyzer as a summary-based engine. The summary (i.e. the return value recorders) of each method is computed 
+ * 		only once, wave by wave from the given methods to the methods whose return values they return, and the summaries of a wave are
+ * 		computed in parallel if the name table is frozen. Then the judgements are refined over the strongly connected components of 
+ * 		the call graph of the return values in the bottom-up order, with a worklist only in the recursive components. The summaries
+ * 		can be saved to a file and reused by a later run for the unchanged methods (see MethodReturnValueSummaryCache).
+ * @update 2017/10/06
+ * 		Move MethodReturnValueRecorder and MethodReturnValueRecorderList to their own files, since they are used by MethodReturnValueSummaryCache too
+ * @update 2017/10/07
+ * 		Load and save the summary file without creating the whole-program call graph, since the summaries are checked against the changed units only
  *
  */
 public class MethodReturnValueAnalyzer {
 	TreeMap<MethodDefinition, MethodReturnValueRecorderList> map = null;
 	NameTableManager manager = null;
 	
+	private int threadNumber = Runtime.getRuntime().availableProcessors();
+	private MethodReturnValueSummaryCache summaryCache = null;
+	private AtomicInteger reusedSummaryNumber = new AtomicInteger(0);
+	
 	public MethodReturnValueAnalyzer(NameTableManager manager) {
 		this.manager = manager;
 		map = new TreeMap<MethodDefinition, MethodReturnValueRecorderList>();
@@ -69,24 +94,61 @@ public class MethodReturnValueAnalyzer {
 	public void analyze() {
 		NameDefinitionVisitor visitor = new NameDefinitionVisitor(new NameDefinitionKindFilter(NameDefinitionKind.NDK_METHOD));
 		manager.accept(visitor);
-		List<NameDefinition> methodList = visitor.getResult();
-		if (methodList == null) return;
-		for (NameDefinition method : methodList) {
-//			if (!method.getFullQualifiedName().contains("getRankPairList")) continue;
-			collectReturnValueRecordFromAllRelatedMethods((MethodDefinition)method);
-		}
-		refineReturnNullValueJudgement();
+		List<NameDefinition> definitionList = visitor.getResult();
+		if (definitionList == null) return;
+		List<MethodDefinition> methodList = new ArrayList<MethodDefinition>(definitionList.size());
+		for (NameDefinition method : definitionList) methodList.add((MethodDefinition)method);
+		analyze(methodList);
 	}
 	
 	public void analyze(List<MethodDefinition> methodList) {
 		if (methodList == null) return;
-		for (MethodDefinition method : methodList) collectReturnValueRecordFromAllRelatedMethods(method);
+		collectReturnValueRecordFromAllRelatedMethods(methodList);
 		refineReturnNullValueJudgement();
 	}
 
 	public void analyze(MethodDefinition method) {
-		collectReturnValueRecordFromAllRelatedMethods(method);	
-		refineReturnNullValueJudgement();
+		List<MethodDefinition> methodList = new ArrayList<MethodDefinition>();
+		methodList.add(method);
+		analyze(methodList);
+	}
+	
+	/**
+	 * Set the number of threads to compute the summaries of methods. The summaries are computed in parallel only if the name table
+	 * has been frozen (see NameTableManager.freeze()).
+	 */
+	public void setThreadNumber(int threadNumber) {
+		if (threadNumber < 1) throw new AssertionError("The thread number should be positive, but it is " + threadNumber);
+		this.threadNumber = threadNumber;
+	}
+	
+	public int getThreadNumber() {
+		return threadNumber;
+	}
+	
+	/**
+	 * Load the summaries saved by a previous run, so the summaries of the unchanged methods are reused by the later analysis. Only the
+	 * hashes of the source code files are computed when a summary is asked for firstly, and only the units of the methods whose callees
+	 * may be changed are resolved again. Return false if the file does not exist or it is not a valid summary file.
+	 */
+	public boolean loadSummaryCache(String cacheFileName) throws IOException {
+		summaryCache = MethodReturnValueSummaryCache.load(manager, cacheFileName);
+		return summaryCache != null;
+	}
+	
+	/**
+	 * Save the summaries of all analyzed methods to the file. The units of the methods whose summaries are not reused are resolved
+	 * again to find their callees.
+	 */
+	public void saveSummaryCache(String cacheFileName) throws IOException {
+		MethodReturnValueSummaryCache.save(manager, summaryCache, map, cacheFileName);
+	}
+	
+	/**
+	 * Return the number of the summaries reused from the summary file
+	 */
+	public int getReusedSummaryNumber() {
+		return reusedSummaryNumber.get();
 	}
 
 	public boolean isReturnPrimitiveValue(MethodDefinition method) {
@@ -122,17 +184,17 @@ public class MethodReturnValueAnalyzer {
 			message = unitFileName + "\t" + type.getSimpleName() + "\t" + method.getSimpleName();
 			for (MethodReturnValueRecorder recorder : recorderList.returnValueList) {
 				String returnMessage = null;
-				if (recorder.value != null) returnMessage = "\t" + recorder.value.getUniqueId();
+				if (recorder.valueId != null) returnMessage = "\t" + recorder.valueId;
 				else returnMessage = "\t" + "Unknown";
 				
 				if (recorder.isNull) returnMessage += "\tNULL";
 				else returnMessage += "\tNoNull";
 				
-				if (recorder.lastAssignment != null) returnMessage += "\t" + recorder.lastAssignment.toSimpleString();
+				if (recorder.lastAssignmentText != null) returnMessage += "\t" + recorder.lastAssignmentText;
 				else returnMessage += "\tUnknown";
 				
-				if (recorder.expression != null) {
-					returnMessage += "\t" + recorder.expression.toSimpleString() + "\t[" + recorder.expression.getLocation() + "]";
+				if (recorder.expressionText != null) {
+					returnMessage += "\t" + recorder.expressionText + "\t[" + recorder.expressionLocation + "]";
 				} else returnMessage += "\tUnknown\tUnknown";
 				
 				returnMessage += "\t" + location.getUniqueId();
@@ -150,21 +212,16 @@ public class MethodReturnValueAnalyzer {
 
 			writer.println(method.getSimpleName() + "  [" + location.getUniqueId() + "] ");
 			for (MethodReturnValueRecorder recorder : recorderList.returnValueList) {
-				if (recorder.expression != null) {
-					writer.println("\tExpression: " + recorder.expression.toSimpleString() + " [" + recorder.expression.getLocation() + "]");
+				if (recorder.expressionText != null) {
+					writer.println("\tExpression: " + recorder.expressionText + " [" + recorder.expressionLocation + "]");
 				} else writer.println("\tExpression: Unknown");
 
-				if (recorder.value != null) {
-					writer.println("\t\tValue: " + recorder.value.getUniqueId() + " [" + recorder.value.getDefinitionKind() + "]");
+				if (recorder.valueId != null) {
+					writer.println("\t\tValue: " + recorder.valueId + " [" + recorder.valueKind + "]");
 				} else writer.println("\t\tValue: Unknown");
 				
-				if (recorder.lastAssignment != null) {
-					NameReferenceKind kind = recorder.lastAssignment.getReferenceKind();
-					String kindString = kind.toString();
-					if (kind == NameReferenceKind.NRK_GROUP) {
-						kindString = ((NameReferenceGroup)recorder.lastAssignment).getGroupKind().toString();
-					}
-					writer.println("\t\tLast Assignment: " + recorder.lastAssignment.toSimpleString() + "(" + recorder.lastAssignment.getLocation() + ")[" + kindString + "]");
+				if (recorder.lastAssignmentText != null) {
+					writer.println("\t\tLast Assignment: " + recorder.lastAssignmentText + "(" + recorder.lastAssignmentLocation + ")[" + recorder.lastAssignmentKind + "]");
 				} else writer.println("\t\tLast Assignment: Unknown");
 
 				if (recorder.isNull){
@@ -194,77 +251,190 @@ public class MethodReturnValueAnalyzer {
 		}
 	}
 	
+	/**
+	 * Refine the judgements of the methods by their callees, i.e. a method may return null if it returns the return value of a method
+	 * which may return null. The methods are processed by the strongly connected components of the call graph of the return values in
+	 * the bottom-up order, so the judgements of the callees out of a component are final when the component is processed, and only the
+	 * methods in a recursive component are refined again by a worklist.
+	 */
 	void refineReturnNullValueJudgement() {
-		Set<MethodDefinition> methodSet = map.keySet();
+		Map<MethodDefinition, List<MethodDefinition>> calleeMap = new LinkedHashMap<MethodDefinition, List<MethodDefinition>>();
+		for (Map.Entry<MethodDefinition, MethodReturnValueRecorderList> entry : map.entrySet()) {
+			List<MethodDefinition> calleeList = new ArrayList<MethodDefinition>();
+			for (MethodReturnValueRecorder recorder : entry.getValue().returnValueList) {
+				MethodDefinition callee = getAnalyzedMethodOfValue(recorder);
+				if (callee != null) calleeList.add(callee);
+			}
+			calleeMap.put(entry.getKey(), calleeList);
+		}
+		CallGraph returnValueGraph = CallGraph.create(manager, calleeMap);
 		
-		while (true) {
-			boolean hasChanged = false;
-			for (MethodDefinition method : methodSet) {
-				MethodReturnValueRecorderList recorderList = map.get(method);
-				if (recorderList.hasNullValue()) continue;
-				for (MethodReturnValueRecorder recorder : recorderList.returnValueList) {
-					if (recorder.value != null) {
-						if (recorder.value.getDefinitionKind() == NameDefinitionKind.NDK_METHOD) {
-							MethodDefinition value = (MethodDefinition)recorder.value;
-							if (map.containsKey(value)) {
-								MethodReturnValueRecorderList valueRecorderList = map.get(value);
-								if (valueRecorderList.hasNullValue()) {
-									hasChanged = true;
-									recorder.isNull = true;
-									break;
-								}
-							}
-						}
+		boolean[] inWorklist = new boolean[returnValueGraph.getMethodNumber()];
+		ArrayDeque<Integer> worklist = new ArrayDeque<Integer>();
+		for (int component = 0; component < returnValueGraph.getComponentNumber(); component++) {
+			int[] members = returnValueGraph.getComponentMembers(component);
+			if (!returnValueGraph.isRecursiveComponent(component)) {
+				refineReturnNullValueJudgement(returnValueGraph.getMethod(members[0]));
+				continue;
+			}
+			
+			for (int member : members) {
+				worklist.addLast(member);
+				inWorklist[member] = true;
+			}
+			while (!worklist.isEmpty()) {
+				int method = worklist.removeFirst();
+				inWorklist[method] = false;
+				if (!refineReturnNullValueJudgement(returnValueGraph.getMethod(method))) continue;
+				// The method may return null now, so refine its callers in the same component again
+				for (int caller : returnValueGraph.getCallers(method)) {
+					if (returnValueGraph.getComponent(caller) == component && !inWorklist[caller]) {
+						worklist.addLast(caller);
+						inWorklist[caller] = true;
 					}
 				}
 			}
-			if (!hasChanged) return;
 		}
 	}
 	
-	void collectReturnValueRecordFromAllRelatedMethods(MethodDefinition method) {
-		if (method.isConstructor()) return;
-		if (isReturnPrimitiveValue(method)) return;
-		TypeDefinition type = method.getEnclosingType();
-		if (!type.isDetailedType() || type.isAnonymous()) return;
+	/**
+	 * Mark the first return value of the method which is the return value of a callee may returning null. Return true if the 
+	 * judgement of the method is changed.
+	 */
+	boolean refineReturnNullValueJudgement(MethodDefinition method) {
+		MethodReturnValueRecorderList recorderList = map.get(method);
+		if (recorderList.hasNullValue()) return false;
+		for (MethodReturnValueRecorder recorder : recorderList.returnValueList) {
+			MethodDefinition callee = getAnalyzedMethodOfValue(recorder);
+			if (callee != null && map.get(callee).hasNullValue()) {
+				recorder.isNull = true;
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Return the method of the value of the recorder if the value is an analyzed method, or null
+	 */
+	MethodDefinition getAnalyzedMethodOfValue(MethodReturnValueRecorder recorder) {
+		if (recorder.value == null) return null;
+		if (recorder.value.getDefinitionKind() != NameDefinitionKind.NDK_METHOD) return null;
+		if (!map.containsKey(recorder.value)) return null;
+		return (MethodDefinition)recorder.value;
+	}
+	
+	/**
+	 * Compute the summaries of the given methods and all methods whose return values are returned by them directly or indirectly.
+	 * The summaries are computed wave by wave, i.e. the callees found in the summaries of a wave are the methods of the next wave.
+	 * Since the summary of a method does not depend on the summaries of other methods, the summaries of a wave are computed in 
+	 * parallel if the name table is frozen.
+	 */
+	void collectReturnValueRecordFromAllRelatedMethods(List<MethodDefinition> methodList) {
+		List<MethodDefinition> currentList = new ArrayList<MethodDefinition>();
+		for (MethodDefinition method : methodList) {
+			if (method.isConstructor()) continue;
+			if (isReturnPrimitiveValue(method)) continue;
+			TypeDefinition type = method.getEnclosingType();
+			if (!type.isDetailedType() || type.isAnonymous()) continue;
+			currentList.add(method);
+		}
 		
-		LinkedList<MethodDefinition> needAnalyzeMethodQueue = new LinkedList<MethodDefinition>();
-		needAnalyzeMethodQueue.add(method);
+		Set<MethodDefinition> visitedSet = new TreeSet<MethodDefinition>(currentList);
+		while (!currentList.isEmpty()) {
+			MethodReturnValueRecorderList[] summaries = collectSummaries(currentList);
+			List<MethodDefinition> nextList = new ArrayList<MethodDefinition>();
+			for (int index = 0; index < summaries.length; index++) {
+				if (summaries[index] == null) continue;
+				map.put(currentList.get(index), summaries[index]);
+				if (summaries[index].calleeList == null) continue;
+				for (MethodDefinition callee : summaries[index].calleeList) {
+					// This callee have not been analyzed, so add it to the next wave
+					if (!map.containsKey(callee) && visitedSet.add(callee)) nextList.add(callee);
+				}
+			}
+			currentList = nextList;
+		}
+	}
+	
+	/**
+	 * Compute the summaries of the methods, or reuse their summaries in the summary file. The summary of a method is null if the method
+	 * has no body.
+	 */
+	MethodReturnValueRecorderList[] collectSummaries(final List<MethodDefinition> methodList) {
+		final MethodReturnValueRecorderList[] summaries = new MethodReturnValueRecorderList[methodList.size()];
+		if (threadNumber <= 1 || methodList.size() <= 1 || !manager.isFrozen()) {
+			for (int index = 0; index < summaries.length; index++) summaries[index] = collectSummary(methodList.get(index), true);
+			return summaries;
+		}
 		
-		while (!needAnalyzeMethodQueue.isEmpty()) {
-			MethodDefinition currentMethod = needAnalyzeMethodQueue.removeFirst();
-			
-			// Collect return value for the currentMethod. If the method call other methods in its return statments, the list of all
-			// such callee methods will be returned, and all this callee should be analyzed further.
-			List<MethodDefinition> methodReturnCalleeList = collectReturnValueRecord(currentMethod);
-			if (methodReturnCalleeList != null) {
-				for (MethodDefinition callee : methodReturnCalleeList) {
-					if (!map.containsKey(callee)) {
-						// This callee have not been analyzed, so add it to the last of the queue.
-						needAnalyzeMethodQueue.addLast(callee);
+		// The ASTs are used by many threads, so they are released after all summaries of the wave are computed
+		ForkJoinPool pool = new ForkJoinPool(threadNumber);
+		try {
+			List<Callable<MethodReturnValueRecorderList>> taskList = new ArrayList<Callable<MethodReturnValueRecorderList>>(methodList.size());
+			for (final MethodDefinition method : methodList) {
+				taskList.add(new Callable<MethodReturnValueRecorderList>() {
+					@Override
+					public MethodReturnValueRecorderList call() {
+						return collectSummary(method, false);
 					}
+				});
+			}
+			List<Future<MethodReturnValueRecorderList>> futureList = pool.invokeAll(taskList);
+			for (int index = 0; index < summaries.length; index++) {
+				try {
+					summaries[index] = futureList.get(index).get();
+				} catch (ExecutionException exc) {
+					throw new AssertionError("Can not analyze method " + methodList.get(index).getUniqueId(), exc.getCause());
 				}
 			}
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			throw new AssertionError("The analysis of methods is interrupted!");
+		} finally {
+			pool.shutdownNow();
+		}
+		
+		Set<String> unitNameSet = new LinkedHashSet<String>();
+		for (MethodDefinition method : methodList) {
+			CompilationUnitScope unitScope = manager.getEnclosingCompilationUnitScope(method);
+			if (unitScope != null) unitNameSet.add(unitScope.getUnitName());
+		}
+		SourceCodeFileSet sourceCodeFileSet = manager.getSouceCodeFileSet();
+		for (String unitName : unitNameSet) {
+			sourceCodeFileSet.releaseAST(unitName);
+			sourceCodeFileSet.releaseFileContent(unitName);
+		}
+		return summaries;
+	}
+	
+	MethodReturnValueRecorderList collectSummary(MethodDefinition method, boolean releaseAST) {
+		if (summaryCache != null) {
+			MethodReturnValueRecorderList summary = summaryCache.getSummary(method);
+			if (summary != null) {
+				reusedSummaryNumber.incrementAndGet();
+				return summary;
+			}
 		}
+		return collectReturnValueRecord(method, releaseAST);
 	}
 
-	List<MethodDefinition> collectReturnValueRecord(MethodDefinition method) {
+	/**
+	 * Compute the summary of the method, i.e. the local judgements of its return values and the methods whose return values are returned
+	 * by it. Return null if the method has no body.
+	 */
+	MethodReturnValueRecorderList collectReturnValueRecord(MethodDefinition method, boolean releaseAST) {
 		NameTableASTBridge bridge = new NameTableASTBridge(manager);
 		SourceCodeFileSet sourceCodeFileSet = manager.getSouceCodeFileSet();
 
 		CompilationUnitScope unitScope = manager.getEnclosingCompilationUnitScope(method);
 		if (unitScope == null) return null;
 		String unitFileName = unitScope.getUnitName();
-		CompilationUnit astRoot = manager.getSouceCodeFileSet().findSourceCodeFileASTRootByFileUnitName(unitFileName);
-		if (astRoot == null) return null;
-		CompilationUnitRecorder unitRecorder = new CompilationUnitRecorder(unitFileName, astRoot);
 		
-		// Create a ControFlowGraph object
-		ControlFlowGraph graph = CFGCreator.create(manager, method);
+		// Get the analyzed ControFlowGraph object (with reach names) from the cache shared by the analyzers
+		ControlFlowGraph graph = MethodAnalysisCache.getDefaultCache().getAnalyzedCFG(manager, method);
 		if (graph == null) return null;
 		
-		ReachNameAnalyzer.setReachNameRecorder(graph);
-		ReachNameAnalyzer.reachNameAnalysis(manager, unitRecorder, method, graph);
 		NameReferenceCreator referenceCreator = new NameReferenceCreator(manager, true);
 		
 		List<GraphNode> nodeList = graph.getAllNodes();
@@ -313,12 +483,21 @@ public class MethodReturnValueAnalyzer {
 			}
 		}
 
-		// Put the method and its recorder list to map
-		map.put(method, recorderList);
-		
-		sourceCodeFileSet.releaseAST(unitFileName);
-		sourceCodeFileSet.releaseFileContent(unitFileName);
+		recorderList.calleeList = collectCalleeAndLastAssignment(recorderList, referenceCreator, bridge);
+		recorderList.finishSummary();
 		
+		if (releaseAST) {
+			sourceCodeFileSet.releaseAST(unitFileName);
+			sourceCodeFileSet.releaseFileContent(unitFileName);
+		}
+		return recorderList;
+	}
+	
+	/**
+	 * Find the last assignments of the return values, and return the methods whose return values are returned by the method. Return
+	 * null if a return value is assigned to be null finally, since the method may return null anyway. 
+	 */
+	List<MethodDefinition> collectCalleeAndLastAssignment(MethodReturnValueRecorderList recorderList, NameReferenceCreator referenceCreator, NameTableASTBridge bridge) {
 		// Check if the last assignment reference for the return value is binded to null
 		List<MethodDefinition> calleeList = new ArrayList<MethodDefinition>();
 		List<MethodReturnValueRecorder> extraRecordForPolynominalCalling = new ArrayList<MethodReturnValueRecorder>();
@@ -562,38 +741,3 @@ public class MethodReturnValueAnalyzer {
 	}
 	
 }
-
-class MethodReturnValueRecorder {
-	// The expression after the keyword "return"
-	NameReference expression = null;		
-	// The impossible value which the expression binded to. 
-	// For statement "return variable", the value will be the definition of the variable (reference) binded to;
-	// For statement "return methodCallExpression", the value with be the definition of the method definition.
-	NameDefinition value = null;
-	
-	// The last assignment reference to the above value
-	NameReference lastAssignment = null;
-	// If the value will be null possibly, the isNull will be true
-	boolean isNull = false;
-	
-	MethodReturnValueRecorder() {
-	}
-	
-	MethodReturnValueRecorder(MethodReturnValueRecorder other) {
-		expression = other.expression;
-		value = other.value;
-		lastAssignment = other.lastAssignment;
-		isNull = other.isNull;
-	}
-}
-
-class MethodReturnValueRecorderList {
-	List<MethodReturnValueRecorder> returnValueList = new ArrayList<MethodReturnValueRecorder>();
-	
-	boolean hasNullValue() {
-		for (MethodReturnValueRecorder returnValue : returnValueList) {
-			if (returnValue.isNull) return true;
-		}
-		return false;
-	}
-}
@@ -0,0 +1,81 @@
+package analyzer.nullCheck;
+
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameReference.NameReference;
+import nameTable.nameReference.NameReferenceKind;
+import nameTable.nameReference.referenceGroup.NameReferenceGroup;
+
+/**
+ * A return value of a method, i.e. the expression of a return statement and the definition binded to it, which is a part of the
+ * summary of the method (see MethodReturnValueRecorderList)
+ *
+ * @author Zhou Xiaocong
+ * @since 2017718
+ * @version 1.0
+ * @update 2017/10/06
+ * 		Move the class from MethodReturnValueAnalyzer.java to its own file
+ *
+ */
+class MethodReturnValueRecorder {
+	// The expression after the keyword "return"
+	NameReference expression = null;		
+	// The impossible value which the expression binded to. 
+	// For statement "return variable", the value will be the definition of the variable (reference) binded to;
+	// For statement "return methodCallExpression", the value with be the definition of the method definition.
+	NameDefinition value = null;
+	
+	// The last assignment reference to the above value
+	NameReference lastAssignment = null;
+	// If the value will be null possibly, the isNull will be true
+	boolean isNull = false;
+	// If the value will be null possibly judged by the method itself only (i.e. before refining by the callees)
+	boolean isLocalNull = false;
+	
+	// The descriptions of the above references and definitions, which are kept in the summary of the method, so the summary
+	// can be printed and saved without the ASTs of the method
+	String expressionText = null;
+	String expressionLocation = null;
+	String valueId = null;
+	String valueKind = null;
+	String lastAssignmentText = null;
+	String lastAssignmentLocation = null;
+	String lastAssignmentKind = null;
+	
+	MethodReturnValueRecorder() {
+	}
+	
+	MethodReturnValueRecorder(MethodReturnValueRecorder other) {
+		expression = other.expression;
+		value = other.value;
+		lastAssignment = other.lastAssignment;
+		isNull = other.isNull;
+		isLocalNull = other.isLocalNull;
+		expressionText = other.expressionText;
+		expressionLocation = other.expressionLocation;
+		valueId = other.valueId;
+		valueKind = other.valueKind;
+		lastAssignmentText = other.lastAssignmentText;
+		lastAssignmentLocation = other.lastAssignmentLocation;
+		lastAssignmentKind = other.lastAssignmentKind;
+	}
+	
+	void describe() {
+		if (expression != null) {
+			expressionText = String.valueOf(expression.toSimpleString());
+			expressionLocation = String.valueOf(expression.getLocation());
+		}
+		if (value != null) {
+			valueId = value.getUniqueId();
+			valueKind = value.getDefinitionKind().toString();
+		}
+		if (lastAssignment != null) {
+			lastAssignmentText = String.valueOf(lastAssignment.toSimpleString());
+			lastAssignmentLocation = String.valueOf(lastAssignment.getLocation());
+			NameReferenceKind kind = lastAssignment.getReferenceKind();
+			lastAssignmentKind = kind.toString();
+			if (kind == NameReferenceKind.NRK_GROUP) {
+				lastAssignmentKind = ((NameReferenceGroup)lastAssignment).getGroupKind().toString();
+			}
+		}
+	}
+}
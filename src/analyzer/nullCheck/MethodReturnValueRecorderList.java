@@ -0,0 +1,40 @@
+package analyzer.nullCheck;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nameTable.nameDefinition.MethodDefinition;
+
+/**
+ * The summary of a method computed by MethodReturnValueAnalyzer, i.e. its return values and the methods whose return values are
+ * returned by it. The summaries are saved and loaded by MethodReturnValueSummaryCache.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017718
+ * @version 1.0
+ * @update 2017/10/06
+ * 		Move the class from MethodReturnValueAnalyzer.java to its own file
+ *
+ */
+class MethodReturnValueRecorderList {
+	List<MethodReturnValueRecorder> returnValueList = new ArrayList<MethodReturnValueRecorder>();
+	// The methods whose return values are returned by the method, or null if the method may return null anyway
+	List<MethodDefinition> calleeList = null;
+	
+	/**
+	 * Keep the local judgements and the descriptions of the return values after the summary of the method is computed
+	 */
+	void finishSummary() {
+		for (MethodReturnValueRecorder returnValue : returnValueList) {
+			returnValue.isLocalNull = returnValue.isNull;
+			returnValue.describe();
+		}
+	}
+	
+	boolean hasNullValue() {
+		for (MethodReturnValueRecorder returnValue : returnValueList) {
+			if (returnValue.isNull) return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,485 @@
+package analyzer.nullCheck;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import graph.callGraph.CallGraph;
+import nameTable.NameTableManager;
+import nameTable.NameTableSnapshot;
+import nameTable.creator.NameReferenceCreator;
+import nameTable.nameDefinition.DetailedTypeDefinition;
+import nameTable.nameDefinition.ImportedTypeDefinition;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.NameDefinitionKind;
+import nameTable.nameDefinition.TypeDefinition;
+import nameTable.nameReference.MethodReference;
+import nameTable.nameReference.NameReference;
+import nameTable.nameReference.NameReferenceKind;
+import nameTable.nameReference.TypeReference;
+import nameTable.nameScope.CompilationUnitScope;
+import nameTable.visitor.NameDefinitionVisitor;
+import sourceCodeAST.SourceCodeFile;
+import sourceCodeAST.SourceCodeFileSet;
+import sourceCodeAST.SourceCodeLocation;
+
+/**
+ * A file of the summaries of methods computed by MethodReturnValueAnalyzer, so a later run can reuse the summaries of the methods which
+ * have not been changed. A summary is the list of the return value recorders of a method before the judgements are refined by the
+ * callees, i.e. the local judgements, the descriptions of the expressions, values and last assignments, and the methods whose return
+ * values are returned by the method.
+ * <p>The file has the content hashes of all compilation units of the name table, and the names of the methods which may be binded to a
+ * call in each unit, i.e. the methods defined in the unit and the methods of the super types of its types. Each summary has the units
+ * it depends on (i.e. the unit of the method, and the units of its values and callees), the callees of the method in the call graph
+ * (see CallGraph), and the names of the methods called by it. A summary is reused only if the units it depends on have the same hashes
+ * as when it was saved, and if the method calls a method with a name of the changed, new or removed units, its calls are resolved again
+ * in its own unit, and it must have the same callees as before. So a summary is not reused if a new method overriding one of its callees
+ * is added in another unit, but the whole-program call graph is never created to check the summaries.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017104
+ * @version 1.0
+ * @update 2017/10/07
+ * 		Check the callees of the summaries against the changed units only, rather than the whole-program call graph
+ *
+ */
+class MethodReturnValueSummaryCache {
+	private static final int CACHE_MAGIC = 0x4A4D5253;	// "JMRS"
+	private static final int CACHE_VERSION = 2;
+
+	private static final int UNIT_UNKNOWN = 0;
+	private static final int UNIT_UNCHANGED = 1;
+	private static final int UNIT_CHANGED = 2;
+
+	private NameTableManager manager = null;
+
+	private String[] unitNames = null;
+	private byte[][] unitHashes = null;
+	private String[][] unitMethodNames = null;
+	private int[] unitStates = null;				// Whether the units are changed, which are checked when they are used firstly
+	private Map<String, SummaryEntry> entryMap = null;
+
+	// The names of the methods in the changed, new or removed units, which are collected when a summary is asked for firstly
+	private Set<String> changedMethodNameSet = null;
+	// The calls of the methods in the units whose calls are resolved again, and the calls of the reused summaries
+	private Map<String, Map<String, CallEntry>> unitCallMap = new HashMap<String, Map<String, CallEntry>>();
+	private Map<String, CallEntry> reusedCallMap = new HashMap<String, CallEntry>();
+
+	private MethodReturnValueSummaryCache(NameTableManager manager) {
+		this.manager = manager;
+	}
+
+	/**
+	 * Return the summary of the method saved in the file, or null if there is no summary of the method or the summary can not be reused
+	 */
+	synchronized MethodReturnValueRecorderList getSummary(MethodDefinition method) {
+		SummaryEntry entry = entryMap.get(method.getUniqueId());
+		if (entry == null) return null;
+		for (int unit : entry.units) {
+			if (!isUnchangedUnit(unit)) return null;
+		}
+		if (changedMethodNameSet == null) collectChangedMethodNames();
+		if (entry.calls.isChangedBy(changedMethodNameSet)) {
+			CallEntry calls = getUnitCalls(manager, unitCallMap, method);
+			if (calls == null || !Arrays.equals(entry.calls.calleeIds, calls.calleeIds)) return null;
+		}
+
+		MethodReturnValueRecorderList recorderList = new MethodReturnValueRecorderList();
+		for (RecorderEntry recorderEntry : entry.recorders) {
+			MethodReturnValueRecorder recorder = new MethodReturnValueRecorder();
+			recorder.isNull = recorder.isLocalNull = recorderEntry.isLocalNull;
+			recorder.expressionText = recorderEntry.texts[0];
+			recorder.expressionLocation = recorderEntry.texts[1];
+			recorder.valueId = recorderEntry.texts[2];
+			recorder.valueKind = recorderEntry.texts[3];
+			recorder.lastAssignmentText = recorderEntry.texts[4];
+			recorder.lastAssignmentLocation = recorderEntry.texts[5];
+			recorder.lastAssignmentKind = recorderEntry.texts[6];
+			// Only the methods returned as values are needed to refine the judgements
+			if (NameDefinitionKind.NDK_METHOD.toString().equals(recorder.valueKind)) {
+				recorder.value = CallGraph.findMethod(manager, recorder.valueId);
+				if (recorder.value == null) return null;
+			}
+			recorderList.returnValueList.add(recorder);
+		}
+		if (entry.calleeIds != null) {
+			recorderList.calleeList = new ArrayList<MethodDefinition>(entry.calleeIds.length);
+			for (String calleeId : entry.calleeIds) {
+				MethodDefinition callee = CallGraph.findMethod(manager, calleeId);
+				if (callee == null) return null;
+				recorderList.calleeList.add(callee);
+			}
+		}
+		reusedCallMap.put(method.getUniqueId(), entry.calls);
+		return recorderList;
+	}
+
+	/**
+	 * Load the summaries from the file. Return null if the file does not exist or it is not a valid summary file.
+	 */
+	static MethodReturnValueSummaryCache load(NameTableManager manager, String cacheFileName) throws IOException {
+		File cacheFile = new File(cacheFileName);
+		if (!cacheFile.isFile()) return null;
+
+		RandomAccessFile file = new RandomAccessFile(cacheFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 8) return null;
+			if (buffer.getInt() != CACHE_MAGIC || buffer.getInt() != CACHE_VERSION) return null;
+
+			MethodReturnValueSummaryCache cache = new MethodReturnValueSummaryCache(manager);
+			int unitNumber = buffer.getInt();
+			cache.unitNames = new String[unitNumber];
+			cache.unitHashes = new byte[unitNumber][];
+			cache.unitMethodNames = new String[unitNumber][];
+			cache.unitStates = new int[unitNumber];
+			for (int unit = 0; unit < unitNumber; unit++) {
+				cache.unitNames[unit] = NameTableSnapshot.readString(buffer);
+				cache.unitHashes[unit] = new byte[buffer.getInt()];
+				buffer.get(cache.unitHashes[unit]);
+				cache.unitMethodNames[unit] = readStrings(buffer);
+			}
+
+			int entryNumber = buffer.getInt();
+			cache.entryMap = new HashMap<String, SummaryEntry>(entryNumber * 2);
+			for (int index = 0; index < entryNumber; index++) {
+				SummaryEntry entry = new SummaryEntry();
+				String methodId = NameTableSnapshot.readString(buffer);
+				entry.units = new int[buffer.getInt()];
+				for (int position = 0; position < entry.units.length; position++) entry.units[position] = buffer.getInt();
+				String[] graphCalleeIds = readStrings(buffer);
+				entry.calls = new CallEntry(graphCalleeIds, readStrings(buffer));
+				entry.calleeIds = readStrings(buffer);
+				entry.recorders = new RecorderEntry[buffer.getInt()];
+				for (int position = 0; position < entry.recorders.length; position++) {
+					RecorderEntry recorderEntry = new RecorderEntry();
+					recorderEntry.isLocalNull = buffer.get() != 0;
+					for (int text = 0; text < recorderEntry.texts.length; text++) recorderEntry.texts[text] = readNullableString(buffer);
+					entry.recorders[position] = recorderEntry;
+				}
+				cache.entryMap.put(methodId, entry);
+			}
+			return cache;
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Save the summaries of the methods in the map to the file. The calls of the summaries reused from the loaded cache (which may be
+	 * null) are saved as they are, and the calls of the other methods are resolved in their units.
+	 */
+	static void save(NameTableManager manager, MethodReturnValueSummaryCache loadedCache, Map<MethodDefinition, MethodReturnValueRecorderList> summaryMap, String cacheFileName) throws IOException {
+		SourceCodeFileSet codeFileSet = manager.getSouceCodeFileSet();
+		List<CompilationUnitScope> unitScopeList = manager.getAllCompilationUnitScopes();
+		if (unitScopeList == null) unitScopeList = new ArrayList<CompilationUnitScope>();
+		Map<String, Integer> unitIndexMap = new HashMap<String, Integer>();
+		for (CompilationUnitScope unitScope : unitScopeList) unitIndexMap.put(unitScope.getUnitName(), unitIndexMap.size());
+
+		Map<String, Map<String, CallEntry>> unitCallMap = new HashMap<String, Map<String, CallEntry>>();
+		List<int[]> unitsList = new ArrayList<int[]>();
+		List<CallEntry> callsList = new ArrayList<CallEntry>();
+		for (Map.Entry<MethodDefinition, MethodReturnValueRecorderList> entry : summaryMap.entrySet()) {
+			List<String> unitList = new ArrayList<String>();
+			addUnitOfDefinition(unitList, entry.getKey());
+			for (MethodReturnValueRecorder recorder : entry.getValue().returnValueList) addUnitOfDefinition(unitList, recorder.value);
+			if (entry.getValue().calleeList != null) {
+				for (MethodDefinition callee : entry.getValue().calleeList) addUnitOfDefinition(unitList, callee);
+			}
+
+			List<Integer> units = new ArrayList<Integer>(unitList.size());
+			for (String unitName : unitList) {
+				Integer unit = unitIndexMap.get(unitName);
+				if (unit != null) units.add(unit);
+			}
+			int[] unitArray = new int[units.size()];
+			for (int position = 0; position < unitArray.length; position++) unitArray[position] = units.get(position);
+			unitsList.add(unitArray);
+
+			CallEntry calls = null;
+			if (loadedCache != null) calls = loadedCache.reusedCallMap.get(entry.getKey().getUniqueId());
+			if (calls == null) calls = getUnitCalls(manager, unitCallMap, entry.getKey());
+			callsList.add(calls);
+		}
+
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFileName), 1 << 16));
+		try {
+			output.writeInt(CACHE_MAGIC);
+			output.writeInt(CACHE_VERSION);
+			output.writeInt(unitScopeList.size());
+			for (CompilationUnitScope unitScope : unitScopeList) {
+				SourceCodeFile codeFile = codeFileSet.findSourceCodeFileByFileUnitName(unitScope.getUnitName());
+				byte[] hash = (codeFile == null) ? new byte[0] : NameTableSnapshot.getContentHash(codeFile.getFileHandle());
+				NameTableSnapshot.writeString(output, unitScope.getUnitName());
+				output.writeInt(hash.length);
+				output.write(hash);
+				writeStrings(output, getUnitMethodNames(unitScope));
+			}
+
+			output.writeInt(summaryMap.size());
+			int index = 0;
+			for (Map.Entry<MethodDefinition, MethodReturnValueRecorderList> entry : summaryMap.entrySet()) {
+				MethodReturnValueRecorderList recorderList = entry.getValue();
+				NameTableSnapshot.writeString(output, entry.getKey().getUniqueId());
+				int[] units = unitsList.get(index);
+				output.writeInt(units.length);
+				for (int unit : units) output.writeInt(unit);
+				CallEntry calls = callsList.get(index);
+				writeStrings(output, (calls == null) ? null : calls.calleeIds);
+				writeStrings(output, (calls == null) ? null : calls.calledNames);
+				index++;
+
+				String[] calleeIds = null;
+				if (recorderList.calleeList != null) {
+					calleeIds = new String[recorderList.calleeList.size()];
+					for (int position = 0; position < calleeIds.length; position++) calleeIds[position] = recorderList.calleeList.get(position).getUniqueId();
+				}
+				writeStrings(output, calleeIds);
+
+				output.writeInt(recorderList.returnValueList.size());
+				for (MethodReturnValueRecorder recorder : recorderList.returnValueList) {
+					output.writeByte(recorder.isLocalNull ? 1 : 0);
+					writeNullableString(output, recorder.expressionText);
+					writeNullableString(output, recorder.expressionLocation);
+					writeNullableString(output, recorder.valueId);
+					writeNullableString(output, recorder.valueKind);
+					writeNullableString(output, recorder.lastAssignmentText);
+					writeNullableString(output, recorder.lastAssignmentLocation);
+					writeNullableString(output, recorder.lastAssignmentKind);
+				}
+			}
+		} finally {
+			output.close();
+		}
+	}
+
+	private boolean isUnchangedUnit(int unit) {
+		if (unitStates[unit] == UNIT_UNKNOWN) {
+			unitStates[unit] = UNIT_CHANGED;
+			SourceCodeFile codeFile = manager.getSouceCodeFileSet().findSourceCodeFileByFileUnitName(unitNames[unit]);
+			if (codeFile != null) {
+				try {
+					if (Arrays.equals(unitHashes[unit], NameTableSnapshot.getContentHash(codeFile.getFileHandle()))) unitStates[unit] = UNIT_UNCHANGED;
+				} catch (IOException exc) {
+					// The unit can not be read, so it is regarded as changed
+				}
+			}
+		}
+		return unitStates[unit] == UNIT_UNCHANGED;
+	}
+
+	/**
+	 * Collect the names of the methods which may be binded to a call in the changed or removed units when the summaries were saved,
+	 * and in the changed or new units now. Only the hashes of the units are computed, and no unit is parsed.
+	 */
+	private void collectChangedMethodNames() {
+		changedMethodNameSet = new HashSet<String>();
+		Map<String, Integer> unitIndexMap = new HashMap<String, Integer>();
+		for (int unit = 0; unit < unitNames.length; unit++) unitIndexMap.put(unitNames[unit], unit);
+
+		List<CompilationUnitScope> unitScopeList = manager.getAllCompilationUnitScopes();
+		if (unitScopeList != null) {
+			for (CompilationUnitScope unitScope : unitScopeList) {
+				Integer unit = unitIndexMap.remove(unitScope.getUnitName());
+				if (unit != null && isUnchangedUnit(unit)) continue;
+				if (unit != null && unitMethodNames[unit] != null) changedMethodNameSet.addAll(Arrays.asList(unitMethodNames[unit]));
+				changedMethodNameSet.addAll(Arrays.asList(getUnitMethodNames(unitScope)));
+			}
+		}
+		// The units left in the map have been removed
+		for (int unit : unitIndexMap.values()) {
+			if (unitMethodNames[unit] != null) changedMethodNameSet.addAll(Arrays.asList(unitMethodNames[unit]));
+		}
+	}
+
+	/**
+	 * Return the sorted names of the methods defined in the unit and the methods of the super types of the types in the unit, i.e. the
+	 * methods whose calls may be binded to other methods if the unit is changed
+	 */
+	private static String[] getUnitMethodNames(CompilationUnitScope unitScope) {
+		Set<String> nameSet = new TreeSet<String>();
+		Set<TypeDefinition> visitedTypeSet = Collections.newSetFromMap(new IdentityHashMap<TypeDefinition, Boolean>());
+		NameDefinitionVisitor visitor = new NameDefinitionVisitor();
+		unitScope.accept(visitor);
+		List<NameDefinition> definitionList = visitor.getResult();
+		if (definitionList != null) {
+			for (NameDefinition definition : definitionList) {
+				if (definition.getDefinitionKind() == NameDefinitionKind.NDK_METHOD) nameSet.add(definition.getSimpleName());
+				else if (definition.getDefinitionKind() == NameDefinitionKind.NDK_TYPE) collectSuperTypeMethodNames((TypeDefinition)definition, nameSet, visitedTypeSet);
+			}
+		}
+		return nameSet.toArray(new String[nameSet.size()]);
+	}
+
+	private static void collectSuperTypeMethodNames(TypeDefinition type, Set<String> nameSet, Set<TypeDefinition> visitedTypeSet) {
+		List<TypeReference> superList = type.getSuperList();
+		if (superList == null) return;
+		for (TypeReference superType : superList) {
+			if (!superType.isResolved()) superType.resolveBinding();
+			NameDefinition superDefinition = superType.getDefinition();
+			if (superDefinition == null || superDefinition.getDefinitionKind() != NameDefinitionKind.NDK_TYPE) continue;
+
+			TypeDefinition superTypeDefinition = (TypeDefinition)superDefinition;
+			if (!visitedTypeSet.add(superTypeDefinition)) continue;
+			List<MethodDefinition> methodList = null;
+			if (superTypeDefinition.isDetailedType()) methodList = ((DetailedTypeDefinition)superTypeDefinition).getMethodList();
+			else if (superTypeDefinition.isImportedType()) methodList = ((ImportedTypeDefinition)superTypeDefinition).getMethodList();
+			if (methodList != null) {
+				for (MethodDefinition method : methodList) nameSet.add(method.getSimpleName());
+			}
+			collectSuperTypeMethodNames(superTypeDefinition, nameSet, visitedTypeSet);
+		}
+	}
+
+	/**
+	 * Return the calls of the method, which are found by resolving the references of its unit. The calls of all methods in the unit
+	 * are stored in the map, so each unit is resolved at most once. Return null if the unit of the method is not found.
+	 */
+	private static CallEntry getUnitCalls(NameTableManager manager, Map<String, Map<String, CallEntry>> unitCallMap, MethodDefinition method) {
+		CompilationUnitScope unitScope = manager.getEnclosingCompilationUnitScope(method);
+		if (unitScope == null) return null;
+		Map<String, CallEntry> callMap = unitCallMap.get(unitScope.getUnitName());
+		if (callMap == null) {
+			callMap = resolveUnitCalls(manager, unitScope);
+			unitCallMap.put(unitScope.getUnitName(), callMap);
+		}
+		CallEntry result = callMap.get(method.getUniqueId());
+		if (result == null) result = new CallEntry(new String[0], new String[0]);
+		return result;
+	}
+
+	/**
+	 * Create and resolve the references of the unit, and return the calls of the methods in the unit. The callees of a method are the
+	 * same as its callees in the call graph (see CallGraph.getCalledMethods()).
+	 */
+	private static Map<String, CallEntry> resolveUnitCalls(NameTableManager manager, CompilationUnitScope unitScope) {
+		Map<String, Set<String>> calleeIdMap = new HashMap<String, Set<String>>();
+		Map<String, Set<String>> calledNameMap = new HashMap<String, Set<String>>();
+		NameReferenceCreator referenceCreator = new NameReferenceCreator(manager);
+		List<NameReference> referenceList = referenceCreator.createReferences(unitScope);
+		for (NameReference reference : referenceList) {
+			reference.resolveBinding();
+			for (NameReference leafReference : reference.getReferencesAtLeaf()) {
+				if (leafReference.getReferenceKind() != NameReferenceKind.NRK_METHOD) continue;
+				MethodDefinition caller = manager.getEnclosingMethodDefinition(leafReference);
+				if (caller == null) continue;
+
+				Set<String> calleeIdSet = calleeIdMap.get(caller.getUniqueId());
+				Set<String> calledNameSet = calledNameMap.get(caller.getUniqueId());
+				if (calleeIdSet == null) {
+					calleeIdSet = new TreeSet<String>();
+					calleeIdMap.put(caller.getUniqueId(), calleeIdSet);
+					calledNameSet = new TreeSet<String>();
+					calledNameMap.put(caller.getUniqueId(), calledNameSet);
+				}
+				calledNameSet.add(leafReference.getName());
+				for (MethodDefinition callee : CallGraph.getCalledMethods((MethodReference)leafReference)) {
+					calleeIdSet.add(callee.getUniqueId());
+					calledNameSet.add(callee.getSimpleName());
+				}
+			}
+		}
+		SourceCodeFileSet codeFileSet = manager.getSouceCodeFileSet();
+		codeFileSet.releaseAST(unitScope.getUnitName());
+		codeFileSet.releaseFileContent(unitScope.getUnitName());
+
+		Map<String, CallEntry> result = new HashMap<String, CallEntry>();
+		for (Map.Entry<String, Set<String>> entry : calleeIdMap.entrySet()) {
+			Set<String> calledNameSet = calledNameMap.get(entry.getKey());
+			result.put(entry.getKey(), new CallEntry(entry.getValue().toArray(new String[entry.getValue().size()]), calledNameSet.toArray(new String[calledNameSet.size()])));
+		}
+		return result;
+	}
+
+	private static void addUnitOfDefinition(List<String> unitList, NameDefinition definition) {
+		if (definition == null) return;
+		SourceCodeLocation location = definition.getLocation();
+		if (location == null || location.getFileUnitName() == null) return;
+		if (!unitList.contains(location.getFileUnitName())) unitList.add(location.getFileUnitName());
+	}
+
+	private static void writeStrings(DataOutputStream output, String[] strings) throws IOException {
+		if (strings == null) {
+			output.writeInt(-1);
+			return;
+		}
+		output.writeInt(strings.length);
+		for (String string : strings) NameTableSnapshot.writeString(output, string);
+	}
+
+	private static String[] readStrings(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) return null;
+		String[] strings = new String[length];
+		for (int index = 0; index < length; index++) strings[index] = NameTableSnapshot.readString(buffer);
+		return strings;
+	}
+
+	private static void writeNullableString(DataOutputStream output, String string) throws IOException {
+		output.writeBoolean(string != null);
+		if (string != null) NameTableSnapshot.writeString(output, string);
+	}
+
+	private static String readNullableString(ByteBuffer buffer) {
+		if (buffer.get() == 0) return null;
+		return NameTableSnapshot.readString(buffer);
+	}
+
+	/**
+	 * A summary in the file: the indexes of the units it depends on, the calls of the method and the summary
+	 */
+	static class SummaryEntry {
+		int[] units = null;
+		CallEntry calls = null;
+		String[] calleeIds = null;
+		RecorderEntry[] recorders = null;
+	}
+
+	/**
+	 * The calls of a method: the sorted ids of its callees in the call graph, and the sorted names of the method references in it and
+	 * of its callees (including the references which are not binded to any method)
+	 */
+	static class CallEntry {
+		String[] calleeIds = null;
+		String[] calledNames = null;
+
+		CallEntry(String[] calleeIds, String[] calledNames) {
+			this.calleeIds = calleeIds;
+			this.calledNames = calledNames;
+		}
+
+		/**
+		 * Test if the calls may be binded to other methods, i.e. some of the called names are the names of the changed methods
+		 */
+		boolean isChangedBy(Set<String> changedMethodNameSet) {
+			if (calleeIds == null || calledNames == null) return true;
+			for (String name : calledNames) {
+				if (changedMethodNameSet.contains(name)) return true;
+			}
+			return false;
+		}
+	}
+
+	static class RecorderEntry {
+		boolean isLocalNull = false;
+		String[] texts = new String[7];
+	}
+}
@@ -21,11 +21,17 @@ import java.util.List;
  * 		Add methods to calculate the degree of node 
  * @update 2014/1/26
  * 		Modify this abstract class to general class
+ * @update 2017/09/14
+ * 		Serve adjacentToNode(), adjacentFromNode(), the degree methods, hasEdge() and findById() from a GraphAdjacencyIndex, 
+ * 		which is created lazily and dropped when the nodes or edges are changed
  */
 public class AbstractGraph {
 	protected List<GraphNode> nodes = null;
 	protected List<GraphEdge> edges = null;
 	
+	// The adjacency index of the graph, it is created when it is required, and dropped when the nodes or edges are changed
+	protected GraphAdjacencyIndex adjacencyIndex = null;
+	
 	protected String id = null;
 	
 	public AbstractGraph(String id) {
@@ -44,6 +50,7 @@ public class AbstractGraph {
 	public void setAllNodes(ArrayList<GraphNode> allNodes) {
 		this.nodes = new ArrayList<GraphNode>(allNodes.size());
 		for (GraphNode node: allNodes) this.nodes.add(node);
+		adjacencyIndex = null;
 	}
 	
 	/**
@@ -54,6 +61,7 @@ public class AbstractGraph {
 	public void setAllEdges(ArrayList<GraphEdge> allEdges) {
 		this.edges = new ArrayList<GraphEdge>(allEdges.size());
 		for (GraphEdge node: allEdges) this.edges.add(node);
+		adjacencyIndex = null;
 	}
 
 	/**
@@ -65,6 +73,7 @@ public class AbstractGraph {
 		if (nodes == null) nodes = new ArrayList<GraphNode>(10);
 		if (nodes.contains(node)) return;
 		nodes.add(node);
+		adjacencyIndex = null;
 	}
 
 	/**
@@ -73,6 +82,19 @@ public class AbstractGraph {
 	public void addEdge(GraphEdge edge) {
 		if (edges == null) edges = new ArrayList<GraphEdge>(10);
 		edges.add(edge);
+		adjacencyIndex = null;
+	}
+	
+	/**
+	 * Return the adjacency index of the current nodes and edges of the graph. The index is created when it is required, and it is 
+	 * created again if the nodes or edges have been changed by the methods of the graph, or the sizes of the lists returned by 
+	 * getAllNodes() and getEdges() have been changed.
+	 */
+	public GraphAdjacencyIndex getAdjacencyIndex() {
+		if (adjacencyIndex == null || !adjacencyIndex.isCreatedFrom(nodes, edges)) {
+			adjacencyIndex = new GraphAdjacencyIndex(nodes, edges);
+		}
+		return adjacencyIndex;
 	}
 	
 	
@@ -90,8 +112,14 @@ public class AbstractGraph {
 	 */
 	public boolean hasEdge(GraphEdge edge) {
 		if (edges == null) return false;
-		if (edges.contains(edge)) return true;
-		else return false;
+		GraphAdjacencyIndex index = getAdjacencyIndex();
+		int from = index.indexOf(edge.getStartNode());
+		if (from < 0) return false;
+		int degree = index.getOutDegree(from);
+		for (int k = 0; k < degree; k++) {
+			if (index.getEdge(index.getOutEdge(from, k)).equals(edge)) return true;
+		}
+		return false;
 	}
 	
 	/**
@@ -99,8 +127,13 @@ public class AbstractGraph {
 	 */
 	public boolean hasEdge(GraphNode from, GraphNode to) {
 		if (edges == null) return false;
-		for (GraphEdge edge : edges) {
-			if (edge.getStartNode().equals(from) && edge.getEndNode().equals(to)) return true;
+		GraphAdjacencyIndex index = getAdjacencyIndex();
+		int fromIndex = index.indexOf(from);
+		int toIndex = index.indexOf(to);
+		if (fromIndex < 0 || toIndex < 0) return false;
+		int degree = index.getOutDegree(fromIndex);
+		for (int k = 0; k < degree; k++) {
+			if (index.getSuccessor(fromIndex, k) == toIndex) return true;
 		}
 		return false;
 	}
@@ -110,10 +143,7 @@ public class AbstractGraph {
 	 */
 	public GraphNode findById(String id) {
 		if (nodes == null) return null;
-		for (GraphNode node: nodes) {
-			if (id.equals(node.getId())) return node;
-		}
-		return null;
+		return getAdjacencyIndex().findById(id);
 	}
 
 	/**
@@ -132,10 +162,14 @@ public class AbstractGraph {
 	 * @return All nodes that are adjacent to the node, i.e. there is an edge from it to the given node. 
 	 */
 	public List<GraphNode> adjacentToNode(GraphNode node) {
-		ArrayList<GraphNode> result = new ArrayList<GraphNode>();
-		if (edges == null) return result;
-		for (GraphEdge edge: edges) {
-			if (edge.getEndNode().equals(node)) result.add(edge.getStartNode());
+		if (edges == null) return new ArrayList<GraphNode>();
+		GraphAdjacencyIndex index = getAdjacencyIndex();
+		int nodeIndex = index.indexOf(node);
+		if (nodeIndex < 0) return new ArrayList<GraphNode>();
+		int degree = index.getInDegree(nodeIndex);
+		ArrayList<GraphNode> result = new ArrayList<GraphNode>(degree);
+		for (int k = 0; k < degree; k++) {
+			result.add(index.getEdge(index.getInEdge(nodeIndex, k)).getStartNode());
 		}
 		return result;
 	}
@@ -145,10 +179,14 @@ public class AbstractGraph {
 	 * @return All nodes that are adjacent from the node, i.e. there is an edge from the given node to it. 
 	 */
 	public List<GraphNode> adjacentFromNode(GraphNode node) {
-		ArrayList<GraphNode> result = new ArrayList<GraphNode>();
-		if (edges == null) return result;
-		for (GraphEdge edge: edges) {
-			if (edge.getStartNode().equals(node)) result.add(edge.getEndNode());
+		if (edges == null) return new ArrayList<GraphNode>();
+		GraphAdjacencyIndex index = getAdjacencyIndex();
+		int nodeIndex = index.indexOf(node);
+		if (nodeIndex < 0) return new ArrayList<GraphNode>();
+		int degree = index.getOutDegree(nodeIndex);
+		ArrayList<GraphNode> result = new ArrayList<GraphNode>(degree);
+		for (int k = 0; k < degree; k++) {
+			result.add(index.getEdge(index.getOutEdge(nodeIndex, k)).getEndNode());
 		}
 		return result;
 	}
@@ -160,9 +198,25 @@ public class AbstractGraph {
 	public List<GraphNode> adjacentNodes(GraphNode node) {
 		ArrayList<GraphNode> result = new ArrayList<GraphNode>();
 		if (edges == null) return result;
-		for (GraphEdge edge: edges) {
-			if (edge.getStartNode().equals(node)) result.add(edge.getEndNode());
-			if (edge.getEndNode().equals(node)) result.add(edge.getStartNode());
+		GraphAdjacencyIndex index = getAdjacencyIndex();
+		int nodeIndex = index.indexOf(node);
+		if (nodeIndex < 0) return result;
+		
+		// Merge the edges from and to the node in the order of the edge list
+		int outDegree = index.getOutDegree(nodeIndex);
+		int inDegree = index.getInDegree(nodeIndex);
+		int i = 0, j = 0;
+		while (i < outDegree || j < inDegree) {
+			int outEdge = (i < outDegree) ? index.getOutEdge(nodeIndex, i) : Integer.MAX_VALUE;
+			int inEdge = (j < inDegree) ? index.getInEdge(nodeIndex, j) : Integer.MAX_VALUE;
+			if (outEdge <= inEdge) {
+				result.add(index.getEdge(outEdge).getEndNode());
+				i++;
+			}
+			if (inEdge <= outEdge) {
+				result.add(index.getEdge(inEdge).getStartNode());
+				j++;
+			}
 		}
 		return result;
 	}
@@ -188,28 +242,32 @@ public class AbstractGraph {
 	
 	
 	public int getInDegree(GraphNode node) {
-		int degree = 0;
-		if (edges == null) return degree;
-		for (GraphEdge edge: edges) {
-			if (edge.getEndNode().equals(node)) degree++;
-		}
-		return degree;
+		if (edges == null) return 0;
+		GraphAdjacencyIndex index = getAdjacencyIndex();
+		int nodeIndex = index.indexOf(node);
+		if (nodeIndex < 0) return 0;
+		return index.getInDegree(nodeIndex);
 	}
 	
 	public int getOutDegree(GraphNode node) {
-		int degree = 0;
-		if (edges == null) return degree;
-		for (GraphEdge edge: edges) {
-			if (edge.getStartNode().equals(node)) degree++;
-		}
-		return degree;
+		if (edges == null) return 0;
+		GraphAdjacencyIndex index = getAdjacencyIndex();
+		int nodeIndex = index.indexOf(node);
+		if (nodeIndex < 0) return 0;
+		return index.getOutDegree(nodeIndex);
 	}
 	
 	public int getDegree(GraphNode node) {
-		int degree = 0;
-		if (edges == null) return degree;
-		for (GraphEdge edge: edges) {
-			if (edge.getStartNode().equals(node) || edge.getEndNode().equals(node)) degree++;
+		if (edges == null) return 0;
+		GraphAdjacencyIndex index = getAdjacencyIndex();
+		int nodeIndex = index.indexOf(node);
+		if (nodeIndex < 0) return 0;
+		
+		// A loop edge on the node is counted only once
+		int outDegree = index.getOutDegree(nodeIndex);
+		int degree = outDegree + index.getInDegree(nodeIndex);
+		for (int k = 0; k < outDegree; k++) {
+			if (index.getSuccessor(nodeIndex, k) == nodeIndex) degree--;
 		}
 		return degree;
 	}
@@ -219,17 +277,16 @@ public class AbstractGraph {
 		if (nodeSize <= 0) return null;
 		
 		int[][] matrix = new int[nodeSize][nodeSize];
-		for (int i = 0; i < nodeSize; i++) 
-			for (int j = 0; j < nodeSize; j++) matrix[i][j] = 0;
+		if (edges == null) return matrix;
 		
-		for (GraphEdge edge : edges) {
-			GraphNode startNode = edge.getStartNode();
-			GraphNode endNode = edge.getEndNode();
-			
-			int startIndex = nodes.indexOf(startNode);
-			int endIndex = nodes.indexOf(endNode);
-			
-			matrix[startIndex][endIndex] = 1;
+		GraphAdjacencyIndex index = getAdjacencyIndex();
+		for (int startIndex = 0; startIndex < nodeSize; startIndex++) {
+			int degree = index.getOutDegree(startIndex);
+			for (int k = 0; k < degree; k++) {
+				int endIndex = index.getSuccessor(startIndex, k);
+				// The end of the edge which is not in the node list has no row and column in the matrix
+				if (endIndex < nodeSize) matrix[startIndex][endIndex] = 1;
+			}
 		}
 		return matrix;
 	}
@@ -287,6 +344,7 @@ public class AbstractGraph {
 	 */
 	public void setNodes(List<GraphNode> nodes) {
 		this.nodes = nodes;
+		adjacencyIndex = null;
 	}
 
 	/**
@@ -301,6 +359,7 @@ public class AbstractGraph {
 	 */
 	public void setEdges(List<GraphEdge> edges) {
 		this.edges = edges;
+		adjacencyIndex = null;
 	}
 	
 }
@@ -0,0 +1,202 @@
+package graph.basic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the nodes and edges of a graph. Each node is numbered by its position in the node list of the graph, and the
+ * successors and predecessors of all nodes are stored in compressed sparse row (CSR) form, i.e. the successors of the node
+ * with number i are successors[successorStart[i]] ... successors[successorStart[i+1] - 1], in the order of the edge list.
+ * <p>The nodes which are the end of some edges but are not in the node list are numbered after the nodes in the list. If there are
+ * equal nodes in the node list, all edges are attached to the first one, which is the same as List.indexOf().
+ * <p>The index is a snapshot of the graph. AbstractGraph creates it lazily, and drops it when the nodes or edges are changed.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017914
+ * @version 1.0
+ *
+ */
+public class GraphAdjacencyIndex {
+	// The node list and edge list from which the index is created, and their sizes at that time
+	private List<GraphNode> nodeList = null;
+	private List<GraphEdge> edgeList = null;
+	private int nodeListSize = 0;
+	private int edgeListSize = 0;
+
+	private GraphNode[] nodes = null;
+	private Map<GraphNode, Integer> nodeIndexMap = null;
+	private Map<String, GraphNode> nodeIdMap = null;
+
+	private int[] successorStart = null;
+	private int[] successors = null;
+	private int[] successorEdges = null;
+	private int[] predecessorStart = null;
+	private int[] predecessors = null;
+	private int[] predecessorEdges = null;
+
+	public GraphAdjacencyIndex(List<GraphNode> nodeList, List<GraphEdge> edgeList) {
+		this.nodeList = nodeList;
+		this.edgeList = edgeList;
+		nodeListSize = (nodeList == null) ? 0 : nodeList.size();
+		edgeListSize = (edgeList == null) ? 0 : edgeList.size();
+
+		// 1. Number the nodes in the node list, and then the ends of the edges which are not in the node list
+		nodeIndexMap = new HashMap<GraphNode, Integer>(nodeListSize * 2);
+		nodeIdMap = new HashMap<String, GraphNode>(nodeListSize * 2);
+		int nodeNumber = nodeListSize;
+		for (int index = 0; index < nodeListSize; index++) {
+			GraphNode node = nodeList.get(index);
+			if (!nodeIndexMap.containsKey(node)) nodeIndexMap.put(node, index);
+			String id = node.getId();
+			if (id != null && !nodeIdMap.containsKey(id)) nodeIdMap.put(id, node);
+		}
+		int[] edgeStarts = new int[edgeListSize];
+		int[] edgeEnds = new int[edgeListSize];
+		List<GraphNode> extraNodeList = null;
+		for (int index = 0; index < edgeListSize; index++) {
+			GraphEdge edge = edgeList.get(index);
+			edgeStarts[index] = numberNode(edge.getStartNode(), nodeNumber);
+			if (edgeStarts[index] == nodeNumber) {
+				if (extraNodeList == null) extraNodeList = new ArrayList<GraphNode>();
+				extraNodeList.add(edge.getStartNode());
+				nodeNumber++;
+			}
+			edgeEnds[index] = numberNode(edge.getEndNode(), nodeNumber);
+			if (edgeEnds[index] == nodeNumber) {
+				if (extraNodeList == null) extraNodeList = new ArrayList<GraphNode>();
+				extraNodeList.add(edge.getEndNode());
+				nodeNumber++;
+			}
+		}
+		nodes = new GraphNode[nodeNumber];
+		for (int index = 0; index < nodeListSize; index++) nodes[index] = nodeList.get(index);
+		if (extraNodeList != null) {
+			for (int index = 0; index < extraNodeList.size(); index++) nodes[nodeListSize + index] = extraNodeList.get(index);
+		}
+
+		// 2. Count the degree of each node, and then fill the adjacent arrays in the order of the edge list
+		successorStart = new int[nodeNumber + 1];
+		predecessorStart = new int[nodeNumber + 1];
+		for (int index = 0; index < edgeListSize; index++) {
+			successorStart[edgeStarts[index] + 1]++;
+			predecessorStart[edgeEnds[index] + 1]++;
+		}
+		for (int index = 0; index < nodeNumber; index++) {
+			successorStart[index + 1] += successorStart[index];
+			predecessorStart[index + 1] += predecessorStart[index];
+		}
+		successors = new int[edgeListSize];
+		successorEdges = new int[edgeListSize];
+		predecessors = new int[edgeListSize];
+		predecessorEdges = new int[edgeListSize];
+		int[] successorNext = new int[nodeNumber];
+		int[] predecessorNext = new int[nodeNumber];
+		System.arraycopy(successorStart, 0, successorNext, 0, nodeNumber);
+		System.arraycopy(predecessorStart, 0, predecessorNext, 0, nodeNumber);
+		for (int index = 0; index < edgeListSize; index++) {
+			int from = edgeStarts[index];
+			int to = edgeEnds[index];
+			successors[successorNext[from]] = to;
+			successorEdges[successorNext[from]++] = index;
+			predecessors[predecessorNext[to]] = from;
+			predecessorEdges[predecessorNext[to]++] = index;
+		}
+	}
+
+	/**
+	 * Return the number of the node if it has been numbered, otherwise number it as the given new number
+	 */
+	private int numberNode(GraphNode node, int newNumber) {
+		Integer index = nodeIndexMap.get(node);
+		if (index != null) return index;
+		nodeIndexMap.put(node, newNumber);
+		return newNumber;
+	}
+
+	/**
+	 * Check if the index is still consistent with the given node list and edge list, i.e. they are the lists from which the index
+	 * is created and their sizes are not changed. Note that we can not detect the replacement of elements in the lists.
+	 */
+	public boolean isCreatedFrom(List<GraphNode> nodeList, List<GraphEdge> edgeList) {
+		if (this.nodeList != nodeList || this.edgeList != edgeList) return false;
+		int currentNodeSize = (nodeList == null) ? 0 : nodeList.size();
+		int currentEdgeSize = (edgeList == null) ? 0 : edgeList.size();
+		return (currentNodeSize == nodeListSize && currentEdgeSize == edgeListSize);
+	}
+
+	/**
+	 * Return the number of all numbered nodes, including the ends of the edges which are not in the node list
+	 */
+	public int getNodeNumber() {
+		return nodes.length;
+	}
+
+	/**
+	 * Return the number of the nodes in the node list of the graph. The nodes in the list are numbered from 0 to this number - 1.
+	 */
+	public int getListedNodeNumber() {
+		return nodeListSize;
+	}
+
+	public GraphNode getNode(int index) {
+		return nodes[index];
+	}
+
+	/**
+	 * Return the number of the given node, or -1 if the node is neither in the node list nor an end of an edge
+	 */
+	public int indexOf(GraphNode node) {
+		Integer index = nodeIndexMap.get(node);
+		if (index == null) return -1;
+		return index;
+	}
+
+	/**
+	 * Find the first node in the node list with the given id
+	 */
+	public GraphNode findById(String id) {
+		return nodeIdMap.get(id);
+	}
+
+	public int getOutDegree(int index) {
+		return successorStart[index + 1] - successorStart[index];
+	}
+
+	public int getInDegree(int index) {
+		return predecessorStart[index + 1] - predecessorStart[index];
+	}
+
+	/**
+	 * Return the number of the k-th successor of the given node, 0 <= k < getOutDegree(index)
+	 */
+	public int getSuccessor(int index, int k) {
+		return successors[successorStart[index] + k];
+	}
+
+	/**
+	 * Return the number of the k-th predecessor of the given node, 0 <= k < getInDegree(index)
+	 */
+	public int getPredecessor(int index, int k) {
+		return predecessors[predecessorStart[index] + k];
+	}
+
+	/**
+	 * Return the position in the edge list of the k-th edge from the given node, 0 <= k < getOutDegree(index)
+	 */
+	public int getOutEdge(int index, int k) {
+		return successorEdges[successorStart[index] + k];
+	}
+
+	/**
+	 * Return the position in the edge list of the k-th edge to the given node, 0 <= k < getInDegree(index)
+	 */
+	public int getInEdge(int index, int k) {
+		return predecessorEdges[predecessorStart[index] + k];
+	}
+
+	public GraphEdge getEdge(int position) {
+		return edgeList.get(position);
+	}
+}
@@ -0,0 +1,647 @@
+package graph.callGraph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nameTable.NameTableManager;
+import nameTable.NameTableSnapshot;
+import nameTable.creator.NameReferenceCreator;
+import nameTable.filter.NameDefinitionKindFilter;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.NameDefinitionKind;
+import nameTable.nameReference.MethodReference;
+import nameTable.nameReference.NameReference;
+import nameTable.nameReference.NameReferenceKind;
+import nameTable.nameScope.CompilationUnitScope;
+import nameTable.nameScope.NameScope;
+import nameTable.nameScope.SystemScope;
+import nameTable.visitor.NameDefinitionVisitor;
+import sourceCodeAST.SourceCodeFileSet;
+
+/**
+ * The whole-program call graph of the methods in a name table. The graph is created in a single pass, which creates and resolves the
+ * references of all compilation units (like NameReferenceIndex), and adds an edge from the enclosing method of each method reference
+ * to the method binded to the reference (a static call) and to the other methods in its alternative list, i.e. the methods which
+ * override the binded method in the sub-types (virtual calls, like class hierarchy analysis). The method references out of method
+ * bodies (e.g. in field initializers and initializer blocks) have no caller, so they are not in the graph.
+ * <p>The methods are numbered by ints: the methods of the name table are numbered in the order of visiting the table, and the other
+ * callees (e.g. the methods of imported types) are numbered after them. The edges are stored in arrays grouped by the callers, and
+ * the incoming edges of each method are indexed too, so the callees and the callers of a method are found in O(results) time.
+ * <p>The strongly connected components (SCCs) of the graph are computed by Tarjan's algorithm. A component is numbered after all
+ * components it calls, i.e. the successors of a component in the condensed graph always have smaller numbers, so visiting the
+ * components from 0 to getComponentNumber() - 1 is a bottom-up (callees first) order for interprocedural analyses.
+ * <p>Like NameReferenceIndex, the graph is a snapshot of the system scope, and it can be saved to a file and loaded back if the source
+ * code files are not changed. Only the ids of the methods and the edges are saved, and the indexes and the components are computed
+ * again after loading.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017103
+ * @version 1.0
+ * @update 2017/10/04
+ * 		Add create() to create a graph from the given callees of methods
+ * @update 2017/10/07
+ * 		Add getCalledMethods() and findMethod(), so the callees of the methods in a single compilation unit can be found without the graph
+ *
+ */
+public class CallGraph {
+	private static final int GRAPH_MAGIC = 0x4A43414C;	// "JCAL"
+	private static final int GRAPH_VERSION = 1;
+
+	// The kinds of the calls of an edge, an edge may have both kinds
+	public static final int STATIC_CALL = 1;			// The callee is the method binded to a method reference
+	public static final int VIRTUAL_CALL = 2;			// The callee is a method overriding the binded method in a sub-type
+
+	private NameTableManager manager = null;
+	private SystemScope systemScope = null;
+	private int modificationCount = 0;
+
+	private String[] methodIds = null;
+	private MethodDefinition[] methods = null;			// The definitions of the methods, which are found by their ids after loading
+	private Map<String, Integer> methodIndexMap = null;
+
+	// The edges of the i-th method are in [edgeStarts[i], edgeStarts[i+1]) of the edge arrays
+	private int[] edgeStarts = null;
+	private int[] edgeCallees = null;
+	private int[] edgeKinds = null;
+	private int[] edgeCallSiteNumbers = null;
+	// The callers of the i-th method are in [callerStarts[i], callerStarts[i+1]) of the array callers
+	private int[] callerStarts = null;
+	private int[] callers = null;
+
+	// The members of the i-th component are in [componentStarts[i], componentStarts[i+1]) of the array componentMembers
+	private int[] componentOfMethods = null;
+	private int[] componentStarts = null;
+	private int[] componentMembers = null;
+	// The successors of the i-th component in the condensed graph are in [successorStarts[i], successorStarts[i+1]) of componentSuccessors
+	private int[] successorStarts = null;
+	private int[] componentSuccessors = null;
+	private boolean[] recursiveComponents = null;
+
+	private CallGraph(NameTableManager manager) {
+		this.manager = manager;
+		this.systemScope = manager.getSystemScope();
+		this.modificationCount = systemScope.getModificationCount();
+	}
+
+	/**
+	 * Create the call graph by creating and resolving the references in all compilation units of the manager. The ASTs and the
+	 * contents of the source code files are released after their references are scanned.
+	 */
+	public static CallGraph create(NameTableManager manager) {
+		GraphBuilder builder = new GraphBuilder();
+		NameDefinitionVisitor visitor = new NameDefinitionVisitor(new NameDefinitionKindFilter(NameDefinitionKind.NDK_METHOD));
+		manager.accept(visitor);
+		List<NameDefinition> methodList = visitor.getResult();
+		if (methodList != null) {
+			for (NameDefinition method : methodList) builder.getMethodIndex((MethodDefinition)method);
+		}
+
+		SourceCodeFileSet codeFileSet = manager.getSouceCodeFileSet();
+		NameReferenceCreator referenceCreator = new NameReferenceCreator(manager);
+		List<CompilationUnitScope> unitScopeList = manager.getAllCompilationUnitScopes();
+		if (unitScopeList != null) {
+			for (CompilationUnitScope unitScope : unitScopeList) {
+				String unitName = unitScope.getUnitName();
+				List<NameReference> referenceList = referenceCreator.createReferences(unitScope);
+				for (NameReference reference : referenceList) {
+					reference.resolveBinding();
+					List<NameReference> leafReferenceList = reference.getReferencesAtLeaf();
+					for (NameReference leafReference : leafReferenceList) {
+						if (leafReference.getReferenceKind() != NameReferenceKind.NRK_METHOD) continue;
+						MethodDefinition caller = manager.getEnclosingMethodDefinition(leafReference);
+						if (caller != null) builder.addCallSite(caller, (MethodReference)leafReference);
+					}
+				}
+				codeFileSet.releaseAST(unitName);
+				codeFileSet.releaseFileContent(unitName);
+			}
+		}
+
+		CallGraph graph = new CallGraph(manager);
+		builder.build(graph);
+		graph.createIndexes();
+		return graph;
+	}
+
+	/**
+	 * Create the call graph of the given calls, e.g. the calls found by an analysis. The methods are numbered in the iteration order of
+	 * the map, and the callees which are not keys of the map are numbered after them. All edges are static calls, and the number of
+	 * the call sites of an edge is the number of the times of the callee in the list of the caller.
+	 */
+	public static CallGraph create(NameTableManager manager, Map<MethodDefinition, List<MethodDefinition>> calleeMap) {
+		GraphBuilder builder = new GraphBuilder();
+		for (MethodDefinition method : calleeMap.keySet()) builder.getMethodIndex(method);
+		for (Map.Entry<MethodDefinition, List<MethodDefinition>> entry : calleeMap.entrySet()) {
+			List<MethodDefinition> calleeList = entry.getValue();
+			if (calleeList == null) continue;
+			int callerIndex = builder.getMethodIndex(entry.getKey());
+			for (MethodDefinition callee : calleeList) builder.addCall(callerIndex, builder.getMethodIndex(callee), STATIC_CALL);
+		}
+
+		CallGraph graph = new CallGraph(manager);
+		builder.build(graph);
+		graph.createIndexes();
+		return graph;
+	}
+
+	/**
+	 * Test if the graph is still consistent with the given system scope, i.e. it is created from the scope, and the definitions of
+	 * the scope have not been changed after that.
+	 */
+	public boolean isCreatedFrom(SystemScope systemScope) {
+		return this.systemScope == systemScope && modificationCount == systemScope.getModificationCount();
+	}
+
+	public int getMethodNumber() {
+		return methodIds.length;
+	}
+
+	public int getEdgeNumber() {
+		return edgeCallees.length;
+	}
+
+	public String getMethodId(int method) {
+		return methodIds[method];
+	}
+
+	/**
+	 * Return the definition of the method with the given number, or null if it can not be found in the name table
+	 */
+	public MethodDefinition getMethod(int method) {
+		if (methods[method] == null) methods[method] = findMethod(manager, methodIds[method]);
+		return methods[method];
+	}
+
+	/**
+	 * Return the definition of the method with the given unique id in the name table, or null if there is no such method
+	 */
+	public static MethodDefinition findMethod(NameTableManager manager, String methodId) {
+		NameDefinition definition = manager.findDefinitionById(methodId);
+		if (definition instanceof MethodDefinition) return (MethodDefinition)definition;
+		if (definition instanceof NameScope) {
+			// An auto-generated constructor has the same id as its type, so we find it in the sub-scopes of the type
+			List<NameScope> subScopeList = ((NameScope)definition).getSubScopeList();
+			if (subScopeList != null) {
+				for (NameScope subScope : subScopeList) {
+					if (subScope instanceof MethodDefinition && ((MethodDefinition)subScope).getUniqueId().equals(methodId)) return (MethodDefinition)subScope;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the methods which may be called by a resolved method reference, i.e. the method binded to the reference (the first one)
+	 * and the other methods in its alternative list. These are the callees of the reference in the graph.
+	 */
+	public static List<MethodDefinition> getCalledMethods(MethodReference reference) {
+		List<MethodDefinition> result = new ArrayList<MethodDefinition>();
+		NameDefinition definition = reference.getDefinition();
+		if (definition == null) return result;
+		result.add((MethodDefinition)definition);
+
+		List<MethodDefinition> alternativeList = reference.getAlternativeList();
+		if (alternativeList != null) {
+			for (MethodDefinition method : alternativeList) {
+				if (method != definition) result.add(method);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the number of the method with the given unique id, or -1 if the method is not in the graph
+	 */
+	public int indexOf(String methodId) {
+		Integer index = methodIndexMap.get(methodId);
+		if (index == null) return -1;
+		return index;
+	}
+
+	public int indexOf(MethodDefinition method) {
+		return indexOf(method.getUniqueId());
+	}
+
+	/**
+	 * Return the numbers of the methods called by the given method
+	 */
+	public int[] getCallees(int method) {
+		return Arrays.copyOfRange(edgeCallees, edgeStarts[method], edgeStarts[method + 1]);
+	}
+
+	/**
+	 * Return the numbers of the methods which call the given method
+	 */
+	public int[] getCallers(int method) {
+		return Arrays.copyOfRange(callers, callerStarts[method], callerStarts[method + 1]);
+	}
+
+	public List<MethodDefinition> getCallees(MethodDefinition method) {
+		int index = indexOf(method);
+		if (index < 0) return new ArrayList<MethodDefinition>();
+		return getMethods(edgeCallees, edgeStarts[index], edgeStarts[index + 1]);
+	}
+
+	public List<MethodDefinition> getCallers(MethodDefinition method) {
+		int index = indexOf(method);
+		if (index < 0) return new ArrayList<MethodDefinition>();
+		return getMethods(callers, callerStarts[index], callerStarts[index + 1]);
+	}
+
+	/**
+	 * Return the kinds of the calls from the caller to the callee (i.e. STATIC_CALL, VIRTUAL_CALL or both), or 0 if there is no such call
+	 */
+	public int getCallKind(int caller, int callee) {
+		int edge = findEdge(caller, callee);
+		if (edge < 0) return 0;
+		return edgeKinds[edge];
+	}
+
+	/**
+	 * Return the number of the method references in the caller which may call the callee
+	 */
+	public int getCallSiteNumber(int caller, int callee) {
+		int edge = findEdge(caller, callee);
+		if (edge < 0) return 0;
+		return edgeCallSiteNumbers[edge];
+	}
+
+	/**
+	 * Return the numbers of all methods which call the given methods directly or indirectly, in ascending order. A given method is
+	 * in the result only if it calls itself or another given method directly or indirectly.
+	 */
+	public int[] getAllCallers(int[] methodArray) {
+		boolean[] visited = new boolean[methodIds.length];
+		int[] queue = new int[methodIds.length];
+		int head = 0;
+		int tail = 0;
+		for (int method : methodArray) {
+			for (int position = callerStarts[method]; position < callerStarts[method + 1]; position++) {
+				if (!visited[callers[position]]) {
+					visited[callers[position]] = true;
+					queue[tail++] = callers[position];
+				}
+			}
+		}
+		while (head < tail) {
+			int method = queue[head++];
+			for (int position = callerStarts[method]; position < callerStarts[method + 1]; position++) {
+				if (!visited[callers[position]]) {
+					visited[callers[position]] = true;
+					queue[tail++] = callers[position];
+				}
+			}
+		}
+		int[] result = Arrays.copyOf(queue, tail);
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Return the number of the strongly connected components
+	 */
+	public int getComponentNumber() {
+		return componentStarts.length - 1;
+	}
+
+	/**
+	 * Return the number of the component which the method belongs to
+	 */
+	public int getComponent(int method) {
+		return componentOfMethods[method];
+	}
+
+	/**
+	 * Return the numbers of the methods in the component, in ascending order
+	 */
+	public int[] getComponentMembers(int component) {
+		return Arrays.copyOfRange(componentMembers, componentStarts[component], componentStarts[component + 1]);
+	}
+
+	/**
+	 * Return the components called by the given component in the condensed graph. They are all smaller than the given component.
+	 */
+	public int[] getComponentSuccessors(int component) {
+		return Arrays.copyOfRange(componentSuccessors, successorStarts[component], successorStarts[component + 1]);
+	}
+
+	/**
+	 * Test if the methods in the component call each other recursively, i.e. the component has more than one method, or its
+	 * method calls itself
+	 */
+	public boolean isRecursiveComponent(int component) {
+		return recursiveComponents[component];
+	}
+
+	/**
+	 * Save the graph to the file. The external library head files should be the files used to create the name table.
+	 */
+	public void save(String graphFileName, String[] externalLibraryHeadFileArray) throws IOException {
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(graphFileName), 1 << 16));
+		try {
+			output.writeInt(GRAPH_MAGIC);
+			output.writeInt(GRAPH_VERSION);
+			NameTableSnapshot.writeFileTable(output, manager.getSouceCodeFileSet(), externalLibraryHeadFileArray);
+
+			output.writeInt(methodIds.length);
+			for (int method = 0; method < methodIds.length; method++) {
+				NameTableSnapshot.writeString(output, methodIds[method]);
+				output.writeInt(edgeStarts[method + 1] - edgeStarts[method]);
+			}
+			output.writeInt(edgeCallees.length);
+			for (int value : edgeCallees) output.writeInt(value);
+			for (int value : edgeKinds) output.writeInt(value);
+			for (int value : edgeCallSiteNumbers) output.writeInt(value);
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Load the call graph of the name table of the manager from the file. Return null if the file does not exist, or it is not a valid
+	 * call graph file, or it is stale, i.e. some source code files or head files have been changed since it was saved.
+	 */
+	public static CallGraph load(NameTableManager manager, String graphFileName, String[] externalLibraryHeadFileArray) throws IOException {
+		File graphFile = new File(graphFileName);
+		if (!graphFile.isFile()) return null;
+
+		RandomAccessFile file = new RandomAccessFile(graphFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 8) return null;
+			if (buffer.getInt() != GRAPH_MAGIC || buffer.getInt() != GRAPH_VERSION) return null;
+			if (!NameTableSnapshot.checkFileTable(buffer, manager.getSouceCodeFileSet(), externalLibraryHeadFileArray)) return null;
+
+			CallGraph graph = new CallGraph(manager);
+			int methodNumber = buffer.getInt();
+			graph.methodIds = new String[methodNumber];
+			graph.methods = new MethodDefinition[methodNumber];
+			graph.methodIndexMap = new HashMap<String, Integer>(methodNumber * 2);
+			graph.edgeStarts = new int[methodNumber + 1];
+			for (int method = 0; method < methodNumber; method++) {
+				graph.methodIds[method] = NameTableSnapshot.readString(buffer);
+				graph.methodIndexMap.put(graph.methodIds[method], method);
+				graph.edgeStarts[method + 1] = graph.edgeStarts[method] + buffer.getInt();
+			}
+
+			int edgeNumber = buffer.getInt();
+			if (edgeNumber != graph.edgeStarts[methodNumber]) return null;
+			graph.edgeCallees = new int[edgeNumber];
+			graph.edgeKinds = new int[edgeNumber];
+			graph.edgeCallSiteNumbers = new int[edgeNumber];
+			buffer.asIntBuffer().get(graph.edgeCallees);
+			buffer.position(buffer.position() + edgeNumber * 4);
+			buffer.asIntBuffer().get(graph.edgeKinds);
+			buffer.position(buffer.position() + edgeNumber * 4);
+			buffer.asIntBuffer().get(graph.edgeCallSiteNumbers);
+			for (int callee : graph.edgeCallees) {
+				if (callee < 0 || callee >= methodNumber) return null;
+			}
+			graph.createIndexes();
+			return graph;
+		} finally {
+			file.close();
+		}
+	}
+
+	private List<MethodDefinition> getMethods(int[] array, int start, int end) {
+		List<MethodDefinition> result = new ArrayList<MethodDefinition>(end - start);
+		for (int position = start; position < end; position++) {
+			MethodDefinition method = getMethod(array[position]);
+			if (method != null) result.add(method);
+		}
+		return result;
+	}
+
+	private int findEdge(int caller, int callee) {
+		for (int edge = edgeStarts[caller]; edge < edgeStarts[caller + 1]; edge++) {
+			if (edgeCallees[edge] == callee) return edge;
+		}
+		return -1;
+	}
+
+	/**
+	 * Create the index of the callers and the strongly connected components from the edges
+	 */
+	private void createIndexes() {
+		int methodNumber = methodIds.length;
+		callerStarts = new int[methodNumber + 1];
+		for (int callee : edgeCallees) callerStarts[callee + 1]++;
+		for (int method = 0; method < methodNumber; method++) callerStarts[method + 1] += callerStarts[method];
+		int[] next = Arrays.copyOf(callerStarts, methodNumber);
+		callers = new int[edgeCallees.length];
+		for (int caller = 0; caller < methodNumber; caller++) {
+			for (int edge = edgeStarts[caller]; edge < edgeStarts[caller + 1]; edge++) callers[next[edgeCallees[edge]]++] = caller;
+		}
+
+		computeComponents();
+		computeCondensedGraph();
+	}
+
+	/**
+	 * Compute the strongly connected components by Tarjan's algorithm without recursion. Tarjan's algorithm finds a component after all
+	 * components reachable from it, so the components are numbered in a bottom-up order.
+	 */
+	private void computeComponents() {
+		int methodNumber = methodIds.length;
+		int[] orders = new int[methodNumber];
+		int[] lowLinks = new int[methodNumber];
+		boolean[] onStack = new boolean[methodNumber];
+		int[] stack = new int[methodNumber];
+		int[] callStack = new int[methodNumber];
+		int[] nextEdges = new int[methodNumber];
+		Arrays.fill(orders, -1);
+
+		componentOfMethods = new int[methodNumber];
+		componentMembers = new int[methodNumber];
+		int[] starts = new int[methodNumber + 1];
+		int componentNumber = 0;
+		int memberNumber = 0;
+		int order = 0;
+		int stackTop = 0;
+
+		for (int root = 0; root < methodNumber; root++) {
+			if (orders[root] >= 0) continue;
+			int depth = 0;
+			callStack[0] = root;
+			orders[root] = lowLinks[root] = order++;
+			stack[stackTop++] = root;
+			onStack[root] = true;
+			nextEdges[root] = edgeStarts[root];
+
+			while (depth >= 0) {
+				int method = callStack[depth];
+				if (nextEdges[method] < edgeStarts[method + 1]) {
+					int callee = edgeCallees[nextEdges[method]++];
+					if (orders[callee] < 0) {
+						orders[callee] = lowLinks[callee] = order++;
+						stack[stackTop++] = callee;
+						onStack[callee] = true;
+						nextEdges[callee] = edgeStarts[callee];
+						callStack[++depth] = callee;
+					} else if (onStack[callee] && orders[callee] < lowLinks[method]) {
+						lowLinks[method] = orders[callee];
+					}
+					continue;
+				}
+
+				if (lowLinks[method] == orders[method]) {
+					// The method is the root of a component, so pop the members of the component from the stack
+					int member = -1;
+					do {
+						member = stack[--stackTop];
+						onStack[member] = false;
+						componentOfMethods[member] = componentNumber;
+						componentMembers[memberNumber++] = member;
+					} while (member != method);
+					Arrays.sort(componentMembers, starts[componentNumber], memberNumber);
+					componentNumber++;
+					starts[componentNumber] = memberNumber;
+				}
+				depth--;
+				if (depth >= 0) {
+					int caller = callStack[depth];
+					if (lowLinks[method] < lowLinks[caller]) lowLinks[caller] = lowLinks[method];
+				}
+			}
+		}
+		componentStarts = Arrays.copyOf(starts, componentNumber + 1);
+	}
+
+	private void computeCondensedGraph() {
+		int componentNumber = componentStarts.length - 1;
+		successorStarts = new int[componentNumber + 1];
+		recursiveComponents = new boolean[componentNumber];
+		int[] lastSeen = new int[componentNumber];
+		Arrays.fill(lastSeen, -1);
+		int[] successors = new int[Math.max(edgeCallees.length, 1)];
+		int successorNumber = 0;
+
+		for (int component = 0; component < componentNumber; component++) {
+			if (componentStarts[component + 1] - componentStarts[component] > 1) recursiveComponents[component] = true;
+			for (int position = componentStarts[component]; position < componentStarts[component + 1]; position++) {
+				int method = componentMembers[position];
+				for (int edge = edgeStarts[method]; edge < edgeStarts[method + 1]; edge++) {
+					int calleeComponent = componentOfMethods[edgeCallees[edge]];
+					if (calleeComponent == component) {
+						recursiveComponents[component] = true;
+					} else if (lastSeen[calleeComponent] != component) {
+						lastSeen[calleeComponent] = component;
+						successors[successorNumber++] = calleeComponent;
+					}
+				}
+			}
+			successorStarts[component + 1] = successorNumber;
+		}
+		componentSuccessors = Arrays.copyOf(successors, successorNumber);
+	}
+
+	/**
+	 * Collect the methods and the call edges, and then group the edges by their callers with a counting sort
+	 */
+	static class GraphBuilder {
+		private List<String> methodIdList = new ArrayList<String>();
+		private List<MethodDefinition> methodList = new ArrayList<MethodDefinition>();
+		private Map<String, Integer> methodIndexMap = new HashMap<String, Integer>();
+		private Map<Long, Integer> edgeMap = new HashMap<Long, Integer>();
+
+		private int edgeNumber = 0;
+		private int[] callers = new int[1024];
+		private int[] callees = new int[1024];
+		private int[] kinds = new int[1024];
+		private int[] callSiteNumbers = new int[1024];
+		private int[] lastCallSites = new int[1024];		// The last call site added to an edge
+		private int callSiteNumber = 0;
+
+		int getMethodIndex(MethodDefinition method) {
+			String methodId = method.getUniqueId();
+			Integer index = methodIndexMap.get(methodId);
+			if (index == null) {
+				index = methodIdList.size();
+				methodIdList.add(methodId);
+				methodList.add(method);
+				methodIndexMap.put(methodId, index);
+			}
+			return index;
+		}
+
+		void addCallSite(MethodDefinition caller, MethodReference reference) {
+			List<MethodDefinition> calledMethodList = getCalledMethods(reference);
+			if (calledMethodList.isEmpty()) return;
+			int callerIndex = getMethodIndex(caller);
+			callSiteNumber++;
+			addEdge(callerIndex, getMethodIndex(calledMethodList.get(0)), STATIC_CALL);
+			for (int index = 1; index < calledMethodList.size(); index++) addEdge(callerIndex, getMethodIndex(calledMethodList.get(index)), VIRTUAL_CALL);
+		}
+
+		/**
+		 * Add a call site which calls only one callee
+		 */
+		void addCall(int caller, int callee, int kind) {
+			callSiteNumber++;
+			addEdge(caller, callee, kind);
+		}
+
+		private void addEdge(int caller, int callee, int kind) {
+			Long key = ((long)caller << 32) | callee;
+			Integer edge = edgeMap.get(key);
+			if (edge == null) {
+				if (edgeNumber >= callers.length) {
+					int length = callers.length * 2;
+					callers = Arrays.copyOf(callers, length);
+					callees = Arrays.copyOf(callees, length);
+					kinds = Arrays.copyOf(kinds, length);
+					callSiteNumbers = Arrays.copyOf(callSiteNumbers, length);
+					lastCallSites = Arrays.copyOf(lastCallSites, length);
+				}
+				edge = edgeNumber++;
+				callers[edge] = caller;
+				callees[edge] = callee;
+				edgeMap.put(key, edge);
+			}
+			kinds[edge] |= kind;
+			// A method may be in the alternative list of a reference more than once, but the call site is counted only once for an edge
+			if (lastCallSites[edge] != callSiteNumber) {
+				lastCallSites[edge] = callSiteNumber;
+				callSiteNumbers[edge]++;
+			}
+		}
+
+		void build(CallGraph graph) {
+			int methodNumber = methodIdList.size();
+			graph.methodIds = methodIdList.toArray(new String[methodNumber]);
+			graph.methods = methodList.toArray(new MethodDefinition[methodNumber]);
+			graph.methodIndexMap = methodIndexMap;
+
+			// The counting sort is stable, so the callees of a method are in the order of their first call sites
+			int[] edgeStarts = new int[methodNumber + 1];
+			for (int edge = 0; edge < edgeNumber; edge++) edgeStarts[callers[edge] + 1]++;
+			for (int method = 0; method < methodNumber; method++) edgeStarts[method + 1] += edgeStarts[method];
+			int[] next = Arrays.copyOf(edgeStarts, methodNumber);
+
+			graph.edgeStarts = edgeStarts;
+			graph.edgeCallees = new int[edgeNumber];
+			graph.edgeKinds = new int[edgeNumber];
+			graph.edgeCallSiteNumbers = new int[edgeNumber];
+			for (int edge = 0; edge < edgeNumber; edge++) {
+				int position = next[callers[edge]]++;
+				graph.edgeCallees[position] = callees[edge];
+				graph.edgeKinds[position] = kinds[edge];
+				graph.edgeCallSiteNumbers[position] = callSiteNumbers[edge];
+			}
+		}
+	}
+}
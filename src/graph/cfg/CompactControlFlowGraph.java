@@ -0,0 +1,549 @@
+package graph.cfg;
+
+import graph.basic.GraphAdjacencyIndex;
+import graph.basic.GraphEdge;
+import graph.basic.GraphNode;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.EnhancedForStatement;
+import org.eclipse.jdt.core.dom.Expression;
+
+import sourceCodeAST.SourceCodeLocation;
+
+/**
+ * A compact form of a control flow graph, which does not refer to the AST. The nodes are numbered by their positions in the node list
+ * of the graph, and each node only keeps its type, its label (as an index of the string table of the graph) and the line numbers and
+ * columns of its start and end locations. The edges are kept in the order of the edge list, and the successors and predecessors of
+ * the nodes are stored in compressed sparse row (CSR) form like GraphAdjacencyIndex. So a compact graph can be kept without pinning
+ * the AST of its compilation unit, and the AST node of a node can be matched again by its locations (see CFGCreator.matchASTNode()).
+ * <p>The id of a node is given by its start location and an optional prefix (e.g. "Start:"), which is the way ExecutionPointFactory
+ * creates the ids, and the ids in other forms are kept explicitly. The descriptions of the nodes and the flow information recorders
+ * are not kept. The strings in the string table are interned, so they are shared by all compact graphs.
+ * <p>We use line numbers and columns instead of offsets for the locations, since the locations (and the ids) of the nodes can be given
+ * without the AST in this way.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017929
+ * @version 1.0
+ * @update 2017/09/30
+ * 		Add writeTo() and readFrom() to write the graph to a binary file and read it back
+ *
+ */
+public class CompactControlFlowGraph {
+	private static final ExecutionPointType[] pointTypes = ExecutionPointType.values();
+	// The number of the ints for the locations of each node, i.e. start line, start column, end line and end column
+	static final int LOCATION_SIZE = 4;
+
+	private String id = null;
+	private String label = null;
+	private String description = null;
+	private String className = null;
+	private String methodName = null;
+	private String unitName = null;
+
+	private String[] strings = null;		// The string table of the labels and the prefixes of ids
+
+	private int nodeNumber = 0;
+	private byte[] nodeTypes = null;		// The ordinals of the types (ExecutionPointType) of the nodes
+	private int[] nodeLabels = null;		// The indexes of the labels in the string table, or -1 for null
+	private int[] idPrefixes = null;		// The indexes of the prefixes of ids in the string table, or -1 for no prefix
+	private int[] locations = null;			// LOCATION_SIZE ints for each node, or -1 if the location is null
+	private Map<Integer, String> explicitIdMap = null;	// The ids which can not be given by the locations and the prefixes
+
+	private int startNode = -1;
+	private int endNode = -1;
+	private int abnormalEndNode = -1;
+
+	private int edgeNumber = 0;
+	private int[] edgeStarts = null;
+	private int[] edgeEnds = null;
+	private int[] edgeLabels = null;		// The indexes of the labels in the string table, or -1 for null
+	private int[] successorStart = null;
+	private int[] successorEdges = null;
+	private int[] predecessorStart = null;
+	private int[] predecessorEdges = null;
+
+	private CompactControlFlowGraph() {
+	}
+
+	/**
+	 * Create the compact form of the given control flow graph. All nodes of the graph should be execution points.
+	 */
+	public static CompactControlFlowGraph create(ControlFlowGraph graph) {
+		CompactControlFlowGraph result = new CompactControlFlowGraph();
+		result.id = graph.getId();
+		result.label = graph.getLabel();
+		result.description = graph.getDescription();
+		result.className = graph.getClassName();
+		result.methodName = graph.getMethodName();
+		if (graph.getCompilationUnitRecorder() != null) result.unitName = graph.getFileUnitName();
+
+		GraphAdjacencyIndex index = graph.getAdjacencyIndex();
+		List<String> stringList = new ArrayList<String>();
+		Map<String, Integer> stringIndexMap = new HashMap<String, Integer>();
+
+		// 1. Compact the nodes
+		int nodeNumber = index.getNodeNumber();
+		result.nodeNumber = nodeNumber;
+		result.nodeTypes = new byte[nodeNumber];
+		result.nodeLabels = new int[nodeNumber];
+		result.idPrefixes = new int[nodeNumber];
+		result.locations = new int[nodeNumber * LOCATION_SIZE];
+		for (int node = 0; node < nodeNumber; node++) {
+			GraphNode graphNode = index.getNode(node);
+			if (!(graphNode instanceof ExecutionPoint)) {
+				throw new AssertionError("Can not compact the node " + graphNode + " of CFG " + graph.getId() + ", which is not an execution point!");
+			}
+			ExecutionPoint point = (ExecutionPoint)graphNode;
+			result.nodeTypes[node] = (byte)point.getType().ordinal();
+			result.nodeLabels[node] = getStringIndex(point.getLabel(), stringList, stringIndexMap);
+
+			SourceCodeLocation start = point.getStartLocation();
+			SourceCodeLocation end = point.getEndLocation();
+			if (start != null && result.unitName == null) result.unitName = start.getFileUnitName();
+			result.setLocation(node, 0, start);
+			result.setLocation(node, 2, end);
+
+			// Find the prefix of the id, and keep the id explicitly if it can not be given by the prefix and the location
+			String pointId = point.getId();
+			String startString = (start != null) ? start.toString() : null;
+			result.idPrefixes[node] = -1;
+			boolean matched = false;
+			if (startString != null && pointId != null && pointId.endsWith(startString)) {
+				String prefix = pointId.substring(0, pointId.length() - startString.length());
+				if (prefix.length() > 0) result.idPrefixes[node] = getStringIndex(prefix, stringList, stringIndexMap);
+				matched = (start.getFileUnitName() == null || start.getFileUnitName().equals(result.unitName));
+			}
+			if (!matched) {
+				if (result.explicitIdMap == null) result.explicitIdMap = new HashMap<Integer, String>();
+				result.explicitIdMap.put(node, pointId);
+			}
+
+			if (point == graph.getStartNode()) result.startNode = node;
+			if (point == graph.getEndNode()) result.endNode = node;
+			if (point == graph.getAbnormalEndNode()) result.abnormalEndNode = node;
+		}
+
+		// 2. Compact the edges in the order of the edge list
+		List<GraphEdge> edgeList = graph.getEdges();
+		int edgeNumber = (edgeList == null) ? 0 : edgeList.size();
+		result.edgeNumber = edgeNumber;
+		result.edgeStarts = new int[edgeNumber];
+		result.edgeEnds = new int[edgeNumber];
+		result.edgeLabels = new int[edgeNumber];
+		for (int node = 0; node < nodeNumber; node++) {
+			for (int k = 0; k < index.getOutDegree(node); k++) {
+				int edge = index.getOutEdge(node, k);
+				result.edgeStarts[edge] = node;
+				result.edgeEnds[edge] = index.getSuccessor(node, k);
+			}
+		}
+		for (int edge = 0; edge < edgeNumber; edge++) {
+			result.edgeLabels[edge] = getStringIndex(edgeList.get(edge).getLabel(), stringList, stringIndexMap);
+		}
+		result.successorStart = new int[nodeNumber + 1];
+		result.successorEdges = new int[edgeNumber];
+		result.predecessorStart = new int[nodeNumber + 1];
+		result.predecessorEdges = new int[edgeNumber];
+		int successorPosition = 0;
+		int predecessorPosition = 0;
+		for (int node = 0; node < nodeNumber; node++) {
+			result.successorStart[node] = successorPosition;
+			for (int k = 0; k < index.getOutDegree(node); k++) result.successorEdges[successorPosition++] = index.getOutEdge(node, k);
+			result.predecessorStart[node] = predecessorPosition;
+			for (int k = 0; k < index.getInDegree(node); k++) result.predecessorEdges[predecessorPosition++] = index.getInEdge(node, k);
+		}
+		result.successorStart[nodeNumber] = successorPosition;
+		result.predecessorStart[nodeNumber] = predecessorPosition;
+
+		result.strings = stringList.toArray(new String[stringList.size()]);
+		return result;
+	}
+
+	private static int getStringIndex(String string, List<String> stringList, Map<String, Integer> stringIndexMap) {
+		if (string == null) return -1;
+		Integer index = stringIndexMap.get(string);
+		if (index == null) {
+			index = stringList.size();
+			stringList.add(string.intern());
+			stringIndexMap.put(string, index);
+		}
+		return index;
+	}
+
+	private void setLocation(int node, int offset, SourceCodeLocation location) {
+		int position = node * LOCATION_SIZE + offset;
+		if (location == null) {
+			locations[position] = -1;
+			locations[position + 1] = -1;
+		} else {
+			if (location.getFileUnitName() != null && unitName != null && !location.getFileUnitName().equals(unitName)) {
+				throw new AssertionError("The location " + location.getUniqueId() + " is not in the compilation unit " + unitName + " of CFG " + id);
+			}
+			locations[position] = location.getLineNumber();
+			locations[position + 1] = location.getColumn();
+		}
+	}
+
+	private SourceCodeLocation getLocation(int node, int offset) {
+		int position = node * LOCATION_SIZE + offset;
+		if (locations[position] < 0) return null;
+		return new SourceCodeLocation(locations[position], locations[position + 1], unitName);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public String getClassName() {
+		return className;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	public String getFileUnitName() {
+		return unitName;
+	}
+
+	public int getNodeNumber() {
+		return nodeNumber;
+	}
+
+	public int getEdgeNumber() {
+		return edgeNumber;
+	}
+
+	/**
+	 * Return the number of the start node of the graph, or -1 if there is no such node
+	 */
+	public int getStartNode() {
+		return startNode;
+	}
+
+	public int getEndNode() {
+		return endNode;
+	}
+
+	public int getAbnormalEndNode() {
+		return abnormalEndNode;
+	}
+
+	public ExecutionPointType getNodeType(int node) {
+		return pointTypes[nodeTypes[node]];
+	}
+
+	public String getNodeLabel(int node) {
+		int index = nodeLabels[node];
+		return (index < 0) ? null : strings[index];
+	}
+
+	/**
+	 * Return the id of the node, which is the same as the id of the execution point in the original graph
+	 */
+	public String getNodeId(int node) {
+		if (explicitIdMap != null) {
+			String result = explicitIdMap.get(node);
+			if (result != null) return result;
+		}
+		int start = node * LOCATION_SIZE;
+		String locationString = new SourceCodeLocation(locations[start], locations[start + 1], unitName).toString();
+		int prefix = idPrefixes[node];
+		return (prefix < 0) ? locationString : strings[prefix] + locationString;
+	}
+
+	public SourceCodeLocation getStartLocation(int node) {
+		return getLocation(node, 0);
+	}
+
+	public SourceCodeLocation getEndLocation(int node) {
+		return getLocation(node, 2);
+	}
+
+	public int getOutDegree(int node) {
+		return successorStart[node + 1] - successorStart[node];
+	}
+
+	public int getInDegree(int node) {
+		return predecessorStart[node + 1] - predecessorStart[node];
+	}
+
+	/**
+	 * Return the number of the k-th successor of the given node, 0 <= k < getOutDegree(node)
+	 */
+	public int getSuccessor(int node, int k) {
+		return edgeEnds[successorEdges[successorStart[node] + k]];
+	}
+
+	/**
+	 * Return the number of the k-th predecessor of the given node, 0 <= k < getInDegree(node)
+	 */
+	public int getPredecessor(int node, int k) {
+		return edgeStarts[predecessorEdges[predecessorStart[node] + k]];
+	}
+
+	/**
+	 * Return the position in the edge list of the k-th edge from the given node, 0 <= k < getOutDegree(node)
+	 */
+	public int getOutEdge(int node, int k) {
+		return successorEdges[successorStart[node] + k];
+	}
+
+	/**
+	 * Return the position in the edge list of the k-th edge to the given node, 0 <= k < getInDegree(node)
+	 */
+	public int getInEdge(int node, int k) {
+		return predecessorEdges[predecessorStart[node] + k];
+	}
+
+	public int getEdgeStart(int edge) {
+		return edgeStarts[edge];
+	}
+
+	public int getEdgeEnd(int edge) {
+		return edgeEnds[edge];
+	}
+
+	public String getEdgeLabel(int edge) {
+		int index = edgeLabels[edge];
+		return (index < 0) ? null : strings[index];
+	}
+
+	/**
+	 * Create an execution point of the node without AST node and description, which can be used to match its AST node by
+	 * CFGCreator.matchASTNode()
+	 */
+	public ExecutionPoint createExecutionPoint(int node) {
+		ExecutionPoint point = new ExecutionPoint(getNodeId(node), getNodeLabel(node), null, getNodeType(node), null);
+		point.setStartLocation(getStartLocation(node));
+		point.setEndLocation(getEndLocation(node));
+		return point;
+	}
+
+	/**
+	 * Match the AST nodes of all nodes of the graph in the given AST root of its compilation unit, in the same way as
+	 * CFGCreator.matchASTNode(). The predicate of an enhanced for statement is matched with the statement, which is the AST node of
+	 * such execution point. The AST is traversed only once. The elements of the result are null for the nodes which can not be matched.
+	 */
+	public ASTNode[] matchASTNodes(CompilationUnit root) {
+		final ASTNode[] result = new ASTNode[nodeNumber];
+		// Map the keys of the positions and lengths to the nodes, and the first AST node with the key (in pre-order) is matched
+		final Map<Long, List<Integer>> nodeMap = new HashMap<Long, List<Integer>>();
+		final Map<Long, List<Integer>> enhancedForMap = new HashMap<Long, List<Integer>>();
+		for (int node = 0; node < nodeNumber; node++) {
+			int start = node * LOCATION_SIZE;
+			if (locations[start] < 0 || locations[start + 2] < 0) continue;
+			int position = root.getPosition(locations[start], locations[start + 1]);
+			int length = root.getPosition(locations[start + 2], locations[start + 3]) - position;
+			Map<Long, List<Integer>> map = ExecutionPointLabel.ENHANCED_FOR_PREDICATE.equals(getNodeLabel(node)) ? enhancedForMap : nodeMap;
+			Long key = getPositionKey(position, length);
+			List<Integer> nodeList = map.get(key);
+			if (nodeList == null) {
+				nodeList = new ArrayList<Integer>(1);
+				map.put(key, nodeList);
+			}
+			nodeList.add(node);
+		}
+
+		root.accept(new ASTVisitor() {
+			@Override
+			public boolean preVisit2(ASTNode astNode) {
+				match(nodeMap.remove(getPositionKey(astNode.getStartPosition(), astNode.getLength())), astNode);
+				if (astNode.getNodeType() == ASTNode.ENHANCED_FOR_STATEMENT && !enhancedForMap.isEmpty()) {
+					EnhancedForStatement statement = (EnhancedForStatement)astNode;
+					Expression expression = statement.getExpression();
+					int position = statement.getParameter().getStartPosition();
+					int length = expression.getStartPosition() + expression.getLength() - position;
+					match(enhancedForMap.remove(getPositionKey(position, length)), astNode);
+				}
+				return !nodeMap.isEmpty() || !enhancedForMap.isEmpty();
+			}
+
+			private void match(List<Integer> nodeList, ASTNode astNode) {
+				if (nodeList == null) return;
+				for (int node : nodeList) result[node] = astNode;
+			}
+		});
+		return result;
+	}
+
+	private static Long getPositionKey(int position, int length) {
+		return ((long)position << 32) + length;
+	}
+
+	/**
+	 * Create a control flow graph with the same nodes and edges (in the same order) as the original graph. If the AST root of the
+	 * compilation unit is given, the AST nodes of the execution points are matched in it, otherwise the execution points have no
+	 * AST node. The execution points have no description and no flow information recorder.
+	 */
+	public ControlFlowGraph expand(CompilationUnit root) {
+		ControlFlowGraph graph = new ControlFlowGraph(id, label, description);
+		graph.setMethod(className, methodName, null);
+		if (unitName != null) graph.setCompilationUnitRecorder(unitName, root);
+
+		ASTNode[] astNodes = (root != null) ? matchASTNodes(root) : null;
+		ArrayList<GraphNode> nodeList = new ArrayList<GraphNode>(nodeNumber);
+		ExecutionPoint[] points = new ExecutionPoint[nodeNumber];
+		for (int node = 0; node < nodeNumber; node++) {
+			points[node] = createExecutionPoint(node);
+			if (astNodes != null) points[node].setAstNode(astNodes[node]);
+			nodeList.add(points[node]);
+		}
+		graph.setAllNodes(nodeList);
+		// The special nodes are in the node list, so they are not added again
+		if (startNode >= 0) graph.setAndAddStartNode(points[startNode]);
+		if (endNode >= 0) graph.setAndAddEndNode(points[endNode]);
+		if (abnormalEndNode >= 0) graph.setAndAddAbnormalEndNode(points[abnormalEndNode]);
+
+		ArrayList<GraphEdge> edgeList = new ArrayList<GraphEdge>(edgeNumber);
+		for (int edge = 0; edge < edgeNumber; edge++) {
+			edgeList.add(new CFGEdge(points[edgeStarts[edge]], points[edgeEnds[edge]], getEdgeLabel(edge)));
+		}
+		graph.setAllEdges(edgeList);
+		return graph;
+	}
+
+	/**
+	 * Return the approximate number of bytes used by the arrays of the graph, not including the shared strings
+	 */
+	public long getArraySize() {
+		long size = nodeTypes.length + 4L * (nodeLabels.length + idPrefixes.length + locations.length);
+		size += 4L * (edgeStarts.length + edgeEnds.length + edgeLabels.length + successorEdges.length + predecessorEdges.length);
+		size += 4L * (successorStart.length + predecessorStart.length + strings.length);
+		return size;
+	}
+
+	/**
+	 * Write the graph to the given output, which can be read by readFrom()
+	 */
+	public void writeTo(DataOutput output) throws IOException {
+		writeString(output, id);
+		writeString(output, label);
+		writeString(output, description);
+		writeString(output, className);
+		writeString(output, methodName);
+		writeString(output, unitName);
+
+		output.writeInt(strings.length);
+		for (String string : strings) output.writeUTF(string);
+
+		output.writeInt(nodeNumber);
+		output.write(nodeTypes);
+		writeIntArray(output, nodeLabels);
+		writeIntArray(output, idPrefixes);
+		writeIntArray(output, locations);
+		if (explicitIdMap == null) output.writeInt(0);
+		else {
+			output.writeInt(explicitIdMap.size());
+			for (Map.Entry<Integer, String> entry : explicitIdMap.entrySet()) {
+				output.writeInt(entry.getKey());
+				writeString(output, entry.getValue());
+			}
+		}
+		output.writeInt(startNode);
+		output.writeInt(endNode);
+		output.writeInt(abnormalEndNode);
+
+		output.writeInt(edgeNumber);
+		writeIntArray(output, edgeStarts);
+		writeIntArray(output, edgeEnds);
+		writeIntArray(output, edgeLabels);
+		writeIntArray(output, successorStart);
+		writeIntArray(output, successorEdges);
+		writeIntArray(output, predecessorStart);
+		writeIntArray(output, predecessorEdges);
+	}
+
+	/**
+	 * Read a graph written by writeTo() from the given input
+	 */
+	public static CompactControlFlowGraph readFrom(DataInput input) throws IOException {
+		CompactControlFlowGraph result = new CompactControlFlowGraph();
+		result.id = readString(input);
+		result.label = readString(input);
+		result.description = readString(input);
+		result.className = readString(input);
+		result.methodName = readString(input);
+		result.unitName = readString(input);
+
+		result.strings = new String[input.readInt()];
+		for (int index = 0; index < result.strings.length; index++) result.strings[index] = input.readUTF().intern();
+
+		int nodeNumber = input.readInt();
+		result.nodeNumber = nodeNumber;
+		result.nodeTypes = new byte[nodeNumber];
+		input.readFully(result.nodeTypes);
+		for (byte type : result.nodeTypes) {
+			if (type < 0 || type >= pointTypes.length) throw new IOException("Unknown execution point type " + type + " in CFG " + result.id);
+		}
+		result.nodeLabels = readIntArray(input, nodeNumber);
+		result.idPrefixes = readIntArray(input, nodeNumber);
+		result.locations = readIntArray(input, nodeNumber * LOCATION_SIZE);
+		int explicitIdNumber = input.readInt();
+		if (explicitIdNumber > 0) {
+			result.explicitIdMap = new HashMap<Integer, String>();
+			for (int index = 0; index < explicitIdNumber; index++) {
+				int node = input.readInt();
+				result.explicitIdMap.put(node, readString(input));
+			}
+		}
+		result.startNode = input.readInt();
+		result.endNode = input.readInt();
+		result.abnormalEndNode = input.readInt();
+
+		int edgeNumber = input.readInt();
+		result.edgeNumber = edgeNumber;
+		result.edgeStarts = readIntArray(input, edgeNumber);
+		result.edgeEnds = readIntArray(input, edgeNumber);
+		result.edgeLabels = readIntArray(input, edgeNumber);
+		result.successorStart = readIntArray(input, nodeNumber + 1);
+		result.successorEdges = readIntArray(input, edgeNumber);
+		result.predecessorStart = readIntArray(input, nodeNumber + 1);
+		result.predecessorEdges = readIntArray(input, edgeNumber);
+		return result;
+	}
+
+	private static void writeString(DataOutput output, String string) throws IOException {
+		output.writeBoolean(string != null);
+		if (string != null) output.writeUTF(string);
+	}
+
+	private static String readString(DataInput input) throws IOException {
+		if (!input.readBoolean()) return null;
+		return input.readUTF();
+	}
+
+	private static void writeIntArray(DataOutput output, int[] array) throws IOException {
+		for (int value : array) output.writeInt(value);
+	}
+
+	private static int[] readIntArray(DataInput input, int length) throws IOException {
+		int[] result = new int[length];
+		for (int index = 0; index < length; index++) result[index] = input.readInt();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "CompactControlFlowGraph[" + id + ", nodes " + nodeNumber + ", edges " + edgeNumber + "]";
+	}
+}
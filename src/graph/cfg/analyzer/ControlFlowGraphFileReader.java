@@ -0,0 +1,317 @@
+package graph.cfg.analyzer;
+
+import graph.basic.GraphAdjacencyIndex;
+import graph.basic.GraphNode;
+import graph.cfg.CompactControlFlowGraph;
+import graph.cfg.ControlFlowGraph;
+import graph.cfg.ExecutionPoint;
+import graph.cfg.IFlowInfoRecorder;
+import nameTable.NameTableManager;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.VariableDefinition;
+import nameTable.nameReference.NameReference;
+import nameTable.nameReference.NameReferenceKind;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import sourceCodeAST.SourceCodeLocation;
+
+/**
+ * Read the control flow graphs and their flow information from a file written by ControlFlowGraphFileWriter. The index of the file
+ * is read when the reader is created, and then a graph can be read by its id without reading the other graphs.
+ * <p>The name definitions in the flow information are found by their unique ids in the name table given by setNameTableManager(),
+ * so the name table should be created from the same source code files as the graphs. If no name table is given, only the dominate
+ * nodes are restored. The value references of the reach names are restored as the references with the same names, locations,
+ * scopes and kinds, but they are not resolved, and the sub references of a composite reference are not restored.
+ * <p>The recorders of the nodes are created by the recorder factory if it is given, otherwise ReachNameRecorder,
+ * DominateNodeRecorder, ReachNameAndDominateNodeRecorder or LiveVariableRecorder is used according to the flow information in the file.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017930
+ * @version 1.0
+ *
+ */
+public class ControlFlowGraphFileReader {
+	private static final NameReferenceKind[] referenceKinds = NameReferenceKind.values();
+
+	private RandomAccessFile file = null;
+	private List<String> graphIdList = null;
+	private long[] offsets = null;
+	private Map<String, Integer> graphIndexMap = null;
+
+	private NameTableManager manager = null;
+	private IFlowInfoRecorderFactory recorderFactory = null;
+
+	public ControlFlowGraphFileReader(File fileHandle) throws IOException {
+		file = new RandomAccessFile(fileHandle, "r");
+		try {
+			if (file.readInt() != ControlFlowGraphFileWriter.FILE_MAGIC) throw new IOException("The file " + fileHandle.getPath() + " is not a CFG file!");
+			int version = file.readInt();
+			if (version != ControlFlowGraphFileWriter.FILE_VERSION) throw new IOException("Unsupported version " + version + " of the CFG file " + fileHandle.getPath());
+			long length = file.length();
+			file.seek(length - 12);
+			long indexOffset = file.readLong();
+			if (file.readInt() != ControlFlowGraphFileWriter.FILE_MAGIC) throw new IOException("The CFG file " + fileHandle.getPath() + " is not closed properly!");
+
+			file.seek(indexOffset);
+			int graphNumber = file.readInt();
+			graphIdList = new ArrayList<String>(graphNumber);
+			offsets = new long[graphNumber];
+			graphIndexMap = new HashMap<String, Integer>(graphNumber * 2);
+			for (int index = 0; index < graphNumber; index++) {
+				String id = file.readUTF();
+				offsets[index] = file.readLong();
+				graphIdList.add(id);
+				if (!graphIndexMap.containsKey(id)) graphIndexMap.put(id, index);
+			}
+		} catch (IOException exc) {
+			file.close();
+			throw exc;
+		}
+	}
+
+	/**
+	 * Set the name table to find the name definitions in the flow information
+	 */
+	public void setNameTableManager(NameTableManager manager) {
+		this.manager = manager;
+	}
+
+	public void setRecorderFactory(IFlowInfoRecorderFactory recorderFactory) {
+		this.recorderFactory = recorderFactory;
+	}
+
+	public int getGraphNumber() {
+		return graphIdList.size();
+	}
+
+	/**
+	 * Return the ids of the graphs in the order they are written
+	 */
+	public List<String> getGraphIdList() {
+		return Collections.unmodifiableList(graphIdList);
+	}
+
+	public boolean hasGraph(String id) {
+		return graphIndexMap.containsKey(id);
+	}
+
+	/**
+	 * Read the compact form of the graph with the given id, without its flow information. Return null if there is no such graph.
+	 */
+	public CompactControlFlowGraph readCompactGraph(String id) throws IOException {
+		Integer index = graphIndexMap.get(id);
+		if (index == null) return null;
+		return CompactControlFlowGraph.readFrom(readRecord(index));
+	}
+
+	/**
+	 * Read the graph with the given id and its flow information. If the AST root of the compilation unit of the graph is given, the
+	 * AST nodes of the execution points are matched in it. Return null if there is no such graph.
+	 */
+	public ControlFlowGraph readGraph(String id, CompilationUnit root) throws IOException {
+		Integer index = graphIndexMap.get(id);
+		if (index == null) return null;
+		return readGraph(index, root);
+	}
+
+	/**
+	 * Read all graphs in the file in the order they are written, without matching their AST nodes
+	 */
+	public List<ControlFlowGraph> readAllGraphs() throws IOException {
+		List<ControlFlowGraph> result = new ArrayList<ControlFlowGraph>(offsets.length);
+		for (int index = 0; index < offsets.length; index++) result.add(readGraph(index, null));
+		return result;
+	}
+
+	public void close() throws IOException {
+		file.close();
+	}
+
+	private ControlFlowGraph readGraph(int index, CompilationUnit root) throws IOException {
+		DataInputStream record = readRecord(index);
+		CompactControlFlowGraph compactGraph = CompactControlFlowGraph.readFrom(record);
+		ControlFlowGraph graph = compactGraph.expand(root);
+		int flags = record.readByte();
+		if (flags != 0) readFlowInfo(record, flags, graph.getAdjacencyIndex());
+		return graph;
+	}
+
+	private synchronized DataInputStream readRecord(int index) throws IOException {
+		file.seek(offsets[index]);
+		byte[] bytes = new byte[file.readInt()];
+		file.readFully(bytes);
+		return new DataInputStream(new ByteArrayInputStream(bytes));
+	}
+
+	private void readFlowInfo(DataInputStream record, int flags, GraphAdjacencyIndex index) throws IOException {
+		int nodeNumber = index.getNodeNumber();
+		ExecutionPoint[] points = new ExecutionPoint[nodeNumber];
+		boolean[] hasRecorder = new boolean[nodeNumber];
+		for (int node = 0; node < nodeNumber; node++) {
+			points[node] = (ExecutionPoint)index.getNode(node);
+			hasRecorder[node] = record.readBoolean();
+		}
+		// The reach names and the live variables can not be restored without the name table
+		int restoredFlags = flags;
+		if (manager == null) restoredFlags &= ControlFlowGraphFileWriter.FLOW_DOMINATE_NODE;
+		if (restoredFlags == 0) return;
+
+		IFlowInfoRecorder[] recorders = new IFlowInfoRecorder[nodeNumber];
+		for (int node = 0; node < nodeNumber; node++) {
+			if (!hasRecorder[node]) continue;
+			recorders[node] = createRecorder(points[node], restoredFlags);
+			points[node].setFlowInfoRecorder(recorders[node]);
+		}
+
+		if ((flags & ControlFlowGraphFileWriter.FLOW_REACH_NAME) != 0) {
+			boolean restored = (restoredFlags & ControlFlowGraphFileWriter.FLOW_REACH_NAME) != 0;
+			readReachNames(record, points, recorders, restored);
+		}
+		if ((flags & ControlFlowGraphFileWriter.FLOW_DOMINATE_NODE) != 0) {
+			for (int node = 0; node < nodeNumber; node++) {
+				if (!hasRecorder[node]) continue;
+				int size = record.readInt();
+				if (size < 0) continue;
+				List<GraphNode> dominateNodeList = new ArrayList<GraphNode>(size);
+				for (int position = 0; position < size; position++) dominateNodeList.add(points[record.readInt()]);
+				((IDominateNodeRecorder)recorders[node]).setDominateNodeList(dominateNodeList);
+			}
+		}
+		if ((flags & ControlFlowGraphFileWriter.FLOW_LIVE_VARIABLE) != 0 && manager != null) {
+			readLiveVariables(record, recorders);
+		}
+	}
+
+	private IFlowInfoRecorder createRecorder(ExecutionPoint point, int flags) {
+		boolean reachName = (flags & ControlFlowGraphFileWriter.FLOW_REACH_NAME) != 0;
+		boolean dominateNode = (flags & ControlFlowGraphFileWriter.FLOW_DOMINATE_NODE) != 0;
+		boolean liveVariable = (flags & ControlFlowGraphFileWriter.FLOW_LIVE_VARIABLE) != 0;
+		IFlowInfoRecorder recorder = null;
+		if (recorderFactory != null) recorder = recorderFactory.createRecorder(point);
+		else if (liveVariable && !reachName && !dominateNode) recorder = new LiveVariableRecorder();
+		else if (reachName && dominateNode && !liveVariable) recorder = new ReachNameAndDominateNodeRecorder();
+		else if (reachName && !liveVariable) recorder = new ReachNameRecorder();
+		else if (dominateNode && !liveVariable) recorder = new DominateNodeRecorder();
+
+		if (recorder == null || (reachName && !(recorder instanceof IReachNameRecorder)) || (dominateNode && !(recorder instanceof IDominateNodeRecorder)) ||
+				(liveVariable && !(recorder instanceof ILiveVariableRecorder))) {
+			throw new AssertionError("No recorder for the flow information " + flags + " of the node " + point.getId() + ", please give a recorder factory!");
+		}
+		return recorder;
+	}
+
+	private void readReachNames(DataInputStream record, ExecutionPoint[] points, IFlowInfoRecorder[] recorders, boolean restored) throws IOException {
+		int definitionNumber = record.readInt();
+		ReachNameDefinitionTable table = new ReachNameDefinitionTable();
+		ReachNameDefinition[] definitions = new ReachNameDefinition[definitionNumber];
+		for (int index = 0; index < definitionNumber; index++) {
+			int node = record.readInt();
+			String nameId = readString(record);
+			NameReference value = null;
+			if (record.readBoolean()) {
+				String valueName = readString(record);
+				SourceCodeLocation location = readLocation(record);
+				NameReferenceKind kind = referenceKinds[record.readByte()];
+				if (restored) value = new NameReference(valueName, location, (location == null) ? null : manager.getScopeOfLocation(location), kind);
+			}
+			if (!restored) continue;
+			definitions[index] = new ReachNameDefinition((node < 0) ? null : points[node], findDefinition(nameId), value);
+			table.register(definitions[index]);
+		}
+
+		for (int node = 0; node < recorders.length; node++) {
+			if (recorders[node] == null) continue;
+			int[] generatedIndexes = readIndexes(record);
+			int[] reachIndexes = readIndexes(record);
+			if (!restored) continue;
+
+			IReachNameRecorder recorder = (IReachNameRecorder)recorders[node];
+			for (int index : generatedIndexes) recorder.addGeneratedName(definitions[index]);
+			if (recorder instanceof ReachNameRecorder) {
+				// Share the table of the definitions among all nodes, as ReachNameAnalyzer does
+				BitSet reachNameSet = new BitSet(definitionNumber);
+				for (int index : reachIndexes) reachNameSet.set(index);
+				((ReachNameRecorder)recorder).setReachNameSet(table, reachNameSet);
+			} else {
+				for (int index : reachIndexes) recorder.addReachName(definitions[index]);
+			}
+		}
+	}
+
+	private void readLiveVariables(DataInputStream record, IFlowInfoRecorder[] recorders) throws IOException {
+		int variableNumber = record.readInt();
+		LiveVariableTable table = new LiveVariableTable();
+		VariableDefinition[] variables = new VariableDefinition[variableNumber];
+		for (int index = 0; index < variableNumber; index++) {
+			String variableId = readString(record);
+			NameDefinition definition = findDefinition(variableId);
+			if (!(definition instanceof VariableDefinition)) throw new AssertionError("The live variable " + variableId + " is not a variable!");
+			variables[index] = (VariableDefinition)definition;
+			table.register(variables[index]);
+		}
+
+		for (int node = 0; node < recorders.length; node++) {
+			if (recorders[node] == null) continue;
+			ILiveVariableRecorder recorder = (ILiveVariableRecorder)recorders[node];
+			int[] usedIndexes = readIndexes(record);
+			int[] definedIndexes = readIndexes(record);
+			int[] liveInIndexes = readIndexes(record);
+			int[] liveOutIndexes = readIndexes(record);
+			if (recorder instanceof LiveVariableRecorder) {
+				// Share the table of the variables among all nodes, as LiveVariableAnalyzer does
+				((LiveVariableRecorder)recorder).setLiveVariableSets(table, toBitSet(usedIndexes), toBitSet(definedIndexes), toBitSet(liveInIndexes), toBitSet(liveOutIndexes));
+			} else {
+				for (int index : usedIndexes) recorder.addUsedVariable(variables[index]);
+				for (int index : definedIndexes) recorder.addDefinedVariable(variables[index]);
+				for (int index : liveInIndexes) recorder.addLiveInVariable(variables[index]);
+				for (int index : liveOutIndexes) recorder.addLiveOutVariable(variables[index]);
+			}
+		}
+	}
+
+	private NameDefinition findDefinition(String definitionId) {
+		if (definitionId == null) return null;
+		NameDefinition result = manager.findDefinitionById(definitionId);
+		if (result == null) {
+			throw new AssertionError("Can not find the definition " + definitionId + " in the name table, the CFG file may be out of date!");
+		}
+		return result;
+	}
+
+	private BitSet toBitSet(int[] indexes) {
+		BitSet result = new BitSet();
+		for (int index : indexes) result.set(index);
+		return result;
+	}
+
+	private int[] readIndexes(DataInputStream record) throws IOException {
+		int[] result = new int[record.readInt()];
+		for (int position = 0; position < result.length; position++) result[position] = record.readInt();
+		return result;
+	}
+
+	private SourceCodeLocation readLocation(DataInputStream record) throws IOException {
+		if (!record.readBoolean()) return null;
+		int lineNumber = record.readInt();
+		int column = record.readInt();
+		return new SourceCodeLocation(lineNumber, column, readString(record));
+	}
+
+	private String readString(DataInputStream record) throws IOException {
+		if (!record.readBoolean()) return null;
+		return record.readUTF();
+	}
+}
@@ -0,0 +1,278 @@
+package graph.cfg.analyzer;
+
+import graph.basic.GraphAdjacencyIndex;
+import graph.basic.GraphNode;
+import graph.cfg.CompactControlFlowGraph;
+import graph.cfg.ControlFlowGraph;
+import graph.cfg.ExecutionPoint;
+import graph.cfg.IFlowInfoRecorder;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.VariableDefinition;
+import nameTable.nameReference.NameReference;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sourceCodeAST.SourceCodeLocation;
+
+/**
+ * Write the control flow graphs (e.g. the CFGs of all methods of a corpus) and the results of the flow analyses on them to a single
+ * binary file, which can be read by ControlFlowGraphFileReader without parsing the source code files again.
+ * <p>Each graph is written as a record, which includes the compact form of the graph (see CompactControlFlowGraph) and the flow
+ * information held by the recorders of its nodes, i.e. the reach names (IReachNameRecorder), the dominate nodes (IDominateNodeRecorder)
+ * and the live variables (ILiveVariableRecorder). The name definitions in the flow information are written by their unique ids, and
+ * the value references of the reach names are written by their names, locations and kinds. An index of the ids and the offsets of the
+ * records is written at the end of the file when the writer is closed, so a reader can read a graph without reading the others.
+ * <p>The layout of the file is: magic, version, records (each is the length of the record and the bytes of the record), the index
+ * (the number of graphs, and the id and the offset of each record), the offset of the index and the magic again.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017930
+ * @version 1.0
+ *
+ */
+public class ControlFlowGraphFileWriter {
+	static final int FILE_MAGIC = 0x4A434647;		// "JCFG"
+	static final int FILE_VERSION = 1;
+
+	// The flags of the flow information written in a record
+	static final int FLOW_REACH_NAME = 1;
+	static final int FLOW_DOMINATE_NODE = 2;
+	static final int FLOW_LIVE_VARIABLE = 4;
+
+	private DataOutputStream output = null;
+	private long position = 0;
+	private boolean writeFlowInfo = true;
+
+	private List<String> graphIdList = new ArrayList<String>();
+	private List<Long> offsetList = new ArrayList<Long>();
+
+	public ControlFlowGraphFileWriter(File file) throws IOException {
+		output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		output.writeInt(FILE_MAGIC);
+		output.writeInt(FILE_VERSION);
+		position = 8;
+	}
+
+	/**
+	 * Set whether the flow information of the nodes is written. It is written by default.
+	 */
+	public void setWriteFlowInfo(boolean writeFlowInfo) {
+		this.writeFlowInfo = writeFlowInfo;
+	}
+
+	public int getGraphNumber() {
+		return graphIdList.size();
+	}
+
+	/**
+	 * Write a graph as a record of the file. All nodes of the graph should be execution points.
+	 */
+	public void write(ControlFlowGraph graph) throws IOException {
+		if (output == null) throw new AssertionError("The writer has been closed!");
+		CompactControlFlowGraph compactGraph = CompactControlFlowGraph.create(graph);
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream record = new DataOutputStream(buffer);
+		compactGraph.writeTo(record);
+		if (writeFlowInfo) writeFlowInfo(record, graph.getAdjacencyIndex());
+		else record.writeByte(0);
+		record.flush();
+
+		graphIdList.add(graph.getId());
+		offsetList.add(position);
+		output.writeInt(buffer.size());
+		buffer.writeTo(output);
+		position += 4 + buffer.size();
+	}
+
+	/**
+	 * Write the index of the records, and close the file
+	 */
+	public void close() throws IOException {
+		if (output == null) return;
+		long indexOffset = position;
+		output.writeInt(graphIdList.size());
+		for (int index = 0; index < graphIdList.size(); index++) {
+			String id = graphIdList.get(index);
+			output.writeUTF(id == null ? "" : id);
+			output.writeLong(offsetList.get(index));
+		}
+		output.writeLong(indexOffset);
+		output.writeInt(FILE_MAGIC);
+		output.close();
+		output = null;
+	}
+
+	private void writeFlowInfo(DataOutputStream record, GraphAdjacencyIndex index) throws IOException {
+		int nodeNumber = index.getNodeNumber();
+		IFlowInfoRecorder[] recorders = new IFlowInfoRecorder[nodeNumber];
+		int flags = 0;
+		for (int node = 0; node < nodeNumber; node++) {
+			recorders[node] = ((ExecutionPoint)index.getNode(node)).getFlowInfoRecorder();
+			if (recorders[node] instanceof IReachNameRecorder) flags |= FLOW_REACH_NAME;
+			if (recorders[node] instanceof IDominateNodeRecorder) flags |= FLOW_DOMINATE_NODE;
+			if (recorders[node] instanceof ILiveVariableRecorder) flags |= FLOW_LIVE_VARIABLE;
+		}
+		record.writeByte(flags);
+		if (flags == 0) return;
+		for (int node = 0; node < nodeNumber; node++) record.writeBoolean(recorders[node] != null);
+
+		if ((flags & FLOW_REACH_NAME) != 0) writeReachNames(record, index, recorders);
+		if ((flags & FLOW_DOMINATE_NODE) != 0) {
+			for (int node = 0; node < nodeNumber; node++) {
+				if (recorders[node] == null) continue;
+				List<GraphNode> dominateNodeList = null;
+				if (recorders[node] instanceof IDominateNodeRecorder) dominateNodeList = ((IDominateNodeRecorder)recorders[node]).getDominateNodeList();
+				if (dominateNodeList == null) {
+					record.writeInt(-1);
+					continue;
+				}
+				record.writeInt(dominateNodeList.size());
+				for (GraphNode dominateNode : dominateNodeList) record.writeInt(indexOfNode(index, dominateNode));
+			}
+		}
+		if ((flags & FLOW_LIVE_VARIABLE) != 0) writeLiveVariables(record, recorders);
+	}
+
+	/**
+	 * Write the table of all reach name definitions of the graph, and then the indexes of the generated and reach definitions of each node
+	 */
+	private void writeReachNames(DataOutputStream record, GraphAdjacencyIndex index, IFlowInfoRecorder[] recorders) throws IOException {
+		List<ReachNameDefinition> definitionList = new ArrayList<ReachNameDefinition>();
+		Map<ReachNameDefinition, Integer> definitionIndexMap = new IdentityHashMap<ReachNameDefinition, Integer>();
+		int[][] generatedIndexes = new int[recorders.length][];
+		int[][] reachIndexes = new int[recorders.length][];
+		// Register the definitions in the order of the tables of the recorders first, so the lists of the definitions are in the same order after reading
+		for (int node = 0; node < recorders.length; node++) {
+			if (!(recorders[node] instanceof ReachNameRecorder)) continue;
+			ReachNameDefinitionTable table = ((ReachNameRecorder)recorders[node]).definitionTable;
+			if (table == null) continue;
+			for (int position = 0; position < table.size(); position++) {
+				ReachNameDefinition definition = table.getDefinition(position);
+				if (!definitionIndexMap.containsKey(definition)) {
+					definitionIndexMap.put(definition, definitionList.size());
+					definitionList.add(definition);
+				}
+			}
+		}
+		for (int node = 0; node < recorders.length; node++) {
+			if (!(recorders[node] instanceof IReachNameRecorder)) continue;
+			IReachNameRecorder recorder = (IReachNameRecorder)recorders[node];
+			generatedIndexes[node] = registerDefinitions(recorder.getGeneratedNameList(), definitionList, definitionIndexMap);
+			reachIndexes[node] = registerDefinitions(recorder.getReachNameList(), definitionList, definitionIndexMap);
+		}
+
+		record.writeInt(definitionList.size());
+		for (ReachNameDefinition definition : definitionList) {
+			record.writeInt(definition.getNode() == null ? -1 : indexOfNode(index, definition.getNode()));
+			writeDefinition(record, definition.getName());
+			NameReference value = definition.getValue();
+			record.writeBoolean(value != null);
+			if (value != null) {
+				writeString(record, value.getName());
+				writeLocation(record, value.getLocation());
+				record.writeByte(value.getReferenceKind().ordinal());
+			}
+		}
+		for (int node = 0; node < recorders.length; node++) {
+			if (recorders[node] == null) continue;
+			writeIndexes(record, generatedIndexes[node]);
+			writeIndexes(record, reachIndexes[node]);
+		}
+	}
+
+	private int[] registerDefinitions(List<ReachNameDefinition> list, List<ReachNameDefinition> definitionList, Map<ReachNameDefinition, Integer> definitionIndexMap) {
+		if (list == null) return new int[0];
+		int[] result = new int[list.size()];
+		for (int position = 0; position < result.length; position++) {
+			ReachNameDefinition definition = list.get(position);
+			Integer definitionIndex = definitionIndexMap.get(definition);
+			if (definitionIndex == null) {
+				definitionIndex = definitionList.size();
+				definitionList.add(definition);
+				definitionIndexMap.put(definition, definitionIndex);
+			}
+			result[position] = definitionIndex;
+		}
+		return result;
+	}
+
+	/**
+	 * Write the table of all live variables of the graph, and then the indexes of the used, defined, live in and live out
+	 * variables of each node
+	 */
+	private void writeLiveVariables(DataOutputStream record, IFlowInfoRecorder[] recorders) throws IOException {
+		LiveVariableTable table = new LiveVariableTable();
+		int[][][] variableIndexes = new int[recorders.length][][];
+		for (int node = 0; node < recorders.length; node++) {
+			if (!(recorders[node] instanceof LiveVariableRecorder)) continue;
+			LiveVariableTable recorderTable = ((LiveVariableRecorder)recorders[node]).variableTable;
+			if (recorderTable == null) continue;
+			for (int position = 0; position < recorderTable.size(); position++) table.register(recorderTable.getVariable(position));
+		}
+		for (int node = 0; node < recorders.length; node++) {
+			if (!(recorders[node] instanceof ILiveVariableRecorder)) continue;
+			ILiveVariableRecorder recorder = (ILiveVariableRecorder)recorders[node];
+			variableIndexes[node] = new int[4][];
+			variableIndexes[node][0] = registerVariables(recorder.getUsedVariableList(), table);
+			variableIndexes[node][1] = registerVariables(recorder.getDefinedVariableList(), table);
+			variableIndexes[node][2] = registerVariables(recorder.getLiveInVariableList(), table);
+			variableIndexes[node][3] = registerVariables(recorder.getLiveOutVariableList(), table);
+		}
+
+		record.writeInt(table.size());
+		for (int index = 0; index < table.size(); index++) writeDefinition(record, table.getVariable(index));
+		for (int node = 0; node < recorders.length; node++) {
+			if (recorders[node] == null) continue;
+			for (int kind = 0; kind < 4; kind++) writeIndexes(record, variableIndexes[node] == null ? null : variableIndexes[node][kind]);
+		}
+	}
+
+	private int[] registerVariables(List<VariableDefinition> list, LiveVariableTable table) {
+		if (list == null) return new int[0];
+		int[] result = new int[list.size()];
+		for (int position = 0; position < result.length; position++) result[position] = table.register(list.get(position));
+		return result;
+	}
+
+	private int indexOfNode(GraphAdjacencyIndex index, GraphNode node) {
+		int result = index.indexOf(node);
+		if (result < 0) throw new AssertionError("The node " + node.getId() + " in the flow information is not in the CFG!");
+		return result;
+	}
+
+	private void writeIndexes(DataOutputStream record, int[] indexes) throws IOException {
+		if (indexes == null) {
+			record.writeInt(0);
+			return;
+		}
+		record.writeInt(indexes.length);
+		for (int index : indexes) record.writeInt(index);
+	}
+
+	private void writeDefinition(DataOutputStream record, NameDefinition definition) throws IOException {
+		writeString(record, definition == null ? null : definition.getUniqueId());
+	}
+
+	private void writeLocation(DataOutputStream record, SourceCodeLocation location) throws IOException {
+		record.writeBoolean(location != null);
+		if (location == null) return;
+		record.writeInt(location.getLineNumber());
+		record.writeInt(location.getColumn());
+		writeString(record, location.getFileUnitName());
+	}
+
+	private void writeString(DataOutputStream record, String string) throws IOException {
+		record.writeBoolean(string != null);
+		if (string != null) record.writeUTF(string);
+	}
+}
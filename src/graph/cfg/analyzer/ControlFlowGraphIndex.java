@@ -0,0 +1,142 @@
+package graph.cfg.analyzer;
+
+import graph.basic.GraphAdjacencyIndex;
+import graph.basic.GraphNode;
+import graph.cfg.ControlFlowGraph;
+
+/**
+ * An index of the nodes and edges of a CFG for data flow analysis. Each node of the CFG is numbered by its index in the node
+ * list of the CFG, and the predecessors and the successors of each node are stored as arrays of node index. It also gives the
+ * reverse post-order of the nodes from the start node, which is the best order for a forward data flow analysis.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017912
+ * @version 1.0
+ *
+ * @update 2017/09/14
+ * 		Create the index from the GraphAdjacencyIndex of the CFG
+ */
+public class ControlFlowGraphIndex {
+	private GraphAdjacencyIndex adjacencyIndex = null;
+	private int nodeNumber = 0;
+
+	private int[][] predecessors = null;
+	private int[][] successors = null;
+	private int startIndex = -1;
+
+	// The reverse post-order of the nodes reachable from the start node, followed by the unreachable nodes
+	private int[] reversePostOrder = null;
+
+	public ControlFlowGraphIndex(ControlFlowGraph currentCFG) {
+		adjacencyIndex = currentCFG.getAdjacencyIndex();
+		nodeNumber = adjacencyIndex.getListedNodeNumber();
+
+		// Only the edges between the nodes in the node list of the CFG are kept
+		predecessors = new int[nodeNumber][];
+		successors = new int[nodeNumber][];
+		for (int index = 0; index < nodeNumber; index++) {
+			predecessors[index] = copyListedNodes(index, adjacencyIndex.getInDegree(index), false);
+			successors[index] = copyListedNodes(index, adjacencyIndex.getOutDegree(index), true);
+		}
+
+		GraphNode startNode = currentCFG.getStartNode();
+		if (startNode != null) startIndex = indexOf(startNode);
+		reversePostOrder = computeReversePostOrder(startIndex, successors);
+	}
+
+	private int[] copyListedNodes(int index, int degree, boolean isSuccessor) {
+		int[] buffer = new int[degree];
+		int length = 0;
+		for (int k = 0; k < degree; k++) {
+			int adjacent = isSuccessor ? adjacencyIndex.getSuccessor(index, k) : adjacencyIndex.getPredecessor(index, k);
+			if (adjacent < nodeNumber) buffer[length++] = adjacent;
+		}
+		if (length == degree) return buffer;
+		int[] result = new int[length];
+		System.arraycopy(buffer, 0, result, 0, length);
+		return result;
+	}
+
+	public int getNodeNumber() {
+		return nodeNumber;
+	}
+
+	public GraphNode getNode(int index) {
+		return adjacencyIndex.getNode(index);
+	}
+
+	/**
+	 * Return the index of the given node, or -1 if the node is not in the CFG
+	 */
+	public int indexOf(GraphNode node) {
+		int index = adjacencyIndex.indexOf(node);
+		if (index >= nodeNumber) return -1;
+		return index;
+	}
+
+	public int getStartIndex() {
+		return startIndex;
+	}
+
+	public int[] getPredecessors(int index) {
+		return predecessors[index];
+	}
+
+	public int[] getSuccessors(int index) {
+		return successors[index];
+	}
+
+	/**
+	 * Return the node index in reverse post-order from the start node. The nodes which can not be reached from the start node
+	 * are put at the end of the array in the order of the node list of the CFG.
+	 */
+	public int[] getReversePostOrder() {
+		return reversePostOrder;
+	}
+
+	/**
+	 * Calculate the reverse post-order of the graph given by the adjacent arrays from the given root, using an explicit stack
+	 * to avoid stack overflow in large methods. The nodes which can not be reached from the root are put at the end of the order.
+	 */
+	static int[] computeReversePostOrder(int root, int[][] adjacents) {
+		int nodeNumber = adjacents.length;
+		int[] order = new int[nodeNumber];
+		boolean[] visited = new boolean[nodeNumber];
+		int postNumber = 0;
+
+		if (root >= 0) {
+			int[] nodeStack = new int[nodeNumber];
+			int[] edgeStack = new int[nodeNumber];
+			int top = 0;
+			nodeStack[top] = root;
+			edgeStack[top] = 0;
+			visited[root] = true;
+			while (top >= 0) {
+				int current = nodeStack[top];
+				if (edgeStack[top] < adjacents[current].length) {
+					int next = adjacents[current][edgeStack[top]];
+					edgeStack[top]++;
+					if (!visited[next]) {
+						visited[next] = true;
+						top++;
+						nodeStack[top] = next;
+						edgeStack[top] = 0;
+					}
+				} else {
+					order[postNumber++] = current;
+					top--;
+				}
+			}
+		}
+		// Reverse the post-order of the reachable nodes
+		for (int i = 0, j = postNumber - 1; i < j; i++, j--) {
+			int temp = order[i];
+			order[i] = order[j];
+			order[j] = temp;
+		}
+		for (int index = 0; index < nodeNumber; index++) {
+			if (!visited[index]) order[postNumber++] = index;
+		}
+		return order;
+	}
+}
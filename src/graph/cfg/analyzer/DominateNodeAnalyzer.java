@@ -18,6 +18,11 @@ import util.Debug;
  * @author Zhou Xiaocong
  * @since 201798
  * @version 1.0
+ * @update 2017/09/15
+ * 		Calculate the immediate dominators by DominatorTree instead of the iterative intersection of node lists, and the dominate
+ * 		node list of a node is derived lazily from the tree by its recorder.
+ * @update 2017/09/30
+ * 		Print the nodes without description (e.g. the nodes of a CFG read by ControlFlowGraphFileReader)
  *
  */
 public class DominateNodeAnalyzer {
@@ -44,76 +49,38 @@ public class DominateNodeAnalyzer {
 	}
 
 	public static void dominateNodeAnalysis(ControlFlowGraph currentCFG, MethodDefinition method) {
-		initializeDominateInAllNodes(currentCFG);
+		ControlFlowGraphIndex graphIndex = new ControlFlowGraphIndex(currentCFG);
+		DominatorTree tree = DominatorTree.createDominatorTree(graphIndex);
 		
-		// Need an iterative process to deal with the dominate node in a loop
-		boolean hasChanged = true;
-		while (hasChanged) {
-			hasChanged = false;
+		int nodeNumber = graphIndex.getNodeNumber();
+		int startIndex = graphIndex.getStartIndex();
+		for (int index = 0; index < nodeNumber; index++) {
+			GraphNode graphNode = graphIndex.getNode(index);
+			if (!(graphNode instanceof ExecutionPoint)) continue;
+			ExecutionPoint currentNode = (ExecutionPoint)graphNode;
 			
-			List<GraphNode> graphNodeList = currentCFG.getAllNodes();
-			for (GraphNode graphNode : graphNodeList) {
-				if (graphNode instanceof ExecutionPoint) {
-					ExecutionPoint currentNode = (ExecutionPoint)graphNode;
-					if (currentNode.isStart()) continue;
-					
-					IDominateNodeRecorder currentRecorder = (IDominateNodeRecorder)currentNode.getFlowInfoRecorder();
-					List<GraphNode> currentDominateNodeSet = currentRecorder.getDominateNodeList();
-					List<GraphNode> newDominateNodeSet = null;
-					
-					List<GraphNode> adjacentToNodeList = currentCFG.adjacentToNode(graphNode);
-					for (GraphNode adjacentToNode : adjacentToNodeList) {
-						if (adjacentToNode instanceof ExecutionPoint) {
-							ExecutionPoint precedeNode = (ExecutionPoint)adjacentToNode;
-							IDominateNodeRecorder precedeRecorder = (IDominateNodeRecorder)precedeNode.getFlowInfoRecorder();
-							List<GraphNode> precedeDominateNodeSet = precedeRecorder.getDominateNodeList();
-							// newDominateNodeSet is assigned to be the intersection of newDominateNodeSet and precedeDominateNodeSet
-							if (newDominateNodeSet == null) {
-								newDominateNodeSet = new ArrayList<GraphNode>();
-								newDominateNodeSet.addAll(precedeDominateNodeSet);
-							} else newDominateNodeSet.retainAll(precedeDominateNodeSet);
-						}
-					}
-					
-					if (newDominateNodeSet == null) {
-						Debug.println("\tThe adjacent to node list size " + adjacentToNodeList.size() + " for node [" + graphNode.getId() + "] " + graphNode.getDescription() + " in method " + method.getFullQualifiedName());
-					} else {
-						// The current node is always in the dominate node of the current node
-						if (!newDominateNodeSet.contains(graphNode)) newDominateNodeSet.add(graphNode);
-						if (currentDominateNodeSet.size() != newDominateNodeSet.size() || !currentDominateNodeSet.containsAll(newDominateNodeSet)) {
-							hasChanged = true;
-							currentRecorder.setDominateNodeList(newDominateNodeSet);
-						}
-					}
-				}
+			if (index != startIndex && graphIndex.getPredecessors(index).length == 0) {
+				Debug.println("\tThe adjacent to node list size 0 for node [" + graphNode.getId() + "] " + graphNode.getDescription() + " in method " + method.getFullQualifiedName());
 			}
+			// The recorder derives its dominate node list from the tree when the list is required. Note that the node which
+			// can not be reached from the start node is dominated by all nodes, which is the same as the iterative algorithm
+			IDominateNodeRecorder recorder = (IDominateNodeRecorder)currentNode.getFlowInfoRecorder();
+			recorder.setDominatorTree(tree, index);
 		}
 	}
 	
-	static void initializeDominateInAllNodes(ControlFlowGraph currentCFG) {
-		ExecutionPoint startNode = (ExecutionPoint)currentCFG.getStartNode(); 
-		IDominateNodeRecorder recorder = (IDominateNodeRecorder)startNode.getFlowInfoRecorder();
-		
-		// Add the startNode itself to its dominate node set!
-		List<GraphNode> nodeSet = new ArrayList<GraphNode>();
-		nodeSet.add(startNode);
-		recorder.setDominateNodeList(nodeSet);
-		
-		// Initialize other node with all node as its dominate node set 
-		List<GraphNode> nodeList = currentCFG.getAllNodes();
-		for (GraphNode graphNode : nodeList) {
-			ExecutionPoint node = (ExecutionPoint)graphNode;
-			if (node.isStart()) continue;
-			
-			recorder = (IDominateNodeRecorder)node.getFlowInfoRecorder();
-			// We must create a new node set to record the dominate node set of graphNode, because it will be changed
-			// in the iterative process
-			nodeSet = new ArrayList<GraphNode>();
-			// Add all node to this node set
-			nodeSet.addAll(nodeList);
-			recorder.setDominateNodeList(nodeSet);
-			node.setFlowInfoRecorder(recorder);
-		}
+	/**
+	 * Create the dominator tree of the CFG, which can be used to check dominance or get dominance frontiers of its nodes
+	 */
+	public static DominatorTree createDominatorTree(ControlFlowGraph currentCFG) {
+		return DominatorTree.createDominatorTree(currentCFG);
+	}
+
+	/**
+	 * Create the post-dominator tree of the CFG, the post-dominance frontier of a node gives the nodes it is control dependent on
+	 */
+	public static DominatorTree createPostDominatorTree(ControlFlowGraph currentCFG) {
+		return DominatorTree.createPostDominatorTree(currentCFG);
 	}
 	
 	public static void printDominateNodeInformation(ControlFlowGraph currentCFG, PrintWriter output) {
@@ -147,6 +114,8 @@ public class DominateNodeAnalyzer {
 	}
 	
 	static String getPrettyLine(String description) {
+		// The execution points of a CFG read from a file have no description
+		if (description == null) return "";
 		int lineIndex = description.indexOf('\n');
 		if (lineIndex < 0 || lineIndex > 64) lineIndex = 64;
 		if (lineIndex > description.length()) return description;
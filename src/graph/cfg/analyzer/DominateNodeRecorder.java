@@ -8,10 +8,14 @@ import graph.basic.GraphNode;
  * @author Zhou Xiaocong
  * @since 201798
  * @version 1.0
+ * @update 2017/09/15
+ * 		Derive the dominate node list lazily from the dominator tree
  *
  */
 public class DominateNodeRecorder implements IDominateNodeRecorder {
 	List<GraphNode> dominateNodeList = null; // Record those nodes which dominate the current node!
+	DominatorTree dominatorTree = null;
+	int nodeIndex = -1;
 
 	public DominateNodeRecorder() {
 	}
@@ -19,8 +23,15 @@ public class DominateNodeRecorder implements IDominateNodeRecorder {
 	public void setDominateNodeList(List<GraphNode> nodeSet) {
 		dominateNodeList = nodeSet;
 	}
+
+	public void setDominatorTree(DominatorTree tree, int nodeIndex) {
+		dominateNodeList = null;
+		dominatorTree = tree;
+		this.nodeIndex = nodeIndex;
+	}
 	
 	public List<GraphNode> getDominateNodeList() {
+		if (dominateNodeList == null && dominatorTree != null) dominateNodeList = dominatorTree.getDominateNodeList(nodeIndex);
 		return dominateNodeList;
 	}
 }
@@ -0,0 +1,327 @@
+package graph.cfg.analyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import graph.basic.GraphNode;
+import graph.cfg.ControlFlowGraph;
+
+/**
+ * The dominator tree (or post-dominator tree) of a CFG. The immediate dominators are calculated by the iterative algorithm of
+ * Cooper, Harvey and Kennedy ("A Simple, Fast Dominance Algorithm") over the node indexes of a ControlFlowGraphIndex, so it only
+ * uses O(N) memory for a CFG with N nodes.
+ * <p>The post-dominator tree is the dominator tree of the reversed CFG. Since a CFG may have more than one exit (e.g. the normal end
+ * and the abnormal end), we add a virtual exit after all nodes without follow nodes as the root of the post-dominator tree. The virtual
+ * exit is never returned to the client, i.e. the immediate post-dominator of a node is -1 if it is the virtual exit.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017915
+ * @version 1.0
+ *
+ */
+public class DominatorTree {
+	private ControlFlowGraphIndex graphIndex = null;
+	private boolean isPostDominatorTree = false;
+
+	// The number of nodes in the tree, which is the number of the nodes in the CFG plus one virtual exit for the post-dominator tree
+	private int treeNodeNumber = 0;
+	private int root = -1;
+	private int[][] predecessors = null;
+
+	// The immediate dominator of each node, it is -1 for the root and those nodes which can not be reached from the root
+	private int[] immediateDominators = null;
+	// The preorder and postorder numbers of the nodes in the dominator tree, so a dominates b iff a is an ancestor of b in the tree
+	private int[] preorderNumbers = null;
+	private int[] postorderNumbers = null;
+
+	// The dominance frontiers are calculated when they are required
+	private int[][] dominanceFrontiers = null;
+
+	private DominatorTree(ControlFlowGraphIndex graphIndex, boolean isPostDominatorTree, int treeNodeNumber, int root, int[][] predecessors, int[][] successors) {
+		this.graphIndex = graphIndex;
+		this.isPostDominatorTree = isPostDominatorTree;
+		this.treeNodeNumber = treeNodeNumber;
+		this.root = root;
+		this.predecessors = predecessors;
+
+		calculateImmediateDominators(successors);
+		numberTreeNodes();
+	}
+
+	/**
+	 * Create the dominator tree of a CFG, whose root is the start node of the CFG
+	 */
+	public static DominatorTree createDominatorTree(ControlFlowGraphIndex graphIndex) {
+		int nodeNumber = graphIndex.getNodeNumber();
+		int[][] predecessors = new int[nodeNumber][];
+		int[][] successors = new int[nodeNumber][];
+		for (int index = 0; index < nodeNumber; index++) {
+			predecessors[index] = graphIndex.getPredecessors(index);
+			successors[index] = graphIndex.getSuccessors(index);
+		}
+		return new DominatorTree(graphIndex, false, nodeNumber, graphIndex.getStartIndex(), predecessors, successors);
+	}
+
+	public static DominatorTree createDominatorTree(ControlFlowGraph currentCFG) {
+		return createDominatorTree(new ControlFlowGraphIndex(currentCFG));
+	}
+
+	/**
+	 * Create the post-dominator tree of a CFG, whose root is a virtual exit following all nodes without follow nodes
+	 */
+	public static DominatorTree createPostDominatorTree(ControlFlowGraphIndex graphIndex) {
+		int nodeNumber = graphIndex.getNodeNumber();
+		int exit = nodeNumber;
+		int exitNumber = 0;
+		for (int index = 0; index < nodeNumber; index++) {
+			if (graphIndex.getSuccessors(index).length == 0) exitNumber++;
+		}
+
+		// In the reversed CFG, the predecessors of a node are its follow nodes in the CFG, and the virtual exit precedes all exits
+		int[][] predecessors = new int[nodeNumber + 1][];
+		int[][] successors = new int[nodeNumber + 1][];
+		int[] exitList = new int[exitNumber];
+		exitNumber = 0;
+		for (int index = 0; index < nodeNumber; index++) {
+			int[] follows = graphIndex.getSuccessors(index);
+			if (follows.length == 0) {
+				predecessors[index] = new int[] {exit};
+				exitList[exitNumber++] = index;
+			} else predecessors[index] = follows;
+			successors[index] = graphIndex.getPredecessors(index);
+		}
+		predecessors[exit] = new int[0];
+		successors[exit] = exitList;
+		return new DominatorTree(graphIndex, true, nodeNumber + 1, exit, predecessors, successors);
+	}
+
+	public static DominatorTree createPostDominatorTree(ControlFlowGraph currentCFG) {
+		return createPostDominatorTree(new ControlFlowGraphIndex(currentCFG));
+	}
+
+	private void calculateImmediateDominators(int[][] successors) {
+		immediateDominators = new int[treeNodeNumber];
+		Arrays.fill(immediateDominators, -1);
+		if (root < 0) return;
+
+		int[] order = ControlFlowGraphIndex.computeReversePostOrder(root, successors);
+		int[] orderOfNode = new int[treeNodeNumber];
+		for (int position = 0; position < treeNodeNumber; position++) orderOfNode[order[position]] = position;
+
+		// During the iteration, the immediate dominator of the root is itself, and -1 means the node has not been processed
+		immediateDominators[root] = root;
+		boolean hasChanged = true;
+		while (hasChanged) {
+			hasChanged = false;
+			for (int position = 0; position < treeNodeNumber; position++) {
+				int current = order[position];
+				if (current == root) continue;
+
+				int newDominator = -1;
+				for (int precede : predecessors[current]) {
+					if (immediateDominators[precede] < 0) continue;
+					if (newDominator < 0) newDominator = precede;
+					else newDominator = intersect(precede, newDominator, orderOfNode);
+				}
+				if (newDominator >= 0 && immediateDominators[current] != newDominator) {
+					immediateDominators[current] = newDominator;
+					hasChanged = true;
+				}
+			}
+		}
+		immediateDominators[root] = -1;
+	}
+
+	/**
+	 * Find the nearest common dominator of the two nodes by walking up the (partial) dominator tree
+	 */
+	private int intersect(int first, int second, int[] orderOfNode) {
+		while (first != second) {
+			while (orderOfNode[first] > orderOfNode[second]) first = immediateDominators[first];
+			while (orderOfNode[second] > orderOfNode[first]) second = immediateDominators[second];
+		}
+		return first;
+	}
+
+	/**
+	 * Number the nodes of the dominator tree in preorder and postorder by an explicit stack
+	 */
+	private void numberTreeNodes() {
+		preorderNumbers = new int[treeNodeNumber];
+		postorderNumbers = new int[treeNodeNumber];
+		Arrays.fill(preorderNumbers, -1);
+		Arrays.fill(postorderNumbers, -1);
+		if (root < 0) return;
+
+		// Store the children of each node in CSR form
+		int[] childStart = new int[treeNodeNumber + 1];
+		for (int index = 0; index < treeNodeNumber; index++) {
+			if (immediateDominators[index] >= 0) childStart[immediateDominators[index] + 1]++;
+		}
+		for (int index = 0; index < treeNodeNumber; index++) childStart[index + 1] += childStart[index];
+		int[] children = new int[childStart[treeNodeNumber]];
+		int[] childNext = Arrays.copyOf(childStart, treeNodeNumber);
+		for (int index = 0; index < treeNodeNumber; index++) {
+			if (immediateDominators[index] >= 0) children[childNext[immediateDominators[index]]++] = index;
+		}
+
+		int[] nodeStack = new int[treeNodeNumber];
+		int[] childStack = new int[treeNodeNumber];
+		int top = 0;
+		int preorder = 0;
+		int postorder = 0;
+		nodeStack[0] = root;
+		childStack[0] = childStart[root];
+		preorderNumbers[root] = preorder++;
+		while (top >= 0) {
+			int current = nodeStack[top];
+			if (childStack[top] < childStart[current + 1]) {
+				int child = children[childStack[top]++];
+				top++;
+				nodeStack[top] = child;
+				childStack[top] = childStart[child];
+				preorderNumbers[child] = preorder++;
+			} else {
+				postorderNumbers[current] = postorder++;
+				top--;
+			}
+		}
+	}
+
+	public ControlFlowGraphIndex getGraphIndex() {
+		return graphIndex;
+	}
+
+	public boolean isPostDominatorTree() {
+		return isPostDominatorTree;
+	}
+
+	/**
+	 * Check if the node can be reached from the root, i.e. the start node for the dominator tree, or for the post-dominator tree,
+	 * the node can reach an exit of the CFG
+	 */
+	public boolean isReachable(int index) {
+		return preorderNumbers[index] >= 0;
+	}
+
+	/**
+	 * Return the index of the immediate dominator (or post-dominator) of the node, or -1 if the node is the root, or it can not be
+	 * reached from the root, or its immediate post-dominator is the virtual exit
+	 */
+	public int getImmediateDominator(int index) {
+		int dominator = immediateDominators[index];
+		if (dominator >= graphIndex.getNodeNumber()) return -1;
+		return dominator;
+	}
+
+	public GraphNode getImmediateDominator(GraphNode node) {
+		int index = graphIndex.indexOf(node);
+		if (index < 0) return null;
+		int dominator = getImmediateDominator(index);
+		if (dominator < 0) return null;
+		return graphIndex.getNode(dominator);
+	}
+
+	/**
+	 * Check if the first node dominates (or post-dominates) the second node. Note that a node dominates itself.
+	 */
+	public boolean dominates(int first, int second) {
+		if (!isReachable(first) || !isReachable(second)) return false;
+		return preorderNumbers[first] <= preorderNumbers[second] && postorderNumbers[second] <= postorderNumbers[first];
+	}
+
+	public boolean dominates(GraphNode first, GraphNode second) {
+		int firstIndex = graphIndex.indexOf(first);
+		int secondIndex = graphIndex.indexOf(second);
+		if (firstIndex < 0 || secondIndex < 0) return false;
+		return dominates(firstIndex, secondIndex);
+	}
+
+	/**
+	 * Return the indexes of all nodes which dominate (or post-dominate) the given node, including the node itself, in the order of
+	 * the node list of the CFG. If the node can not be reached from the root, then all nodes of the CFG are regarded as its dominators,
+	 * which is the greatest solution of the data flow equations of dominators.
+	 */
+	public int[] getDominators(int index) {
+		int nodeNumber = graphIndex.getNodeNumber();
+		if (!isReachable(index)) {
+			int[] result = new int[nodeNumber];
+			for (int node = 0; node < nodeNumber; node++) result[node] = node;
+			return result;
+		}
+
+		int length = 0;
+		for (int node = index; node >= 0 && node < nodeNumber; node = immediateDominators[node]) length++;
+		int[] result = new int[length];
+		length = 0;
+		for (int node = index; node >= 0 && node < nodeNumber; node = immediateDominators[node]) result[length++] = node;
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Return the list of all nodes which dominate (or post-dominate) the given node, including the node itself, in the order of
+	 * the node list of the CFG
+	 */
+	public List<GraphNode> getDominateNodeList(int index) {
+		int[] dominators = getDominators(index);
+		List<GraphNode> result = new ArrayList<GraphNode>(dominators.length);
+		for (int dominator : dominators) result.add(graphIndex.getNode(dominator));
+		return result;
+	}
+
+	/**
+	 * Return the indexes of the nodes in the dominance frontier (or post-dominance frontier) of the given node, i.e. the nodes which have
+	 * a predecessor dominated by the given node but are not strictly dominated by the given node. The post-dominance frontier of a node
+	 * gives the branch nodes which the node is control dependent on.
+	 */
+	public int[] getDominanceFrontier(int index) {
+		if (dominanceFrontiers == null) calculateDominanceFrontiers();
+		return dominanceFrontiers[index];
+	}
+
+	public List<GraphNode> getDominanceFrontier(GraphNode node) {
+		List<GraphNode> result = new ArrayList<GraphNode>();
+		int index = graphIndex.indexOf(node);
+		if (index < 0) return result;
+		for (int frontier : getDominanceFrontier(index)) result.add(graphIndex.getNode(frontier));
+		return result;
+	}
+
+	/**
+	 * Calculate the dominance frontiers by the algorithm of Cooper, Harvey and Kennedy: for each join node, walk up the dominator tree
+	 * from each of its predecessors until its immediate dominator, and add the join node to the frontiers of the nodes on the way.
+	 */
+	private void calculateDominanceFrontiers() {
+		int nodeNumber = graphIndex.getNodeNumber();
+		int[] frontierSizes = new int[nodeNumber];
+		int[][] frontiers = new int[nodeNumber][];
+		for (int index = 0; index < nodeNumber; index++) frontiers[index] = new int[0];
+
+		// lastJoinNode[runner] records the last join node added to the frontier of runner, to avoid duplicated join nodes
+		int[] lastJoinNode = new int[nodeNumber];
+		Arrays.fill(lastJoinNode, -1);
+		for (int join = 0; join < nodeNumber; join++) {
+			if (!isReachable(join) || predecessors[join].length < 2) continue;
+			for (int precede : predecessors[join]) {
+				if (!isReachable(precede)) continue;
+				int runner = precede;
+				while (runner >= 0 && runner < nodeNumber && runner != immediateDominators[join]) {
+					if (lastJoinNode[runner] != join) {
+						lastJoinNode[runner] = join;
+						if (frontierSizes[runner] == frontiers[runner].length) {
+							frontiers[runner] = Arrays.copyOf(frontiers[runner], frontierSizes[runner] * 2 + 1);
+						}
+						frontiers[runner][frontierSizes[runner]++] = join;
+					}
+					runner = immediateDominators[runner];
+				}
+			}
+		}
+		for (int index = 0; index < nodeNumber; index++) {
+			if (frontiers[index].length != frontierSizes[index]) frontiers[index] = Arrays.copyOf(frontiers[index], frontierSizes[index]);
+		}
+		dominanceFrontiers = frontiers;
+	}
+}
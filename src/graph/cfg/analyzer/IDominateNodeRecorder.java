@@ -8,6 +8,8 @@ import graph.basic.GraphNode;
  * @author Zhou Xiaocong
  * @since 2017910
  * @version 1.0
+ * @update 2017/09/15
+ * 		Add setDominatorTree(), so the dominate node list can be derived from the dominator tree when it is required
  *
  */
 public interface IDominateNodeRecorder extends graph.cfg.IFlowInfoRecorder {
@@ -15,4 +17,10 @@ public interface IDominateNodeRecorder extends graph.cfg.IFlowInfoRecorder {
 	public void setDominateNodeList(List<GraphNode> nodeSet);
 
 	public List<GraphNode> getDominateNodeList();
+
+	/**
+	 * Set the dominator tree of the CFG and the index of the current node in the tree. If no node list has been set explicitly,
+	 * getDominateNodeList() will derive the list from the tree.
+	 */
+	public void setDominatorTree(DominatorTree tree, int nodeIndex);
 }
@@ -0,0 +1,18 @@
+package graph.cfg.analyzer;
+
+import graph.cfg.ExecutionPoint;
+import graph.cfg.IFlowInfoRecorder;
+
+/**
+ * Create the flow information recorder for an execution point of a CFG. The recorder should implement the recorder interfaces 
+ * (e.g. IReachNameRecorder, IDominateNodeRecorder) required by all analyses run on the CFG.
+ * 
+ * @author Zhou Xiaocong
+ * @since 2017923
+ * @version 1.0
+ *
+ */
+public interface IFlowInfoRecorderFactory {
+
+	public IFlowInfoRecorder createRecorder(ExecutionPoint node);
+}
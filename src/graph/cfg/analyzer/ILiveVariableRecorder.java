@@ -0,0 +1,58 @@
+package graph.cfg.analyzer;
+
+import java.util.List;
+
+import graph.cfg.IFlowInfoRecorder;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.VariableDefinition;
+
+/**
+ * The recorder of the live variable information of an execution point. A local variable or parameter is live at a point if
+ * its current value may be used along some path from the point before it is redefined.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017913
+ * @version 1.0
+ *
+ */
+public interface ILiveVariableRecorder extends IFlowInfoRecorder {
+
+	/**
+	 * Add a variable whose value is used by the current node
+	 */
+	public void addUsedVariable(VariableDefinition variable);
+
+	/**
+	 * Add a variable which is defined (i.e. assigned) by the current node.
+	 * Note: a defined variable in a node kills the liveness of the variable flowing from the follow nodes
+	 */
+	public void addDefinedVariable(VariableDefinition variable);
+
+	/**
+	 * Add a variable which is live at the entry of the current node
+	 */
+	public boolean addLiveInVariable(VariableDefinition variable);
+
+	/**
+	 * Add a variable which is live at the exit of the current node
+	 */
+	public boolean addLiveOutVariable(VariableDefinition variable);
+
+	public List<VariableDefinition> getUsedVariableList();
+
+	public List<VariableDefinition> getDefinedVariableList();
+
+	/**
+	 * Get all variables which are live at the entry of the current node
+	 */
+	public List<VariableDefinition> getLiveInVariableList();
+
+	/**
+	 * Get all variables which are live at the exit of the current node
+	 */
+	public List<VariableDefinition> getLiveOutVariableList();
+
+	public boolean isLiveIn(NameDefinition variable);
+
+	public boolean isLiveOut(NameDefinition variable);
+}
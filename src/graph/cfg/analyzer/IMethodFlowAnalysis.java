@@ -0,0 +1,19 @@
+package graph.cfg.analyzer;
+
+import graph.cfg.ControlFlowGraph;
+import nameTable.NameTableManager;
+import nameTable.nameDefinition.MethodDefinition;
+import sourceCodeAST.CompilationUnitRecorder;
+
+/**
+ * A data flow analysis of a method, which stores its result in the recorders of the execution points of the CFG of the method.
+ * 
+ * @author Zhou Xiaocong
+ * @since 2017923
+ * @version 1.0
+ *
+ */
+public interface IMethodFlowAnalysis {
+
+	public void analyze(NameTableManager manager, CompilationUnitRecorder unitRecorder, MethodDefinition method, ControlFlowGraph currentCFG);
+}
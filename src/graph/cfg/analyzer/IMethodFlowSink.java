@@ -0,0 +1,21 @@
+package graph.cfg.analyzer;
+
+import graph.cfg.ControlFlowGraph;
+import nameTable.nameDefinition.MethodDefinition;
+
+/**
+ * Receive the analyzed CFG of each method from MethodFlowAnalysisDriver.
+ * 
+ * @author Zhou Xiaocong
+ * @since 2017923
+ * @version 1.0
+ *
+ */
+public interface IMethodFlowSink {
+
+	/**
+	 * Accept the analyzed CFG of a method. The CFG is not referred by the driver after this method returns, so the sink can release 
+	 * it to limit the memory. 
+	 */
+	public void accept(MethodDefinition method, ControlFlowGraph currentCFG);
+}
@@ -0,0 +1,373 @@
+package graph.cfg.analyzer;
+
+import java.io.PrintWriter;
+import java.nio.LongBuffer;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.AssertStatement;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ConstructorInvocation;
+import org.eclipse.jdt.core.dom.EnhancedForStatement;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.ReturnStatement;
+import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
+import org.eclipse.jdt.core.dom.ThrowStatement;
+import org.eclipse.jdt.core.dom.VariableDeclarationExpression;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
+
+import graph.basic.GraphNode;
+import graph.cfg.ControlFlowGraph;
+import graph.cfg.ExecutionPoint;
+import graph.cfg.creator.CFGCreator;
+import nameTable.NameTableManager;
+import nameTable.creator.ExpressionReferenceASTVisitor;
+import nameTable.creator.NameReferenceCreator;
+import nameTable.filter.NameDefinitionKindFilter;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.NameDefinitionKind;
+import nameTable.nameDefinition.VariableDefinition;
+import nameTable.nameReference.NameReference;
+import nameTable.nameReference.referenceGroup.NameReferenceGroup;
+import nameTable.nameReference.referenceGroup.NameReferenceGroupKind;
+import nameTable.nameScope.CompilationUnitScope;
+import nameTable.nameScope.NameScope;
+import nameTable.nameScope.NameScopeKind;
+import nameTable.visitor.NameDefinitionVisitor;
+import sourceCodeAST.CompilationUnitRecorder;
+import sourceCodeAST.SourceCodeLocation;
+
+/**
+ * Create CFG for a method, and the node of CFG has live variable information, that is those local variables and parameters
+ * whose current values may be used along some path from the node before they are redefined.
+ * <p>The local variables and parameters of the method are numbered densely in a LiveVariableTable, and the used, defined, live-in
+ * and live-out variables of all nodes are stored in flat long arrays, in which the node with index i occupies the words from
+ * i * words to (i+1) * words - 1. So the transfer function of a node, i.e. in = used | (out & ~defined), does not allocate any object.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017913
+ * @version 1.0
+ *
+ */
+public class LiveVariableAnalyzer {
+
+	public static ControlFlowGraph create(NameTableManager nameTable, MethodDefinition method) {
+		CompilationUnitScope unitScope = nameTable.getEnclosingCompilationUnitScope(method);
+		if (unitScope == null) return null;
+		String sourceFileName = unitScope.getUnitName();
+		CompilationUnit astRoot = nameTable.getSouceCodeFileSet().findSourceCodeFileASTRootByFileUnitName(sourceFileName);
+		if (astRoot == null) return null;
+		CompilationUnitRecorder unitRecorder = new CompilationUnitRecorder(sourceFileName, astRoot);
+
+		// Create a ControFlowGraph object
+		ControlFlowGraph currentCFG = CFGCreator.create(nameTable, unitRecorder, method);
+		if (currentCFG == null) return null;
+
+		setLiveVariableRecorder(currentCFG);
+		liveVariableAnalysis(nameTable, unitRecorder, method, currentCFG);
+		return currentCFG;
+	}
+
+	public static void setLiveVariableRecorder(ControlFlowGraph currentCFG) {
+		List<GraphNode> nodeList = currentCFG.getAllNodes();
+		for (GraphNode graphNode : nodeList) {
+			if (graphNode instanceof ExecutionPoint) {
+				ExecutionPoint node = (ExecutionPoint)graphNode;
+				LiveVariableRecorder recorder = new LiveVariableRecorder();
+				node.setFlowInfoRecorder(recorder);
+			}
+		}
+	}
+
+	public static void liveVariableAnalysis(NameTableManager manager, CompilationUnitRecorder unitRecorder, MethodDefinition method, ControlFlowGraph currentCFG) {
+		LiveVariableTable table = createLiveVariableTable(method);
+		ControlFlowGraphIndex graphIndex = new ControlFlowGraphIndex(currentCFG);
+		int nodeNumber = graphIndex.getNodeNumber();
+		int words = (table.size() + 63) >>> 6;
+
+		long[] usedSets = new long[nodeNumber * words];
+		long[] definedSets = new long[nodeNumber * words];
+		long[] liveInSets = new long[nodeNumber * words];
+		long[] liveOutSets = new long[nodeNumber * words];
+
+		if (words > 0) {
+			initializeUsedAndDefinedVariables(manager, unitRecorder, table, graphIndex, words, usedSets, definedSets);
+			solveLiveVariable(graphIndex, words, usedSets, definedSets, liveInSets, liveOutSets);
+		}
+
+		// Write the result back to the recorders
+		for (int index = 0; index < nodeNumber; index++) {
+			ExecutionPoint node = (ExecutionPoint)graphIndex.getNode(index);
+			ILiveVariableRecorder recorder = (ILiveVariableRecorder)node.getFlowInfoRecorder();
+			int base = index * words;
+			if (recorder instanceof LiveVariableRecorder) {
+				((LiveVariableRecorder)recorder).setLiveVariableSets(table, toBitSet(usedSets, base, words), toBitSet(definedSets, base, words),
+						toBitSet(liveInSets, base, words), toBitSet(liveOutSets, base, words));
+			} else {
+				for (int variable = 0; variable < table.size(); variable++) {
+					if (testBit(usedSets, base, variable)) recorder.addUsedVariable(table.getVariable(variable));
+					if (testBit(definedSets, base, variable)) recorder.addDefinedVariable(table.getVariable(variable));
+					if (testBit(liveInSets, base, variable)) recorder.addLiveInVariable(table.getVariable(variable));
+					if (testBit(liveOutSets, base, variable)) recorder.addLiveOutVariable(table.getVariable(variable));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Number the parameters and the local variables declared in the method (but not in the local or anonymous classes of the method)
+	 */
+	static LiveVariableTable createLiveVariableTable(MethodDefinition method) {
+		LiveVariableTable table = new LiveVariableTable();
+		List<VariableDefinition> parameterList = method.getParameterList();
+		if (parameterList != null) {
+			for (VariableDefinition parameter : parameterList) table.register(parameter);
+		}
+
+		NameDefinitionVisitor visitor = new NameDefinitionVisitor(new NameDefinitionKindFilter(NameDefinitionKind.NDK_VARIABLE));
+		method.accept(visitor);
+		List<NameDefinition> variableList = visitor.getResult();
+		for (NameDefinition variable : variableList) {
+			if (isDeclaredInMethod(variable, method)) table.register((VariableDefinition)variable);
+		}
+		return table;
+	}
+
+	static boolean isDeclaredInMethod(NameDefinition variable, MethodDefinition method) {
+		NameScope scope = variable.getScope();
+		while (scope != null) {
+			if (scope == method) return true;
+			NameScopeKind kind = scope.getScopeKind();
+			if (kind != NameScopeKind.NSK_LOCAL) return false;
+			scope = scope.getEnclosingScope();
+		}
+		return false;
+	}
+
+	/**
+	 * Set the used and defined variables of all nodes. A variable is defined in a node if it is assigned by an assignment with a
+	 * simple name as its left hand side, or initialized in a variable declaration, or increased (decreased) by a prefix or postfix
+	 * expression, or it is the parameter of an enhanced for statement. The other references to variables in the node are uses.
+	 */
+	static void initializeUsedAndDefinedVariables(NameTableManager manager, CompilationUnitRecorder unitRecorder, LiveVariableTable table,
+			ControlFlowGraphIndex graphIndex, int words, long[] usedSets, long[] definedSets) {
+		// Index the local variables of the method by their locations, so we can find the variable declared by a fragment directly
+		Map<SourceCodeLocation, Integer> declarationMap = new HashMap<SourceCodeLocation, Integer>();
+		for (int variable = 0; variable < table.size(); variable++) {
+			declarationMap.put(table.getVariable(variable).getLocation(), variable);
+		}
+
+		NameReferenceCreator referenceCreator = new NameReferenceCreator(manager);
+		ExpressionReferenceASTVisitor visitor = new ExpressionReferenceASTVisitor(referenceCreator, unitRecorder, null, false);
+
+		int nodeNumber = graphIndex.getNodeNumber();
+		for (int index = 0; index < nodeNumber; index++) {
+			ExecutionPoint node = (ExecutionPoint)graphIndex.getNode(index);
+			if (node.isVirtual()) continue;
+			ASTNode astNode = node.getAstNode();
+			if (astNode == null) continue;
+
+			int base = index * words;
+			visitor.reset(manager.getScopeOfLocation(node.getStartLocation()));
+			int nodeType = astNode.getNodeType();
+			if (nodeType == ASTNode.VARIABLE_DECLARATION_STATEMENT) {
+				@SuppressWarnings("unchecked")
+				List<VariableDeclarationFragment> fragmentList = ((VariableDeclarationStatement)astNode).fragments();
+				for (VariableDeclarationFragment fragment : fragmentList) {
+					collectInDeclaration(fragment, unitRecorder, declarationMap, visitor, table, usedSets, definedSets, base);
+				}
+			} else if (nodeType == ASTNode.VARIABLE_DECLARATION_EXPRESSION) {
+				@SuppressWarnings("unchecked")
+				List<VariableDeclarationFragment> fragmentList = ((VariableDeclarationExpression)astNode).fragments();
+				for (VariableDeclarationFragment fragment : fragmentList) {
+					collectInDeclaration(fragment, unitRecorder, declarationMap, visitor, table, usedSets, definedSets, base);
+				}
+			} else if (nodeType == ASTNode.VARIABLE_DECLARATION_FRAGMENT) {
+				collectInDeclaration((VariableDeclarationFragment)astNode, unitRecorder, declarationMap, visitor, table, usedSets, definedSets, base);
+			} else if (nodeType == ASTNode.ENHANCED_FOR_STATEMENT) {
+				EnhancedForStatement enhancedForStatement = (EnhancedForStatement)astNode;
+				collectInExpression(enhancedForStatement.getExpression(), visitor, table, usedSets, definedSets, base);
+
+				SourceCodeLocation location = SourceCodeLocation.getStartLocation(enhancedForStatement.getParameter(), unitRecorder.root, unitRecorder.unitName);
+				Integer variable = declarationMap.get(location);
+				if (variable == null) {
+					throw new AssertionError("Can not find variable definition for enhanced for parameter: " + enhancedForStatement.getParameter() + " at " + location.getUniqueId());
+				}
+				setBit(definedSets, base, variable);
+			} else if (nodeType == ASTNode.RETURN_STATEMENT) {
+				collectInExpression(((ReturnStatement)astNode).getExpression(), visitor, table, usedSets, definedSets, base);
+			} else if (nodeType == ASTNode.THROW_STATEMENT) {
+				collectInExpression(((ThrowStatement)astNode).getExpression(), visitor, table, usedSets, definedSets, base);
+			} else if (nodeType == ASTNode.ASSERT_STATEMENT) {
+				AssertStatement assertStatement = (AssertStatement)astNode;
+				collectInExpression(assertStatement.getExpression(), visitor, table, usedSets, definedSets, base);
+				collectInExpression(assertStatement.getMessage(), visitor, table, usedSets, definedSets, base);
+			} else if (nodeType == ASTNode.CONSTRUCTOR_INVOCATION) {
+				@SuppressWarnings("unchecked")
+				List<Expression> argumentList = ((ConstructorInvocation)astNode).arguments();
+				for (Expression argument : argumentList) collectInExpression(argument, visitor, table, usedSets, definedSets, base);
+			} else if (nodeType == ASTNode.SUPER_CONSTRUCTOR_INVOCATION) {
+				SuperConstructorInvocation invocation = (SuperConstructorInvocation)astNode;
+				collectInExpression(invocation.getExpression(), visitor, table, usedSets, definedSets, base);
+				@SuppressWarnings("unchecked")
+				List<Expression> argumentList = invocation.arguments();
+				for (Expression argument : argumentList) collectInExpression(argument, visitor, table, usedSets, definedSets, base);
+			} else if (astNode instanceof Expression) {
+				collectInExpression((Expression)astNode, visitor, table, usedSets, definedSets, base);
+			}
+		}
+	}
+
+	static void collectInDeclaration(VariableDeclarationFragment fragment, CompilationUnitRecorder unitRecorder, Map<SourceCodeLocation, Integer> declarationMap,
+			ExpressionReferenceASTVisitor visitor, LiveVariableTable table, long[] usedSets, long[] definedSets, int base) {
+		Expression initializer = fragment.getInitializer();
+		// This variable has not been initialized, that is, it is not defined!
+		if (initializer == null) return;
+
+		collectInExpression(initializer, visitor, table, usedSets, definedSets, base);
+		SourceCodeLocation location = SourceCodeLocation.getStartLocation(fragment, unitRecorder.root, unitRecorder.unitName);
+		Integer variable = declarationMap.get(location);
+		if (variable == null) {
+			throw new AssertionError("Can not find variable definition for variable declaration: " + fragment.toString() + " at " + location.getUniqueId());
+		}
+		setBit(definedSets, base, variable);
+	}
+
+	static void collectInExpression(Expression expression, ExpressionReferenceASTVisitor visitor, LiveVariableTable table, long[] usedSets, long[] definedSets, int base) {
+		if (expression == null) return;
+		visitor.reset();
+		expression.accept(visitor);
+		NameReference reference = visitor.getResult();
+		if (reference == null) return;
+		reference.resolveBinding();
+		collectInReference(reference, table, usedSets, definedSets, base);
+	}
+
+	/**
+	 * Collect the used and defined variables in the reference. Note that the left hand side of a compound assignment (e.g. +=) and the
+	 * operand of ++ or -- are both used and defined, and the array or the index in the left hand side like a[i] are used only.
+	 */
+	static void collectInReference(NameReference reference, LiveVariableTable table, long[] usedSets, long[] definedSets, int base) {
+		if (!reference.isGroupReference()) {
+			int variable = table.indexOf(reference.getDefinition());
+			if (variable >= 0) setBit(usedSets, base, variable);
+			return;
+		}
+
+		NameReferenceGroup group = (NameReferenceGroup)reference;
+		List<NameReference> sublist = group.getSubReferenceList();
+		if (sublist == null) return;
+
+		NameReferenceGroupKind groupKind = group.getGroupKind();
+		int first = 0;
+		if (groupKind == NameReferenceGroupKind.NRGK_ASSIGNMENT) {
+			NameReference leftReference = sublist.get(0);
+			if (!leftReference.isGroupReference()) {
+				int variable = table.indexOf(leftReference.getDefinition());
+				if (variable >= 0) {
+					setBit(definedSets, base, variable);
+					if (!NameReferenceGroup.OPERATOR_ASSIGN.equals(group.getOperator())) setBit(usedSets, base, variable);
+				}
+				first = 1;
+			}
+		} else if (groupKind == NameReferenceGroupKind.NRGK_PREFIX_EXPRESSION || groupKind == NameReferenceGroupKind.NRGK_POSTFIX_EXPRESSION) {
+			String operator = group.getOperator();
+			NameReference operand = sublist.get(0);
+			if (!operand.isGroupReference() && (NameReferenceGroup.OPERATOR_INCREMENT.equals(operator) || NameReferenceGroup.OPERATOR_DECREMENT.equals(operator))) {
+				int variable = table.indexOf(operand.getDefinition());
+				if (variable >= 0) {
+					setBit(definedSets, base, variable);
+					setBit(usedSets, base, variable);
+				}
+				first = 1;
+			}
+		}
+		for (int index = first; index < sublist.size(); index++) {
+			NameReference subreference = sublist.get(index);
+			if (subreference != null) collectInReference(subreference, table, usedSets, definedSets, base);
+		}
+	}
+
+	/**
+	 * Solve the live variables backward by a worklist in post-order (i.e. the reverse of the reverse post-order), so in general a node
+	 * is visited after all its follow nodes except those along back edges. The live-out variables of a node are the union of the live-in
+	 * variables of its follow nodes, and its live-in variables are used | (out & ~defined).
+	 */
+	static void solveLiveVariable(ControlFlowGraphIndex graphIndex, int words, long[] usedSets, long[] definedSets, long[] liveInSets, long[] liveOutSets) {
+		int nodeNumber = graphIndex.getNodeNumber();
+		int[] reversePostOrder = graphIndex.getReversePostOrder();
+		int[] order = new int[nodeNumber];
+		int[] orderOfNode = new int[nodeNumber];
+		for (int position = 0; position < nodeNumber; position++) {
+			order[position] = reversePostOrder[nodeNumber - 1 - position];
+			orderOfNode[order[position]] = position;
+		}
+
+		BitSet worklist = new BitSet(nodeNumber);
+		worklist.set(0, nodeNumber);
+		for (int position = worklist.nextSetBit(0); position >= 0; position = worklist.nextSetBit(0)) {
+			worklist.clear(position);
+			int current = order[position];
+			int base = current * words;
+
+			for (int word = 0; word < words; word++) liveOutSets[base + word] = 0;
+			for (int follow : graphIndex.getSuccessors(current)) {
+				int followBase = follow * words;
+				for (int word = 0; word < words; word++) liveOutSets[base + word] |= liveInSets[followBase + word];
+			}
+
+			boolean changed = false;
+			for (int word = 0; word < words; word++) {
+				long value = usedSets[base + word] | (liveOutSets[base + word] & ~definedSets[base + word]);
+				if (value != liveInSets[base + word]) {
+					liveInSets[base + word] = value;
+					changed = true;
+				}
+			}
+			if (changed) {
+				for (int precede : graphIndex.getPredecessors(current)) worklist.set(orderOfNode[precede]);
+			}
+		}
+	}
+
+	public static void printLiveVariableInformation(ControlFlowGraph currentCFG, PrintWriter output) {
+		List<GraphNode> nodeList = currentCFG.getAllNodes();
+		for (GraphNode graphNode : nodeList) {
+			if (graphNode instanceof ExecutionPoint) {
+				ExecutionPoint node = (ExecutionPoint)graphNode;
+				ILiveVariableRecorder recorder = (ILiveVariableRecorder)node.getFlowInfoRecorder();
+				output.println("[" + graphNode.getId() + "]\t" + DominateNodeAnalyzer.getPrettyLine(graphNode.getDescription()) + "\t" +
+						getVariableListString(recorder.getLiveInVariableList()) + "\t" + getVariableListString(recorder.getLiveOutVariableList()));
+			} else {
+				output.println(graphNode.getId() + "\t~~\t~~\t~~");
+			}
+		}
+	}
+
+	static String getVariableListString(List<VariableDefinition> variableList) {
+		if (variableList.size() <= 0) return "~~";
+		StringBuilder buffer = new StringBuilder();
+		for (VariableDefinition variable : variableList) {
+			if (buffer.length() > 0) buffer.append(", ");
+			buffer.append(variable.getSimpleName());
+		}
+		return buffer.toString();
+	}
+
+	static void setBit(long[] bits, int base, int index) {
+		bits[base + (index >>> 6)] |= (1L << index);
+	}
+
+	static boolean testBit(long[] bits, int base, int index) {
+		return (bits[base + (index >>> 6)] & (1L << index)) != 0;
+	}
+
+	static BitSet toBitSet(long[] bits, int base, int words) {
+		return BitSet.valueOf(LongBuffer.wrap(bits, base, words));
+	}
+}
@@ -0,0 +1,108 @@
+package graph.cfg.analyzer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.VariableDefinition;
+
+/**
+ * Record the live variable information of an execution point as bit vectors over a LiveVariableTable, which is shared by
+ * all nodes of a CFG after the analysis.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017913
+ * @version 1.0
+ *
+ */
+public class LiveVariableRecorder implements ILiveVariableRecorder {
+	protected LiveVariableTable variableTable = null;
+
+	protected BitSet usedSet = null;
+	protected BitSet definedSet = null;
+	protected BitSet liveInSet = null;
+	protected BitSet liveOutSet = null;
+
+	public LiveVariableRecorder() {
+	}
+
+	public void addUsedVariable(VariableDefinition variable) {
+		if (usedSet == null) usedSet = new BitSet();
+		usedSet.set(registerVariable(variable));
+	}
+
+	public void addDefinedVariable(VariableDefinition variable) {
+		if (definedSet == null) definedSet = new BitSet();
+		definedSet.set(registerVariable(variable));
+	}
+
+	public boolean addLiveInVariable(VariableDefinition variable) {
+		if (liveInSet == null) liveInSet = new BitSet();
+		int index = registerVariable(variable);
+		if (liveInSet.get(index)) return false;
+		liveInSet.set(index);
+		return true;
+	}
+
+	public boolean addLiveOutVariable(VariableDefinition variable) {
+		if (liveOutSet == null) liveOutSet = new BitSet();
+		int index = registerVariable(variable);
+		if (liveOutSet.get(index)) return false;
+		liveOutSet.set(index);
+		return true;
+	}
+
+	public List<VariableDefinition> getUsedVariableList() {
+		return getVariableList(usedSet);
+	}
+
+	public List<VariableDefinition> getDefinedVariableList() {
+		return getVariableList(definedSet);
+	}
+
+	public List<VariableDefinition> getLiveInVariableList() {
+		return getVariableList(liveInSet);
+	}
+
+	public List<VariableDefinition> getLiveOutVariableList() {
+		return getVariableList(liveOutSet);
+	}
+
+	public boolean isLiveIn(NameDefinition variable) {
+		return contains(liveInSet, variable);
+	}
+
+	public boolean isLiveOut(NameDefinition variable) {
+		return contains(liveOutSet, variable);
+	}
+
+	/**
+	 * Replace all the live variable information of the current node by the given bit vectors over the given table.
+	 * The recorder will hold the bit vectors directly, so the caller should not modify them after calling this method.
+	 */
+	public void setLiveVariableSets(LiveVariableTable table, BitSet usedSet, BitSet definedSet, BitSet liveInSet, BitSet liveOutSet) {
+		this.variableTable = table;
+		this.usedSet = usedSet;
+		this.definedSet = definedSet;
+		this.liveInSet = liveInSet;
+		this.liveOutSet = liveOutSet;
+	}
+
+	private int registerVariable(VariableDefinition variable) {
+		if (variableTable == null) variableTable = new LiveVariableTable();
+		return variableTable.register(variable);
+	}
+
+	private boolean contains(BitSet variableSet, NameDefinition variable) {
+		if (variableSet == null || variableTable == null) return false;
+		int index = variableTable.indexOf(variable);
+		if (index < 0) return false;
+		return variableSet.get(index);
+	}
+
+	private List<VariableDefinition> getVariableList(BitSet variableSet) {
+		if (variableSet == null || variableTable == null) return new ArrayList<VariableDefinition>();
+		return variableTable.getVariableList(variableSet);
+	}
+}
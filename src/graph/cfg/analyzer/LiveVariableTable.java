@@ -0,0 +1,71 @@
+package graph.cfg.analyzer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.VariableDefinition;
+
+/**
+ * A table to number the local variables and parameters of a method densely, so that a set of variables can be stored
+ * as a bit vector (i.e. BitSet or long[]), in which the i-th bit represents the i-th variable in the table.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017913
+ * @version 1.0
+ *
+ */
+public class LiveVariableTable {
+	private List<VariableDefinition> variableList = null;
+	private Map<NameDefinition, Integer> variableIndexMap = null;
+
+	public LiveVariableTable() {
+		variableList = new ArrayList<VariableDefinition>();
+		variableIndexMap = new HashMap<NameDefinition, Integer>();
+	}
+
+	/**
+	 * Return the index of the variable in the table. If the variable is not in the table, add it to the table.
+	 */
+	public int register(VariableDefinition variable) {
+		Integer index = variableIndexMap.get(variable);
+		if (index != null) return index;
+
+		int newIndex = variableList.size();
+		variableList.add(variable);
+		variableIndexMap.put(variable, newIndex);
+		return newIndex;
+	}
+
+	/**
+	 * Return the index of the given definition in the table, or -1 if it is not a variable in the table
+	 */
+	public int indexOf(NameDefinition definition) {
+		if (definition == null) return -1;
+		Integer index = variableIndexMap.get(definition);
+		if (index == null) return -1;
+		return index;
+	}
+
+	public VariableDefinition getVariable(int index) {
+		return variableList.get(index);
+	}
+
+	public int size() {
+		return variableList.size();
+	}
+
+	/**
+	 * Return the list of variables whose indexes are in the given bit set, in the order of their indexes
+	 */
+	public List<VariableDefinition> getVariableList(BitSet variableSet) {
+		List<VariableDefinition> result = new ArrayList<VariableDefinition>(variableSet.cardinality());
+		for (int index = variableSet.nextSetBit(0); index >= 0; index = variableSet.nextSetBit(index + 1)) {
+			result.add(variableList.get(index));
+		}
+		return result;
+	}
+}
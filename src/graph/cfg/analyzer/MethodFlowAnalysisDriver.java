@@ -0,0 +1,270 @@
+package graph.cfg.analyzer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import graph.basic.GraphNode;
+import graph.cfg.ControlFlowGraph;
+import graph.cfg.ExecutionPoint;
+import graph.cfg.IFlowInfoRecorder;
+import graph.cfg.creator.CFGCreator;
+import nameTable.NameTableManager;
+import nameTable.filter.NameDefinitionKindFilter;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.NameDefinitionKind;
+import nameTable.nameScope.CompilationUnitScope;
+import nameTable.visitor.NameDefinitionVisitor;
+import sourceCodeAST.CompilationUnitRecorder;
+import sourceCodeAST.SourceCodeFileSet;
+
+/**
+ * Run data flow analyses on the CFGs of many methods by a work-stealing thread pool. The methods are partitioned by their compilation 
+ * units, and a task of the pool creates the AST of a unit, and then creates the CFGs of the methods in the unit, sets the recorders 
+ * created by the recorder factory, and runs the analyses in order. The analyzed CFGs are sent to the sink unit by unit in the calling 
+ * thread as soon as a unit is finished, so the order of the units given to the sink is not fixed, but the methods of a unit are given 
+ * in their order in the method list.
+ * <p>At most maxUnitsInFlight units are being analyzed or waiting for the sink at the same time, so the memory of the ASTs and CFGs 
+ * is bounded. The AST and the content of a unit are released from the source code file set after its methods are analyzed.
+ * <p>Resolving references lazily changes the name table (e.g. the bindings of the references in definitions and the values of type 
+ * parameters), so the analyses and the sink are run under the lock of the name table manager, and only the AST and CFG creation 
+ * are run in parallel. If the name table has been frozen (see NameTableManager.freeze()), the analyses are run in parallel without
+ * the lock, and the sink is still called in the calling thread.
+ * 
+ * @author Zhou Xiaocong
+ * @since 2017923
+ * @version 1.0
+ *
+ * @update 2017/09/24
+ * 		Run the analyses without the lock if the name table is frozen
+ */
+public class MethodFlowAnalysisDriver {
+	
+	public static final IFlowInfoRecorderFactory REACH_NAME_AND_DOMINATE_NODE_RECORDER_FACTORY = new IFlowInfoRecorderFactory() {
+		@Override
+		public IFlowInfoRecorder createRecorder(ExecutionPoint node) {
+			return new ReachNameAndDominateNodeRecorder();
+		}
+	};
+	
+	public static final IFlowInfoRecorderFactory LIVE_VARIABLE_RECORDER_FACTORY = new IFlowInfoRecorderFactory() {
+		@Override
+		public IFlowInfoRecorder createRecorder(ExecutionPoint node) {
+			return new LiveVariableRecorder();
+		}
+	};
+	
+	public static final IMethodFlowAnalysis REACH_NAME_ANALYSIS = new IMethodFlowAnalysis() {
+		@Override
+		public void analyze(NameTableManager manager, CompilationUnitRecorder unitRecorder, MethodDefinition method, ControlFlowGraph currentCFG) {
+			ReachNameAnalyzer.reachNameAnalysis(manager, unitRecorder, method, currentCFG);
+		}
+	};
+
+	public static final IMethodFlowAnalysis DOMINATE_NODE_ANALYSIS = new IMethodFlowAnalysis() {
+		@Override
+		public void analyze(NameTableManager manager, CompilationUnitRecorder unitRecorder, MethodDefinition method, ControlFlowGraph currentCFG) {
+			DominateNodeAnalyzer.dominateNodeAnalysis(currentCFG, method);
+		}
+	};
+
+	public static final IMethodFlowAnalysis LIVE_VARIABLE_ANALYSIS = new IMethodFlowAnalysis() {
+		@Override
+		public void analyze(NameTableManager manager, CompilationUnitRecorder unitRecorder, MethodDefinition method, ControlFlowGraph currentCFG) {
+			LiveVariableAnalyzer.liveVariableAnalysis(manager, unitRecorder, method, currentCFG);
+		}
+	};
+
+	private NameTableManager manager = null;
+	private IFlowInfoRecorderFactory recorderFactory = null;
+	private List<IMethodFlowAnalysis> analysisList = new ArrayList<IMethodFlowAnalysis>();
+	
+	private int threadNumber = Runtime.getRuntime().availableProcessors();
+	private int maxUnitsInFlight = 0;			// If it is not positive, we use twice of the thread number
+	
+	public MethodFlowAnalysisDriver(NameTableManager manager, IFlowInfoRecorderFactory recorderFactory) {
+		this.manager = manager;
+		this.recorderFactory = recorderFactory;
+	}
+	
+	/**
+	 * Add an analysis, which will be run after the analyses added before it
+	 */
+	public void addAnalysis(IMethodFlowAnalysis analysis) {
+		analysisList.add(analysis);
+	}
+	
+	public void setThreadNumber(int threadNumber) {
+		if (threadNumber < 1) throw new AssertionError("The thread number should be positive, but it is " + threadNumber);
+		this.threadNumber = threadNumber;
+	}
+	
+	public int getThreadNumber() {
+		return threadNumber;
+	}
+	
+	public void setMaxUnitsInFlight(int maxUnitsInFlight) {
+		this.maxUnitsInFlight = maxUnitsInFlight;
+	}
+	
+	public int getMaxUnitsInFlight() {
+		if (maxUnitsInFlight > 0) return maxUnitsInFlight;
+		return threadNumber * 2;
+	}
+	
+	/**
+	 * Analyze all methods in the name table, and return the number of the CFGs sent to the sink
+	 */
+	public int analyzeAllMethods(IMethodFlowSink sink) {
+		NameDefinitionVisitor visitor = new NameDefinitionVisitor(new NameDefinitionKindFilter(NameDefinitionKind.NDK_METHOD));
+		manager.accept(visitor);
+		List<MethodDefinition> methodList = new ArrayList<MethodDefinition>();
+		for (NameDefinition definition : visitor.getResult()) methodList.add((MethodDefinition)definition);
+		return analyze(methodList, sink);
+	}
+	
+	/**
+	 * Analyze the given methods, and return the number of the CFGs sent to the sink. The methods without CFG (e.g. abstract methods) 
+	 * are not sent to the sink.
+	 */
+	public int analyze(List<MethodDefinition> methodList, IMethodFlowSink sink) {
+		// Partition the methods by their compilation units, in the order of the method list
+		Map<String, List<MethodDefinition>> unitMap = new LinkedHashMap<String, List<MethodDefinition>>();
+		for (MethodDefinition method : methodList) {
+			CompilationUnitScope unitScope = manager.getEnclosingCompilationUnitScope(method);
+			if (unitScope == null) continue;
+			List<MethodDefinition> unitMethodList = unitMap.get(unitScope.getUnitName());
+			if (unitMethodList == null) {
+				unitMethodList = new ArrayList<MethodDefinition>();
+				unitMap.put(unitScope.getUnitName(), unitMethodList);
+			}
+			unitMethodList.add(method);
+		}
+
+		boolean frozen = manager.isFrozen();
+		ForkJoinPool pool = new ForkJoinPool(threadNumber);
+		LinkedBlockingQueue<UnitTask> finishedQueue = new LinkedBlockingQueue<UnitTask>();
+		Iterator<Map.Entry<String, List<MethodDefinition>>> unitIterator = unitMap.entrySet().iterator();
+		int maxUnits = getMaxUnitsInFlight();
+		int runningUnits = 0;
+		int graphNumber = 0;
+		UnitTask failedTask = null;
+		try {
+			while (true) {
+				while (failedTask == null && runningUnits < maxUnits && unitIterator.hasNext()) {
+					Map.Entry<String, List<MethodDefinition>> entry = unitIterator.next();
+					pool.execute(new UnitTask(entry.getKey(), entry.getValue(), finishedQueue, frozen));
+					runningUnits++;
+				}
+				if (runningUnits == 0) break;
+				
+				UnitTask task = null;
+				try {
+					task = finishedQueue.take();
+				} catch (InterruptedException exc) {
+					Thread.currentThread().interrupt();
+					throw new AssertionError("The analysis of methods is interrupted!");
+				}
+				runningUnits--;
+				if (task.error != null) {
+					// Do not start new units, but wait for the running units
+					if (failedTask == null) failedTask = task;
+					continue;
+				}
+				
+				if (frozen) acceptUnit(task, sink);
+				else {
+					synchronized (manager) {
+						acceptUnit(task, sink);
+					}
+				}
+				graphNumber += task.graphList.size();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		
+		if (failedTask != null) {
+			String methodId = (failedTask.currentMethod == null) ? "~~" : failedTask.currentMethod.getUniqueId();
+			throw new AssertionError("Can not analyze method " + methodId + " in unit " + failedTask.unitName, failedTask.error);
+		}
+		return graphNumber;
+	}
+	
+	private void acceptUnit(UnitTask task, IMethodFlowSink sink) {
+		for (int index = 0; index < task.graphList.size(); index++) {
+			sink.accept(task.analyzedMethodList.get(index), task.graphList.get(index));
+		}
+	}
+	
+	private void runAnalyses(CompilationUnitRecorder unitRecorder, MethodDefinition method, ControlFlowGraph currentCFG) {
+		for (IMethodFlowAnalysis analysis : analysisList) analysis.analyze(manager, unitRecorder, method, currentCFG);
+	}
+	
+	/**
+	 * Create the CFGs of the methods in a compilation unit, and run the analyses on them 
+	 */
+	class UnitTask implements Runnable {
+		String unitName = null;
+		List<MethodDefinition> methodList = null;
+		LinkedBlockingQueue<UnitTask> finishedQueue = null;
+		
+		List<MethodDefinition> analyzedMethodList = new ArrayList<MethodDefinition>();
+		List<ControlFlowGraph> graphList = new ArrayList<ControlFlowGraph>();
+		MethodDefinition currentMethod = null;
+		Throwable error = null;
+		boolean frozen = false;
+		
+		UnitTask(String unitName, List<MethodDefinition> methodList, LinkedBlockingQueue<UnitTask> finishedQueue, boolean frozen) {
+			this.unitName = unitName;
+			this.frozen = frozen;
+			this.methodList = methodList;
+			this.finishedQueue = finishedQueue;
+		}
+		
+		@Override
+		public void run() {
+			try {
+				SourceCodeFileSet codeFileSet = manager.getSouceCodeFileSet();
+				CompilationUnit astRoot = codeFileSet.findSourceCodeFileASTRootByFileUnitName(unitName);
+				if (astRoot != null) {
+					CompilationUnitRecorder unitRecorder = new CompilationUnitRecorder(unitName, astRoot);
+					for (MethodDefinition method : methodList) {
+						currentMethod = method;
+						ControlFlowGraph currentCFG = CFGCreator.create(manager, unitRecorder, method);
+						if (currentCFG == null) continue;
+						
+						List<GraphNode> nodeList = currentCFG.getAllNodes();
+						for (GraphNode graphNode : nodeList) {
+							if (graphNode instanceof ExecutionPoint) {
+								ExecutionPoint node = (ExecutionPoint)graphNode;
+								node.setFlowInfoRecorder(recorderFactory.createRecorder(node));
+							}
+						}
+						if (frozen) runAnalyses(unitRecorder, method, currentCFG);
+						else {
+							synchronized (manager) {
+								runAnalyses(unitRecorder, method, currentCFG);
+							}
+						}
+						analyzedMethodList.add(method);
+						graphList.add(currentCFG);
+					}
+					currentMethod = null;
+				}
+				codeFileSet.releaseAST(unitName);
+				codeFileSet.releaseFileContent(unitName);
+			} catch (Throwable exc) {
+				error = exc;
+			}
+			finishedQueue.add(this);
+		}
+	}
+}
@@ -1,7 +1,10 @@
 package graph.cfg.analyzer;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.Assignment;
@@ -22,7 +25,6 @@ import graph.cfg.creator.CFGCreator;
 import nameTable.NameTableManager;
 import nameTable.creator.ExpressionReferenceASTVisitor;
 import nameTable.creator.NameReferenceCreator;
-import nameTable.filter.NameDefinitionLocationFilter;
 import nameTable.nameDefinition.MethodDefinition;
 import nameTable.nameDefinition.NameDefinition;
 import nameTable.nameDefinition.VariableDefinition;
@@ -44,6 +46,11 @@ import sourceCodeAST.SourceCodeLocation;
  * @since 201797
  * @version 1.0
  *
+ * @update 2017/09/12
+ * 		Solve the reach names by a worklist in reverse post-order, and represent the sets of defined names as bit vectors 
+ * 		over a ReachNameDefinitionTable of the method.
+ * @update 2017/09/22
+ * 		Index the definitions of the method once and reuse a reference visitor when initializing the defined names in nodes.
  */
 public class ReachNameAnalyzer {
 
@@ -77,48 +84,110 @@ public class ReachNameAnalyzer {
 	
 	public static void reachNameAnalysis(NameTableManager manager, CompilationUnitRecorder unitRecorder, MethodDefinition method, ControlFlowGraph currentCFG) {
 		initializeDefinedNameInAllNodes(manager, unitRecorder, method, currentCFG);
+		solveReachName(currentCFG);
+	}
+	
+	/**
+	 * Propagate the defined names initialized in all nodes along the edges of the CFG until no node changes its reach names. 
+	 * A defined name reaching a precede node reaches the current node if it is not killed by the names generated in the current 
+	 * node, and its name scope contains the start location of the current node.
+	 * <p>All defined names of the method are numbered in a ReachNameDefinitionTable, and the reach names of each node are
+	 * represented as a bit vector. The nodes are processed by a worklist in reverse post-order, so in general a node is visited
+	 * after all its precede nodes except those along back edges.
+	 */
+	static void solveReachName(ControlFlowGraph currentCFG) {
+		ControlFlowGraphIndex graphIndex = new ControlFlowGraphIndex(currentCFG);
+		int nodeNumber = graphIndex.getNodeNumber();
+		ReachNameDefinitionTable table = new ReachNameDefinitionTable();
 		
-		// Need an iterative process to deal with the defined names in a loop
-		boolean hasChanged = true;
-		while (hasChanged) {
-			hasChanged = false;
-			List<GraphNode> graphNodeList = currentCFG.getAllNodes();
-			for (GraphNode graphNode : graphNodeList) {
-				ExecutionPoint currentNode = (ExecutionPoint)graphNode;
-				IReachNameRecorder currentRecorder = (IReachNameRecorder)currentNode.getFlowInfoRecorder();
-				
-				List<GraphNode> adjacentToNodeList = currentCFG.adjacentToNode(graphNode);
-				for (GraphNode adjacentToNode : adjacentToNodeList) {
-					if (adjacentToNode instanceof ExecutionPoint) {
-						ExecutionPoint precedeNode = (ExecutionPoint)adjacentToNode;
-						IReachNameRecorder precedeRecorder = (IReachNameRecorder)precedeNode.getFlowInfoRecorder();
-						
-						List<ReachNameDefinition> precedeDefinedNameList = precedeRecorder.getReachNameList();
-						// Note that all generated names by this node also kill the names reach the precede nodes.
-						List<ReachNameDefinition> killedNameList = currentRecorder.getGeneratedNameList();
-						for (ReachNameDefinition precedeDefinedName : precedeDefinedNameList) {
-							boolean killed = false;
-							for (ReachNameDefinition killedName : killedNameList) {
-								if (killedName.getName() == precedeDefinedName.getName()) {
-									killed = true;
-									break;
-								}
-							}
-							if (!killed) {
-								NameScope precedeNameScope = precedeDefinedName.getName().getScope();
-								SourceCodeLocation currentLocation = currentNode.getStartLocation(); 
-								// Check whether the name scope of precede defined name contains the location of end node. If not, it means
-								// the precede defined name can not be accessed at the location of end node.
-								if (precedeNameScope.containsLocation(currentLocation)) {
-									if (currentRecorder.addReachName(precedeDefinedName)) {
-										// There is at least a node changing its reached defined name.
-										hasChanged = true;
-									}
-								}
-							}
-						}
+		// 1. Number the initial reach names (i.e. the generated names and the parameters in the start node) of all nodes
+		IReachNameRecorder[] recorders = new IReachNameRecorder[nodeNumber];
+		BitSet[] initialSets = new BitSet[nodeNumber];
+		for (int index = 0; index < nodeNumber; index++) {
+			ExecutionPoint node = (ExecutionPoint)graphIndex.getNode(index);
+			recorders[index] = (IReachNameRecorder)node.getFlowInfoRecorder();
+			initialSets[index] = new BitSet();
+			for (ReachNameDefinition definedName : recorders[index].getReachNameList()) {
+				initialSets[index].set(table.register(definedName));
+			}
+			for (ReachNameDefinition definedName : recorders[index].getGeneratedNameList()) {
+				initialSets[index].set(table.register(definedName));
+			}
+		}
+		
+		// 2. Group the defined names by their name definitions
+		Map<NameDefinition, BitSet> nameMaskMap = new HashMap<NameDefinition, BitSet>();
+		List<NameDefinition> nameList = new ArrayList<NameDefinition>();
+		for (int index = 0; index < table.size(); index++) {
+			NameDefinition name = table.getDefinition(index).getName();
+			// A defined name without definition can not be propagated to other nodes
+			if (name == null) continue;
+			BitSet mask = nameMaskMap.get(name);
+			if (mask == null) {
+				mask = new BitSet();
+				nameMaskMap.put(name, mask);
+				nameList.add(name);
+			}
+			mask.set(index);
+		}
+		
+		// 3. Calculate the defined names which can pass through each node, i.e. those names which are not killed by the node, and 
+		// whose scope contains the start location of the node
+		BitSet[] passSets = new BitSet[nodeNumber];
+		for (int index = 0; index < nodeNumber; index++) {
+			ExecutionPoint node = (ExecutionPoint)graphIndex.getNode(index);
+			SourceCodeLocation currentLocation = node.getStartLocation();
+			List<ReachNameDefinition> killedNameList = recorders[index].getGeneratedNameList();
+			passSets[index] = new BitSet();
+			for (NameDefinition name : nameList) {
+				boolean killed = false;
+				for (ReachNameDefinition killedName : killedNameList) {
+					if (killedName.getName() == name) {
+						killed = true;
+						break;
 					}
 				}
+				if (killed) continue;
+				if (name.getScope().containsLocation(currentLocation)) passSets[index].or(nameMaskMap.get(name));
+			}
+		}
+		
+		// 4. Iterate by the worklist in reverse post-order
+		int[] order = graphIndex.getReversePostOrder();
+		int[] orderOfNode = new int[nodeNumber];
+		for (int position = 0; position < nodeNumber; position++) orderOfNode[order[position]] = position;
+		
+		BitSet[] reachSets = new BitSet[nodeNumber];
+		for (int index = 0; index < nodeNumber; index++) reachSets[index] = (BitSet)initialSets[index].clone();
+		
+		BitSet worklist = new BitSet(nodeNumber);
+		worklist.set(0, nodeNumber);
+		BitSet incomingSet = new BitSet(table.size());
+		for (int position = worklist.nextSetBit(0); position >= 0; position = worklist.nextSetBit(0)) {
+			worklist.clear(position);
+			int current = order[position];
+			
+			incomingSet.clear();
+			for (int precede : graphIndex.getPredecessors(current)) incomingSet.or(reachSets[precede]);
+			incomingSet.and(passSets[current]);
+			
+			BitSet currentSet = reachSets[current];
+			int oldSize = currentSet.cardinality();
+			currentSet.or(incomingSet);
+			if (currentSet.cardinality() != oldSize) {
+				for (int follow : graphIndex.getSuccessors(current)) worklist.set(orderOfNode[follow]);
+			}
+		}
+		
+		// 5. Write the result back to the recorders
+		for (int index = 0; index < nodeNumber; index++) {
+			if (recorders[index] instanceof ReachNameRecorder) {
+				((ReachNameRecorder)recorders[index]).setReachNameSet(table, reachSets[index]);
+			} else {
+				BitSet reachSet = reachSets[index];
+				for (int definition = reachSet.nextSetBit(0); definition >= 0; definition = reachSet.nextSetBit(definition + 1)) {
+					recorders[index].addReachName(table.getDefinition(definition));
+				}
 			}
 		}
 	}
@@ -134,6 +203,9 @@ public class ReachNameAnalyzer {
 			}
 		}
 		
+		// Index the definitions in the method and prepare the reference visitor only once for all nodes 
+		MethodDefinitionContext context = new MethodDefinitionContext(manager, unitRecorder, method);
+		
 		// Initialize defined name in node if its ASTNode is assignment, variable declaration, prefix or postfix expression (++, --) 
 		List<GraphNode> nodeList = currentCFG.getAllNodes();
 		for (GraphNode graphNode : nodeList) {
@@ -153,17 +225,12 @@ public class ReachNameAnalyzer {
 				Expression leftHandSide = assignment.getLeftHandSide();
 				
 				NameScope currentScope = manager.getScopeOfLocation(startLocation);
-				NameReferenceCreator referenceCreator = new NameReferenceCreator(manager, true);
-				ExpressionReferenceASTVisitor visitor = new ExpressionReferenceASTVisitor(referenceCreator, unitRecorder, currentScope, true);
-				leftHandSide.accept(visitor);
-				NameReference leftReference = visitor.getResult();
+				NameReference leftReference = context.createReference(leftHandSide, currentScope);
 				if (leftReference.resolveBinding()) {
 					NameDefinition definition = extractLeftValueInReference(leftReference);
 					
 					Expression rightHandSide = assignment.getRightHandSide();
-					visitor.reset();
-					rightHandSide.accept(visitor);
-					NameReference rightReference = visitor.getResult();
+					NameReference rightReference = context.createReference(rightHandSide, currentScope);
 					
 					rightReference.resolveBinding();
 					ReachNameDefinition definedName = new ReachNameDefinition(node, definition, rightReference); 
@@ -177,165 +244,29 @@ public class ReachNameAnalyzer {
 				SingleVariableDeclaration parameter = enhancedForStatement.getParameter();
 				Expression expression = enhancedForStatement.getExpression();
 				
-				NameDefinitionVisitor visitor = new NameDefinitionVisitor();
-				NameDefinitionLocationFilter filter = new NameDefinitionLocationFilter(startLocation, endLocation);
-				visitor.setFilter(filter);
-				method.accept(visitor);
-				List<NameDefinition> variableList = visitor.getResult();
-
-				boolean found = false;
-				for (NameDefinition variable : variableList) {
-					if (variable.getSimpleName().equals(parameter.getName().getIdentifier())) {
-						found = true;
-						// Find the definition of this variable declaration fragment, so this execution point generated a defined name 
-						// for this variable, and kill all previous definition of this variable in the precede nodes
-
-						// Create reference for its initializer expression, and add the definition of this variable to definedNameList of 
-						// this execution point
-						NameScope currentScope = manager.getScopeOfLocation(startLocation);
-						NameReferenceCreator referenceCreator = new NameReferenceCreator(manager, true);
-						ExpressionReferenceASTVisitor referenceVisitor = new ExpressionReferenceASTVisitor(referenceCreator, unitRecorder, currentScope, true);
-						expression.accept(referenceVisitor);
-						NameReference valueReference = referenceVisitor.getResult();
-						
-						valueReference.resolveBinding();
-						ReachNameDefinition definedName = new ReachNameDefinition(node, variable, valueReference); 
-						recorder.addReachName(definedName);
-						// Generate this defined name and kill all previous definition in the precede node! 
-						recorder.addGeneratedName(definedName);
-						break;
-					}
-				}
-				if (!found) {
+				// Find the definition of this parameter, so this execution point generated a defined name for this variable, and 
+				// kill all previous definition of this variable in the precede nodes
+				NameDefinition variable = context.findDefinition(parameter.getName().getIdentifier(), startLocation, endLocation);
+				if (variable == null) {
 					throw new AssertionError("Can not find variable definition for enhanced for parameter: " + parameter.toString() + " at " + startLocation.getUniqueId());
 				}
+				addDefinedNameOfVariable(manager, context, node, recorder, variable, expression);
 			} else if (nodeType == ASTNode.VARIABLE_DECLARATION_EXPRESSION) {
 				VariableDeclarationExpression variableDeclarationExpression = (VariableDeclarationExpression)astNode;
-				
-				NameDefinitionVisitor visitor = new NameDefinitionVisitor();
-				NameDefinitionLocationFilter filter = new NameDefinitionLocationFilter(startLocation, endLocation);
-				visitor.setFilter(filter);
-				method.accept(visitor);
-				List<NameDefinition> variableList = visitor.getResult();
-				
 				@SuppressWarnings("unchecked")
 				List<VariableDeclarationFragment> fragmentList = variableDeclarationExpression.fragments();
 				for (VariableDeclarationFragment fragment : fragmentList) {
-					Expression initializer = fragment.getInitializer();
-					// This variable has not been initialized, that is, it is not defined!
-					if (initializer == null) continue;
-					
-					boolean found = false;
-					for (NameDefinition variable : variableList) {
-						if (variable.getSimpleName().equals(fragment.getName().getIdentifier())) {
-							found = true;
-							// Find the definition of this variable declaration fragment, so this execution point generated a defined name 
-							// for this variable, and kill all previous definition of this variable in the precede nodes
-
-							// Create reference for its initializer expression, and add the definition of this variable to definedNameList of 
-							// this execution point
-							NameScope currentScope = manager.getScopeOfLocation(startLocation);
-							NameReferenceCreator referenceCreator = new NameReferenceCreator(manager, true);
-							ExpressionReferenceASTVisitor referenceVisitor = new ExpressionReferenceASTVisitor(referenceCreator, unitRecorder, currentScope, true);
-							initializer.accept(referenceVisitor);
-							NameReference valueReference = referenceVisitor.getResult();
-							
-							valueReference.resolveBinding();
-							ReachNameDefinition definedName = new ReachNameDefinition(node, variable, valueReference); 
-							recorder.addReachName(definedName);
-							// Generate this defined name and kill all previous definition in the precede node! 
-							recorder.addGeneratedName(definedName);
-							
-							break;
-						}
-					}
-					if (!found) {
-						throw new AssertionError("Can not find variable definition for variable declaration: " + fragment.toString() + " at " + startLocation.getUniqueId());
-					}
+					initializeDefinedNameOfFragment(manager, context, node, recorder, fragment);
 				}
 			} else if (nodeType == ASTNode.VARIABLE_DECLARATION_FRAGMENT) {
 				VariableDeclarationFragment fragment = (VariableDeclarationFragment)astNode;
-				
-				NameDefinitionVisitor visitor = new NameDefinitionVisitor();
-				NameDefinitionLocationFilter filter = new NameDefinitionLocationFilter(startLocation, endLocation);
-				visitor.setFilter(filter);
-				method.accept(visitor);
-				List<NameDefinition> variableList = visitor.getResult();
-				
-				Expression initializer = fragment.getInitializer();
-				// This variable has not been initialized, that is, it is not defined!
-				if (initializer == null) continue;
-				
-				boolean found = false;
-				for (NameDefinition variable : variableList) {
-					if (variable.getSimpleName().equals(fragment.getName().getIdentifier())) {
-						found = true;
-						// Find the definition of this variable declaration fragment, so this execution point generated a defined name 
-						// for this variable, and kill all previous definition of this variable in the precede nodes
-
-						// Create reference for its initializer expression, and add the definition of this variable to definedNameList of 
-						// this execution point
-						NameScope currentScope = manager.getScopeOfLocation(startLocation);
-						NameReferenceCreator referenceCreator = new NameReferenceCreator(manager, true);
-						ExpressionReferenceASTVisitor referenceVisitor = new ExpressionReferenceASTVisitor(referenceCreator, unitRecorder, currentScope, true);
-						initializer.accept(referenceVisitor);
-						NameReference valueReference = referenceVisitor.getResult();
-						
-						valueReference.resolveBinding();
-						ReachNameDefinition definedName = new ReachNameDefinition(node, variable, valueReference); 
-						recorder.addReachName(definedName);
-						// Generate this defined name and kill all previous definition in the precede node! 
-						recorder.addGeneratedName(definedName);
-						
-						break;
-					}
-				}
-				if (!found) {
-					throw new AssertionError("Can not find variable definition for variable declaration: " + fragment.toString() + " at " + startLocation.getUniqueId());
-				}
+				initializeDefinedNameOfFragment(manager, context, node, recorder, fragment);
 			} else if (nodeType == ASTNode.VARIABLE_DECLARATION_STATEMENT) {
 				VariableDeclarationStatement variableDeclarationStatement = (VariableDeclarationStatement)astNode;
-				
-				NameDefinitionVisitor visitor = new NameDefinitionVisitor();
-				NameDefinitionLocationFilter filter = new NameDefinitionLocationFilter(startLocation, endLocation);
-				visitor.setFilter(filter);
-				method.accept(visitor);
-				List<NameDefinition> variableList = visitor.getResult();
-				
 				@SuppressWarnings("unchecked")
 				List<VariableDeclarationFragment> fragmentList = variableDeclarationStatement.fragments();
 				for (VariableDeclarationFragment fragment : fragmentList) {
-					Expression initializer = fragment.getInitializer();
-					// This variable has not been initialized, that is, it is not defined!
-					if (initializer == null) continue;
-					
-					boolean found = false;
-					for (NameDefinition variable : variableList) {
-						if (variable.getSimpleName().equals(fragment.getName().getIdentifier())) {
-							found = true;
-							// Find the definition of this variable declaration fragment, so this execution point generated a defined name 
-							// for this variable, and kill all previous definition of this variable in the precede nodes
-
-							// Create reference for its initializer expression, and add the definition of this variable to definedNameList of 
-							// this execution point
-							NameScope currentScope = manager.getScopeOfLocation(startLocation);
-							NameReferenceCreator referenceCreator = new NameReferenceCreator(manager, true);
-							ExpressionReferenceASTVisitor referenceVisitor = new ExpressionReferenceASTVisitor(referenceCreator, unitRecorder, currentScope, true);
-							initializer.accept(referenceVisitor);
-							NameReference valueReference = referenceVisitor.getResult();
-							
-							valueReference.resolveBinding();
-							ReachNameDefinition definedName = new ReachNameDefinition(node, variable, valueReference); 
-							recorder.addReachName(definedName);
-							// Generate this defined name and kill all previous definition in the precede node! 
-							recorder.addGeneratedName(definedName);
-							
-							break;
-						}
-					}
-					if (!found) {
-						throw new AssertionError("Can not find variable definition for variable declaration: " + fragment.toString() + " at " + startLocation.getUniqueId());
-					}
+					initializeDefinedNameOfFragment(manager, context, node, recorder, fragment);
 				}
 			} else if (nodeType == ASTNode.PREFIX_EXPRESSION) {
 				PrefixExpression prefix = (PrefixExpression)astNode;
@@ -343,16 +274,11 @@ public class ReachNameAnalyzer {
 					Expression leftHandSide = prefix.getOperand();
 					
 					NameScope currentScope = manager.getScopeOfLocation(startLocation);
-					NameReferenceCreator referenceCreator = new NameReferenceCreator(manager, true);
-					ExpressionReferenceASTVisitor visitor = new ExpressionReferenceASTVisitor(referenceCreator, unitRecorder, currentScope, true);
-					leftHandSide.accept(visitor);
-					NameReference leftReference = visitor.getResult();
+					NameReference leftReference = context.createReference(leftHandSide, currentScope);
 					if (leftReference.resolveBinding()) {
 						NameDefinition definition = leftReference.getDefinition();
 						
-						visitor.reset();
-						prefix.accept(visitor);
-						NameReference rightReference = visitor.getResult();
+						NameReference rightReference = context.createReference(prefix, currentScope);
 						
 						rightReference.resolveBinding();
 						ReachNameDefinition definedName = new ReachNameDefinition(node, definition, rightReference); 
@@ -367,16 +293,11 @@ public class ReachNameAnalyzer {
 					Expression leftHandSide = postfix.getOperand();
 					
 					NameScope currentScope = manager.getScopeOfLocation(startLocation);
-					NameReferenceCreator referenceCreator = new NameReferenceCreator(manager, true);
-					ExpressionReferenceASTVisitor visitor = new ExpressionReferenceASTVisitor(referenceCreator, unitRecorder, currentScope, true);
-					leftHandSide.accept(visitor);
-					NameReference leftReference = visitor.getResult();
+					NameReference leftReference = context.createReference(leftHandSide, currentScope);
 					if (leftReference.resolveBinding()) {
 						NameDefinition definition = leftReference.getDefinition();
 						
-						visitor.reset();
-						postfix.accept(visitor);
-						NameReference rightReference = visitor.getResult();
+						NameReference rightReference = context.createReference(postfix, currentScope);
 
 						rightReference.resolveBinding();
 						ReachNameDefinition definedName = new ReachNameDefinition(node, definition, rightReference); 
@@ -389,6 +310,93 @@ public class ReachNameAnalyzer {
 		}
 	}
 	
+	/**
+	 * Initialize the defined name of a variable declaration fragment in the node if the fragment has an initializer 
+	 */
+	static void initializeDefinedNameOfFragment(NameTableManager manager, MethodDefinitionContext context, ExecutionPoint node, IReachNameRecorder recorder, VariableDeclarationFragment fragment) {
+		Expression initializer = fragment.getInitializer();
+		// This variable has not been initialized, that is, it is not defined!
+		if (initializer == null) return;
+		
+		// Find the definition of this variable declaration fragment, so this execution point generated a defined name 
+		// for this variable, and kill all previous definition of this variable in the precede nodes
+		NameDefinition variable = context.findDefinition(fragment.getName().getIdentifier(), node.getStartLocation(), node.getEndLocation());
+		if (variable == null) {
+			throw new AssertionError("Can not find variable definition for variable declaration: " + fragment.toString() + " at " + node.getStartLocation().getUniqueId());
+		}
+		addDefinedNameOfVariable(manager, context, node, recorder, variable, initializer);
+	}
+	
+	/**
+	 * Create reference for the value expression of the variable, and add the definition of this variable to the defined name list 
+	 * and the generated name list of the node
+	 */
+	static void addDefinedNameOfVariable(NameTableManager manager, MethodDefinitionContext context, ExecutionPoint node, IReachNameRecorder recorder, NameDefinition variable, Expression value) {
+		NameScope currentScope = manager.getScopeOfLocation(node.getStartLocation());
+		NameReference valueReference = context.createReference(value, currentScope);
+		
+		valueReference.resolveBinding();
+		ReachNameDefinition definedName = new ReachNameDefinition(node, variable, valueReference); 
+		recorder.addReachName(definedName);
+		// Generate this defined name and kill all previous definition in the precede node! 
+		recorder.addGeneratedName(definedName);
+	}
+	
+	/**
+	 * The context shared by all nodes of a method when initializing their defined names. It indexes the definitions in the method 
+	 * by their simple names in one traversal (in the order of NameDefinitionVisitor), and reuses one reference visitor for all 
+	 * expressions of the method, instead of traversing the method and creating a visitor for each node.
+	 */
+	static class MethodDefinitionContext {
+		private CompilationUnitRecorder unitRecorder = null;
+		private Map<String, List<NameDefinition>> definitionMap = null;
+		private ExpressionReferenceASTVisitor referenceVisitor = null;
+		
+		MethodDefinitionContext(NameTableManager manager, CompilationUnitRecorder unitRecorder, MethodDefinition method) {
+			this.unitRecorder = unitRecorder;
+			
+			NameDefinitionVisitor visitor = new NameDefinitionVisitor();
+			method.accept(visitor);
+			definitionMap = new HashMap<String, List<NameDefinition>>();
+			for (NameDefinition definition : visitor.getResult()) {
+				List<NameDefinition> definitionList = definitionMap.get(definition.getSimpleName());
+				if (definitionList == null) {
+					definitionList = new ArrayList<NameDefinition>(1);
+					definitionMap.put(definition.getSimpleName(), definitionList);
+				}
+				definitionList.add(definition);
+			}
+			
+			NameReferenceCreator referenceCreator = new NameReferenceCreator(manager, true);
+			referenceVisitor = new ExpressionReferenceASTVisitor(referenceCreator, unitRecorder, null, true);
+		}
+		
+		/**
+		 * Return the first definition in the method with the given simple name, whose location is not less than the start location 
+		 * and less than the end location, i.e. the definition accepted by NameDefinitionLocationFilter
+		 */
+		NameDefinition findDefinition(String simpleName, SourceCodeLocation startLocation, SourceCodeLocation endLocation) {
+			List<NameDefinition> definitionList = definitionMap.get(simpleName);
+			if (definitionList == null) return null;
+			for (NameDefinition definition : definitionList) {
+				SourceCodeLocation location = definition.getLocation();
+				if (startLocation != null && startLocation.compareTo(location) > 0) continue;
+				if (endLocation != null && endLocation.compareTo(location) <= 0) continue;
+				return definition;
+			}
+			return null;
+		}
+		
+		/**
+		 * Create the reference of the expression in the given scope by the shared reference visitor
+		 */
+		NameReference createReference(Expression expression, NameScope scope) {
+			referenceVisitor.reset(unitRecorder, scope);
+			expression.accept(referenceVisitor);
+			return referenceVisitor.getResult();
+		}
+	}
+	
 	public static List<ReachNameDefinition> getReachNameDefinitionList(ControlFlowGraph currentCFG, ExecutionPoint node, NameReference reference) {
 		List<ReachNameDefinition> result = new ArrayList<ReachNameDefinition>();
 		
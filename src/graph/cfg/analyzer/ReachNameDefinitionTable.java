@@ -0,0 +1,67 @@
+package graph.cfg.analyzer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A table to number the reach name definitions of a method densely, so that a set of reach name definitions can be stored
+ * as a bit vector (i.e. BitSet), in which the i-th bit represents the i-th definition in the table.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017912
+ * @version 1.0
+ *
+ */
+public class ReachNameDefinitionTable {
+	private List<ReachNameDefinition> definitionList = null;
+	private Map<ReachNameDefinition, Integer> definitionIndexMap = null;
+
+	public ReachNameDefinitionTable() {
+		definitionList = new ArrayList<ReachNameDefinition>();
+		definitionIndexMap = new HashMap<ReachNameDefinition, Integer>();
+	}
+
+	/**
+	 * Return the index of the definition in the table. If the definition is not in the table, add it to the table.
+	 */
+	public int register(ReachNameDefinition definition) {
+		Integer index = definitionIndexMap.get(definition);
+		if (index != null) return index;
+
+		int newIndex = definitionList.size();
+		definitionList.add(definition);
+		definitionIndexMap.put(definition, newIndex);
+		return newIndex;
+	}
+
+	/**
+	 * Return the index of the definition in the table, or -1 if the definition is not in the table
+	 */
+	public int indexOf(ReachNameDefinition definition) {
+		Integer index = definitionIndexMap.get(definition);
+		if (index == null) return -1;
+		return index;
+	}
+
+	public ReachNameDefinition getDefinition(int index) {
+		return definitionList.get(index);
+	}
+
+	public int size() {
+		return definitionList.size();
+	}
+
+	/**
+	 * Return the list of definitions whose indexes are in the given bit set, in the order of their indexes
+	 */
+	public List<ReachNameDefinition> getDefinitionList(BitSet definitionSet) {
+		List<ReachNameDefinition> result = new ArrayList<ReachNameDefinition>(definitionSet.cardinality());
+		for (int index = definitionSet.nextSetBit(0); index >= 0; index = definitionSet.nextSetBit(index + 1)) {
+			result.add(definitionList.get(index));
+		}
+		return result;
+	}
+}
@@ -1,7 +1,7 @@
 package graph.cfg.analyzer;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -9,14 +9,22 @@ import java.util.List;
  * @since 201797
  * @version 1.0
  *
+ * @update 2017/09/12
+ * 		Store the defined names which can reach the current node as a bit vector over a ReachNameDefinitionTable, and the method
+ * 		getReachNameList() returns a view of this bit vector.
+ *
  */
 public class ReachNameRecorder implements IReachNameRecorder {
 	// generatedNameList records those defined name which are generated by the current node
 	protected List<ReachNameDefinition> generatedNameList = null;
-	
-	// definedNameList records those defined name which can reach the current node 
+
+	// definitionTable numbers the defined names, and reachNameSet records the index of those defined name which can reach the current node
+	protected ReachNameDefinitionTable definitionTable = null;
+	protected BitSet reachNameSet = null;
+
+	// A buffer for the list of defined name which can reach the current node, it is created from reachNameSet when it is required
 	protected List<ReachNameDefinition> definedNameList = null;
-	
+
 	public ReachNameRecorder() {
 	}
 
@@ -24,27 +32,41 @@ public class ReachNameRecorder implements IReachNameRecorder {
 		if (generatedNameList == null) generatedNameList = new ArrayList<ReachNameDefinition>();
 		generatedNameList.add(definedName);
 	}
-	
+
 	public boolean addReachName(ReachNameDefinition definedName) {
-		if (definedNameList == null) definedNameList = new LinkedList<ReachNameDefinition>();
+		if (definitionTable == null) definitionTable = new ReachNameDefinitionTable();
+		if (reachNameSet == null) reachNameSet = new BitSet();
 
-		if (!definedNameList.contains(definedName)) {
-			definedNameList.add(definedName);
-			return true;
-		} else return false;
+		int index = definitionTable.register(definedName);
+		if (reachNameSet.get(index)) return false;
+
+		reachNameSet.set(index);
+		definedNameList = null;
+		return true;
 	}
-	
+
 	public List<ReachNameDefinition> getReachNameList() {
 		if (definedNameList == null) {
-			definedNameList = new LinkedList<ReachNameDefinition>();
+			if (reachNameSet == null) definedNameList = new ArrayList<ReachNameDefinition>();
+			else definedNameList = definitionTable.getDefinitionList(reachNameSet);
 		}
 		return definedNameList;
 	}
-	
+
 	public List<ReachNameDefinition> getGeneratedNameList() {
 		if (generatedNameList == null) {
 			generatedNameList = new ArrayList<ReachNameDefinition>();
 		}
 		return generatedNameList;
 	}
+
+	/**
+	 * Replace the defined names which can reach the current node by the given bit vector over the given table.
+	 * The recorder will hold the bit vector directly, so the caller should not modify it after calling this method.
+	 */
+	public void setReachNameSet(ReachNameDefinitionTable table, BitSet reachNameSet) {
+		this.definitionTable = table;
+		this.reachNameSet = reachNameSet;
+		this.definedNameList = null;
+	}
 }
@@ -78,6 +78,7 @@ public class TestCFGCreator {
 //		testCreateCFGWithDominateNode(path3, output);
 //		testCreateCFGWithReachName(path, output);
 //		testCreateCFG(path3, output);
+//		testCreateCFGWithLiveVariable(path, output);
 		
 		testRootReachName(path, output);
 		
@@ -132,6 +133,28 @@ public class TestCFGCreator {
 		output.println();
 	}
 	
+	public static void testCreateCFGWithLiveVariable(String path, PrintWriter output) {
+		NameTableManager tableManager = NameTableManager.createNameTableManager(path);
+		
+		NameDefinitionVisitor visitor = new NameDefinitionVisitor(new NameDefinitionKindFilter(NameDefinitionKind.NDK_METHOD));
+		tableManager.accept(visitor);
+		List<NameDefinition> methodList = visitor.getResult();
+		
+		Debug.setStart("Begin creating CFG and analysis live variable...");
+		output.println("ExecutionPointId\tDescription\tLiveInVariables\tLiveOutVariables");
+		for (NameDefinition definition : methodList) {
+			MethodDefinition method = (MethodDefinition)definition;
+			ControlFlowGraph cfg = LiveVariableAnalyzer.create(tableManager, method);
+			if (cfg == null) continue;
+			
+			output.println("Method " + method.getUniqueId());
+			LiveVariableAnalyzer.printLiveVariableInformation(cfg, output);
+			output.println();
+		}
+		Debug.time("After Create " + methodList.size() + " CFGs.....");
+		output.println();
+	}
+	
 	public static void testRootReachName(String path, PrintWriter writer) {
 		NameTableManager manager = NameTableManager.createNameTableManager(path);
 		SourceCodeFileSet sourceCodeFileSet = manager.getSouceCodeFileSet();
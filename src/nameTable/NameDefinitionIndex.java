@@ -0,0 +1,92 @@
+package nameTable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameScope.SystemScope;
+import nameTable.visitor.NameDefinitionVisitor;
+
+/**
+ * Hash indexes of all definitions in a system scope, i.e. from simple names, full qualified names and unique ids to the definitions,
+ * so that NameTableManager can find definitions without traversing the whole name table. The definitions are indexed in the order
+ * of NameDefinitionVisitor, and the first definition is used if there are many definitions with the same full qualified name or id.
+ * <p>The index is a snapshot of the system scope. It records the modification count of the system scope when it is created, and
+ * NameTableManager creates it again when the count is changed.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017918
+ * @version 1.0
+ *
+ */
+public class NameDefinitionIndex {
+	private SystemScope systemScope = null;
+	private int modificationCount = 0;
+
+	private Map<String, List<NameDefinition>> simpleNameMap = null;
+	private Map<String, NameDefinition> fullQualifiedNameMap = null;
+	private Map<String, NameDefinition> uniqueIdMap = null;
+
+	public NameDefinitionIndex(SystemScope systemScope) {
+		this.systemScope = systemScope;
+		this.modificationCount = systemScope.getModificationCount();
+
+		NameDefinitionVisitor visitor = new NameDefinitionVisitor();
+		systemScope.accept(visitor);
+		List<NameDefinition> definitionList = visitor.getResult();
+
+		simpleNameMap = new HashMap<String, List<NameDefinition>>(definitionList.size());
+		fullQualifiedNameMap = new HashMap<String, NameDefinition>(definitionList.size() * 2);
+		uniqueIdMap = new HashMap<String, NameDefinition>(definitionList.size() * 2);
+		for (NameDefinition definition : definitionList) {
+			String simpleName = definition.getSimpleName();
+			List<NameDefinition> sameNameList = simpleNameMap.get(simpleName);
+			if (sameNameList == null) {
+				sameNameList = new ArrayList<NameDefinition>(1);
+				simpleNameMap.put(simpleName, sameNameList);
+			}
+			sameNameList.add(definition);
+
+			String fullQualifiedName = definition.getFullQualifiedName();
+			if (!fullQualifiedNameMap.containsKey(fullQualifiedName)) fullQualifiedNameMap.put(fullQualifiedName, definition);
+			String uniqueId = definition.getUniqueId();
+			if (!uniqueIdMap.containsKey(uniqueId)) uniqueIdMap.put(uniqueId, definition);
+		}
+	}
+
+	/**
+	 * Test if the index is still consistent with the given system scope, i.e. it is created from the scope, and the definitions of
+	 * the scope have not been changed after that.
+	 */
+	public boolean isCreatedFrom(SystemScope systemScope) {
+		return this.systemScope == systemScope && modificationCount == systemScope.getModificationCount();
+	}
+
+	/**
+	 * Return the first definition with the given simple name, or null if there is no such definition
+	 */
+	public NameDefinition findDefinitionOfSimpleName(String simpleName) {
+		List<NameDefinition> sameNameList = simpleNameMap.get(simpleName);
+		if (sameNameList == null) return null;
+		return sameNameList.get(0);
+	}
+
+	/**
+	 * Return all definitions with the given simple name. The returned list is a new list, and the caller can change it.
+	 */
+	public List<NameDefinition> getAllDefinitionsOfSimpleName(String simpleName) {
+		List<NameDefinition> sameNameList = simpleNameMap.get(simpleName);
+		if (sameNameList == null) return new ArrayList<NameDefinition>();
+		return new ArrayList<NameDefinition>(sameNameList);
+	}
+
+	public NameDefinition findDefinitionOfFullQualifiedName(String fullQualifiedName) {
+		return fullQualifiedNameMap.get(fullQualifiedName);
+	}
+
+	public NameDefinition findDefinitionById(String uniqueId) {
+		return uniqueIdMap.get(uniqueId);
+	}
+}
@@ -0,0 +1,323 @@
+package nameTable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nameTable.creator.NameReferenceCreator;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameReference.MethodReference;
+import nameTable.nameReference.NameReference;
+import nameTable.nameReference.NameReferenceKind;
+import nameTable.nameScope.CompilationUnitScope;
+import nameTable.nameScope.SystemScope;
+import sourceCodeAST.SourceCodeFileSet;
+import sourceCodeAST.SourceCodeLocation;
+
+/**
+ * A reverse index from the unique ids of definitions to the locations of the references binded to them, i.e. the answer of "who uses
+ * this definition". The index is created in a single pass, which creates and resolves the references of all compilation units, and
+ * records the leaf references binded to definitions. Like NameReferenceCreator.createReferencesBindedToDefinition(), a method
+ * reference is also recorded for each of its alternative methods.
+ * <p>The locations are stored in columns: the unit names are stored once in a unit table, and the unit index, line number and column
+ * of the locations are stored in int arrays, grouped by definitions. So the locations of a definition are found in O(results) time.
+ * The index can be saved to a file next to the name table snapshot, and loaded back if the source code files are not changed.
+ * <p>Like NameDefinitionIndex, the index is a snapshot of the system scope, and NameTableManager creates it again when the
+ * modification count of the system scope is changed.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017921
+ * @version 1.0
+ *
+ */
+public class NameReferenceIndex {
+	private static final int INDEX_MAGIC = 0x4A4E5249;	// "JNRI"
+	private static final int INDEX_VERSION = 1;
+
+	private SystemScope systemScope = null;
+	private int modificationCount = 0;
+
+	private String[] unitNames = null;
+	private String[] definitionIds = null;
+	private Map<String, Integer> definitionRowMap = null;
+
+	// The locations of the i-th definition are in [rowStarts[i], rowStarts[i+1]) of the location columns
+	private int[] rowStarts = null;
+	private int[] unitIndexes = null;
+	private int[] lineNumbers = null;
+	private int[] columns = null;
+
+	private NameReferenceIndex(SystemScope systemScope) {
+		this.systemScope = systemScope;
+		this.modificationCount = systemScope.getModificationCount();
+	}
+
+	/**
+	 * Create the index by creating and resolving the references in all compilation units of the manager. The ASTs and the contents
+	 * of the source code files are released after their references are indexed.
+	 */
+	public static NameReferenceIndex create(NameTableManager manager) {
+		IndexBuilder builder = new IndexBuilder();
+		SourceCodeFileSet codeFileSet = manager.getSouceCodeFileSet();
+		NameReferenceCreator referenceCreator = new NameReferenceCreator(manager);
+
+		List<CompilationUnitScope> unitScopeList = manager.getAllCompilationUnitScopes();
+		if (unitScopeList != null) {
+			for (CompilationUnitScope unitScope : unitScopeList) {
+				String unitName = unitScope.getUnitName();
+				int unitIndex = builder.getUnitIndex(unitName);
+				List<NameReference> referenceList = referenceCreator.createReferences(unitScope);
+				for (NameReference reference : referenceList) {
+					reference.resolveBinding();
+					List<NameReference> leafReferenceList = reference.getReferencesAtLeaf();
+					for (NameReference leafReference : leafReferenceList) builder.addReference(unitIndex, leafReference);
+				}
+				codeFileSet.releaseAST(unitName);
+				codeFileSet.releaseFileContent(unitName);
+			}
+		}
+
+		NameReferenceIndex index = new NameReferenceIndex(manager.getSystemScope());
+		builder.build(index);
+		return index;
+	}
+
+	/**
+	 * Test if the index is still consistent with the given system scope, i.e. it is created from the scope, and the definitions of
+	 * the scope have not been changed after that.
+	 */
+	public boolean isCreatedFrom(SystemScope systemScope) {
+		return this.systemScope == systemScope && modificationCount == systemScope.getModificationCount();
+	}
+
+	/**
+	 * Return the locations of the references binded to the definition with the given unique id, in the order of compilation units
+	 */
+	public List<SourceCodeLocation> getReferenceLocations(String definitionId) {
+		Integer row = definitionRowMap.get(definitionId);
+		if (row == null) return new ArrayList<SourceCodeLocation>();
+		List<SourceCodeLocation> result = new ArrayList<SourceCodeLocation>(rowStarts[row + 1] - rowStarts[row]);
+		for (int index = rowStarts[row]; index < rowStarts[row + 1]; index++) {
+			result.add(new SourceCodeLocation(lineNumbers[index], columns[index], unitNames[unitIndexes[index]]));
+		}
+		return result;
+	}
+
+	public List<SourceCodeLocation> getReferenceLocations(NameDefinition definition) {
+		return getReferenceLocations(definition.getUniqueId());
+	}
+
+	/**
+	 * Return the number of the references binded to the definition with the given unique id
+	 */
+	public int getReferenceNumber(String definitionId) {
+		Integer row = definitionRowMap.get(definitionId);
+		if (row == null) return 0;
+		return rowStarts[row + 1] - rowStarts[row];
+	}
+
+	/**
+	 * Return the names of the compilation units which have references binded to the definition with the given unique id
+	 */
+	public List<String> getReferringUnitNames(String definitionId) {
+		List<String> result = new ArrayList<String>();
+		Integer row = definitionRowMap.get(definitionId);
+		if (row == null) return result;
+		int lastUnitIndex = -1;
+		for (int index = rowStarts[row]; index < rowStarts[row + 1]; index++) {
+			// The locations of a definition are sorted by the unit indexes
+			if (unitIndexes[index] != lastUnitIndex) {
+				lastUnitIndex = unitIndexes[index];
+				result.add(unitNames[lastUnitIndex]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the number of definitions which have references
+	 */
+	public int getDefinitionNumber() {
+		return definitionIds.length;
+	}
+
+	/**
+	 * Return the number of all indexed references
+	 */
+	public int getTotalReferenceNumber() {
+		return unitIndexes.length;
+	}
+
+	/**
+	 * Save the index to the file. The external library head files should be the files used to create the name table.
+	 */
+	public void save(SourceCodeFileSet codeFileSet, String indexFileName, String[] externalLibraryHeadFileArray) throws IOException {
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFileName), 1 << 16));
+		try {
+			output.writeInt(INDEX_MAGIC);
+			output.writeInt(INDEX_VERSION);
+			NameTableSnapshot.writeFileTable(output, codeFileSet, externalLibraryHeadFileArray);
+
+			output.writeInt(unitNames.length);
+			for (String unitName : unitNames) NameTableSnapshot.writeString(output, unitName);
+			output.writeInt(definitionIds.length);
+			for (int row = 0; row < definitionIds.length; row++) {
+				NameTableSnapshot.writeString(output, definitionIds[row]);
+				output.writeInt(rowStarts[row + 1] - rowStarts[row]);
+			}
+			output.writeInt(unitIndexes.length);
+			for (int value : unitIndexes) output.writeInt(value);
+			for (int value : lineNumbers) output.writeInt(value);
+			for (int value : columns) output.writeInt(value);
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Load the index of the name table of the manager from the file. Return null if the file does not exist, or it is not a valid
+	 * index file, or it is stale, i.e. some source code files or head files have been changed since it was saved.
+	 */
+	public static NameReferenceIndex load(NameTableManager manager, String indexFileName, String[] externalLibraryHeadFileArray) throws IOException {
+		File indexFile = new File(indexFileName);
+		if (!indexFile.isFile()) return null;
+
+		RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 8) return null;
+			if (buffer.getInt() != INDEX_MAGIC || buffer.getInt() != INDEX_VERSION) return null;
+			if (!NameTableSnapshot.checkFileTable(buffer, manager.getSouceCodeFileSet(), externalLibraryHeadFileArray)) return null;
+
+			NameReferenceIndex index = new NameReferenceIndex(manager.getSystemScope());
+			index.unitNames = new String[buffer.getInt()];
+			for (int unit = 0; unit < index.unitNames.length; unit++) index.unitNames[unit] = NameTableSnapshot.readString(buffer);
+
+			int definitionNumber = buffer.getInt();
+			index.definitionIds = new String[definitionNumber];
+			index.definitionRowMap = new HashMap<String, Integer>(definitionNumber * 2);
+			index.rowStarts = new int[definitionNumber + 1];
+			for (int row = 0; row < definitionNumber; row++) {
+				index.definitionIds[row] = NameTableSnapshot.readString(buffer);
+				index.definitionRowMap.put(index.definitionIds[row], row);
+				index.rowStarts[row + 1] = index.rowStarts[row] + buffer.getInt();
+			}
+
+			int referenceNumber = buffer.getInt();
+			if (referenceNumber != index.rowStarts[definitionNumber]) return null;
+			index.unitIndexes = new int[referenceNumber];
+			index.lineNumbers = new int[referenceNumber];
+			index.columns = new int[referenceNumber];
+			buffer.asIntBuffer().get(index.unitIndexes);
+			buffer.position(buffer.position() + referenceNumber * 4);
+			buffer.asIntBuffer().get(index.lineNumbers);
+			buffer.position(buffer.position() + referenceNumber * 4);
+			buffer.asIntBuffer().get(index.columns);
+			return index;
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Collect the references in growable columns, and then group them by definitions with a counting sort
+	 */
+	static class IndexBuilder {
+		private List<String> unitList = new ArrayList<String>();
+		private Map<String, Integer> unitIndexMap = new HashMap<String, Integer>();
+		private List<String> definitionList = new ArrayList<String>();
+		private Map<String, Integer> definitionRowMap = new HashMap<String, Integer>();
+
+		private int referenceNumber = 0;
+		private int[] rows = new int[1024];
+		private int[] units = new int[1024];
+		private int[] lines = new int[1024];
+		private int[] cols = new int[1024];
+
+		int getUnitIndex(String unitName) {
+			Integer unitIndex = unitIndexMap.get(unitName);
+			if (unitIndex == null) {
+				unitIndex = unitList.size();
+				unitList.add(unitName);
+				unitIndexMap.put(unitName, unitIndex);
+			}
+			return unitIndex;
+		}
+
+		void addReference(int unitIndex, NameReference reference) {
+			SourceCodeLocation location = reference.getLocation();
+			if (location == null) return;
+			NameDefinition definition = reference.getDefinition();
+			if (definition != null) addLocation(definition, unitIndex, location);
+
+			if (reference.getReferenceKind() == NameReferenceKind.NRK_METHOD) {
+				List<MethodDefinition> alternativeList = ((MethodReference)reference).getAlternativeList();
+				if (alternativeList != null) {
+					for (MethodDefinition method : alternativeList) {
+						if (method != definition) addLocation(method, unitIndex, location);
+					}
+				}
+			}
+		}
+
+		private void addLocation(NameDefinition definition, int unitIndex, SourceCodeLocation location) {
+			String definitionId = definition.getUniqueId();
+			Integer row = definitionRowMap.get(definitionId);
+			if (row == null) {
+				row = definitionList.size();
+				definitionList.add(definitionId);
+				definitionRowMap.put(definitionId, row);
+			}
+
+			if (referenceNumber >= rows.length) {
+				int length = rows.length * 2;
+				rows = Arrays.copyOf(rows, length);
+				units = Arrays.copyOf(units, length);
+				lines = Arrays.copyOf(lines, length);
+				cols = Arrays.copyOf(cols, length);
+			}
+			rows[referenceNumber] = row;
+			units[referenceNumber] = unitIndex;
+			lines[referenceNumber] = location.getLineNumber();
+			cols[referenceNumber] = location.getColumn();
+			referenceNumber++;
+		}
+
+		void build(NameReferenceIndex index) {
+			int definitionNumber = definitionList.size();
+			index.unitNames = unitList.toArray(new String[unitList.size()]);
+			index.definitionIds = definitionList.toArray(new String[definitionNumber]);
+			index.definitionRowMap = definitionRowMap;
+
+			// The references are added in the order of units, and the counting sort is stable, so the locations of a definition are
+			// still in the order of units
+			int[] rowStarts = new int[definitionNumber + 1];
+			for (int reference = 0; reference < referenceNumber; reference++) rowStarts[rows[reference] + 1]++;
+			for (int row = 0; row < definitionNumber; row++) rowStarts[row + 1] += rowStarts[row];
+			int[] next = Arrays.copyOf(rowStarts, definitionNumber);
+
+			index.rowStarts = rowStarts;
+			index.unitIndexes = new int[referenceNumber];
+			index.lineNumbers = new int[referenceNumber];
+			index.columns = new int[referenceNumber];
+			for (int reference = 0; reference < referenceNumber; reference++) {
+				int position = next[rows[reference]]++;
+				index.unitIndexes[position] = units[reference];
+				index.lineNumbers[position] = lines[reference];
+				index.columns[position] = cols[reference];
+			}
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package nameTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nameTable.nameDefinition.PackageDefinition;
+import nameTable.nameScope.CompilationUnitScope;
+import nameTable.nameScope.NameScope;
+import nameTable.nameScope.SystemScope;
+import nameTable.visitor.NameScopeVisitor;
+import sourceCodeAST.SourceCodeLocation;
+
+/**
+ * An interval index of the scopes in the compilation units of a system scope, to find the innermost scope of a source code location
+ * in O(log n) time. For each compilation unit, the start location and the location after the end of all its scopes split the unit
+ * into segments, and the scopes enclosing all locations in a segment are the same. So we store the innermost scope of each segment,
+ * and find the segment of a location by binary search. The index of a compilation unit is created when it is used firstly.
+ * <p>The innermost scope of a segment is found in the same way as NameTableManager finds it by searching the sub-scopes from the
+ * system scope, i.e. if many sub-scopes contain a location, we use the first one in the sub-scope list.
+ * <p>Like NameDefinitionIndex, the index is a snapshot of the system scope, and NameTableManager creates it again when the
+ * modification count of the system scope is changed.
+ * <p>The indexes of the units are created under the lock of the index, so the index can be used by many threads. After 
+ * createAllUnitIndexes() is called (e.g. when the name table is frozen), the index is read without the lock.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017919
+ * @version 1.0
+ *
+ * @update 2017/09/24
+ * 		Add createAllUnitIndexes() to create the indexes of all units, and then read them without the lock
+ */
+public class NameScopeIndex {
+	private SystemScope systemScope = null;
+	private int modificationCount = 0;
+
+	// The first compilation unit scope with the given unit name, and the index of the units which have been used
+	private Map<String, CompilationUnitScope> unitMap = null;
+	private Map<String, UnitScopeIndex> unitIndexMap = null;
+	// Whether the indexes of all units have been created, and then the unit index map will not be changed
+	private volatile boolean complete = false;
+
+	public NameScopeIndex(SystemScope systemScope) {
+		this.systemScope = systemScope;
+		this.modificationCount = systemScope.getModificationCount();
+
+		unitMap = new HashMap<String, CompilationUnitScope>();
+		unitIndexMap = new HashMap<String, UnitScopeIndex>();
+		List<PackageDefinition> packageList = systemScope.getPackageList();
+		if (packageList == null) return;
+		for (PackageDefinition packageDef : packageList) {
+			List<CompilationUnitScope> unitList = packageDef.getCompilationUnitScopeList();
+			if (unitList == null) continue;
+			for (CompilationUnitScope unit : unitList) {
+				if (!unitMap.containsKey(unit.getUnitName())) unitMap.put(unit.getUnitName(), unit);
+			}
+		}
+	}
+
+	/**
+	 * Test if the index is still consistent with the given system scope, i.e. it is created from the scope, and the definitions of
+	 * the scope have not been changed after that.
+	 */
+	public boolean isCreatedFrom(SystemScope systemScope) {
+		return this.systemScope == systemScope && modificationCount == systemScope.getModificationCount();
+	}
+
+	/**
+	 * Get the innermost scope enclosing the given location, or null if the location is not in any compilation unit
+	 */
+	public NameScope getScopeOfLocation(SourceCodeLocation location) {
+		UnitScopeIndex unitIndex = getUnitScopeIndex(location.getFileUnitName());
+		if (unitIndex == null) return null;
+		return unitIndex.getScopeOfLocation(location);
+	}
+
+	/**
+	 * Get the scope starting from the start location and ending at the end location. If the start scope is not null, the result
+	 * should be the start scope or a scope enclosed in it. If the end location is null, only the start location is checked. Return
+	 * null if there is no such scope.
+	 */
+	public NameScope getScopeOfStartAndEndLocation(SourceCodeLocation startLocation, SourceCodeLocation endLocation, NameScope startScope) {
+		UnitScopeIndex unitIndex = getUnitScopeIndex(startLocation.getFileUnitName());
+		if (unitIndex == null) return null;
+		return unitIndex.getScopeOfStartAndEndLocation(startLocation, endLocation, startScope);
+	}
+
+	/**
+	 * Create the indexes of all units, including the indexes for getScopeOfStartAndEndLocation(), so that the index is read without
+	 * the lock later.
+	 */
+	public synchronized void createAllUnitIndexes() {
+		if (complete) return;
+		for (String unitName : unitMap.keySet()) getUnitScopeIndex(unitName).getStartMap();
+		complete = true;
+	}
+	
+	private UnitScopeIndex getUnitScopeIndex(String unitName) {
+		if (unitName == null) return null;
+		if (complete) return unitIndexMap.get(unitName);
+		return createUnitScopeIndex(unitName);
+	}
+
+	private synchronized UnitScopeIndex createUnitScopeIndex(String unitName) {
+		UnitScopeIndex unitIndex = unitIndexMap.get(unitName);
+		if (unitIndex == null) {
+			CompilationUnitScope unit = unitMap.get(unitName);
+			if (unit == null) return null;
+			unitIndex = new UnitScopeIndex(unit);
+			unitIndexMap.put(unitName, unitIndex);
+		}
+		return unitIndex;
+	}
+
+	/**
+	 * Return a key of a location, which keeps the order of the line numbers and the columns of locations
+	 */
+	static long getLocationKey(SourceCodeLocation location) {
+		return ((long)location.getLineNumber() << 32) + location.getColumn();
+	}
+
+	/**
+	 * The index of the scopes in a compilation unit. The i-th segment of the unit is from boundaries[i] (inclusive) to boundaries[i+1]
+	 * (exclusive), and segmentScopes[i] is the innermost scope of the segment. The locations before boundaries[0] are only in the unit.
+	 */
+	static class UnitScopeIndex {
+		private CompilationUnitScope unit = null;
+		private long[] boundaries = null;
+		private NameScope[] segmentScopes = null;
+
+		// The scopes in the unit with the same key of start location, in the order of NameScopeVisitor
+		private volatile Map<Long, List<NameScope>> startMap = null;
+
+		UnitScopeIndex(CompilationUnitScope unit) {
+			this.unit = unit;
+
+			// 1. Collect the boundaries of the scopes which can be found by searching the sub-scopes
+			long[] keys = new long[16];
+			int keyNumber = 0;
+			List<NameScope> scopeStack = new ArrayList<NameScope>();
+			scopeStack.add(unit);
+			while (!scopeStack.isEmpty()) {
+				NameScope scope = scopeStack.remove(scopeStack.size() - 1);
+				List<NameScope> subscopes = scope.getSubScopeList();
+				if (subscopes == null) continue;
+				for (NameScope subscope : subscopes) {
+					if (!isInUnit(subscope)) continue;
+					if (keyNumber + 2 > keys.length) keys = Arrays.copyOf(keys, keys.length * 2);
+					keys[keyNumber++] = getLocationKey(subscope.getScopeStart());
+					keys[keyNumber++] = getLocationKey(subscope.getScopeEnd()) + 1;
+					scopeStack.add(subscope);
+				}
+			}
+			Arrays.sort(keys, 0, keyNumber);
+			int boundaryNumber = 0;
+			for (int index = 0; index < keyNumber; index++) {
+				if (boundaryNumber == 0 || keys[index] != keys[boundaryNumber - 1]) keys[boundaryNumber++] = keys[index];
+			}
+			boundaries = Arrays.copyOf(keys, boundaryNumber);
+
+			// 2. Paint the segments with the innermost scopes. A sub-scope only takes the segments which still belong to its parent,
+			// so the segments taken by a sub-scope are not taken by the following sub-scopes of the same parent.
+			segmentScopes = new NameScope[boundaryNumber];
+			Arrays.fill(segmentScopes, unit);
+			paintSegments(unit);
+
+			// 3. Merge the neighbor segments with the same scope
+			int segmentNumber = 0;
+			for (int index = 0; index < boundaryNumber; index++) {
+				if (segmentNumber > 0 && segmentScopes[index] == segmentScopes[segmentNumber - 1]) continue;
+				boundaries[segmentNumber] = boundaries[index];
+				segmentScopes[segmentNumber] = segmentScopes[index];
+				segmentNumber++;
+			}
+			boundaries = Arrays.copyOf(boundaries, segmentNumber);
+			segmentScopes = Arrays.copyOf(segmentScopes, segmentNumber);
+		}
+
+		private void paintSegments(NameScope scope) {
+			List<NameScope> subscopes = scope.getSubScopeList();
+			if (subscopes == null) return;
+			for (NameScope subscope : subscopes) {
+				if (!isInUnit(subscope)) continue;
+				int first = Arrays.binarySearch(boundaries, getLocationKey(subscope.getScopeStart()));
+				int last = Arrays.binarySearch(boundaries, getLocationKey(subscope.getScopeEnd()) + 1);
+				boolean painted = false;
+				for (int index = first; index < last; index++) {
+					if (segmentScopes[index] == scope) {
+						segmentScopes[index] = subscope;
+						painted = true;
+					}
+				}
+				if (painted) paintSegments(subscope);
+			}
+		}
+
+		/**
+		 * Test if the locations of the scope are in the unit, otherwise the scope can not contain any location in the unit
+		 */
+		private boolean isInUnit(NameScope scope) {
+			SourceCodeLocation start = scope.getScopeStart();
+			SourceCodeLocation end = scope.getScopeEnd();
+			if (start == null || end == null) return false;
+			String unitName = unit.getUnitName();
+			return unitName.equals(start.getFileUnitName()) && unitName.equals(end.getFileUnitName());
+		}
+
+		NameScope getScopeOfLocation(SourceCodeLocation location) {
+			long key = getLocationKey(location);
+			int low = 0;
+			int high = boundaries.length - 1;
+			// Find the last segment whose start is not greater than the key
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				if (boundaries[middle] <= key) low = middle + 1;
+				else high = middle - 1;
+			}
+			if (high < 0) return unit;
+			return segmentScopes[high];
+		}
+
+		/**
+		 * Return the map from the keys of start locations to the scopes, which is created when it is used firstly
+		 */
+		Map<Long, List<NameScope>> getStartMap() {
+			Map<Long, List<NameScope>> map = startMap;
+			if (map != null) return map;
+			synchronized (this) {
+				if (startMap != null) return startMap;
+				// Fill the map before storing it, so that other threads never see a partial map
+				map = new HashMap<Long, List<NameScope>>();
+				NameScopeVisitor visitor = new NameScopeVisitor();
+				unit.accept(visitor);
+				for (NameScope scope : visitor.getResult()) {
+					SourceCodeLocation start = scope.getScopeStart();
+					if (start == null) continue;
+					Long key = getLocationKey(start);
+					List<NameScope> scopeList = map.get(key);
+					if (scopeList == null) {
+						scopeList = new ArrayList<NameScope>(1);
+						map.put(key, scopeList);
+					}
+					scopeList.add(scope);
+				}
+				startMap = map;
+				return map;
+			}
+		}
+
+		NameScope getScopeOfStartAndEndLocation(SourceCodeLocation startLocation, SourceCodeLocation endLocation, NameScope startScope) {
+			List<NameScope> scopeList = getStartMap().get(getLocationKey(startLocation));
+			if (scopeList == null) return null;
+			NameScope result = null;
+			for (NameScope scope : scopeList) {
+				if (!startLocation.equals(scope.getScopeStart())) continue;
+				if (endLocation != null && !endLocation.equals(scope.getScopeEnd())) continue;
+				if (startScope != null && scope != startScope && !scope.isEnclosedInScope(startScope)) continue;
+				// If there are many such scopes, we use the outermost one, since a scope is found before its sub-scopes
+				if (result == null || !scope.isEnclosedInScope(result)) result = scope;
+			}
+			return result;
+		}
+	}
+}
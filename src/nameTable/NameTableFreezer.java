@@ -0,0 +1,273 @@
+package nameTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import nameTable.nameDefinition.DetailedTypeDefinition;
+import nameTable.nameDefinition.EnumConstantDefinition;
+import nameTable.nameDefinition.FieldDefinition;
+import nameTable.nameDefinition.ImportedTypeDefinition;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.NameDefinitionKind;
+import nameTable.nameDefinition.TypeDefinition;
+import nameTable.nameDefinition.TypeParameterDefinition;
+import nameTable.nameDefinition.VariableDefinition;
+import nameTable.nameReference.NameReference;
+import nameTable.nameReference.ParameterizedTypeReference;
+import nameTable.nameReference.TypeReference;
+import nameTable.nameReference.TypeReferenceKind;
+import nameTable.nameScope.CompilationUnitScope;
+import nameTable.nameScope.NameScope;
+import nameTable.nameScope.NameScopeKind;
+import nameTable.nameScope.SystemScope;
+import nameTable.visitor.NameDefinitionVisitor;
+import nameTable.visitor.NameReferenceVisitor;
+
+/**
+ * Freeze a name table (see NameTableManager.freeze()), so that it can be read by many threads without locks. Resolving references
+ * lazily changes the table, i.e. it binds the references held by the definitions or stored in the scopes, sets the current values
+ * of type parameters and resets the type references of type parameters for instantiating a generic type or method, and it creates
+ * the buffers and the indexes of the table. So the freezer does the following steps:
+ * <OL><LI>Resolve the references stored in the scopes, the initializers of fields and the arguments of enum constants.
+ * <LI>Clear the current values of all type parameters, and reset and resolve again the type references of type parameters held by
+ * the definitions, so that they are binded to the type parameters themselves. Then resolve all other type references held by the
+ * definitions, including the types of fields and variables, the return types and throw types of methods, the super types and the
+ * bounds of type parameters. The types of fields, the return types and the parameter types of methods binded to type parameters are
+ * marked, so that they return the current values of the type parameters (see TypeReference.getDefinition()). They are the references
+ * reset for instantiating a generic type or method in a table which is not frozen.
+ * <LI>Create the buffer of detailed types, the definition index, the scope index of all units and the type hierarchy index.
+ * <LI>Freeze the type parameters, and then mark the system scope as frozen.</OL>
+ * <p>The reverse index of references (see NameReferenceIndex) is not created, since it needs to parse all units. It is still created
+ * under the lock of NameTableManager when it is used firstly.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017924
+ * @version 1.0
+ * @update 2017/10/01
+ * 		Create the type hierarchy index before the table is frozen
+ *
+ */
+class NameTableFreezer {
+	private NameTableManager manager = null;
+
+	private List<NameReference> referenceList = new ArrayList<NameReference>();
+	private List<TypeReference> typeReferenceList = new ArrayList<TypeReference>();
+	private Set<NameReference> referenceSet = Collections.newSetFromMap(new IdentityHashMap<NameReference, Boolean>());
+	private List<TypeParameterDefinition> typeParameterList = new ArrayList<TypeParameterDefinition>();
+	// The types of fields, the return types and the parameter types of methods
+	private List<TypeReference> declaredTypeList = new ArrayList<TypeReference>();
+
+	NameTableFreezer(NameTableManager manager) {
+		this.manager = manager;
+	}
+
+	void freeze() {
+		SystemScope systemScope = manager.getSystemScope();
+		collectReferences(systemScope);
+
+		// 1. Resolve the references which are not type references. It may set the values of type parameters and reset type references
+		for (NameReference reference : referenceList) reference.resolveBinding();
+
+		// 2. Resolve type references with the type parameters without values
+		for (TypeParameterDefinition typeParameter : typeParameterList) typeParameter.setCurrentValue(null);
+		for (TypeReference reference : typeReferenceList) {
+			resetTypeParameterBinding(reference);
+			resolveTypeReference(reference);
+		}
+		for (TypeReference reference : declaredTypeList) {
+			NameDefinition definition = reference.getDefinition();
+			if (definition != null && definition.getDefinitionKind() == NameDefinitionKind.NDK_TYPE_PARAMETER) reference.setTypeParameterReference();
+		}
+
+		// 3. Create the buffers and indexes
+		manager.getDefinitionIndex();
+		manager.getScopeIndex().createAllUnitIndexes();
+		manager.getTypeHierarchyIndex();
+
+		// 4. Freeze the table
+		for (TypeParameterDefinition typeParameter : typeParameterList) typeParameter.freeze();
+		systemScope.freeze();
+	}
+
+	/**
+	 * Collect the references stored in the scopes and the references held by the definitions in the system scope
+	 */
+	private void collectReferences(SystemScope systemScope) {
+		NameReferenceVisitor referenceVisitor = new NameReferenceVisitor();
+		systemScope.accept(referenceVisitor);
+		for (NameReference reference : referenceVisitor.getResult()) addReference(reference);
+
+		NameDefinitionVisitor definitionVisitor = new NameDefinitionVisitor();
+		systemScope.accept(definitionVisitor);
+		for (NameDefinition definition : definitionVisitor.getResult()) {
+			if (definition.getDefinitionKind() == NameDefinitionKind.NDK_TYPE && ((TypeDefinition)definition).isImportedType()) {
+				// The members of imported types are not visited by the visitor
+				collectImportedTypeReferences((ImportedTypeDefinition)definition);
+			} else collectDefinitionReferences(definition);
+		}
+
+		List<CompilationUnitScope> unitList = manager.getAllCompilationUnitScopes();
+		if (unitList != null) {
+			for (CompilationUnitScope unit : unitList) {
+				List<NameReference> staticImportList = unit.getImportedStaticMemberList();
+				if (staticImportList == null) continue;
+				for (NameReference reference : staticImportList) addReference(reference);
+			}
+		}
+	}
+
+	private void collectImportedTypeReferences(ImportedTypeDefinition type) {
+		collectDefinitionReferences(type);
+		List<FieldDefinition> fieldList = type.getFieldList();
+		if (fieldList != null) {
+			for (FieldDefinition field : fieldList) collectDefinitionReferences(field);
+		}
+		List<MethodDefinition> methodList = type.getMethodList();
+		if (methodList != null) {
+			for (MethodDefinition method : methodList) {
+				collectDefinitionReferences(method);
+				List<VariableDefinition> parameterList = method.getParameterList();
+				if (parameterList == null) continue;
+				for (VariableDefinition parameter : parameterList) collectDefinitionReferences(parameter);
+			}
+		}
+		List<ImportedTypeDefinition> memberTypeList = type.getTypeList();
+		if (memberTypeList != null) {
+			for (ImportedTypeDefinition memberType : memberTypeList) collectImportedTypeReferences(memberType);
+		}
+	}
+
+	private void collectDefinitionReferences(NameDefinition definition) {
+		NameDefinitionKind kind = definition.getDefinitionKind();
+		if (kind == NameDefinitionKind.NDK_FIELD) {
+			FieldDefinition field = (FieldDefinition)definition;
+			addTypeReference(field.getType());
+			addDeclaredType(field.getType());
+			addReference(field.getInitializer());
+		} else if (kind == NameDefinitionKind.NDK_VARIABLE || kind == NameDefinitionKind.NDK_PARAMETER) {
+			addTypeReference(((VariableDefinition)definition).getType());
+		} else if (kind == NameDefinitionKind.NDK_METHOD) {
+			MethodDefinition method = (MethodDefinition)definition;
+			addTypeReference(method.getReturnType());
+			addDeclaredType(method.getReturnType());
+			List<VariableDefinition> parameterList = method.getParameterList();
+			if (parameterList != null) {
+				for (VariableDefinition parameter : parameterList) addDeclaredType(parameter.getType());
+			}
+			List<TypeReference> throwTypeList = method.getThrowTypeList();
+			if (throwTypeList != null) {
+				for (TypeReference throwType : throwTypeList) addTypeReference(throwType);
+			}
+			collectTypeParameters(method.getTypeParameterList());
+		} else if (kind == NameDefinitionKind.NDK_ENUM_CONSTANT) {
+			List<NameReference> argumentList = ((EnumConstantDefinition)definition).getArgumentList();
+			if (argumentList != null) {
+				for (NameReference argument : argumentList) addReference(argument);
+			}
+		} else if (kind == NameDefinitionKind.NDK_TYPE) {
+			TypeDefinition type = (TypeDefinition)definition;
+			List<TypeReference> superList = type.getSuperList();
+			if (superList != null) {
+				for (TypeReference superType : superList) addTypeReference(superType);
+			}
+			if (type.isDetailedType()) collectTypeParameters(((DetailedTypeDefinition)type).getTypeParameterList());
+			else if (type.isImportedType()) collectTypeParameters(((ImportedTypeDefinition)type).getTypeParameterList());
+		}
+	}
+
+	private void collectTypeParameters(List<TypeParameterDefinition> parameterList) {
+		if (parameterList == null) return;
+		for (TypeParameterDefinition typeParameter : parameterList) {
+			typeParameterList.add(typeParameter);
+			List<TypeReference> boundList = typeParameter.getBoundList();
+			if (boundList == null) continue;
+			for (TypeReference bound : boundList) addTypeReference(bound);
+		}
+	}
+
+	private void addReference(NameReference reference) {
+		if (reference == null) return;
+		if (reference.isTypeReference()) addTypeReference((TypeReference)reference);
+		else if (referenceSet.add(reference)) referenceList.add(reference);
+	}
+
+	private void addTypeReference(TypeReference reference) {
+		if (reference == null) return;
+		if (referenceSet.add(reference)) typeReferenceList.add(reference);
+	}
+
+	private void addDeclaredType(TypeReference reference) {
+		if (reference != null && reference.getTypeKind() == TypeReferenceKind.TRK_SIMPLE) declaredTypeList.add(reference);
+	}
+
+	/**
+	 * Reset the simple type references in the reference tree, which have the name of a type parameter of their enclosing types or
+	 * methods. Return true if some reference is reset.
+	 */
+	private boolean resetTypeParameterBinding(TypeReference reference) {
+		TypeReferenceKind typeKind = reference.getTypeKind();
+		if (typeKind == TypeReferenceKind.TRK_SIMPLE) {
+			if (!isTypeParameterName(reference)) return false;
+			reference.resetBinding();
+			return true;
+		} else if (typeKind == TypeReferenceKind.TRK_PARAMETERIZED) {
+			// The primary type can not be a type parameter, and the binding of the parameterized type is not changed
+			List<TypeReference> argumentList = ((ParameterizedTypeReference)reference).getArgumentList();
+			boolean changed = false;
+			if (argumentList != null) {
+				for (TypeReference argument : argumentList) {
+					if (resetTypeParameterBinding(argument)) changed = true;
+				}
+			}
+			return changed;
+		} else if (typeKind == TypeReferenceKind.TRK_WILDCARD || typeKind == TypeReferenceKind.TRK_UNION || typeKind == TypeReferenceKind.TRK_INTERSECTION) {
+			// These references are binded to the definition of (one of) their sub-references
+			boolean changed = false;
+			for (NameReference subReference : reference.getSubReferenceList()) {
+				if (resetTypeParameterBinding((TypeReference)subReference)) changed = true;
+			}
+			if (changed) reference.resetBinding();
+			return changed;
+		}
+		return false;
+	}
+
+	/**
+	 * Resolve the sub-references in the tree of a type reference, and then the reference itself, since a resolved reference does
+	 * not resolve its sub-references again.
+	 */
+	private void resolveTypeReference(TypeReference reference) {
+		TypeReferenceKind typeKind = reference.getTypeKind();
+		if (typeKind == TypeReferenceKind.TRK_PARAMETERIZED || typeKind == TypeReferenceKind.TRK_WILDCARD ||
+				typeKind == TypeReferenceKind.TRK_UNION || typeKind == TypeReferenceKind.TRK_INTERSECTION) {
+			for (NameReference subReference : reference.getSubReferenceList()) resolveTypeReference((TypeReference)subReference);
+		}
+		reference.resolveBinding();
+	}
+
+	/**
+	 * Test if the name of the reference is the name of a type parameter of a type or a method enclosing the reference
+	 */
+	private boolean isTypeParameterName(TypeReference reference) {
+		String name = reference.getName();
+		NameScope scope = reference.getScope();
+		while (scope != null) {
+			List<TypeParameterDefinition> parameterList = null;
+			NameScopeKind scopeKind = scope.getScopeKind();
+			if (scopeKind == NameScopeKind.NSK_DETAILED_TYPE) parameterList = ((DetailedTypeDefinition)scope).getTypeParameterList();
+			else if (scopeKind == NameScopeKind.NSK_IMPORTED_TYPE) parameterList = ((ImportedTypeDefinition)scope).getTypeParameterList();
+			else if (scopeKind == NameScopeKind.NSK_METHOD) parameterList = ((MethodDefinition)scope).getTypeParameterList();
+			if (parameterList != null) {
+				for (TypeParameterDefinition typeParameter : parameterList) {
+					if (typeParameter.getSimpleName().equals(name)) return true;
+				}
+			}
+			scope = scope.getEnclosingScope();
+		}
+		return false;
+	}
+}
@@ -1,5 +1,6 @@
 package nameTable;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
@@ -7,13 +8,12 @@ import java.util.List;
 import sourceCodeAST.SourceCodeFile;
 import sourceCodeAST.SourceCodeFileSet;
 import sourceCodeAST.SourceCodeLocation;
+import nameTable.creator.ImportedTypeLibrary;
 import nameTable.creator.NameTableCreator;
+import nameTable.creator.TopReferenceIndex;
 import nameTable.filter.NameDefinitionKindFilter;
 import nameTable.filter.NameDefinitionLocationFilter;
-import nameTable.filter.NameDefinitionNameFilter;
-import nameTable.filter.NameDefinitionUniqueIdFilter;
 import nameTable.filter.NameScopeFilter;
-import nameTable.filter.NameScopeLocationFilter;
 import nameTable.filter.NameScopeNameFilter;
 import nameTable.filter.NameTableFilter;
 import nameTable.nameDefinition.DetailedTypeDefinition;
@@ -26,10 +26,10 @@ import nameTable.nameScope.CompilationUnitScope;
 import nameTable.nameScope.NameScope;
 import nameTable.nameScope.NameScopeKind;
 import nameTable.nameScope.SystemScope;
+import nameTable.nameScope.TypeHierarchyIndex;
 import nameTable.visitor.NameDefinitionFinder;
 import nameTable.visitor.NameDefinitionNumberVisitor;
 import nameTable.visitor.NameDefinitionVisitor;
-import nameTable.visitor.NameScopeFinder;
 import nameTable.visitor.NameScopeVisitor;
 import nameTable.visitor.NameTableVisitor;
 
@@ -51,16 +51,50 @@ import nameTable.visitor.NameTableVisitor;
  * 		Add some methods, refer to the notes for detailed information.
  * @update 2016/11/10
  * 		Refactor the class according to the design document
+ * @update 2017/09/16
+ * 		Add methods to save the name table to a snapshot file and load it back, see NameTableSnapshot
+ * @update 2017/09/18
+ * 		Use hash indexes (see NameDefinitionIndex) to find definitions by simple name, full qualified name and unique id
+ * @update 2017/09/19
+ * 		Use an interval index of scopes (see NameScopeIndex) in getScopeOfLocation() and getScopeOfStartAndEndLocation()
+ * @update 2017/09/21
+ * 		Add a reverse index of references (see NameReferenceIndex) to find the references of a definition, which can be saved and loaded
+ * @update 2017/09/23
+ * 		Create the indexes under a lock, so that they can be used by the threads of MethodFlowAnalysisDriver
+ * @update 2017/09/24
+ * 		Add freeze() to resolve all references in the table and create the buffers and indexes, so that the table can be read by many
+ * 		threads without locks, see NameTableFreezer
+ * @update 2017/10/01
+ * 		Add getTypeHierarchyIndex() to create the type hierarchy index of the system scope, see TypeHierarchyIndex
+ * @update 2017/10/05
+ * 		Use the library file generated from the head files (see ImportedTypeLibrary) instead of the head files if it is up to date
+ * @update 2017/10/07
+ * 		Generate the library file in getExternalLibraryFileArray() if it is missing or out of date
+ * 		Add getTopReferenceIndex() to keep the index of the top-level references used by NameTableUpdater between updates
  */
 public class NameTableManager {
 	private SourceCodeFileSet codeFileSet = null;
 	private SystemScope systemScope = null;
+	
+	// The hash indexes of definitions, which is created when it is used firstly, and is created again after the table is changed
+	private transient volatile NameDefinitionIndex definitionIndex = null;
+	// The interval index of scopes, which is created and updated in the same way as the definition index
+	private transient volatile NameScopeIndex scopeIndex = null;
+	// The reverse index of references, which is created when it is used firstly (or loaded from a file), and is created again after 
+	// the table is changed
+	private transient volatile NameReferenceIndex referenceIndex = null;
+	// The index of the top-level references by their names, which is created when the table is updated firstly, and then is updated
+	// by NameTableUpdater with the changed compilation units
+	private transient volatile TopReferenceIndex topReferenceIndex = null;
+	// The lock to create the above indexes, so that they can be used by many threads (e.g. in MethodFlowAnalysisDriver)
+	private final transient Object indexLock = new Object();
 
 	public static NameTableManager createNameTableManager(String projectRootPath) {
 		SourceCodeFileSet parser = new SourceCodeFileSet(projectRootPath);
 		NameTableCreator creator = new NameTableCreator(parser);
 		String root = "C:\\";
-		String[] fileNameArray = {root+"ZxcWork\\ToolKit\\data\\javalang.txt", root+"ZxcWork\\ToolKit\\data\\javautil.txt", root+"ZxcWork\\ToolKit\\data\\javaio.txt", }; 
+		String[] headFileArray = {root+"ZxcWork\\ToolKit\\data\\javalang.txt", root+"ZxcWork\\ToolKit\\data\\javautil.txt", root+"ZxcWork\\ToolKit\\data\\javaio.txt", }; 
+		String[] fileNameArray = getExternalLibraryFileArray(headFileArray, root+"ZxcWork\\ToolKit\\data\\javalib.jlib");
 
 		NameTableManager manager = creator.createNameTableManager(new PrintWriter(System.out), fileNameArray);
 		if (creator.hasError()) {
@@ -75,7 +109,8 @@ public class NameTableManager {
 		SourceCodeFileSet parser = new SourceCodeFileSet(projectRootPath);
 		NameTableCreator creator = new NameTableCreator(parser);
 		String root = "C:\\";
-		String[] fileNameArray = {root+"ZxcWork\\ToolKit\\data\\javalang.txt", root+"ZxcWork\\ToolKit\\data\\javautil.txt", root+"ZxcWork\\ToolKit\\data\\javaio.txt", }; 
+		String[] headFileArray = {root+"ZxcWork\\ToolKit\\data\\javalang.txt", root+"ZxcWork\\ToolKit\\data\\javautil.txt", root+"ZxcWork\\ToolKit\\data\\javaio.txt", }; 
+		String[] fileNameArray = getExternalLibraryFileArray(headFileArray, root+"ZxcWork\\ToolKit\\data\\javalib.jlib");
 
 		NameTableManager manager = creator.createNameTableManager(errorReportWriter, fileNameArray);
 		if (creator.hasError()) {
@@ -99,6 +134,94 @@ public class NameTableManager {
 		return manager;
 	}
 
+	/**
+	 * Return the library file generated from the head files (see ImportedTypeLibrary), so the head files need not be parsed to create 
+	 * the name table. The library is generated (again) if it is missing or out of date. Return the head files if the library can not be
+	 * generated, e.g. some head file does not exist or the library file can not be written.
+	 */
+	public static String[] getExternalLibraryFileArray(String[] headFileArray, String libraryFileName) {
+		if (ImportedTypeLibrary.update(headFileArray, libraryFileName)) return new String[] {libraryFileName};
+		return headFileArray;
+	}
+
+	/**
+	 * Load the name table from the snapshot file if the snapshot is up to date with the source code files and the head files, 
+	 * otherwise create the name table by parsing the source code files and save it to the snapshot file for the next run.
+	 */
+	public static NameTableManager createNameTableManager(String projectRootPath, PrintWriter errorReportWriter, String[] externalLibraryHeadFileArray, String snapshotFileName) {
+		SourceCodeFileSet parser = new SourceCodeFileSet(projectRootPath);
+		try {
+			NameTableManager manager = NameTableSnapshot.load(parser, snapshotFileName, externalLibraryHeadFileArray);
+			if (manager != null) return manager;
+		} catch (IOException exc) {
+			errorReportWriter.println("Can not load the name table snapshot " + snapshotFileName + ": " + exc.getMessage());
+		}
+		
+		NameTableCreator creator = new NameTableCreator(parser);
+		NameTableManager manager = creator.createNameTableManager(errorReportWriter, externalLibraryHeadFileArray);
+		if (creator.hasError()) {
+			errorReportWriter.println("There are " + creator.getErrorUnitNumber() + " error unit files:");
+			creator.printErrorUnitList(errorReportWriter);
+			errorReportWriter.println();
+		}
+		try {
+			NameTableSnapshot.save(manager, snapshotFileName, externalLibraryHeadFileArray);
+		} catch (IOException exc) {
+			errorReportWriter.println("Can not save the name table snapshot " + snapshotFileName + ": " + exc.getMessage());
+		}
+		return manager;
+	}
+
+	/**
+	 * Load the name table of the source code files in the project root path from the snapshot file. Return null if there is no
+	 * snapshot file or the snapshot is stale, i.e. the source code files or the head files have been changed after it was saved.
+	 */
+	public static NameTableManager loadSnapshot(String projectRootPath, String snapshotFileName, String[] externalLibraryHeadFileArray) throws IOException {
+		return NameTableSnapshot.load(new SourceCodeFileSet(projectRootPath), snapshotFileName, externalLibraryHeadFileArray);
+	}
+
+	/**
+	 * Save the name table to the snapshot file. The external library head files should be the files used to create the name table.
+	 */
+	public void saveSnapshot(String snapshotFileName, String[] externalLibraryHeadFileArray) throws IOException {
+		NameTableSnapshot.save(this, snapshotFileName, externalLibraryHeadFileArray);
+	}
+
+	/**
+	 * Save the reverse index of references to the index file, see NameReferenceIndex. The index is created if it has not been created. 
+	 */
+	public void saveReferenceIndex(String indexFileName, String[] externalLibraryHeadFileArray) throws IOException {
+		getReferenceIndex().save(codeFileSet, indexFileName, externalLibraryHeadFileArray);
+	}
+
+	/**
+	 * Load the reverse index of references from the index file. Return false if there is no index file or the index is stale, and then
+	 * the index will be created when it is used.
+	 */
+	public boolean loadReferenceIndex(String indexFileName, String[] externalLibraryHeadFileArray) throws IOException {
+		NameReferenceIndex index = NameReferenceIndex.load(this, indexFileName, externalLibraryHeadFileArray);
+		if (index == null) return false;
+		referenceIndex = index;
+		return true;
+	}
+
+	/**
+	 * Freeze the name table, i.e. resolve all references held by the definitions or stored in the scopes, create the buffers and
+	 * indexes, and mark the table as frozen (see NameTableFreezer). After that, many threads can read the table and resolve the 
+	 * references created from the ASTs without locks, and any change of the table (e.g. by NameTableUpdater) throws an AssertionError.
+	 * The table should be frozen before it is shared with other threads.
+	 */
+	public void freeze() {
+		synchronized (indexLock) {
+			if (systemScope.isFrozen()) return;
+			new NameTableFreezer(this).freeze();
+		}
+	}
+	
+	public boolean isFrozen() {
+		return systemScope.isFrozen();
+	}
+
 	/**
 	 * The component client should not use this constructor to create an instance of NameTableManager.
 	 * He should use NameTableCreator.createNameTableManager to get such an instance.  
@@ -201,27 +324,21 @@ public class NameTableManager {
 	 * Find the first name definition with the given simple name
 	 */
 	public NameDefinition findDefinitionOfSimpleName(String simpleName) {
-		NameDefinitionFinder finder = new NameDefinitionFinder(new NameDefinitionNameFilter(simpleName));
-		systemScope.accept(finder);
-		return finder.getResult();
+		return getDefinitionIndex().findDefinitionOfSimpleName(simpleName);
 	}
 	
 	/**
 	 * Return all definitions with the given simple name
 	 */
 	public List<NameDefinition> getAllDefinitionsOfSimpleName(String simpleName) {
-		NameDefinitionVisitor visitor = new NameDefinitionVisitor(new NameDefinitionNameFilter(simpleName));
-		systemScope.accept(visitor);
-		return visitor.getResult();
+		return getDefinitionIndex().getAllDefinitionsOfSimpleName(simpleName);
 	}
 
 	/**
-	 * Find the first name definition with the given simple name
+	 * Find the first name definition with the given full qualified name
 	 */
 	public NameDefinition findDefinitionOfFullQualifiedName(String fullQualifiedName) {
-		NameDefinitionFinder finder = new NameDefinitionFinder(new NameDefinitionNameFilter(fullQualifiedName, true));
-		systemScope.accept(finder);
-		return finder.getResult();
+		return getDefinitionIndex().findDefinitionOfFullQualifiedName(fullQualifiedName);
 	}
 
 	/**
@@ -266,24 +383,25 @@ public class NameTableManager {
 	 * Find a name definition by its unique Id
 	 */
 	public NameDefinition findDefinitionById(String nameDefinitionId) {
-		NameDefinitionFinder finder = new NameDefinitionFinder(new NameDefinitionUniqueIdFilter(nameDefinitionId));
-
-		String locationString = NameDefinition.getDefinitionLocationStringFromId(nameDefinitionId);
-		if (locationString != null) {
-			String fullUnitName = SourceCodeLocation.getFileUnitNameFromId(locationString);
-			if (fullUnitName != null) {
-				List<PackageDefinition> packageList = systemScope.getPackageList();
-				if (packageList == null) return null;
+		return getDefinitionIndex().findDefinitionById(nameDefinitionId);
+	}
 	
-				for (PackageDefinition packageDef : packageList) {
-					List<CompilationUnitScope> units = packageDef.getCompilationUnitScopeList();
-					for (CompilationUnitScope unit: units) {
-						if (unit.getUnitName().equals(fullUnitName)) unit.accept(finder);
-					}
+	/**
+	 * Return the hash indexes of the definitions in the table. The indexes are created when they are used firstly, and are created
+	 * again if the system scope has been changed (e.g. by NameTableUpdater) after they were created.
+	 */
+	public NameDefinitionIndex getDefinitionIndex() {
+		NameDefinitionIndex index = definitionIndex;
+		if (index == null || !index.isCreatedFrom(systemScope)) {
+			synchronized (indexLock) {
+				index = definitionIndex;
+				if (index == null || !index.isCreatedFrom(systemScope)) {
+					index = new NameDefinitionIndex(systemScope);
+					definitionIndex = index;
 				}
-			} else return null;
-		} else systemScope.accept(finder);
-		return finder.getResult();
+			}
+		}
+		return index;
 	}
 	
 	/**
@@ -291,6 +409,14 @@ public class NameTableManager {
 	 * there is no other scope enclosing the location and is enclosed in the returned scope!
 	 */
 	public NameScope getScopeOfLocation(SourceCodeLocation location) {
+		return getScopeIndex().getScopeOfLocation(location);
+	}
+	
+	/**
+	 * Get a name scope enclosing a source code location exactly by searching the sub-scopes from the system scope. It is the 
+	 * original implementation of getScopeOfLocation(), which is slower than using the scope index, but does not need to create the index.
+	 */
+	public NameScope searchScopeOfLocation(SourceCodeLocation location) {
 		NameScope result = systemScope;
 		List<NameScope> subscopes = result.getSubScopeList();
 		while (subscopes != null) {
@@ -326,20 +452,85 @@ public class NameTableManager {
 	 * there is no other scope enclosing the location and is enclosed in the returned scope!
 	 */
 	public NameScope getScopeOfStartAndEndLocation(SourceCodeLocation startLocation, SourceCodeLocation endLocation, NameScope startScope) {
-		NameScopeFinder finder = new NameScopeFinder(new NameScopeLocationFilter(startLocation, endLocation));
-		if (startScope != null) startScope.accept(finder); 
-		else systemScope.accept(finder);
-		return finder.getResult();
+		return getScopeIndex().getScopeOfStartAndEndLocation(startLocation, endLocation, startScope);
 	}
 
 	/**
-	 * Get a name scope enclosing a source code location exactly, i.e. the location is in the scope, and 
-	 * there is no other scope enclosing the location and is enclosed in the returned scope!
+	 * Get a name scope starting from the start location and ending at the end location
 	 */
 	public NameScope getScopeOfStartAndEndLocation(SourceCodeLocation startLocation, SourceCodeLocation endLocation) {
-		NameScopeFinder finder = new NameScopeFinder(new NameScopeLocationFilter(startLocation, endLocation));
-		systemScope.accept(finder);
-		return finder.getResult();
+		return getScopeIndex().getScopeOfStartAndEndLocation(startLocation, endLocation, null);
+	}
+	
+	/**
+	 * Return the interval index of scopes in the table. Like the definition index, it is created when it is used firstly, and is 
+	 * created again if the system scope has been changed.
+	 */
+	public NameScopeIndex getScopeIndex() {
+		NameScopeIndex index = scopeIndex;
+		if (index == null || !index.isCreatedFrom(systemScope)) {
+			synchronized (indexLock) {
+				index = scopeIndex;
+				if (index == null || !index.isCreatedFrom(systemScope)) {
+					index = new NameScopeIndex(systemScope);
+					scopeIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Return the type hierarchy index of the system scope (see TypeHierarchyIndex), which is created if it has not been created or the 
+	 * system scope has been changed. After it is created, TypeDefinition.isSubtypeOf() and SystemScope.getAllOverrideMethods() use it.
+	 */
+	public TypeHierarchyIndex getTypeHierarchyIndex() {
+		TypeHierarchyIndex index = systemScope.getTypeHierarchyIndex();
+		if (index != null) return index;
+		return systemScope.createTypeHierarchyIndex();
+	}
+
+	/**
+	 * Return the reverse index from definitions to the locations of their references. Creating the index needs to create and resolve
+	 * the references of all compilation units.
+	 */
+	public NameReferenceIndex getReferenceIndex() {
+		NameReferenceIndex index = referenceIndex;
+		if (index == null || !index.isCreatedFrom(systemScope)) {
+			synchronized (indexLock) {
+				index = referenceIndex;
+				if (index == null || !index.isCreatedFrom(systemScope)) {
+					index = NameReferenceIndex.create(this);
+					referenceIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Return the index of the top-level references (see TopReferenceIndex), which is created if it has not been created or the system
+	 * scope has been changed without updating the index. NameTableUpdater updates the index after it updates the table.
+	 */
+	public TopReferenceIndex getTopReferenceIndex() {
+		TopReferenceIndex index = topReferenceIndex;
+		if (index == null || !index.isCreatedFrom(systemScope)) {
+			synchronized (indexLock) {
+				index = topReferenceIndex;
+				if (index == null || !index.isCreatedFrom(systemScope)) {
+					index = new TopReferenceIndex(systemScope, getAllCompilationUnitScopes());
+					topReferenceIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Return the locations of all references binded to the given definition by using the reverse index of references 
+	 */
+	public List<SourceCodeLocation> getReferenceLocationsOfDefinition(NameDefinition definition) {
+		return getReferenceIndex().getReferenceLocations(definition);
 	}
 
 	/**
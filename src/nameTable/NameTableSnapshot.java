@@ -0,0 +1,613 @@
+package nameTable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nameTable.nameScope.SystemScope;
+import sourceCodeAST.SourceCodeFile;
+import sourceCodeAST.SourceCodeFileSet;
+
+/**
+ * <p>A binary snapshot of a name table, i.e. the SystemScope object and all packages, compilation unit scopes, definitions, scopes,
+ * references and the bindings of the references reachable from it. We can save the name table of a source code file set to a
+ * snapshot file, and load it back (by memory-mapping the file) instead of parsing all source code files again.
+ * <p>The snapshot records the content hash of each source code file and each external library head file, so a snapshot is
+ * rejected (i.e. load() returns null) if any file is changed, added or deleted after the snapshot was saved.
+ * <p>The format of the snapshot file is:
+ * <pre>
+ * 	magic, version
+ * 	file table: unit names (or head file names) and their content hashes
+ * 	string table: all strings used in the name table
+ * 	class table: the class names of the objects, and the declaring class, name and type of each field of a class
+ * 	object table: the class of each object (and the constant name of an enumeration constant or the size of a list)
+ * 	field values: the values of the fields of each object (or the elements of each list)
+ * </pre>
+ * An object reference is stored as an integer: 0 for null, i+1 for the i-th object, and -(i+1) for the i-th string. Since all objects are
+ * created before their fields are restored, the snapshot can be written and read without recursion.
+ * <p>Only the instance fields which are neither static nor transient are saved (see isPersistentField()). A cache or an index which
+ * is built from other fields (e.g. the hash tables of the members of a type, or the type hierarchy index) must be declared transient,
+ * so that a loaded object keeps the value given by its constructor and builds the cache again when it is used. An object of a class in
+ * java.* (except lists and strings) or an array can not be saved, and save() throws an IOException which gives the field referring to it.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017916
+ * @version 1.0
+ * @update 2017/09/21
+ * 		Share the file table and the string functions with NameReferenceIndex
+ * @update 2017/10/01
+ * 		Create the type hierarchy index of the loaded name table, since the index is not saved in the snapshot
+ * @update 2017/10/03
+ * 		Make the file table and the string functions public, so that they can be shared with CallGraph
+ * @update 2017/10/06
+ * 		Get the layout of a class and check the fields of a loaded class by the same rule (see isPersistentField()), and reject arrays
+ * 		and the objects of java.* classes
+ * 		with the field referring to them
+ *
+ */
+public class NameTableSnapshot {
+	private static final int SNAPSHOT_MAGIC = 0x4A4E5453;	// "JNTS"
+	private static final int SNAPSHOT_VERSION = 1;
+	private static final Charset STRING_CHARSET = Charset.forName("UTF-8");
+	private static final String HASH_ALGORITHM = "SHA-1";
+
+	private static final byte CLASS_OBJECT = 0;
+	private static final byte CLASS_LIST = 1;
+	private static final byte CLASS_ENUM = 2;
+
+	/**
+	 * Save the name table of the manager to the snapshot file. The external library head files are the files used to create the
+	 * name table, they can be null if no head file is used.
+	 */
+	public static void save(NameTableManager manager, String snapshotFileName, String[] externalLibraryHeadFileArray) throws IOException {
+		SnapshotWriter writer = new SnapshotWriter();
+		writer.collectObjects(manager.getSystemScope());
+
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(snapshotFileName), 1 << 16));
+		try {
+			output.writeInt(SNAPSHOT_MAGIC);
+			output.writeInt(SNAPSHOT_VERSION);
+			writeFileTable(output, manager.getSouceCodeFileSet(), externalLibraryHeadFileArray);
+			writer.write(output);
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Load the name table of the source code file set from the snapshot file. Return null if the snapshot file does not exist, or
+	 * it is not a valid snapshot, or it is stale, i.e. some source code files or head files have been changed since it was saved.
+	 */
+	public static NameTableManager load(SourceCodeFileSet codeFileSet, String snapshotFileName, String[] externalLibraryHeadFileArray) throws IOException {
+		File snapshotFile = new File(snapshotFileName);
+		if (!snapshotFile.isFile()) return null;
+
+		RandomAccessFile file = new RandomAccessFile(snapshotFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 8) return null;
+			if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) return null;
+			if (!checkFileTable(buffer, codeFileSet, externalLibraryHeadFileArray)) return null;
+
+			SnapshotReader reader = new SnapshotReader(buffer);
+			Object root = reader.read();
+			if (!(root instanceof SystemScope)) return null;
+			NameTableManager manager = new NameTableManager(codeFileSet, (SystemScope)root);
+			manager.getTypeHierarchyIndex();
+			return manager;
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Check if the snapshot file is consistent with the current source code files and head files
+	 */
+	public static boolean isUpToDate(SourceCodeFileSet codeFileSet, String snapshotFileName, String[] externalLibraryHeadFileArray) throws IOException {
+		File snapshotFile = new File(snapshotFileName);
+		if (!snapshotFile.isFile()) return false;
+
+		RandomAccessFile file = new RandomAccessFile(snapshotFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 8) return false;
+			if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) return false;
+			return checkFileTable(buffer, codeFileSet, externalLibraryHeadFileArray);
+		} finally {
+			file.close();
+		}
+	}
+
+	public static void writeFileTable(DataOutputStream output, SourceCodeFileSet codeFileSet, String[] externalLibraryHeadFileArray) throws IOException {
+		output.writeInt(codeFileSet.getFileNumber());
+		for (SourceCodeFile codeFile : codeFileSet) {
+			writeString(output, codeFile.getFileUnitName());
+			writeBytes(output, getContentHash(codeFile.getFileHandle()));
+		}
+
+		int headFileNumber = (externalLibraryHeadFileArray == null) ? 0 : externalLibraryHeadFileArray.length;
+		output.writeInt(headFileNumber);
+		for (int index = 0; index < headFileNumber; index++) {
+			File headFile = new File(externalLibraryHeadFileArray[index]);
+			writeString(output, externalLibraryHeadFileArray[index]);
+			writeBytes(output, headFile.isFile() ? getContentHash(headFile) : new byte[0]);
+		}
+	}
+
+	public static boolean checkFileTable(ByteBuffer buffer, SourceCodeFileSet codeFileSet, String[] externalLibraryHeadFileArray) throws IOException {
+		int fileNumber = buffer.getInt();
+		if (fileNumber != codeFileSet.getFileNumber()) return false;
+		for (int index = 0; index < fileNumber; index++) {
+			String unitName = readString(buffer);
+			byte[] hash = readBytes(buffer);
+			SourceCodeFile codeFile = codeFileSet.findSourceCodeFileByFileUnitName(unitName);
+			if (codeFile == null) return false;
+			if (!Arrays.equals(hash, getContentHash(codeFile.getFileHandle()))) return false;
+		}
+
+		int headFileNumber = buffer.getInt();
+		int expectedHeadFileNumber = (externalLibraryHeadFileArray == null) ? 0 : externalLibraryHeadFileArray.length;
+		if (headFileNumber != expectedHeadFileNumber) return false;
+		for (int index = 0; index < headFileNumber; index++) {
+			String headFileName = readString(buffer);
+			byte[] hash = readBytes(buffer);
+			if (!headFileName.equals(externalLibraryHeadFileArray[index])) return false;
+			File headFile = new File(headFileName);
+			if (!Arrays.equals(hash, headFile.isFile() ? getContentHash(headFile) : new byte[0])) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Return the hash of the content of the given file
+	 */
+	public static byte[] getContentHash(File file) throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+			return digest.digest(Files.readAllBytes(file.toPath()));
+		} catch (NoSuchAlgorithmException exc) {
+			throw new AssertionError("The hash algorithm " + HASH_ALGORITHM + " is not supported!");
+		}
+	}
+
+	public static void writeString(DataOutputStream output, String string) throws IOException {
+		writeBytes(output, string.getBytes(STRING_CHARSET));
+	}
+
+	private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	public static String readString(ByteBuffer buffer) {
+		return new String(readBytes(buffer), STRING_CHARSET);
+	}
+
+	private static byte[] readBytes(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Return all persistent fields of a class and its super classes, in the order from the top super class
+	 */
+	static List<Field> getPersistentFields(Class<?> type) {
+		List<Class<?>> classList = new ArrayList<Class<?>>();
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) classList.add(0, current);
+
+		List<Field> result = new ArrayList<Field>();
+		for (Class<?> current : classList) {
+			for (Field field : current.getDeclaredFields()) {
+				if (!isPersistentField(field)) continue;
+				field.setAccessible(true);
+				result.add(field);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A field is saved in the snapshot if and only if it is neither static nor transient
+	 */
+	static boolean isPersistentField(Field field) {
+		int modifiers = field.getModifiers();
+		return !Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers);
+	}
+
+	/**
+	 * Return the code of the type of a field. All object types (including String and enumeration types) use the same code 'L'.
+	 */
+	static char getTypeCode(Class<?> type) {
+		if (type == int.class) return 'I';
+		if (type == boolean.class) return 'Z';
+		if (type == long.class) return 'J';
+		if (type == double.class) return 'D';
+		if (type == float.class) return 'F';
+		if (type == short.class) return 'S';
+		if (type == byte.class) return 'B';
+		if (type == char.class) return 'C';
+		return 'L';
+	}
+
+	/**
+	 * The information of a class in the snapshot
+	 */
+	static class ClassLayout {
+		byte kind = CLASS_OBJECT;
+		Class<?> type = null;
+		Field[] fields = null;
+		char[] typeCodes = null;
+		Constructor<?> constructor = null;
+		Object[] constructorArguments = null;
+	}
+
+	/**
+	 * Write all objects reachable from a root object to the snapshot
+	 */
+	static class SnapshotWriter {
+		private Map<Object, Integer> objectIndexMap = new IdentityHashMap<Object, Integer>();
+		private List<Object> objectList = new ArrayList<Object>();
+		private List<ClassLayout> objectLayoutList = new ArrayList<ClassLayout>();
+
+		private Map<String, Integer> stringIndexMap = new HashMap<String, Integer>();
+		private List<String> stringList = new ArrayList<String>();
+
+		private Map<Class<?>, Integer> classIndexMap = new HashMap<Class<?>, Integer>();
+		private List<ClassLayout> classList = new ArrayList<ClassLayout>();
+
+		private ArrayDeque<Object> queue = new ArrayDeque<Object>();
+
+		void collectObjects(Object root) throws IOException {
+			reference(root);
+			while (!queue.isEmpty()) {
+				Object object = queue.removeFirst();
+				ClassLayout layout = objectLayoutList.get(objectIndexMap.get(object));
+				if (layout.kind == CLASS_LIST) {
+					for (Object element : (List<?>)object) reference(element);
+				} else if (layout.kind == CLASS_OBJECT) {
+					for (int index = 0; index < layout.fields.length; index++) {
+						if (layout.typeCodes[index] != 'L') continue;
+						Field field = layout.fields[index];
+						try {
+							reference(getFieldValue(field, object));
+						} catch (IOException exc) {
+							throw new IOException(exc.getMessage() + " It is referred by the field " + field.getDeclaringClass().getName() + "." + field.getName() + ", which should be transient if it can be rebuilt.", exc);
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Return the encoded reference of the object, and number the object (or the string) if it has not been numbered
+		 */
+		int reference(Object object) throws IOException {
+			if (object == null) return 0;
+			if (object instanceof String) return -(stringIndex((String)object) + 1);
+
+			Integer index = objectIndexMap.get(object);
+			if (index != null) return index + 1;
+
+			ClassLayout layout = getLayout(object.getClass());
+			int newIndex = objectList.size();
+			objectIndexMap.put(object, newIndex);
+			objectList.add(object);
+			objectLayoutList.add(layout);
+			if (layout.kind == CLASS_ENUM) stringIndex(((Enum<?>)object).name());
+			else queue.addLast(object);
+			return newIndex + 1;
+		}
+
+		int stringIndex(String string) {
+			Integer index = stringIndexMap.get(string);
+			if (index != null) return index;
+			int newIndex = stringList.size();
+			stringIndexMap.put(string, newIndex);
+			stringList.add(string);
+			return newIndex;
+		}
+
+		ClassLayout getLayout(Class<?> type) throws IOException {
+			Integer index = classIndexMap.get(type);
+			if (index != null) return classList.get(index);
+
+			ClassLayout layout = new ClassLayout();
+			layout.type = type;
+			if (List.class.isAssignableFrom(type)) layout.kind = CLASS_LIST;
+			else if (type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum())) {
+				layout.kind = CLASS_ENUM;
+				if (!type.isEnum()) layout.type = type.getSuperclass();
+			} else if (type.isArray() || type.getName().startsWith("java.")) {
+				throw new IOException("Can not save the objects of class " + type.getName() + " in a name table snapshot!");
+			} else {
+				// Static and transient fields are never saved (see isPersistentField()), so a loaded object keeps the values given by
+				// its constructor for them. The reader checks the fields by the same rule.
+				List<Field> fieldList = getPersistentFields(type);
+				layout.fields = fieldList.toArray(new Field[fieldList.size()]);
+				layout.typeCodes = new char[layout.fields.length];
+				for (int fieldIndex = 0; fieldIndex < layout.fields.length; fieldIndex++) {
+					Field field = layout.fields[fieldIndex];
+					layout.typeCodes[fieldIndex] = getTypeCode(field.getType());
+					stringIndex(field.getDeclaringClass().getName());
+					stringIndex(field.getName());
+				}
+			}
+			stringIndex(layout.type.getName());
+			classIndexMap.put(type, classList.size());
+			classList.add(layout);
+			return layout;
+		}
+
+		void write(DataOutputStream output) throws IOException {
+			output.writeInt(stringList.size());
+			for (String string : stringList) writeString(output, string);
+
+			output.writeInt(classList.size());
+			for (ClassLayout layout : classList) {
+				output.writeByte(layout.kind);
+				output.writeInt(stringIndexMap.get(layout.type.getName()));
+				if (layout.kind == CLASS_OBJECT) {
+					output.writeInt(layout.fields.length);
+					for (int index = 0; index < layout.fields.length; index++) {
+						Field field = layout.fields[index];
+						output.writeInt(stringIndexMap.get(field.getDeclaringClass().getName()));
+						output.writeInt(stringIndexMap.get(field.getName()));
+						output.writeChar(layout.typeCodes[index]);
+					}
+				}
+			}
+
+			output.writeInt(objectList.size());
+			for (int index = 0; index < objectList.size(); index++) {
+				Object object = objectList.get(index);
+				ClassLayout layout = objectLayoutList.get(index);
+				output.writeInt(classIndexMap.get(object.getClass()));
+				if (layout.kind == CLASS_ENUM) output.writeInt(stringIndexMap.get(((Enum<?>)object).name()));
+				else if (layout.kind == CLASS_LIST) output.writeInt(((List<?>)object).size());
+			}
+
+			for (int index = 0; index < objectList.size(); index++) {
+				Object object = objectList.get(index);
+				ClassLayout layout = objectLayoutList.get(index);
+				if (layout.kind == CLASS_LIST) {
+					for (Object element : (List<?>)object) output.writeInt(reference(element));
+				} else if (layout.kind == CLASS_OBJECT) {
+					for (int fieldIndex = 0; fieldIndex < layout.fields.length; fieldIndex++) {
+						writeFieldValue(output, layout.fields[fieldIndex], layout.typeCodes[fieldIndex], object);
+					}
+				}
+			}
+		}
+
+		void writeFieldValue(DataOutputStream output, Field field, char typeCode, Object object) throws IOException {
+			try {
+				switch (typeCode) {
+				case 'I': output.writeInt(field.getInt(object)); break;
+				case 'Z': output.writeBoolean(field.getBoolean(object)); break;
+				case 'J': output.writeLong(field.getLong(object)); break;
+				case 'D': output.writeDouble(field.getDouble(object)); break;
+				case 'F': output.writeFloat(field.getFloat(object)); break;
+				case 'S': output.writeShort(field.getShort(object)); break;
+				case 'B': output.writeByte(field.getByte(object)); break;
+				case 'C': output.writeChar(field.getChar(object)); break;
+				default: output.writeInt(reference(field.get(object)));
+				}
+			} catch (IllegalAccessException exc) {
+				throw new AssertionError("Can not access the field " + field.getName() + " of class " + field.getDeclaringClass().getName());
+			}
+		}
+
+		Object getFieldValue(Field field, Object object) {
+			try {
+				return field.get(object);
+			} catch (IllegalAccessException exc) {
+				throw new AssertionError("Can not access the field " + field.getName() + " of class " + field.getDeclaringClass().getName());
+			}
+		}
+	}
+
+	/**
+	 * Read all objects from the snapshot, and return the root object (i.e. the first object)
+	 */
+	static class SnapshotReader {
+		private ByteBuffer buffer = null;
+		private String[] strings = null;
+		private ClassLayout[] classes = null;
+		private Object[] objects = null;
+		private ClassLayout[] objectLayouts = null;
+
+		SnapshotReader(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		/**
+		 * Return the root object, or null if the snapshot does not match the current classes of the name table
+		 */
+		Object read() {
+			int stringNumber = buffer.getInt();
+			strings = new String[stringNumber];
+			for (int index = 0; index < stringNumber; index++) strings[index] = readString(buffer);
+
+			int classNumber = buffer.getInt();
+			classes = new ClassLayout[classNumber];
+			for (int index = 0; index < classNumber; index++) {
+				classes[index] = readClassLayout();
+				if (classes[index] == null) return null;
+			}
+
+			// Create all objects, and then restore their fields
+			int objectNumber = buffer.getInt();
+			objects = new Object[objectNumber];
+			objectLayouts = new ClassLayout[objectNumber];
+			int[] listSizes = new int[objectNumber];
+			for (int index = 0; index < objectNumber; index++) {
+				ClassLayout layout = classes[buffer.getInt()];
+				objectLayouts[index] = layout;
+				if (layout.kind == CLASS_ENUM) {
+					objects[index] = getEnumConstant(layout.type, strings[buffer.getInt()]);
+					if (objects[index] == null) return null;
+				} else if (layout.kind == CLASS_LIST) {
+					listSizes[index] = buffer.getInt();
+					objects[index] = new ArrayList<Object>(listSizes[index]);
+				} else objects[index] = newInstance(layout);
+			}
+
+			for (int index = 0; index < objectNumber; index++) {
+				ClassLayout layout = objectLayouts[index];
+				if (layout.kind == CLASS_LIST) {
+					@SuppressWarnings("unchecked")
+					List<Object> list = (List<Object>)objects[index];
+					for (int element = 0; element < listSizes[index]; element++) list.add(dereference(buffer.getInt()));
+				} else if (layout.kind == CLASS_OBJECT) {
+					for (int fieldIndex = 0; fieldIndex < layout.fields.length; fieldIndex++) {
+						readFieldValue(layout.fields[fieldIndex], layout.typeCodes[fieldIndex], objects[index]);
+					}
+				}
+			}
+			if (objectNumber <= 0) return null;
+			return objects[0];
+		}
+
+		ClassLayout readClassLayout() {
+			ClassLayout layout = new ClassLayout();
+			layout.kind = buffer.get();
+			String className = strings[buffer.getInt()];
+			try {
+				layout.type = Class.forName(className);
+			} catch (ClassNotFoundException exc) {
+				return null;
+			}
+			if (layout.kind != CLASS_OBJECT) return layout;
+
+			int fieldNumber = buffer.getInt();
+			layout.fields = new Field[fieldNumber];
+			layout.typeCodes = new char[fieldNumber];
+			// If the class has been changed since the snapshot was saved, the snapshot can not be used
+			boolean matched = (getPersistentFields(layout.type).size() == fieldNumber);
+			for (int index = 0; index < fieldNumber; index++) {
+				String declaringClassName = strings[buffer.getInt()];
+				String fieldName = strings[buffer.getInt()];
+				layout.typeCodes[index] = buffer.getChar();
+				if (matched) {
+					layout.fields[index] = findField(layout.type, declaringClassName, fieldName);
+					if (layout.fields[index] == null || getTypeCode(layout.fields[index].getType()) != layout.typeCodes[index]) matched = false;
+				}
+			}
+			if (!matched) return null;
+
+			// Any constructor (except copy constructors) can be used to create an object, since all fields will be restored
+			for (Constructor<?> constructor : layout.type.getDeclaredConstructors()) {
+				Class<?>[] parameterTypes = constructor.getParameterTypes();
+				boolean isCopyConstructor = false;
+				for (Class<?> parameterType : parameterTypes) {
+					if (parameterType == layout.type) isCopyConstructor = true;
+				}
+				if (isCopyConstructor) continue;
+				if (layout.constructor != null && layout.constructor.getParameterTypes().length <= parameterTypes.length) continue;
+				layout.constructor = constructor;
+			}
+			if (layout.constructor == null) return null;
+			layout.constructor.setAccessible(true);
+			Class<?>[] parameterTypes = layout.constructor.getParameterTypes();
+			layout.constructorArguments = new Object[parameterTypes.length];
+			for (int index = 0; index < parameterTypes.length; index++) {
+				layout.constructorArguments[index] = getDefaultValue(parameterTypes[index]);
+			}
+			return layout;
+		}
+
+		/**
+		 * Find the persistent field with the given name declared in the given class, which should be the type or its super class
+		 */
+		static Field findField(Class<?> type, String declaringClassName, String fieldName) {
+			for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+				if (!current.getName().equals(declaringClassName)) continue;
+				try {
+					Field field = current.getDeclaredField(fieldName);
+					if (!isPersistentField(field)) return null;
+					field.setAccessible(true);
+					return field;
+				} catch (NoSuchFieldException exc) {
+					return null;
+				}
+			}
+			return null;
+		}
+
+		Object newInstance(ClassLayout layout) {
+			try {
+				return layout.constructor.newInstance(layout.constructorArguments);
+			} catch (Exception exc) {
+				throw new AssertionError("Can not create an object of class " + layout.type.getName() + " from the name table snapshot: " + exc);
+			}
+		}
+
+		Object dereference(int reference) {
+			if (reference == 0) return null;
+			if (reference < 0) return strings[-reference - 1];
+			return objects[reference - 1];
+		}
+
+		void readFieldValue(Field field, char typeCode, Object object) {
+			try {
+				switch (typeCode) {
+				case 'I': field.setInt(object, buffer.getInt()); break;
+				case 'Z': field.setBoolean(object, buffer.get() != 0); break;
+				case 'J': field.setLong(object, buffer.getLong()); break;
+				case 'D': field.setDouble(object, buffer.getDouble()); break;
+				case 'F': field.setFloat(object, buffer.getFloat()); break;
+				case 'S': field.setShort(object, buffer.getShort()); break;
+				case 'B': field.setByte(object, buffer.get()); break;
+				case 'C': field.setChar(object, buffer.getChar()); break;
+				default: field.set(object, dereference(buffer.getInt()));
+				}
+			} catch (IllegalAccessException exc) {
+				throw new AssertionError("Can not access the field " + field.getName() + " of class " + field.getDeclaringClass().getName());
+			}
+		}
+
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		static Object getEnumConstant(Class<?> type, String name) {
+			try {
+				return Enum.valueOf((Class<? extends Enum>)type, name);
+			} catch (IllegalArgumentException exc) {
+				return null;
+			}
+		}
+
+		static Object getDefaultValue(Class<?> type) {
+			if (type == int.class) return 0;
+			if (type == boolean.class) return false;
+			if (type == long.class) return 0L;
+			if (type == double.class) return 0.0;
+			if (type == float.class) return 0.0f;
+			if (type == short.class) return (short)0;
+			if (type == byte.class) return (byte)0;
+			if (type == char.class) return '\0';
+			return null;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package nameTable;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nameTable.creator.NameReferenceCreator;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameReference.NameReference;
+import nameTable.nameScope.CompilationUnitScope;
+import nameTable.visitor.NameDefinitionVisitor;
+import sourceCodeAST.SourceCodeFileSet;
+
+/**
+ * A benchmark of reading a frozen name table by many threads. Each thread creates and resolves the references of a part of the
+ * compilation units, and finds the definitions by id and the scopes of the definitions. All ASTs are created before the benchmark,
+ * so only the time of reading the name table is measured. The number of the resolved references of each run must be equal to
+ * the number of the sequential run, otherwise the frozen table is not read correctly by many threads.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017924
+ * @version 1.0
+ *
+ */
+public class TestFrozenNameTable {
+
+	public static void main(String[] args) {
+		String rootPath = "C:\\";
+
+		String[] paths = {"C:\\QualitasPacking\\recent\\eclipse_SDK\\eclipse_SDK-4.3\\", "C:\\QualitasPacking\\recent\\jfreechart\\jfreechart-1.0.13\\",
+							rootPath + "ZxcWork\\ProgramAnalysis\\src\\", rootPath + "ZxcWork\\JAnalyzer\\src\\",
+							rootPath + "ZxcTools\\JDKSource\\", rootPath + "ZxcTools\\apache_ant_1_9_3\\src\\",
+		};
+
+		String path = paths[3];
+		if (args.length > 0) path = args[0];
+		int maxThreadNumber = Runtime.getRuntime().availableProcessors() * 2;
+		if (args.length > 1) maxThreadNumber = Integer.parseInt(args[1]);
+
+		testReadScaling(path, maxThreadNumber);
+	}
+
+	public static void testReadScaling(String path, int maxThreadNumber) {
+		NameTableManager manager = NameTableManager.createNameTableManager(path);
+		SourceCodeFileSet codeFileSet = manager.getSouceCodeFileSet();
+
+		long start = System.currentTimeMillis();
+		manager.freeze();
+		System.out.println("Freeze the name table: " + (System.currentTimeMillis() - start) + " ms");
+
+		List<CompilationUnitScope> unitList = manager.getAllCompilationUnitScopes();
+		for (CompilationUnitScope unit : unitList) codeFileSet.findSourceCodeFileASTRootByFileUnitName(unit.getUnitName());
+		NameDefinitionVisitor visitor = new NameDefinitionVisitor();
+		manager.accept(visitor);
+		List<NameDefinition> definitionList = visitor.getResult();
+		System.out.println("Units: " + unitList.size() + ", definitions: " + definitionList.size() + ", processors: " + Runtime.getRuntime().availableProcessors());
+
+		// Warm up, and the result of the sequential run is the expected result of all runs
+		int sequentialNumber = readTable(manager, unitList, definitionList, 1);
+
+		long singleThreadTime = 0;
+		for (int threadNumber = 1; threadNumber <= maxThreadNumber; threadNumber *= 2) {
+			start = System.currentTimeMillis();
+			int resolvedNumber = readTable(manager, unitList, definitionList, threadNumber);
+			long time = System.currentTimeMillis() - start;
+			if (threadNumber == 1) singleThreadTime = time;
+			double speedup = (time > 0) ? (double)singleThreadTime / time : 0;
+			System.out.println("Threads: " + threadNumber + ", resolved references: " + resolvedNumber + ", time: " + time + " ms, speedup: " + String.format("%.2f", speedup));
+			if (resolvedNumber != sequentialNumber) {
+				throw new AssertionError("Resolved " + resolvedNumber + " references by " + threadNumber + " threads, but " + sequentialNumber + " references sequentially!");
+			}
+		}
+	}
+
+	/**
+	 * Read the table by the given number of threads, and return the number of the resolved references
+	 */
+	private static int readTable(final NameTableManager manager, final List<CompilationUnitScope> unitList, final List<NameDefinition> definitionList, final int threadNumber) {
+		final AtomicInteger resolvedNumber = new AtomicInteger(0);
+		Thread[] threads = new Thread[threadNumber];
+		for (int index = 0; index < threadNumber; index++) {
+			final int threadIndex = index;
+			threads[index] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					NameReferenceCreator referenceCreator = new NameReferenceCreator(manager);
+					int counter = 0;
+					for (int unitIndex = threadIndex; unitIndex < unitList.size(); unitIndex += threadNumber) {
+						List<NameReference> referenceList = referenceCreator.createReferences(unitList.get(unitIndex));
+						for (NameReference reference : referenceList) {
+							reference.resolveBinding();
+							reference.getResultTypeDefinition();
+							for (NameReference leafReference : reference.getReferencesAtLeaf()) {
+								if (leafReference.isResolved()) counter++;
+							}
+						}
+					}
+					for (int definitionIndex = threadIndex; definitionIndex < definitionList.size(); definitionIndex += threadNumber) {
+						NameDefinition definition = definitionList.get(definitionIndex);
+						manager.findDefinitionById(definition.getUniqueId());
+						if (definition.getLocation() != null) manager.getScopeOfLocation(definition.getLocation());
+					}
+					resolvedNumber.addAndGet(counter);
+				}
+			});
+			threads[index].start();
+		}
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException exc) {
+				Thread.currentThread().interrupt();
+				throw new AssertionError("The benchmark is interrupted!");
+			}
+		}
+		return resolvedNumber.get();
+	}
+}
@@ -0,0 +1,121 @@
+package nameTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import nameTable.creator.NameReferenceCreator;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameReference.NameReference;
+import nameTable.nameScope.CompilationUnitScope;
+import nameTable.visitor.NameDefinitionVisitor;
+
+/**
+ * Test saving a name table to a snapshot file and loading it back (see NameTableSnapshot). The references of all compilation units
+ * are resolved before the table is saved, so the buffers and the hash tables created by resolving are in the table, and the test
+ * fails if any of them can not be saved. The loaded table should have the same definitions, and its references should be binded
+ * to the same definitions as the references of the original table.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017106
+ * @version 1.0
+ *
+ */
+public class TestNameTableSnapshot {
+
+	public static void main(String[] args) {
+		String rootPath = "C:\\";
+
+		String[] paths = {"C:\\QualitasPacking\\recent\\eclipse_SDK\\eclipse_SDK-4.3\\", "C:\\QualitasPacking\\recent\\jfreechart\\jfreechart-1.0.13\\",
+							rootPath + "ZxcWork\\ProgramAnalysis\\src\\", rootPath + "ZxcWork\\JAnalyzer\\src\\",
+							rootPath + "ZxcTools\\JDKSource\\", rootPath + "ZxcTools\\apache_ant_1_9_3\\src\\",
+		};
+
+		String path = paths[3];
+		if (args.length > 0) path = args[0];
+		String snapshotFileName = rootPath + "ZxcWork\\ToolKit\\data\\snapshot.bin";
+		if (args.length > 1) snapshotFileName = args[1];
+
+		try {
+			testResolvedTableRoundTrip(path, snapshotFileName);
+		} catch (IOException exc) {
+			throw new AssertionError("Can not save or load the snapshot " + snapshotFileName + ": " + exc.getMessage(), exc);
+		}
+	}
+
+	/**
+	 * Resolve all references of the table, save the table and load it back, and then compare the loaded table with the original table
+	 */
+	public static void testResolvedTableRoundTrip(String path, String snapshotFileName) throws IOException {
+		NameTableManager manager = NameTableManager.createNameTableManager(path);
+		List<String> bindingList = resolveAllReferences(manager);
+
+		long start = System.currentTimeMillis();
+		manager.saveSnapshot(snapshotFileName, null);
+		System.out.println("Save the resolved name table: " + (System.currentTimeMillis() - start) + " ms, " + new File(snapshotFileName).length() + " bytes");
+
+		start = System.currentTimeMillis();
+		NameTableManager loadedManager = NameTableManager.loadSnapshot(path, snapshotFileName, null);
+		if (loadedManager == null) throw new AssertionError("The snapshot " + snapshotFileName + " saved just now can not be loaded!");
+		System.out.println("Load the name table: " + (System.currentTimeMillis() - start) + " ms");
+
+		compareTables(manager, loadedManager, bindingList);
+	}
+
+	/**
+	 * Check that the loaded table has the same definitions as the original table, and its references are binded to the same definitions
+	 */
+	static void compareTables(NameTableManager manager, NameTableManager loadedManager, List<String> bindingList) {
+		List<String> definitionIdList = getDefinitionIds(manager);
+		List<String> loadedDefinitionIdList = getDefinitionIds(loadedManager);
+		if (!definitionIdList.equals(loadedDefinitionIdList)) {
+			throw new AssertionError("The loaded table has " + loadedDefinitionIdList.size() + " definitions, but the original table has " + definitionIdList.size() + " definitions, or they are different!");
+		}
+
+		List<String> loadedBindingList = resolveAllReferences(loadedManager);
+		if (loadedBindingList.size() != bindingList.size()) {
+			throw new AssertionError("The loaded table has " + loadedBindingList.size() + " references, but the original table has " + bindingList.size() + " references!");
+		}
+		for (int index = 0; index < bindingList.size(); index++) {
+			if (!bindingList.get(index).equals(loadedBindingList.get(index))) {
+				throw new AssertionError("The reference is binded to a different definition after loading: " + bindingList.get(index) + " != " + loadedBindingList.get(index));
+			}
+		}
+		System.out.println("Definitions: " + definitionIdList.size() + ", references: " + bindingList.size() + ", the loaded table is the same as the original table");
+	}
+
+	static List<String> getDefinitionIds(NameTableManager manager) {
+		NameDefinitionVisitor visitor = new NameDefinitionVisitor();
+		manager.accept(visitor);
+		List<String> result = new ArrayList<String>();
+		List<NameDefinition> definitionList = visitor.getResult();
+		if (definitionList == null) return result;
+		for (NameDefinition definition : definitionList) result.add(definition.getUniqueId());
+		return result;
+	}
+
+	/**
+	 * Create and resolve the references of all compilation units, and return the locations of the leaf references and the ids of
+	 * the definitions binded to them
+	 */
+	static List<String> resolveAllReferences(NameTableManager manager) {
+		List<String> result = new ArrayList<String>();
+		NameReferenceCreator referenceCreator = new NameReferenceCreator(manager);
+		List<CompilationUnitScope> unitList = manager.getAllCompilationUnitScopes();
+		if (unitList == null) return result;
+		for (CompilationUnitScope unit : unitList) {
+			List<NameReference> referenceList = referenceCreator.createReferences(unit);
+			for (NameReference reference : referenceList) {
+				reference.resolveBinding();
+				for (NameReference leafReference : reference.getReferencesAtLeaf()) {
+					NameDefinition definition = leafReference.getDefinition();
+					result.add(leafReference.getName() + "@" + leafReference.getLocation() + " -> " + (definition == null ? "null" : definition.getUniqueId()));
+				}
+			}
+			manager.getSouceCodeFileSet().releaseAST(unit.getUnitName());
+			manager.getSouceCodeFileSet().releaseFileContent(unit.getUnitName());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,311 @@
+package nameTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import nameTable.creator.NameReferenceCreator;
+import nameTable.creator.NameTableCreator;
+import nameTable.creator.NameTableUpdater;
+import nameTable.nameDefinition.DetailedTypeDefinition;
+import nameTable.nameDefinition.FieldDefinition;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.TypeDefinition;
+import nameTable.nameDefinition.TypeParameterDefinition;
+import nameTable.nameDefinition.VariableDefinition;
+import nameTable.nameReference.NameReference;
+import nameTable.nameReference.TypeReference;
+import nameTable.nameScope.CompilationUnitScope;
+import nameTable.nameScope.NameScope;
+import nameTable.visitor.NameDefinitionVisitor;
+import nameTable.visitor.NameReferenceVisitor;
+import sourceCodeAST.SourceCodeFileSet;
+
+/**
+ * Test updating a name table incrementally (see NameTableUpdater). The source code files are copied to a work path, and a name table
+ * is created from the copy and all of its references are resolved. Then some files are changed, added and deleted, and the table is
+ * updated. The updated table should have the same definitions as the table created again from the changed files, and its references
+ * should be binded to the same definitions. The files are changed in two rounds, so the second round uses the index of top-level
+ * references updated by the first round.
+ * <p>In each round, a field is added to a type, the super type of a class is changed to Object, a file is deleted, a file is moved to
+ * a new directory, and a new file is added.
+ * <p>Note: a reference of a type parameter is binded to the type argument when its generic type is instantiated, so its binding
+ * depends on the order of resolving. Such references are compared by their names and locations only.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017107
+ * @version 1.0
+ *
+ */
+public class TestNameTableUpdater {
+	private static final Pattern SUPER_CLASS_PATTERN = Pattern.compile("(class\\s+\\w+\\s+extends\\s+)[\\w\\.]+");
+
+	public static void main(String[] args) {
+		String rootPath = "C:\\";
+
+		String[] paths = {"C:\\QualitasPacking\\recent\\eclipse_SDK\\eclipse_SDK-4.3\\", "C:\\QualitasPacking\\recent\\jfreechart\\jfreechart-1.0.13\\",
+							rootPath + "ZxcWork\\ProgramAnalysis\\src\\", rootPath + "ZxcWork\\JAnalyzer\\src\\",
+							rootPath + "ZxcTools\\JDKSource\\", rootPath + "ZxcTools\\apache_ant_1_9_3\\src\\",
+		};
+
+		String path = paths[3];
+		if (args.length > 0) path = args[0];
+		String workPath = rootPath + "ZxcWork\\ToolKit\\data\\updater\\";
+		if (args.length > 1) workPath = args[1];
+
+		try {
+			testUpdateEquivalence(path, workPath, 2);
+		} catch (IOException exc) {
+			throw new AssertionError("Can not copy or change the source code files in " + workPath + ": " + exc.getMessage(), exc);
+		}
+	}
+
+	/**
+	 * Copy the source code files to the work path, and then change the files and update the name table in the given number of rounds.
+	 * After each round, the updated table is compared with the table created again from the changed files.
+	 */
+	public static void testUpdateEquivalence(String path, String workPath, int roundNumber) throws IOException {
+		if (!workPath.endsWith(File.separator)) workPath = workPath + File.separator;
+		File workDirectory = new File(workPath);
+		deleteFiles(workDirectory);
+		copyFiles(new File(path), workDirectory);
+
+		NameTableCreator creator = new NameTableCreator(new SourceCodeFileSet(workPath));
+		NameTableManager manager = creator.createNameTableManager();
+		for (int round = 0; round < roundNumber; round++) {
+			// Resolve all references in the same order as compareTables(), so the reset references are resolved again by the updater
+			getTopReferenceBindings(manager);
+			resolveAllReferences(manager);
+
+			List<String> changedUnitList = new ArrayList<String>();
+			List<String> addedUnitList = new ArrayList<String>();
+			List<String> deletedUnitList = new ArrayList<String>();
+			changeFiles(manager, workPath, round, changedUnitList, addedUnitList, deletedUnitList);
+
+			long start = System.currentTimeMillis();
+			NameTableUpdater updater = creator.updateNameTableManager(manager, changedUnitList, addedUnitList, deletedUnitList);
+			System.out.println("Round " + round + ": update the name table " + (System.currentTimeMillis() - start) + " ms, changed " + changedUnitList +
+					", added " + addedUnitList + ", deleted " + deletedUnitList);
+			System.out.println("\tRemoved units: " + updater.getRemovedUnitNumber() + ", scanned units: " + updater.getScannedUnitNumber() +
+					", rebound units: " + updater.getReboundUnitNumber() + ", checked references: " + updater.getCheckedReferenceNumber() +
+					" of " + manager.getTopReferenceIndex().getReferenceNumber() + ", reset references: " + updater.getResetReferenceNumber());
+
+			NameTableManager createdManager = new NameTableCreator(new SourceCodeFileSet(workPath)).createNameTableManager();
+			compareTables(createdManager, manager);
+		}
+	}
+
+	/**
+	 * Check that the updated table has the same definitions as the table created from the files, and its references are binded to the
+	 * same definitions. The compilation units of the updated table may be in a different order, so the lists are sorted before comparing.
+	 */
+	static void compareTables(NameTableManager createdManager, NameTableManager updatedManager) {
+		List<String> definitionIdList = TestNameTableSnapshot.getDefinitionIds(createdManager);
+		List<String> updatedDefinitionIdList = TestNameTableSnapshot.getDefinitionIds(updatedManager);
+		compareSortedLists("definition", definitionIdList, updatedDefinitionIdList);
+
+		List<String> topBindingList = getTopReferenceBindings(createdManager);
+		List<String> updatedTopBindingList = getTopReferenceBindings(updatedManager);
+		compareSortedLists("top-level reference", topBindingList, updatedTopBindingList);
+
+		List<String> bindingList = resolveAllReferences(createdManager);
+		List<String> updatedBindingList = resolveAllReferences(updatedManager);
+		compareSortedLists("reference", bindingList, updatedBindingList);
+
+		System.out.println("\tDefinitions: " + definitionIdList.size() + ", top-level references: " + topBindingList.size() + ", references: " +
+				bindingList.size() + ", the updated table is the same as the created table");
+	}
+
+	private static void compareSortedLists(String itemName, List<String> createdList, List<String> updatedList) {
+		Collections.sort(createdList);
+		Collections.sort(updatedList);
+		if (createdList.size() != updatedList.size()) {
+			throw new AssertionError("The updated table has " + updatedList.size() + " " + itemName + "s, but the created table has " + createdList.size() + " " + itemName + "s!");
+		}
+		for (int index = 0; index < createdList.size(); index++) {
+			if (!createdList.get(index).equals(updatedList.get(index))) {
+				throw new AssertionError("The " + itemName + " is different after updating: " + createdList.get(index) + " != " + updatedList.get(index));
+			}
+		}
+	}
+
+	/**
+	 * Resolve the references stored in the scopes and the declared types and super types of the definitions, and return the locations
+	 * of their leaf references and the ids of the definitions binded to them
+	 */
+	static List<String> getTopReferenceBindings(NameTableManager manager) {
+		List<NameReference> referenceList = new ArrayList<NameReference>();
+		NameReferenceVisitor referenceVisitor = new NameReferenceVisitor();
+		manager.accept(referenceVisitor);
+		referenceList.addAll(referenceVisitor.getResult());
+
+		NameDefinitionVisitor definitionVisitor = new NameDefinitionVisitor();
+		manager.accept(definitionVisitor);
+		for (NameDefinition definition : definitionVisitor.getResult()) {
+			TypeReference declareType = null;
+			if (definition instanceof FieldDefinition) declareType = ((FieldDefinition)definition).getType();
+			else if (definition instanceof VariableDefinition) declareType = ((VariableDefinition)definition).getType();
+			else if (definition instanceof MethodDefinition) declareType = ((MethodDefinition)definition).getReturnType();
+			if (declareType != null) referenceList.add(declareType);
+			if (definition instanceof TypeDefinition && ((TypeDefinition)definition).getSuperList() != null) {
+				referenceList.addAll(((TypeDefinition)definition).getSuperList());
+			}
+		}
+
+		List<String> result = new ArrayList<String>();
+		for (NameReference reference : referenceList) {
+			reference.resolveBinding();
+			for (NameReference leafReference : reference.getReferencesAtLeaf()) result.add(getBinding(leafReference));
+		}
+		return result;
+	}
+
+	/**
+	 * Create and resolve the references of all compilation units like TestNameTableSnapshot.resolveAllReferences(), and return the
+	 * bindings of the leaf references
+	 */
+	static List<String> resolveAllReferences(NameTableManager manager) {
+		List<String> result = new ArrayList<String>();
+		NameReferenceCreator referenceCreator = new NameReferenceCreator(manager);
+		for (CompilationUnitScope unit : manager.getAllCompilationUnitScopes()) {
+			for (NameReference reference : referenceCreator.createReferences(unit)) {
+				reference.resolveBinding();
+				for (NameReference leafReference : reference.getReferencesAtLeaf()) result.add(getBinding(leafReference));
+			}
+			manager.getSouceCodeFileSet().releaseAST(unit.getUnitName());
+			manager.getSouceCodeFileSet().releaseFileContent(unit.getUnitName());
+		}
+		return result;
+	}
+
+	private static String getBinding(NameReference leafReference) {
+		String binding = null;
+		if (isTypeParameterReference(leafReference)) binding = "<type parameter>";
+		else {
+			NameDefinition definition = leafReference.getDefinition();
+			binding = (definition == null) ? "null" : definition.getUniqueId();
+		}
+		return leafReference.getName() + "@" + leafReference.getLocation() + " -> " + binding;
+	}
+
+	/**
+	 * Test if a reference has the name of a type parameter of an enclosing type or method of the reference
+	 */
+	private static boolean isTypeParameterReference(NameReference reference) {
+		NameScope scope = reference.getScope();
+		while (scope != null) {
+			List<TypeParameterDefinition> typeParameterList = null;
+			if (scope instanceof DetailedTypeDefinition) typeParameterList = ((DetailedTypeDefinition)scope).getTypeParameterList();
+			else if (scope instanceof MethodDefinition) typeParameterList = ((MethodDefinition)scope).getTypeParameterList();
+			if (typeParameterList != null) {
+				for (TypeParameterDefinition typeParameter : typeParameterList) {
+					if (typeParameter.getSimpleName().equals(reference.getName())) return true;
+				}
+			}
+			scope = scope.getEnclosingScope();
+		}
+		return false;
+	}
+
+	/**
+	 * Change the files in the work path for a round: add a field to a type, change the super class of a class, delete a file, move a
+	 * file to a new directory and add a new file
+	 */
+	private static void changeFiles(NameTableManager manager, String workPath, int round, List<String> changedUnitList, List<String> addedUnitList, List<String> deletedUnitList) throws IOException {
+		List<String> unitNameList = new ArrayList<String>();
+		for (CompilationUnitScope unit : manager.getAllCompilationUnitScopes()) unitNameList.add(unit.getUnitName());
+		Collections.sort(unitNameList);
+		int unitNumber = unitNameList.size();
+		if (unitNumber < 4) throw new AssertionError("There are only " + unitNumber + " compilation units, which are too few to be changed!");
+		int base = round * unitNumber / 8;
+		// The files are read and written by bytes, so the files with any charset are kept unchanged except the changed text
+		Charset charset = StandardCharsets.ISO_8859_1;
+
+		// Add a field before the last '}' of a file
+		String fieldUnitName = unitNameList.get(base);
+		String content = readFile(workPath + fieldUnitName, charset);
+		int endIndex = content.lastIndexOf('}');
+		if (endIndex >= 0) {
+			content = content.substring(0, endIndex) + "\tpublic static final int UPDATED_FIELD_" + round + " = " + round + ";\n" + content.substring(endIndex);
+			writeFile(workPath + fieldUnitName, content, charset);
+			changedUnitList.add(fieldUnitName);
+		}
+
+		// Change the super class of the first class extending another class after a quarter of the files
+		for (int index = base + unitNumber / 4; index < unitNumber; index++) {
+			String unitName = unitNameList.get(index);
+			if (changedUnitList.contains(unitName)) continue;
+			content = readFile(workPath + unitName, charset);
+			Matcher matcher = SUPER_CLASS_PATTERN.matcher(content);
+			if (!matcher.find()) continue;
+			content = content.substring(0, matcher.start()) + matcher.group(1) + "Object" + content.substring(matcher.end());
+			writeFile(workPath + unitName, content, charset);
+			changedUnitList.add(unitName);
+			break;
+		}
+
+		// Delete a file, and move a file to a new directory
+		String deletedUnitName = unitNameList.get(base + unitNumber / 2);
+		if (!changedUnitList.contains(deletedUnitName)) {
+			Files.delete(new File(workPath + deletedUnitName).toPath());
+			deletedUnitList.add(deletedUnitName);
+		}
+		String movedUnitName = unitNameList.get(base + unitNumber * 3 / 4);
+		if (!changedUnitList.contains(movedUnitName) && !deletedUnitList.contains(movedUnitName)) {
+			File movedFile = new File(workPath + movedUnitName);
+			String newUnitName = "updaterTest" + round + File.separator + movedFile.getName();
+			File newFile = new File(workPath + newUnitName);
+			newFile.getParentFile().mkdirs();
+			Files.move(movedFile.toPath(), newFile.toPath());
+			deletedUnitList.add(movedUnitName);
+			addedUnitList.add(newUnitName);
+		}
+
+		// Add a new file, which has a field with the name of the type in the first file
+		String typeName = new File(fieldUnitName).getName().replace(".java", "");
+		String newUnitName = "updaterTest" + round + File.separator + "UpdaterTestType" + round + ".java";
+		content = "package updaterTest" + round + ";\n\npublic class UpdaterTestType" + round + " {\n\tpublic Object " + typeName + " = null;\n\n" +
+				"\tpublic String toString() {\n\t\treturn String.valueOf(" + typeName + ");\n\t}\n}\n";
+		new File(workPath + newUnitName).getParentFile().mkdirs();
+		writeFile(workPath + newUnitName, content, charset);
+		addedUnitList.add(newUnitName);
+	}
+
+	private static String readFile(String fileName, Charset charset) throws IOException {
+		return new String(Files.readAllBytes(new File(fileName).toPath()), charset);
+	}
+
+	private static void writeFile(String fileName, String content, Charset charset) throws IOException {
+		Files.write(new File(fileName).toPath(), content.getBytes(charset));
+	}
+
+	private static void copyFiles(File source, File target) throws IOException {
+		if (source.isDirectory()) {
+			target.mkdirs();
+			File[] files = source.listFiles();
+			if (files == null) return;
+			for (File file : files) copyFiles(file, new File(target, file.getName()));
+		} else if (source.getName().endsWith(".java")) {
+			Files.copy(source.toPath(), target.toPath());
+		}
+	}
+
+	private static void deleteFiles(File file) throws IOException {
+		if (!file.exists()) return;
+		if (file.isDirectory()) {
+			File[] files = file.listFiles();
+			if (files != null) {
+				for (File subFile : files) deleteFiles(subFile);
+			}
+		}
+		Files.delete(file.toPath());
+	}
+}
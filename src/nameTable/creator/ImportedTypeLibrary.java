@@ -0,0 +1,587 @@
+package nameTable.creator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nameTable.NameTableSnapshot;
+import nameTable.nameDefinition.AutoGeneratedConstructor;
+import nameTable.nameDefinition.FieldDefinition;
+import nameTable.nameDefinition.ImportedTypeDefinition;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameDefinition.NameDefinitionKind;
+import nameTable.nameDefinition.TypeParameterDefinition;
+import nameTable.nameDefinition.VariableDefinition;
+import nameTable.nameReference.IntersectionTypeReference;
+import nameTable.nameReference.NameReference;
+import nameTable.nameReference.NamedTypeReference;
+import nameTable.nameReference.ParameterizedTypeReference;
+import nameTable.nameReference.QualifiedTypeReference;
+import nameTable.nameReference.TypeReference;
+import nameTable.nameReference.TypeReferenceKind;
+import nameTable.nameReference.UnionTypeReference;
+import nameTable.nameReference.WildcardTypeReference;
+import nameTable.nameScope.NameScope;
+import nameTable.nameScope.SystemScope;
+import sourceCodeAST.SourceCodeLocation;
+
+/**
+ * A precompiled library file of imported types, i.e. the imported type definitions (with their super types, type parameters, fields,
+ * methods and member types) created from the external library head files (see ImportedTypeManager). A library file is generated once
+ * from the head files, and then it can be given in place of the head files to create a name table, so the head files are not parsed
+ * again in each run. A library file is read by memory-mapping, and the definitions are created in the same order and with the same
+ * names, locations and type references as reading the head files, so the name table is the same as the table created by the head files.
+ * <p>The library records the names and the content hashes of the head files, so one can check whether it is up to date with the head
+ * files by isUpToDate(). update() generates the library again if it is missing or out of date, and it is called by
+ * NameTableManager.getExternalLibraryFileArray(), so the library is generated by the first run and used by the later runs.
+ * <p>The layout of the file is: magic, version, the head file table (the name and the content hash of each head file), the string
+ * table, and the top level imported types. A string is stored as an index to the string table (0 for null, i+1 for the i-th string).
+ *
+ * @author Zhou Xiaocong
+ * @since 2017105
+ * @version 1.0
+ * @update 2017/10/07
+ * 		Add update() to generate the library when it is missing or out of date, and define the default constructor of a type by 
+ * 		define(), so that the hash tables of the members of the type are dropped
+ *
+ */
+public class ImportedTypeLibrary {
+	static final int LIBRARY_MAGIC = 0x4A4C4942;		// "JLIB"
+	static final int LIBRARY_VERSION = 1;
+
+	// The kinds of the type references in the library file
+	private static final byte REF_NULL = 0;
+	private static final byte REF_SIMPLE = 1;
+	private static final byte REF_QUALIFIED = 2;
+	private static final byte REF_NAMED = 3;
+	private static final byte REF_PARAMETERIZED = 4;
+	private static final byte REF_WILDCARD = 5;
+	private static final byte REF_INTERSECTION = 6;
+	private static final byte REF_UNION = 7;
+
+	// The kinds of the methods in the library file
+	private static final byte METHOD_DECLARED = 0;
+	private static final byte METHOD_AUTO_GENERATED = 1;
+
+	/**
+	 * Generate a library file from the external library head files
+	 */
+	public static void generate(String[] headFileArray, String libraryFileName) throws IOException {
+		SystemScope systemScope = new SystemScope();
+		if (headFileArray != null) {
+			for (String headFileName : headFileArray) ImportedTypeManager.readImportedTypesFromExternalFile(systemScope, headFileName);
+		}
+		save(systemScope, headFileArray, libraryFileName);
+	}
+
+	/**
+	 * Generate the library file again if it is not up to date with the head files. The library is written to a temporary file and
+	 * then renamed, so another run never reads a half written library. Return false if some head file does not exist, since such a
+	 * library is of no use, or the library can not be generated.
+	 */
+	public static boolean update(String[] headFileArray, String libraryFileName) {
+		if (headFileArray == null || headFileArray.length == 0) return false;
+		for (String headFileName : headFileArray) {
+			if (!new File(headFileName).isFile()) return false;
+		}
+		try {
+			if (isUpToDate(libraryFileName, headFileArray)) return true;
+
+			File temporaryFile = new File(libraryFileName + ".tmp");
+			generate(headFileArray, temporaryFile.getPath());
+			Files.move(temporaryFile.toPath(), new File(libraryFileName).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			return isUpToDate(libraryFileName, headFileArray);
+		} catch (IOException exc) {
+			return false;
+		}
+	}
+
+	/**
+	 * Save all imported types defined in the system scope to a library file. The head files are the files used to define these
+	 * types, they can be null if the types are not defined by head files.
+	 */
+	public static void save(SystemScope systemScope, String[] headFileArray, String libraryFileName) throws IOException {
+		LibraryWriter writer = new LibraryWriter();
+		List<ImportedTypeDefinition> typeList = systemScope.getImportedTypeList();
+		if (typeList == null) writer.body.writeInt(0);
+		else {
+			writer.body.writeInt(typeList.size());
+			for (ImportedTypeDefinition type : typeList) writer.writeType(type);
+		}
+		writer.body.flush();
+
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(libraryFileName), 1 << 16));
+		try {
+			output.writeInt(LIBRARY_MAGIC);
+			output.writeInt(LIBRARY_VERSION);
+			int headFileNumber = (headFileArray == null) ? 0 : headFileArray.length;
+			output.writeInt(headFileNumber);
+			for (int index = 0; index < headFileNumber; index++) {
+				NameTableSnapshot.writeString(output, headFileArray[index]);
+				byte[] hash = getHeadFileHash(headFileArray[index]);
+				output.writeInt(hash.length);
+				output.write(hash);
+			}
+			output.writeInt(writer.stringList.size());
+			for (String string : writer.stringList) NameTableSnapshot.writeString(output, string);
+			writer.buffer.writeTo(output);
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Define the imported types in the library file to the system scope, and return the number of the top level types in the file
+	 */
+	public static int load(SystemScope systemScope, String libraryFileName) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(libraryFileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 8 || buffer.getInt() != LIBRARY_MAGIC || buffer.getInt() != LIBRARY_VERSION) {
+				throw new IOException("The file " + libraryFileName + " is not a library file of imported types!");
+			}
+			skipHeadFileTable(buffer);
+
+			LibraryReader reader = new LibraryReader(buffer);
+			try {
+				reader.readStringTable();
+				int typeNumber = buffer.getInt();
+				for (int index = 0; index < typeNumber; index++) reader.readType(systemScope);
+				return typeNumber;
+			} catch (BufferUnderflowException exc) {
+				throw new IOException("The library file " + libraryFileName + " is broken!");
+			}
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Test if the file is a library file, i.e. it begins with the magic of the library files
+	 */
+	public static boolean isLibraryFile(String fileName) {
+		File file = new File(fileName);
+		if (!file.isFile() || file.length() < 8) return false;
+		try {
+			DataInputStream input = new DataInputStream(new FileInputStream(file));
+			try {
+				return input.readInt() == LIBRARY_MAGIC;
+			} finally {
+				input.close();
+			}
+		} catch (IOException exc) {
+			return false;
+		}
+	}
+
+	/**
+	 * Check if the library file is generated from the given head files, and all head files are not changed after it is generated
+	 */
+	public static boolean isUpToDate(String libraryFileName, String[] headFileArray) throws IOException {
+		if (!isLibraryFile(libraryFileName)) return false;
+		RandomAccessFile file = new RandomAccessFile(libraryFileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != LIBRARY_MAGIC || buffer.getInt() != LIBRARY_VERSION) return false;
+			int headFileNumber = buffer.getInt();
+			int expectedHeadFileNumber = (headFileArray == null) ? 0 : headFileArray.length;
+			if (headFileNumber != expectedHeadFileNumber) return false;
+			for (int index = 0; index < headFileNumber; index++) {
+				String headFileName = NameTableSnapshot.readString(buffer);
+				byte[] hash = new byte[buffer.getInt()];
+				buffer.get(hash);
+				if (!headFileName.equals(headFileArray[index])) return false;
+				if (!Arrays.equals(hash, getHeadFileHash(headFileName))) return false;
+			}
+			return true;
+		} finally {
+			file.close();
+		}
+	}
+
+	private static byte[] getHeadFileHash(String headFileName) throws IOException {
+		File headFile = new File(headFileName);
+		if (!headFile.isFile()) return new byte[0];
+		return NameTableSnapshot.getContentHash(headFile);
+	}
+
+	private static void skipHeadFileTable(ByteBuffer buffer) {
+		int headFileNumber = buffer.getInt();
+		for (int index = 0; index < headFileNumber; index++) {
+			NameTableSnapshot.readString(buffer);
+			int hashLength = buffer.getInt();
+			buffer.position(buffer.position() + hashLength);
+		}
+	}
+
+	/**
+	 * Write the imported types to a buffer, and collect the strings used by them in the string table
+	 */
+	static class LibraryWriter {
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private DataOutputStream body = new DataOutputStream(buffer);
+		private Map<String, Integer> stringIndexMap = new HashMap<String, Integer>();
+		private List<String> stringList = new ArrayList<String>();
+
+		void writeType(ImportedTypeDefinition type) throws IOException {
+			writeString(type.getSimpleName());
+			writeString(type.getFullQualifiedName());
+			writeLocation(type.getLocation());
+			writeLocation(type.getScopeEnd());
+			body.writeBoolean(type.isInterface());
+			body.writeBoolean(type.isPackageMember());
+			writeTypeReferenceList(type.getSuperList());
+			writeTypeParameterList(type.getTypeParameterList());
+
+			List<FieldDefinition> fieldList = type.getFieldList();
+			writeListSize(fieldList);
+			if (fieldList != null) {
+				for (FieldDefinition field : fieldList) {
+					writeString(field.getSimpleName());
+					writeString(field.getFullQualifiedName());
+					writeLocation(field.getLocation());
+					body.writeInt(field.getModifierFlag());
+					writeTypeReference(field.getType());
+				}
+			}
+
+			List<MethodDefinition> methodList = type.getMethodList();
+			writeListSize(methodList);
+			if (methodList != null) {
+				for (MethodDefinition method : methodList) writeMethod(method);
+			}
+
+			List<ImportedTypeDefinition> typeList = type.getTypeList();
+			writeListSize(typeList);
+			if (typeList != null) {
+				for (ImportedTypeDefinition memberType : typeList) writeType(memberType);
+			}
+		}
+
+		void writeMethod(MethodDefinition method) throws IOException {
+			body.writeByte(method.isAutoGenerated() ? METHOD_AUTO_GENERATED : METHOD_DECLARED);
+			writeString(method.getSimpleName());
+			writeString(method.getFullQualifiedName());
+			writeLocation(method.getLocation());
+			writeLocation(method.getEndLocation());
+			if (method.isAutoGenerated()) return;
+
+			body.writeInt(method.getModifierFlag());
+			body.writeBoolean(method.isConstructor());
+			writeTypeReference(method.getReturnType());
+			writeTypeParameterList(method.getTypeParameterList());
+			List<VariableDefinition> parameterList = method.getParameterList();
+			writeListSize(parameterList);
+			if (parameterList != null) {
+				for (VariableDefinition parameter : parameterList) {
+					writeString(parameter.getSimpleName());
+					writeString(parameter.getFullQualifiedName());
+					writeLocation(parameter.getLocation());
+					writeTypeReference(parameter.getType());
+				}
+			}
+			writeTypeReferenceList(method.getThrowTypeList());
+		}
+
+		void writeTypeParameterList(List<TypeParameterDefinition> typeParameterList) throws IOException {
+			writeListSize(typeParameterList);
+			if (typeParameterList == null) return;
+			for (TypeParameterDefinition typeParameter : typeParameterList) {
+				writeString(typeParameter.getSimpleName());
+				writeString(typeParameter.getFullQualifiedName());
+				writeLocation(typeParameter.getLocation());
+			}
+		}
+
+		void writeTypeReferenceList(List<TypeReference> referenceList) throws IOException {
+			writeListSize(referenceList);
+			if (referenceList == null) return;
+			for (TypeReference reference : referenceList) writeTypeReference(reference);
+		}
+
+		/**
+		 * Write a type reference and its sub-references. The scope of the reference is not written, since the reader gives the same
+		 * scope as ImportedTypeManager gives to the reference.
+		 */
+		void writeTypeReference(TypeReference reference) throws IOException {
+			if (reference == null) {
+				body.writeByte(REF_NULL);
+				return;
+			}
+			if (reference instanceof QualifiedTypeReference) body.writeByte(REF_QUALIFIED);
+			else if (reference instanceof NamedTypeReference) body.writeByte(REF_NAMED);
+			else if (reference instanceof ParameterizedTypeReference) body.writeByte(REF_PARAMETERIZED);
+			else if (reference instanceof WildcardTypeReference) body.writeByte(REF_WILDCARD);
+			else if (reference instanceof IntersectionTypeReference) body.writeByte(REF_INTERSECTION);
+			else if (reference instanceof UnionTypeReference) body.writeByte(REF_UNION);
+			else if (reference.getClass() == TypeReference.class) body.writeByte(REF_SIMPLE);
+			else throw new IOException("Can not write the type reference " + reference.getName() + " of class " + reference.getClass().getName());
+
+			writeString(reference.getName());
+			writeLocation(reference.getLocation());
+			body.writeInt(reference.getDimension());
+			body.writeByte(reference.getTypeKind().ordinal());
+
+			if (reference instanceof QualifiedTypeReference) {
+				QualifiedTypeReference qualifiedReference = (QualifiedTypeReference)reference;
+				writeString(qualifiedReference.getFullQualifiedName());
+				writeTypeReference(qualifiedReference.getQualifier());
+			} else if (reference instanceof NamedTypeReference) {
+				NamedTypeReference namedReference = (NamedTypeReference)reference;
+				NameReference qualifier = namedReference.getQualifier();
+				if (qualifier != null && !qualifier.isTypeReference()) {
+					throw new IOException("Can not write the qualifier " + qualifier.getName() + " of the type reference " + reference.getName());
+				}
+				writeString(namedReference.getFullQualifiedName());
+				writeTypeReference((TypeReference)qualifier);
+			} else if (reference instanceof ParameterizedTypeReference) {
+				ParameterizedTypeReference parameterizedReference = (ParameterizedTypeReference)reference;
+				writeTypeReference(parameterizedReference.getPrimaryType());
+				writeTypeReferenceList(parameterizedReference.getArgumentList());
+			} else if (reference instanceof WildcardTypeReference) {
+				WildcardTypeReference wildcardReference = (WildcardTypeReference)reference;
+				writeTypeReference(wildcardReference.getBound());
+				body.writeBoolean(wildcardReference.isUpperBound());
+			} else if (reference instanceof IntersectionTypeReference) {
+				writeTypeReferenceList(((IntersectionTypeReference)reference).getTypeList());
+			} else if (reference instanceof UnionTypeReference) {
+				writeTypeReferenceList(((UnionTypeReference)reference).getTypeList());
+			}
+		}
+
+		void writeLocation(SourceCodeLocation location) throws IOException {
+			body.writeBoolean(location != null);
+			if (location == null) return;
+			body.writeInt(location.getLineNumber());
+			body.writeInt(location.getColumn());
+			writeString(location.getFileUnitName());
+		}
+
+		void writeListSize(List<?> list) throws IOException {
+			body.writeInt(list == null ? -1 : list.size());
+		}
+
+		void writeString(String string) throws IOException {
+			if (string == null) {
+				body.writeInt(0);
+				return;
+			}
+			Integer index = stringIndexMap.get(string);
+			if (index == null) {
+				index = stringList.size();
+				stringIndexMap.put(string, index);
+				stringList.add(string);
+			}
+			body.writeInt(index + 1);
+		}
+	}
+
+	/**
+	 * Read the imported types from a buffer, and define them in the same way as ImportedTypeManager.scan()
+	 */
+	static class LibraryReader {
+		private ByteBuffer buffer = null;
+		private String[] strings = null;
+
+		LibraryReader(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		void readStringTable() {
+			strings = new String[buffer.getInt()];
+			for (int index = 0; index < strings.length; index++) strings[index] = NameTableSnapshot.readString(buffer);
+		}
+
+		void readType(NameScope currentScope) {
+			String name = readString();
+			String fullQualifiedName = readString();
+			SourceCodeLocation location = readLocation();
+			SourceCodeLocation endLocation = readLocation();
+			ImportedTypeDefinition typeDef = new ImportedTypeDefinition(name, fullQualifiedName, location, currentScope, endLocation);
+			typeDef.setInterface(buffer.get() != 0);
+			typeDef.setPackageMember(buffer.get() != 0);
+			currentScope.define(typeDef);
+
+			int superTypeNumber = buffer.getInt();
+			for (int index = 0; index < superTypeNumber; index++) typeDef.addSuperType(readTypeReference(currentScope));
+			readTypeParameterList(typeDef);
+
+			int fieldNumber = buffer.getInt();
+			for (int index = 0; index < fieldNumber; index++) {
+				String fieldName = readString();
+				String fieldFullQualifiedName = readString();
+				SourceCodeLocation fieldLocation = readLocation();
+				FieldDefinition fieldDef = new FieldDefinition(fieldName, fieldFullQualifiedName, fieldLocation, typeDef);
+				fieldDef.setModifierFlag(buffer.getInt());
+				fieldDef.setType(readTypeReference(typeDef));
+				typeDef.define(fieldDef);
+			}
+
+			int methodNumber = buffer.getInt();
+			for (int index = 0; index < methodNumber; index++) readMethod(typeDef);
+
+			int memberTypeNumber = buffer.getInt();
+			for (int index = 0; index < memberTypeNumber; index++) readType(typeDef);
+		}
+
+		void readMethod(ImportedTypeDefinition typeDef) {
+			byte kind = buffer.get();
+			String methodName = readString();
+			String fullQualifiedName = readString();
+			SourceCodeLocation location = readLocation();
+			SourceCodeLocation endLocation = readLocation();
+			if (kind == METHOD_AUTO_GENERATED) {
+				// The default constructor is defined after the declared methods as ImportedTypeManager does
+				typeDef.define(new AutoGeneratedConstructor(methodName, fullQualifiedName, location, typeDef, endLocation));
+				return;
+			}
+
+			MethodDefinition methodDef = new MethodDefinition(methodName, fullQualifiedName, location, typeDef, endLocation);
+			methodDef.setModifierFlag(buffer.getInt());
+			methodDef.setConstructor(buffer.get() != 0);
+			methodDef.setReturnType(readTypeReference(methodDef));
+			typeDef.define(methodDef);
+			readTypeParameterList(methodDef);
+
+			int parameterNumber = buffer.getInt();
+			for (int index = 0; index < parameterNumber; index++) {
+				String parameterName = readString();
+				String parameterFullQualifiedName = readString();
+				SourceCodeLocation parameterLocation = readLocation();
+				VariableDefinition variableDef = new VariableDefinition(parameterName, parameterFullQualifiedName, parameterLocation, methodDef);
+				variableDef.setDefinitionKind(NameDefinitionKind.NDK_PARAMETER);
+				variableDef.setType(readTypeReference(methodDef));
+				methodDef.define(variableDef);
+			}
+
+			int throwTypeNumber = buffer.getInt();
+			for (int index = 0; index < throwTypeNumber; index++) methodDef.addThrowType(readTypeReference(typeDef));
+		}
+
+		void readTypeParameterList(NameScope scope) {
+			int typeParameterNumber = buffer.getInt();
+			for (int index = 0; index < typeParameterNumber; index++) {
+				String name = readString();
+				String fullQualifiedName = readString();
+				SourceCodeLocation location = readLocation();
+				scope.define(new TypeParameterDefinition(name, fullQualifiedName, location, scope));
+			}
+		}
+
+		TypeReference readTypeReference(NameScope scope) {
+			byte kind = buffer.get();
+			if (kind == REF_NULL) return null;
+			String name = readString();
+			SourceCodeLocation location = readLocation();
+			int dimension = buffer.getInt();
+			TypeReferenceKind typeKind = TypeReferenceKind.values()[buffer.get()];
+
+			TypeReference result = null;
+			switch (kind) {
+			case REF_SIMPLE:
+				result = new TypeReference(name, location, scope);
+				break;
+			case REF_QUALIFIED:
+				QualifiedTypeReference qualifiedReference = new QualifiedTypeReference(name, readString(), location, scope);
+				qualifiedReference.setQualifier(readTypeReference(scope));
+				result = qualifiedReference;
+				break;
+			case REF_NAMED:
+				NamedTypeReference namedReference = new NamedTypeReference(name, readString(), location, scope);
+				namedReference.setQualifier(readTypeReference(scope));
+				result = namedReference;
+				break;
+			case REF_PARAMETERIZED:
+				ParameterizedTypeReference parameterizedReference = new ParameterizedTypeReference(name, location, scope);
+				parameterizedReference.setPrimaryType(readTypeReference(scope));
+				parameterizedReference.setArgumentList(readTypeReferenceList(scope));
+				result = parameterizedReference;
+				break;
+			case REF_WILDCARD:
+				WildcardTypeReference wildcardReference = new WildcardTypeReference(name, location, scope);
+				wildcardReference.setBound(readTypeReference(scope));
+				wildcardReference.setUpperBound(buffer.get() != 0);
+				result = wildcardReference;
+				break;
+			case REF_INTERSECTION:
+				IntersectionTypeReference intersectionReference = new IntersectionTypeReference(name, location, scope);
+				List<TypeReference> intersectionTypeList = readTypeReferenceList(scope);
+				if (intersectionTypeList != null) {
+					for (TypeReference type : intersectionTypeList) intersectionReference.addType(type);
+				}
+				result = intersectionReference;
+				break;
+			case REF_UNION:
+				UnionTypeReference unionReference = new UnionTypeReference(name, location, scope);
+				List<TypeReference> unionTypeList = readTypeReferenceList(scope);
+				if (unionTypeList != null) {
+					for (TypeReference type : unionTypeList) unionReference.addType(type);
+				}
+				result = unionReference;
+				break;
+			default:
+				throw new AssertionError("Unknown kind " + kind + " of the type reference " + name + " in the library file!");
+			}
+			result.setDimension(dimension);
+			result.setTypeKind(typeKind);
+			return result;
+		}
+
+		List<TypeReference> readTypeReferenceList(NameScope scope) {
+			int size = buffer.getInt();
+			if (size < 0) return null;
+			List<TypeReference> result = new ArrayList<TypeReference>(size);
+			for (int index = 0; index < size; index++) result.add(readTypeReference(scope));
+			return result;
+		}
+
+		SourceCodeLocation readLocation() {
+			if (buffer.get() == 0) return null;
+			int lineNumber = buffer.getInt();
+			int column = buffer.getInt();
+			return new SourceCodeLocation(lineNumber, column, readString());
+		}
+
+		String readString() {
+			int index = buffer.getInt();
+			if (index == 0) return null;
+			return strings[index - 1];
+		}
+	}
+
+	/**
+	 * Generate a library file from the head files, i.e. args[0] is the name of the library file, and the others are the head files
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: ImportedTypeLibrary <library file> <head file> ...");
+			return;
+		}
+		try {
+			long start = System.currentTimeMillis();
+			generate(Arrays.copyOfRange(args, 1, args.length), args[0]);
+			System.out.println("Generate " + args[0] + " in " + (System.currentTimeMillis() - start) + " ms");
+		} catch (IOException exc) {
+			exc.printStackTrace();
+		}
+	}
+}
@@ -2,7 +2,9 @@ package nameTable.creator;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
@@ -59,9 +61,17 @@ import sourceCodeAST.SourceCodeLocation;
  * &nbsp;&nbsp;&nbsp;&nbsp;java.io.PrintStream out;<br>
  * } 
  * 
+ * <p>An external file can also be a library file generated from the head files (see ImportedTypeLibrary), which is read without
+ * parsing the head files again.
+ * 
  * @author Zhou Xiaocong
  * @since 20161119
  * @version 1.0
+ * @update 2017/10/05
+ * 		Read the imported types from a library file if an external file is a library file, and test whether a global name has been
+ * 		defined by a set of the names of the imported types
+ * @update 2017/10/07
+ * 		Define the default constructor by define() instead of adding it to the method list directly
  *
  */
 public class ImportedTypeManager {
@@ -129,8 +139,14 @@ public class ImportedTypeManager {
 		};
 		
 		SystemScope currentScope = table.getSystemScope();
+		// The library of the imported types may be large, so we find the defined types by a set of their names
+		Set<String> definedNameSet = new HashSet<String>();
+		List<ImportedTypeDefinition> importedTypeList = currentScope.getImportedTypeList();
+		if (importedTypeList != null) {
+			for (ImportedTypeDefinition importedType : importedTypeList) definedNameSet.add(importedType.getFullQualifiedName());
+		}
 		for (int index = 0; index < primitiveTypeName.length; index++) {
-			if (!hasDefinedImportedTypeDefinition(currentScope, primitiveTypeName[index][1])) {
+			if (definedNameSet.add(primitiveTypeName[index][1])) {
 				ImportedTypeDefinition name = new ImportedTypeDefinition(primitiveTypeName[index][0], primitiveTypeName[index][1], currentScope);
 				currentScope.define(name);
 			}
@@ -139,7 +155,7 @@ public class ImportedTypeManager {
 		PackageDefinition systemPackage = currentScope.findPackageByName(SystemScope.SYSTEM_PACKAGE_NAME);
 		if (systemPackage == null) {
 			for (int index = 0; index < systemName.length; index++) {
-				if (!hasDefinedImportedTypeDefinition(currentScope, systemName[index][1])) {
+				if (definedNameSet.add(systemName[index][1])) {
 					ImportedTypeDefinition name = new ImportedTypeDefinition(systemName[index][0], systemName[index][1], currentScope);
 					currentScope.define(name);
 				}
@@ -167,20 +183,30 @@ public class ImportedTypeManager {
 		if (fileNameArray.length <= 0) return;
 		
 		SystemScope systemScope = tableManager.getSystemScope();
-		for (String fileName : fileNameArray) {
-			try {
-				File file = new File(fileName);
-				SourceCodeFile codeFile = new SourceCodeFile(file);
-				if (codeFile.hasCreatedAST()) {
-					CompilationUnit root = codeFile.getASTRoot();
-					CompilationUnitRecorder currentUnitFile = new CompilationUnitRecorder(fileName, root);
-					scanCurrentCompilationUnit(currentUnitFile, systemScope);
-					codeFile.releaseAST();
-					codeFile.releaseFileContent();
-				}
-			} catch (Exception exc) {
-				exc.printStackTrace();
+		for (String fileName : fileNameArray) readImportedTypesFromExternalFile(systemScope, fileName);
+	}
+	
+	/**
+	 * Read messages on the imported types from an external file, which is a head file or a library file generated from head files
+	 */
+	static void readImportedTypesFromExternalFile(SystemScope systemScope, String fileName) {
+		try {
+			if (ImportedTypeLibrary.isLibraryFile(fileName)) {
+				ImportedTypeLibrary.load(systemScope, fileName);
+				return;
+			}
+			
+			File file = new File(fileName);
+			SourceCodeFile codeFile = new SourceCodeFile(file);
+			if (codeFile.hasCreatedAST()) {
+				CompilationUnit root = codeFile.getASTRoot();
+				CompilationUnitRecorder currentUnitFile = new CompilationUnitRecorder(fileName, root);
+				scanCurrentCompilationUnit(currentUnitFile, systemScope);
+				codeFile.releaseAST();
+				codeFile.releaseFileContent();
 			}
+		} catch (Exception exc) {
+			exc.printStackTrace();
 		}
 	}
 	
@@ -271,9 +297,11 @@ public class ImportedTypeManager {
 		for (MethodDefinition method : methodList) {
 			if (method.isConstructor()) hasConstructor = true;
 		}
-		if (!hasConstructor) {
+		// The constructor is defined only if the type has declared methods (otherwise the new list above is not the list of the type), and
+		// it is defined by define() so that the hash tables of the members of the type are dropped
+		if (!hasConstructor && typeDef.getMethodList() != null) {
 			MethodDefinition defaultConstructor = new AutoGeneratedConstructor(name, fullQualifiedName, location, typeDef, location);
-			methodList.add(defaultConstructor);
+			typeDef.define(defaultConstructor);
 		}
 		
 		// Process the type declarations in the node
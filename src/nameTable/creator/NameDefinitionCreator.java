@@ -63,6 +63,11 @@ public class NameDefinitionCreator extends NameTableCreator {
 		super(parser);
 	}
 	
+	@Override
+	NameTableCreator createWorker() {
+		return new NameDefinitionCreator(codeFileSet);
+	}
+	
 	/**
 	 * Scan a type declaration node to create name definitions and references
      * TypeDeclaration:
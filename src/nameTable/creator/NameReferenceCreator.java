@@ -49,6 +49,8 @@ import sourceCodeAST.SourceCodeLocation;
  *
  * @update 2016/11/13
  * 		Refactor the class according to the design document
+ * @update 2017/09/21
+ * 		Use the reverse index of references to find the units scanned in createReferencesBindedToDefinition()
  */
 public class NameReferenceCreator {
 	protected NameTableManager tableManager = null;
@@ -473,12 +475,14 @@ public class NameReferenceCreator {
 	/**
 	 * Create and return all name references binded to a name definition. Not that all references returned are at leaf of name
 	 * references, and all resolved since they are binded to the given name definition!
+	 * <p>Only the compilation units having references to the definition in the reverse index of references are scanned.
 	 */
 	public List<NameReference> createReferencesBindedToDefinition(NameDefinition definition) {
 		List<NameReference> resultList = new ArrayList<NameReference>();
-		List<CompilationUnitScope> unitScopeList = tableManager.getAllCompilationUnitScopes();
-		if (unitScopeList == null) return resultList;
-		for (CompilationUnitScope unitScope : unitScopeList) {
+		List<String> unitNameList = tableManager.getReferenceIndex().getReferringUnitNames(definition.getUniqueId());
+		for (String unitName : unitNameList) {
+			CompilationUnitScope unitScope = tableManager.findCompilationUnitScopeByUnitName(unitName);
+			if (unitScope == null) continue;
 			List<NameReference> referenceList = createReferences(unitScope);
 			for (NameReference reference : referenceList) {
 				reference.resolveBinding();
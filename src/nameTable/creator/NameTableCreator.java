@@ -2,7 +2,15 @@ package nameTable.creator;
 
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
@@ -27,6 +35,8 @@ import org.eclipse.jdt.core.dom.VariableDeclaration;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 
 import sourceCodeAST.CompilationUnitRecorder;
+import sourceCodeAST.ISourceCodeFileSink;
+import sourceCodeAST.SourceCodeBatchParser;
 import sourceCodeAST.SourceCodeFile;
 import sourceCodeAST.SourceCodeFileSet;
 import sourceCodeAST.SourceCodeLocation;
@@ -68,6 +78,19 @@ import nameTable.nameScope.SystemScope;
  *   
  * @update 2016/11/11
  * 		Refactor the class according to the design document
+ * 
+ * @update 2017/09/02
+ * 		Add the parallel mode (see setParallelPool()), which parses and scans compilation units in a fork-join pool, and then merges
+ * 		the compilation unit scopes to the system scope in the order of the source code file set.
+ * 
+ * @update 2017/09/17
+ * 		Add updateNameTableManager() to update the name table incrementally after some source code files are changed.
+ * 
+ * @update 2017/09/27
+ * 		Add setBatchParser() to parse the source code files in batches in the serial mode, and scan each file after its batch is parsed.
+ * 
+ * @update 2017/10/01
+ * 		Create the type hierarchy index of the name table after the global names are defined.
  */
 public class NameTableCreator {
 	protected SourceCodeFileSet codeFileSet = null;
@@ -75,6 +98,11 @@ public class NameTableCreator {
 	
 	protected TypeASTVisitor typeVisitor = null;
 	protected ExpressionASTVisitor expressionVisitor = null;
+	
+	// The pool to parse and scan compilation units in parallel. If it is null, we scan all compilation units serially.
+	protected ForkJoinPool parallelPool = null;
+	// The parser to parse the files in batches in the serial mode. If it is null, each file is parsed alone when it is scanned.
+	protected SourceCodeBatchParser batchParser = null;
 
 	public NameTableCreator(SourceCodeFileSet codeFileSet) {
 		this.codeFileSet = codeFileSet;
@@ -84,6 +112,40 @@ public class NameTableCreator {
 		typeVisitor = new TypeASTVisitor(null, null);
 	}
 	
+	/**
+	 * Set the fork-join pool to parse and scan compilation units in parallel. If the pool is null (the default), all compilation 
+	 * units are scanned one by one in the current thread. The name table created in parallel is identical to the one created serially.
+	 */
+	public void setParallelPool(ForkJoinPool pool) {
+		this.parallelPool = pool;
+	}
+	
+	public ForkJoinPool getParallelPool() {
+		return parallelPool;
+	}
+	
+	/**
+	 * Set the parser to parse the source code files in batches when creating the name table in the serial mode. The files are 
+	 * scanned in the same order, so the name table is identical to the one created without the batch parser. The batch parser is 
+	 * not used in the parallel mode, where each file is parsed by a worker thread.
+	 */
+	public void setBatchParser(SourceCodeBatchParser batchParser) {
+		this.batchParser = batchParser;
+	}
+	
+	public SourceCodeBatchParser getBatchParser() {
+		return batchParser;
+	}
+	
+	/**
+	 * Create a creator to scan compilation units in a worker thread of the parallel pool. Because the type visitor and the expression 
+	 * visitor of a creator can not be shared by threads, each worker thread uses its own creator. The sub-class which redefines 
+	 * the methods scan() should redefine this method to return an object of itself.  
+	 */
+	NameTableCreator createWorker() {
+		return new NameTableCreator(codeFileSet);
+	}
+	
 	/**
 	 * Create all name definitions and name reference in name table, read informations about imported types from the given file list and bind 
 	 * imports in all compilation units, and define all global name. i.e. the returned name table manager is ready for resolving name reference! 
@@ -95,6 +157,7 @@ public class NameTableCreator {
 		ImportedTypeManager.readImportedTypesFromExternalFiles(table, externalFileNameArray);
 		ImportedTypeManager.bindImportsInAllCompilationUnits(table);
 		ImportedTypeManager.defineGlobalNames(table);
+		table.getTypeHierarchyIndex();
 		
 		return table;
 	}
@@ -110,6 +173,7 @@ public class NameTableCreator {
 		ImportedTypeManager.readImportedTypesFromExternalFiles(table, externalFileNameArray);
 		ImportedTypeManager.bindImportsInAllCompilationUnits(table);
 		ImportedTypeManager.defineGlobalNames(table);
+		table.getTypeHierarchyIndex();
 		
 		return table;
 	}
@@ -124,6 +188,7 @@ public class NameTableCreator {
 		NameTableManager table = new NameTableManager(codeFileSet, systemScope);
 		ImportedTypeManager.bindImportsInAllCompilationUnits(table);
 		ImportedTypeManager.defineGlobalNames(table);
+		table.getTypeHierarchyIndex();
 		
 		return table;
 	}
@@ -137,6 +202,7 @@ public class NameTableCreator {
 		NameTableManager table = new NameTableManager(codeFileSet, systemScope);
 		ImportedTypeManager.bindImportsInAllCompilationUnits(table);
 		ImportedTypeManager.defineGlobalNames(table);
+		table.getTypeHierarchyIndex();
 		
 		return table;
 	}
@@ -181,42 +247,181 @@ public class NameTableCreator {
 	 * Create all name definitions and name references of all Java source code files under the given path
 	 */
 	SystemScope create(PrintWriter reporter) {
-		SystemScope systemScope = new SystemScope();
+		if (parallelPool != null) return createInParallel(reporter);
+		
+		final SystemScope systemScope = new SystemScope();
+		
+		if (batchParser != null) {
+			final PrintWriter batchReporter = reporter;
+			batchParser.parse(new ISourceCodeFileSink() {
+				@Override
+				public void accept(SourceCodeFile codeFile, String unitName) {
+					scanSourceCodeFile(codeFile, unitName, systemScope, batchReporter);
+				}
+			});
+			return systemScope;
+		}
 		
 		for (SourceCodeFile codeFile : codeFileSet) {
 			String unitName = codeFileSet.getFileUnitName(codeFile);
-			if (reporter != null) reporter.println("Scan file: " + unitName);
-			
-			if (codeFile.hasCreatedAST()) {
-				CompilationUnit root = codeFile.getASTRoot();
-				CompilationUnitRecorder currentUnitFile = new CompilationUnitRecorder(unitName, root);
+			scanSourceCodeFile(codeFile, unitName, systemScope, reporter);
+		}
+		return systemScope;
+	}
+	
+	/**
+	 * Parse a source code file and scan its compilation unit to the system scope. If there is any error, the unit is added to the 
+	 * error unit list. 
+	 */
+	void scanSourceCodeFile(SourceCodeFile codeFile, String unitName, SystemScope systemScope, PrintWriter reporter) {
+		if (reporter != null) reporter.println("Scan file: " + unitName);
+		
+		if (codeFile.hasCreatedAST()) {
+			CompilationUnit root = codeFile.getASTRoot();
+			CompilationUnitRecorder currentUnitFile = new CompilationUnitRecorder(unitName, root);
 
-				int rootLength = root.getLength();
-				int typeNumber = 0;
-				// 2017/2/17: (rootLength <= 0) implies this file has no character. 
-				if (rootLength > 0) typeNumber = scanCurrentCompilationUnit(currentUnitFile, systemScope);
-				if (typeNumber <= 0) {
-					String errorMessage = "NoScanedType : there is no class, interface or enumeration!";
-					currentUnitFile.setErrorMessage(errorMessage);
-					errorUnitList.add(currentUnitFile);
-					if (reporter != null) reporter.println("\tThere is no class, interface or enumeration types in file!");
-				}
-				codeFile.releaseAST();
-				codeFile.releaseFileContent();
-			} else {
-				String parsingErrorMessage = codeFile.getParsingErrorMessage();
-				String errorMessage = "ParseringError : " + parsingErrorMessage;
-				CompilationUnitRecorder unitFile = new CompilationUnitRecorder(unitName, null);
-				unitFile.setErrorMessage(errorMessage);
-				errorUnitList.add(unitFile);
+			int rootLength = root.getLength();
+			int typeNumber = 0;
+			// 2017/2/17: (rootLength <= 0) implies this file has no character. 
+			if (rootLength > 0) typeNumber = scanCurrentCompilationUnit(currentUnitFile, systemScope);
+			if (typeNumber <= 0) {
+				String errorMessage = "NoScanedType : there is no class, interface or enumeration!";
+				currentUnitFile.setErrorMessage(errorMessage);
+				errorUnitList.add(currentUnitFile);
+				if (reporter != null) reporter.println("\tThere is no class, interface or enumeration types in file!");
+			}
+			codeFile.releaseAST();
+			codeFile.releaseFileContent();
+		} else {
+			String parsingErrorMessage = codeFile.getParsingErrorMessage();
+			String errorMessage = "ParseringError : " + parsingErrorMessage;
+			CompilationUnitRecorder unitFile = new CompilationUnitRecorder(unitName, null);
+			unitFile.setErrorMessage(errorMessage);
+			errorUnitList.add(unitFile);
+
+			if (reporter != null) reporter.println("\tError message: " + codeFile.getParsingErrorMessage());
+		}
+	}
+	
+	/**
+	 * Update the name table created by this creator (or a creator of the same kind) after some source code files are changed, added 
+	 * or deleted. Only the compilation units of the given files are scanned again, and only the references whose bindings may be 
+	 * changed are resolved again. See NameTableUpdater for details. 
+	 */
+	public NameTableUpdater updateNameTableManager(NameTableManager table, Collection<String> changedUnitNames, Collection<String> addedUnitNames, Collection<String> deletedUnitNames) {
+		NameTableUpdater updater = new NameTableUpdater(this, table);
+		updater.update(changedUnitNames, addedUnitNames, deletedUnitNames);
+		return updater;
+	}
+	
+	/**
+	 * Remove the error units with the given unit names, since they will be scanned again or they have been deleted
+	 */
+	void removeErrorUnits(Set<String> unitNameSet) {
+		for (int index = errorUnitList.size() - 1; index >= 0; index--) {
+			if (unitNameSet.contains(errorUnitList.get(index).unitName)) errorUnitList.remove(index);
+		}
+	}
 
-				if (reporter != null) reporter.println("\tError message: " + codeFile.getParsingErrorMessage());
+	/**
+	 * Create all name definitions and name references of all Java source code files in the parallel pool. Each compilation unit 
+	 * is parsed and scanned by the creator of a worker thread, and the result is a fragment including the compilation unit scope. 
+	 * Then the fragments are merged to the system scope in the order of the source code file set, so that the packages, the 
+	 * compilation unit scopes and the error units are in the same order as the ones created by the serial mode.
+	 */
+	SystemScope createInParallel(PrintWriter reporter) {
+		SystemScope systemScope = new SystemScope();
+		ConcurrentHashMap<String, PackageDefinition> packageMap = new ConcurrentHashMap<String, PackageDefinition>();
+		ThreadLocal<NameTableCreator> workers = new ThreadLocal<NameTableCreator>() {
+			@Override
+			protected NameTableCreator initialValue() {
+				return createWorker();
+			}
+		};
+		
+		List<Callable<CompilationUnitFragment>> taskList = new ArrayList<Callable<CompilationUnitFragment>>();
+		for (SourceCodeFile codeFile : codeFileSet) {
+			taskList.add(new CompilationUnitScanTask(workers, codeFile, codeFileSet.getFileUnitName(codeFile), systemScope, packageMap));
+		}
+		
+		List<Future<CompilationUnitFragment>> futureList = parallelPool.invokeAll(taskList);
+		Set<PackageDefinition> definedPackageSet = new HashSet<PackageDefinition>();
+		for (Future<CompilationUnitFragment> future : futureList) {
+			CompilationUnitFragment fragment = null;
+			try {
+				fragment = future.get();
+			} catch (InterruptedException exc) {
+				Thread.currentThread().interrupt();
+				throw new AssertionError("The thread is interrupted when scanning compilation units in parallel!");
+			} catch (ExecutionException exc) {
+				Throwable cause = exc.getCause();
+				if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+				if (cause instanceof Error) throw (Error)cause;
+				throw new AssertionError("Can not scan compilation units in parallel: " + cause);
 			}
 			
+			if (reporter != null) reporter.println("Scan file: " + fragment.unitName);
+			if (fragment.packageDef != null) {
+				// Define the package to the system scope when it appears in the first time, just like the serial mode 
+				if (definedPackageSet.add(fragment.packageDef)) systemScope.define(fragment.packageDef);
+				fragment.packageDef.addCompilationUnitScope(fragment.unitScope);
+			}
+			if (fragment.errorUnit != null) {
+				errorUnitList.add(fragment.errorUnit);
+				if (reporter != null) reporter.println(fragment.reportMessage);
+			}
 		}
 		return systemScope;
 	}
+	
+	/**
+	 * Parse and scan a source code file in the current (worker) thread. The package definition of the unit is shared by all units
+	 * in the same package through the package map, but it is not defined to the system scope and the compilation unit scope is
+	 * not added to the package, which will be done when merging fragments.
+	 */
+	CompilationUnitFragment scanCompilationUnitFragment(SourceCodeFile codeFile, String unitName, SystemScope systemScope, ConcurrentHashMap<String, PackageDefinition> packageMap) {
+		CompilationUnitFragment fragment = new CompilationUnitFragment(unitName);
+		
+		if (codeFile.hasCreatedAST()) {
+			CompilationUnit root = codeFile.getASTRoot();
+			CompilationUnitRecorder currentUnitFile = new CompilationUnitRecorder(unitName, root);
 
+			int rootLength = root.getLength();
+			int typeNumber = 0;
+			if (rootLength > 0) {
+				PackageDeclaration packageDecl = root.getPackage();
+				String packageName = (packageDecl != null) ? packageDecl.getName().getFullyQualifiedName() : null;
+				String packageKey = (packageName != null) ? packageName : "";
+				PackageDefinition packageDef = packageMap.get(packageKey);
+				if (packageDef == null) {
+					if (packageName != null) packageDef = new PackageDefinition(packageName, systemScope);
+					else packageDef = new PackageDefinition(systemScope);
+					PackageDefinition previous = packageMap.putIfAbsent(packageKey, packageDef);
+					if (previous != null) packageDef = previous;
+				}
+				
+				fragment.packageDef = packageDef;
+				fragment.unitScope = createCompilationUnitScope(currentUnitFile, packageDef);
+				typeNumber = scanTypesInCompilationUnit(currentUnitFile, packageName, fragment.unitScope);
+			}
+			if (typeNumber <= 0) {
+				String errorMessage = "NoScanedType : there is no class, interface or enumeration!";
+				currentUnitFile.setErrorMessage(errorMessage);
+				fragment.errorUnit = currentUnitFile;
+				fragment.reportMessage = "\tThere is no class, interface or enumeration types in file!";
+			}
+			codeFile.releaseAST();
+			codeFile.releaseFileContent();
+		} else {
+			String parsingErrorMessage = codeFile.getParsingErrorMessage();
+			String errorMessage = "ParseringError : " + parsingErrorMessage;
+			CompilationUnitRecorder unitFile = new CompilationUnitRecorder(unitName, null);
+			unitFile.setErrorMessage(errorMessage);
+			fragment.errorUnit = unitFile;
+			fragment.reportMessage = "\tError message: " + parsingErrorMessage;
+		}
+		return fragment;
+	}
 	
 	/**
 	 * Scan current compilation unit to create name definitions and references
@@ -227,7 +432,6 @@ public class NameTableCreator {
      * @pre-condition: currentSourceFileName ! = null &&  currentASTRoot != null
 	 */
 	int scanCurrentCompilationUnit(CompilationUnitRecorder currentUnitFile, SystemScope currentScope) {
-		int scanedTypeNumber = 0;
 		CompilationUnit node = currentUnitFile.root; 
 		// 1. Process the package declaration in the unit
 		PackageDeclaration packageDecl = node.getPackage();
@@ -249,12 +453,24 @@ public class NameTableCreator {
 		}
 		
 		// 2 Create a compilation unit scope in the package
+		CompilationUnitScope unitScope = createCompilationUnitScope(currentUnitFile, packageDef);
+		packageDef.addCompilationUnitScope(unitScope);
+		
+		// 3 Process the type declarations in the node
+		return scanTypesInCompilationUnit(currentUnitFile, packageName, unitScope);
+	}
+	
+	/**
+	 * Create the compilation unit scope of the current compilation unit in the given package, and process the import declarations 
+	 * in the unit. Note that the method does not add the scope to the package. 
+	 */
+	CompilationUnitScope createCompilationUnitScope(CompilationUnitRecorder currentUnitFile, PackageDefinition packageDef) {
+		CompilationUnit node = currentUnitFile.root; 
 		SourceCodeLocation start = SourceCodeLocation.getStartLocation(node, currentUnitFile.root, currentUnitFile.unitName);
 		SourceCodeLocation end = SourceCodeLocation.getEndLocation(node, currentUnitFile.root, currentUnitFile.unitName);
 		CompilationUnitScope unitScope = new CompilationUnitScope(currentUnitFile.unitName, packageDef, start, end);
-		packageDef.addCompilationUnitScope(unitScope);
 		
-		// 3 Process the import declarations in the node
+		// Process the import declarations in the node
 		@SuppressWarnings("unchecked")
 		List<ImportDeclaration> imports = node.imports();
 		for (ImportDeclaration importDecl : imports) {
@@ -297,8 +513,16 @@ public class NameTableCreator {
 				}
 			}
 		}
-		
-		// 4 Process the list declarations in the node
+		return unitScope;
+	}
+	
+	/**
+	 * Scan the type declarations in the current compilation unit to create name definitions and references
+	 * @return the number of the scanned types 
+	 */
+	int scanTypesInCompilationUnit(CompilationUnitRecorder currentUnitFile, String packageName, CompilationUnitScope unitScope) {
+		int scanedTypeNumber = 0;
+		CompilationUnit node = currentUnitFile.root; 
 		@SuppressWarnings("unchecked")
 		List<AbstractTypeDeclaration> types = node.types();
 		
@@ -773,3 +997,43 @@ public class NameTableCreator {
 		return variableDef;
 	}
 }
+
+/**
+ * The result of parsing and scanning a compilation unit in a worker thread, which will be merged to the system scope.
+ */
+class CompilationUnitFragment {
+	final String unitName;
+	PackageDefinition packageDef = null;
+	CompilationUnitScope unitScope = null;
+	CompilationUnitRecorder errorUnit = null;
+	String reportMessage = null;
+	
+	CompilationUnitFragment(String unitName) {
+		this.unitName = unitName;
+	}
+}
+
+/**
+ * The task to parse and scan a compilation unit by the creator of the current worker thread.
+ */
+class CompilationUnitScanTask implements Callable<CompilationUnitFragment> {
+	private ThreadLocal<NameTableCreator> workers = null;
+	private SourceCodeFile codeFile = null;
+	private String unitName = null;
+	private SystemScope systemScope = null;
+	private ConcurrentHashMap<String, PackageDefinition> packageMap = null;
+	
+	CompilationUnitScanTask(ThreadLocal<NameTableCreator> workers, SourceCodeFile codeFile, String unitName, SystemScope systemScope, 
+			ConcurrentHashMap<String, PackageDefinition> packageMap) {
+		this.workers = workers;
+		this.codeFile = codeFile;
+		this.unitName = unitName;
+		this.systemScope = systemScope;
+		this.packageMap = packageMap;
+	}
+
+	@Override
+	public CompilationUnitFragment call() {
+		return workers.get().scanCompilationUnitFragment(codeFile, unitName, systemScope, packageMap);
+	}
+}
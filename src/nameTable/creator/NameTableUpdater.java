@@ -0,0 +1,466 @@
+package nameTable.creator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import nameTable.NameTableManager;
+import nameTable.nameDefinition.DetailedTypeDefinition;
+import nameTable.nameDefinition.FieldDefinition;
+import nameTable.nameDefinition.ImportedTypeDefinition;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.NameDefinitionKind;
+import nameTable.nameDefinition.PackageDefinition;
+import nameTable.nameDefinition.TypeDefinition;
+import nameTable.nameDefinition.TypeParameterDefinition;
+import nameTable.nameDefinition.VariableDefinition;
+import nameTable.nameReference.MethodReference;
+import nameTable.nameReference.NameReference;
+import nameTable.nameReference.NameReferenceLabel;
+import nameTable.nameReference.TypeReference;
+import nameTable.nameScope.CompilationUnitScope;
+import nameTable.nameScope.SystemScope;
+import nameTable.visitor.NameDefinitionVisitor;
+import sourceCodeAST.SourceCodeFile;
+import sourceCodeAST.SourceCodeFileSet;
+
+/**
+ * Update a name table incrementally after some source code files are changed, added or deleted, so that the cost of updating is
+ * proportional to the edit rather than to the whole system. The updater does the following steps:
+ * <OL><LI>Remove the compilation unit scopes of the changed and deleted files, and record their definitions as removed definitions.
+ * <LI>Reload the changed and added files, and scan them to new compilation unit scopes. Only these files are parsed again.
+ * <LI>Remove the packages which become empty, and bind the import declarations of the new compilation units.
+ * <LI>Bind again the import declarations of other compilation units which may refer to the removed or new definitions.
+ * <LI>Reset the top-level references (i.e. the references stored in scopes or held by definitions) of other compilation units and
+ * imported types, if some reference in them is bound to a removed definition, or has the same name as a removed or new definition.
+ * A reset reference is resolved again if it has been resolved before the update.</OL>
+ * <p>Only the names which can be seen by other compilation units (i.e. the names of types, fields, methods, enum constants and type
+ * parameters) are changed names. If the super type list of a removed or new type is changed, the names of the members of its super
+ * types are also changed names, since the references to the inherited members may be bound to other definitions.
+ * <p>The top-level references are found by the index of their names (see TopReferenceIndex), so only the references with the changed
+ * names, and the references with the names of the definitions whose declared types are changed, are checked in step 5. The index is
+ * created in a single pass when a table is updated firstly, and then it is updated with the removed and new compilation units.
+ * <p>Note: the new packages and compilation units are appended to the end of their lists, so the order of them may be different
+ * from the order after creating the whole name table. The imported type definitions created for the imports of the removed
+ * compilation units are kept in the system scope.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017917
+ * @version 1.0
+ *
+ * @update 2017/09/24
+ * 		Reject updating a frozen name table
+ *
+ * @update 2017/10/01
+ * 		Create the type hierarchy index again after updating the name table
+ *
+ * @update 2017/10/07
+ * 		Find the references to check by the index of top-level references instead of visiting all compilation units, and only use
+ * 		the visible names and the members of the changed super types as changed names
+ */
+public class NameTableUpdater {
+	private NameTableCreator creator = null;
+	private NameTableManager table = null;
+
+	private Set<NameDefinition> removedDefinitionSet = null;
+	private Set<String> changedNameSet = null;
+	// The removed types by their full qualified names, which are used to check if the super type list of a type is changed
+	private Map<String, List<TypeDefinition>> removedTypeMap = null;
+	private Set<TypeDefinition> visitedSuperTypeSet = null;
+
+	private int removedUnitNumber = 0;
+	private int scannedUnitNumber = 0;
+	private int reboundUnitNumber = 0;
+	private int checkedReferenceNumber = 0;
+	private int resetReferenceNumber = 0;
+
+	public NameTableUpdater(NameTableCreator creator, NameTableManager table) {
+		this.creator = creator;
+		this.table = table;
+	}
+
+	/**
+	 * Update the name table with the unit names of the changed, added and deleted source code files. Any of the collections can be
+	 * null. Whether a file is deleted is finally decided by the file system, i.e. a given file which does not exist is regarded as deleted.
+	 */
+	public void update(Collection<String> changedUnitNames, Collection<String> addedUnitNames, Collection<String> deletedUnitNames) {
+		if (table.isFrozen()) throw new AssertionError("The name table has been frozen, and can not be updated!");
+		removedDefinitionSet = Collections.newSetFromMap(new IdentityHashMap<NameDefinition, Boolean>());
+		changedNameSet = new HashSet<String>();
+		removedTypeMap = new HashMap<String, List<TypeDefinition>>();
+		visitedSuperTypeSet = Collections.newSetFromMap(new IdentityHashMap<TypeDefinition, Boolean>());
+		removedUnitNumber = 0;
+		scannedUnitNumber = 0;
+		reboundUnitNumber = 0;
+		checkedReferenceNumber = 0;
+		resetReferenceNumber = 0;
+
+		Set<String> unitNameSet = new TreeSet<String>();
+		if (changedUnitNames != null) unitNameSet.addAll(changedUnitNames);
+		if (addedUnitNames != null) unitNameSet.addAll(addedUnitNames);
+		if (deletedUnitNames != null) unitNameSet.addAll(deletedUnitNames);
+		if (unitNameSet.isEmpty()) return;
+
+		SystemScope systemScope = table.getSystemScope();
+		SourceCodeFileSet codeFileSet = table.getSouceCodeFileSet();
+		TopReferenceIndex referenceIndex = table.getTopReferenceIndex();
+		List<CompilationUnitScope> oldUnitList = new ArrayList<CompilationUnitScope>();
+		Set<CompilationUnitScope> oldUnitSet = Collections.newSetFromMap(new IdentityHashMap<CompilationUnitScope, Boolean>());
+		Set<PackageDefinition> oldPackageSet = Collections.newSetFromMap(new IdentityHashMap<PackageDefinition, Boolean>());
+		if (systemScope.getPackageList() != null) oldPackageSet.addAll(systemScope.getPackageList());
+
+		// 1. Remove the compilation unit scopes of the changed and deleted files
+		List<CompilationUnitScope> unitList = table.getAllCompilationUnitScopes();
+		if (unitList != null) {
+			for (CompilationUnitScope unit : unitList) {
+				if (unitNameSet.contains(unit.getUnitName())) {
+					unit.getEnclosingPackage().removeCompilationUnitScope(unit);
+					referenceIndex.removeUnit(unit);
+					collectDefinitions(unit, true);
+					removedUnitNumber++;
+				} else {
+					oldUnitList.add(unit);
+					oldUnitSet.add(unit);
+				}
+			}
+		}
+		creator.removeErrorUnits(unitNameSet);
+
+		// 2. Reload and scan the changed and added files
+		for (String unitName : unitNameSet) {
+			SourceCodeFile codeFile = codeFileSet.updateSourceCodeFile(unitName);
+			if (codeFile == null) continue;
+			creator.scanSourceCodeFile(codeFile, unitName, systemScope, null);
+			scannedUnitNumber++;
+		}
+
+		// 3. Remove empty packages, and bind the import declarations of new compilation units
+		List<PackageDefinition> packageList = systemScope.getPackageList();
+		if (packageList != null) {
+			for (PackageDefinition packageDef : new ArrayList<PackageDefinition>(packageList)) {
+				List<CompilationUnitScope> packageUnitList = packageDef.getCompilationUnitScopeList();
+				if (packageUnitList == null || packageUnitList.isEmpty()) {
+					systemScope.removePackage(packageDef);
+					removedDefinitionSet.add(packageDef);
+					addChangedName(packageDef.getFullQualifiedName());
+				} else if (!oldPackageSet.contains(packageDef)) addChangedName(packageDef.getFullQualifiedName());
+			}
+		}
+		systemScope.releaseDetailedTypeBuffer();
+
+		List<CompilationUnitScope> newUnitList = new ArrayList<CompilationUnitScope>();
+		unitList = table.getAllCompilationUnitScopes();
+		if (unitList != null) {
+			for (CompilationUnitScope unit : unitList) {
+				if (!oldUnitSet.contains(unit)) newUnitList.add(unit);
+			}
+		}
+		for (CompilationUnitScope unit : newUnitList) unit.bindImportDeclaration();
+		for (CompilationUnitScope unit : newUnitList) collectDefinitions(unit, false);
+		// The removed types which are not defined again are regarded as types whose super type lists are changed
+		for (List<TypeDefinition> removedTypeList : removedTypeMap.values()) {
+			for (TypeDefinition removedType : removedTypeList) collectSuperTypeMemberNames(removedType, false);
+		}
+
+		// 4. Bind again the import declarations of other compilation units which may be changed
+		for (CompilationUnitScope unit : oldUnitList) {
+			List<NameReference> importList = unit.getImportedTypeList();
+			if (importList == null) continue;
+			boolean rebound = false;
+			for (NameReference importDecl : importList) {
+				if (isChangedReference(importDecl)) {
+					importDecl.resetBinding();
+					unit.bindImportDeclaration(importDecl, systemScope);
+					rebound = true;
+				}
+			}
+			if (rebound) reboundUnitNumber++;
+		}
+
+		// 5. Reset and resolve again the references which may be changed in other compilation units and imported types. Only the
+		// references with the changed names are visited by the index of top-level references.
+		referenceIndex.addImportedTypes(systemScope.getImportedTypeList());
+		Set<NameReference> referenceSet = Collections.newSetFromMap(new IdentityHashMap<NameReference, Boolean>());
+		for (String name : changedNameSet) referenceIndex.collectReferences(name, referenceSet);
+		// A reference may be bound through the declared type of its definition, e.g. the type of a variable or the return type of a
+		// method, so the references with the name of a definition are also visited if the declared type of the definition is changed
+		Set<String> declaredNameSet = new HashSet<String>();
+		for (NameReference reference : referenceSet) {
+			NameDefinition definition = referenceIndex.getDefinitionOfDeclaredType(reference);
+			if (definition != null && isChangedTypeReferenceTree(reference)) declaredNameSet.add(definition.getSimpleName());
+		}
+		for (String name : declaredNameSet) referenceIndex.collectReferences(name, referenceSet);
+
+		// Find all changed references before we reset any of them, since a reference is checked by the declared type of its definition
+		List<NameReference> changedReferenceList = new ArrayList<NameReference>();
+		for (NameReference reference : referenceSet) {
+			checkedReferenceNumber++;
+			if (isChangedReferenceTree(reference)) changedReferenceList.add(reference);
+		}
+		List<NameReference> resolvedReferenceList = new ArrayList<NameReference>();
+		for (NameReference reference : changedReferenceList) {
+			if (isResolvedReferenceTree(reference)) resolvedReferenceList.add(reference);
+			resetReferenceTree(reference);
+			resetReferenceNumber++;
+		}
+		for (NameReference reference : resolvedReferenceList) reference.resolveBinding();
+		for (CompilationUnitScope unit : newUnitList) referenceIndex.addUnit(unit);
+
+		// 6. Create the type hierarchy index again, since the old one is out of date after the definitions are changed
+		table.getTypeHierarchyIndex();
+		referenceIndex.synchronize();
+	}
+
+	/**
+	 * Return the number of compilation unit scopes removed from the name table
+	 */
+	public int getRemovedUnitNumber() {
+		return removedUnitNumber;
+	}
+
+	/**
+	 * Return the number of source code files which are parsed and scanned again
+	 */
+	public int getScannedUnitNumber() {
+		return scannedUnitNumber;
+	}
+
+	/**
+	 * Return the number of unchanged compilation units whose import declarations are bound again
+	 */
+	public int getReboundUnitNumber() {
+		return reboundUnitNumber;
+	}
+
+	/**
+	 * Return the number of top-level references checked in the unchanged compilation units and imported types
+	 */
+	public int getCheckedReferenceNumber() {
+		return checkedReferenceNumber;
+	}
+
+	/**
+	 * Return the number of top-level references which are reset
+	 */
+	public int getResetReferenceNumber() {
+		return resetReferenceNumber;
+	}
+
+	/**
+	 * Collect the names of the definitions in a compilation unit which can be seen by other compilation units to the changed name set,
+	 * and if the unit is removed, collect all definitions to the removed definition set. The local variables and the parameters can not
+	 * be referred to out of their compilation unit, so their names are not changed names.
+	 */
+	private void collectDefinitions(CompilationUnitScope unit, boolean removed) {
+		NameDefinitionVisitor visitor = new NameDefinitionVisitor();
+		unit.accept(visitor);
+		List<NameDefinition> definitionList = visitor.getResult();
+
+		for (NameDefinition definition : definitionList) {
+			if (removed) removedDefinitionSet.add(definition);
+			NameDefinitionKind kind = definition.getDefinitionKind();
+			if (kind == NameDefinitionKind.NDK_TYPE || kind == NameDefinitionKind.NDK_FIELD || kind == NameDefinitionKind.NDK_METHOD ||
+					kind == NameDefinitionKind.NDK_ENUM_CONSTANT) addChangedName(definition.getSimpleName());
+
+			if (kind == NameDefinitionKind.NDK_TYPE) {
+				TypeDefinition type = (TypeDefinition)definition;
+				if (type.isDetailedType()) collectTypeParameters(((DetailedTypeDefinition)type).getTypeParameterList(), removed);
+				if (removed) addRemovedType(type);
+				else checkSuperTypeList(type);
+			}
+		}
+	}
+
+	private void collectTypeParameters(List<TypeParameterDefinition> typeParameterList, boolean removed) {
+		if (typeParameterList == null) return;
+		for (TypeParameterDefinition typeParameter : typeParameterList) {
+			if (removed) removedDefinitionSet.add(typeParameter);
+			addChangedName(typeParameter.getSimpleName());
+		}
+	}
+
+	private void addRemovedType(TypeDefinition type) {
+		List<TypeDefinition> removedTypeList = removedTypeMap.get(type.getFullQualifiedName());
+		if (removedTypeList == null) {
+			removedTypeList = new ArrayList<TypeDefinition>(1);
+			removedTypeMap.put(type.getFullQualifiedName(), removedTypeList);
+		}
+		removedTypeList.add(type);
+	}
+
+	/**
+	 * Compare the super type list of a new type with the one of the removed type with the same full qualified name, and collect the
+	 * names of the members of their super types if the list is changed or there is no such removed type
+	 */
+	private void checkSuperTypeList(TypeDefinition type) {
+		TypeDefinition removedType = null;
+		List<TypeDefinition> removedTypeList = removedTypeMap.get(type.getFullQualifiedName());
+		if (removedTypeList != null) {
+			removedType = removedTypeList.remove(0);
+			if (removedTypeList.isEmpty()) removedTypeMap.remove(type.getFullQualifiedName());
+		}
+		if (removedType != null && isSameSuperTypeList(removedType, type)) return;
+
+		if (removedType != null) collectSuperTypeMemberNames(removedType, false);
+		collectSuperTypeMemberNames(type, true);
+	}
+
+	/**
+	 * Test if the super types of a removed type and a new type have the same names, and the super types of the new type are bound to
+	 * the types with the same full qualified names as the resolved super types of the removed type
+	 */
+	private boolean isSameSuperTypeList(TypeDefinition removedType, TypeDefinition type) {
+		List<TypeReference> removedSuperList = removedType.getSuperList();
+		List<TypeReference> superList = type.getSuperList();
+		int removedSuperNumber = (removedSuperList == null) ? 0 : removedSuperList.size();
+		int superNumber = (superList == null) ? 0 : superList.size();
+		if (removedSuperNumber != superNumber) return false;
+
+		for (int index = 0; index < superNumber; index++) {
+			TypeReference removedSuperType = removedSuperList.get(index);
+			TypeReference superType = superList.get(index);
+			if (!removedSuperType.getName().equals(superType.getName())) return false;
+			if (!removedSuperType.isResolved()) continue;
+
+			if (!superType.isResolved()) superType.resolveBinding();
+			NameDefinition removedSuperDefinition = removedSuperType.getDefinition();
+			NameDefinition superDefinition = superType.getDefinition();
+			if (removedSuperDefinition == null || superDefinition == null) {
+				if (removedSuperDefinition != superDefinition) return false;
+			} else if (!removedSuperDefinition.getFullQualifiedName().equals(superDefinition.getFullQualifiedName())) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Collect the names of the members of all super types of the given type. For a removed type, we only use the super types which
+	 * have been resolved, and for a new type, we resolve its super types.
+	 */
+	private void collectSuperTypeMemberNames(TypeDefinition type, boolean resolve) {
+		List<TypeReference> superList = type.getSuperList();
+		if (superList == null) return;
+		for (TypeReference superType : superList) {
+			if (resolve && !superType.isResolved()) superType.resolveBinding();
+			NameDefinition superDefinition = superType.getDefinition();
+			if (superDefinition == null || superDefinition.getDefinitionKind() != NameDefinitionKind.NDK_TYPE) continue;
+
+			TypeDefinition superTypeDefinition = (TypeDefinition)superDefinition;
+			if (!visitedSuperTypeSet.add(superTypeDefinition)) continue;
+
+			List<FieldDefinition> fieldList = null;
+			List<MethodDefinition> methodList = null;
+			if (superTypeDefinition.isDetailedType()) {
+				fieldList = ((DetailedTypeDefinition)superTypeDefinition).getFieldList();
+				methodList = ((DetailedTypeDefinition)superTypeDefinition).getMethodList();
+			} else if (superTypeDefinition.isImportedType()) {
+				fieldList = ((ImportedTypeDefinition)superTypeDefinition).getFieldList();
+				methodList = ((ImportedTypeDefinition)superTypeDefinition).getMethodList();
+			}
+			if (fieldList != null) {
+				for (FieldDefinition field : fieldList) addChangedName(field.getSimpleName());
+			}
+			if (methodList != null) {
+				for (MethodDefinition method : methodList) addChangedName(method.getSimpleName());
+			}
+			collectSuperTypeMemberNames(superTypeDefinition, resolve);
+		}
+	}
+
+	/**
+	 * Add a name to the changed name set. For a qualified name, its last segment is also added.
+	 */
+	private void addChangedName(String name) {
+		if (name == null) return;
+		changedNameSet.add(name);
+		int dotIndex = name.lastIndexOf(NameReferenceLabel.NAME_QUALIFIER);
+		if (dotIndex >= 0) changedNameSet.add(name.substring(dotIndex + 1));
+	}
+
+	/**
+	 * Test if the binding of a reference tree may be changed by the update
+	 */
+	private boolean isChangedReferenceTree(NameReference reference) {
+		if (isChangedReference(reference)) return true;
+
+		NameDefinition definition = reference.getDefinition();
+		if (definition != null) {
+			// The reference may be bound through the declared type of its definition, e.g. the type of a variable or the return type of
+			// a method, so the reference is also changed if the declared type is changed
+			TypeReference declareType = null;
+			NameDefinitionKind kind = definition.getDefinitionKind();
+			if (kind == NameDefinitionKind.NDK_FIELD) declareType = ((FieldDefinition)definition).getType();
+			else if (kind == NameDefinitionKind.NDK_VARIABLE || kind == NameDefinitionKind.NDK_PARAMETER) declareType = ((VariableDefinition)definition).getType();
+			else if (kind == NameDefinitionKind.NDK_METHOD) declareType = ((MethodDefinition)definition).getReturnType();
+			if (declareType != null && isChangedTypeReferenceTree(declareType)) return true;
+		}
+
+		List<NameReference> subReferenceList = reference.getSubReferenceList();
+		if (subReferenceList != null) {
+			for (NameReference subReference : subReferenceList) {
+				if (isChangedReferenceTree(subReference)) return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isChangedTypeReferenceTree(NameReference reference) {
+		if (isChangedReference(reference)) return true;
+		List<NameReference> subReferenceList = reference.getSubReferenceList();
+		if (subReferenceList != null) {
+			for (NameReference subReference : subReferenceList) {
+				if (isChangedTypeReferenceTree(subReference)) return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Test if a single reference is bound to a removed definition, or has the name of a changed definition
+	 */
+	private boolean isChangedReference(NameReference reference) {
+		NameDefinition definition = reference.getDefinition();
+		if (definition != null && removedDefinitionSet.contains(definition)) return true;
+		if (reference instanceof MethodReference) {
+			List<MethodDefinition> alternativeList = ((MethodReference)reference).getAlternativeList();
+			if (alternativeList != null) {
+				for (MethodDefinition method : alternativeList) {
+					if (removedDefinitionSet.contains(method)) return true;
+				}
+			}
+		}
+
+		String name = reference.getName();
+		if (name == null) return false;
+		if (changedNameSet.contains(name)) return true;
+		int dotIndex = name.lastIndexOf(NameReferenceLabel.NAME_QUALIFIER);
+		if (dotIndex >= 0 && changedNameSet.contains(name.substring(dotIndex + 1))) return true;
+		return false;
+	}
+
+	private boolean isResolvedReferenceTree(NameReference reference) {
+		if (reference.isResolved()) return true;
+		List<NameReference> subReferenceList = reference.getSubReferenceList();
+		if (subReferenceList != null) {
+			for (NameReference subReference : subReferenceList) {
+				if (isResolvedReferenceTree(subReference)) return true;
+			}
+		}
+		return false;
+	}
+
+	private void resetReferenceTree(NameReference reference) {
+		reference.resetBinding();
+		List<NameReference> subReferenceList = reference.getSubReferenceList();
+		if (subReferenceList != null) {
+			for (NameReference subReference : subReferenceList) resetReferenceTree(subReference);
+		}
+	}
+}
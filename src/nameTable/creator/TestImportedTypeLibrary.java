@@ -0,0 +1,180 @@
+package nameTable.creator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import nameTable.nameDefinition.FieldDefinition;
+import nameTable.nameDefinition.ImportedTypeDefinition;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameDefinition.TypeParameterDefinition;
+import nameTable.nameDefinition.VariableDefinition;
+import nameTable.nameReference.IntersectionTypeReference;
+import nameTable.nameReference.NameReference;
+import nameTable.nameReference.NamedTypeReference;
+import nameTable.nameReference.ParameterizedTypeReference;
+import nameTable.nameReference.QualifiedTypeReference;
+import nameTable.nameReference.TypeReference;
+import nameTable.nameReference.UnionTypeReference;
+import nameTable.nameReference.WildcardTypeReference;
+import nameTable.nameScope.SystemScope;
+
+/**
+ * Test the library file of imported types (see ImportedTypeLibrary). The library is generated from the head files, and then the head
+ * files and the library are read into two system scopes. The imported types of the two scopes should have the same names, locations,
+ * super types, type parameters, fields, methods and member types, and the type references in them should have the same shapes (i.e.
+ * the classes, names, locations, dimensions, kinds, scopes and sub-references).
+ *
+ * @author Zhou Xiaocong
+ * @since 2017107
+ * @version 1.0
+ *
+ */
+public class TestImportedTypeLibrary {
+
+	public static void main(String[] args) {
+		String rootPath = "C:\\";
+
+		String libraryFileName = rootPath + "ZxcWork\\ToolKit\\data\\javalib.jlib";
+		String[] headFileArray = {rootPath + "ZxcWork\\ToolKit\\data\\javalang.txt", rootPath + "ZxcWork\\ToolKit\\data\\javautil.txt", rootPath + "ZxcWork\\ToolKit\\data\\javaio.txt", };
+		if (args.length > 1) {
+			libraryFileName = args[0];
+			headFileArray = new String[args.length - 1];
+			for (int index = 1; index < args.length; index++) headFileArray[index - 1] = args[index];
+		}
+
+		try {
+			testLibraryEquivalence(headFileArray, libraryFileName);
+		} catch (IOException exc) {
+			throw new AssertionError("Can not generate or load the library " + libraryFileName + ": " + exc.getMessage(), exc);
+		}
+	}
+
+	public static void testLibraryEquivalence(String[] headFileArray, String libraryFileName) throws IOException {
+		long start = System.currentTimeMillis();
+		ImportedTypeLibrary.generate(headFileArray, libraryFileName);
+		System.out.println("Generate the library: " + (System.currentTimeMillis() - start) + " ms");
+		if (!ImportedTypeLibrary.isUpToDate(libraryFileName, headFileArray)) {
+			throw new AssertionError("The library " + libraryFileName + " generated just now is not up to date with the head files!");
+		}
+
+		start = System.currentTimeMillis();
+		SystemScope headScope = new SystemScope();
+		for (String headFileName : headFileArray) ImportedTypeManager.readImportedTypesFromExternalFile(headScope, headFileName);
+		System.out.println("Read the head files: " + (System.currentTimeMillis() - start) + " ms");
+
+		start = System.currentTimeMillis();
+		SystemScope libraryScope = new SystemScope();
+		ImportedTypeLibrary.load(libraryScope, libraryFileName);
+		System.out.println("Load the library: " + (System.currentTimeMillis() - start) + " ms");
+
+		List<String> headLineList = describeImportedTypes(headScope);
+		List<String> libraryLineList = describeImportedTypes(libraryScope);
+		for (int index = 0; index < headLineList.size() && index < libraryLineList.size(); index++) {
+			if (!headLineList.get(index).equals(libraryLineList.get(index))) {
+				throw new AssertionError("The imported types are different: " + headLineList.get(index) + " != " + libraryLineList.get(index));
+			}
+		}
+		if (headLineList.size() != libraryLineList.size()) {
+			throw new AssertionError("The head files give " + headLineList.size() + " lines of the imported types, but the library gives " + libraryLineList.size() + " lines!");
+		}
+		int typeNumber = (headScope.getImportedTypeList() == null) ? 0 : headScope.getImportedTypeList().size();
+		System.out.println("Imported types: " + typeNumber + ", lines: " + headLineList.size() + ", the library is the same as the head files");
+	}
+
+	/**
+	 * Describe the imported types of the system scope line by line
+	 */
+	static List<String> describeImportedTypes(SystemScope systemScope) {
+		List<String> result = new ArrayList<String>();
+		List<ImportedTypeDefinition> typeList = systemScope.getImportedTypeList();
+		if (typeList == null) return result;
+		for (ImportedTypeDefinition type : typeList) describeType(result, "", type);
+		return result;
+	}
+
+	static void describeType(List<String> result, String indent, ImportedTypeDefinition type) {
+		result.add(indent + "type " + type.getUniqueId() + " " + type.getFullQualifiedName() + " end " + type.getScopeEnd() + " interface " + type.isInterface()
+				+ " member " + type.isPackageMember() + " in " + type.getScope().getScopeName());
+		describeTypeReferenceList(result, indent + " super ", type.getSuperList());
+		describeTypeParameterList(result, indent + " ", type.getTypeParameterList());
+
+		List<FieldDefinition> fieldList = type.getFieldList();
+		if (fieldList != null) {
+			for (FieldDefinition field : fieldList) {
+				result.add(indent + " field " + field.getUniqueId() + " " + field.getFullQualifiedName() + " modifier " + field.getModifierFlag());
+				describeTypeReference(result, indent + "  ", field.getType());
+			}
+		}
+
+		List<MethodDefinition> methodList = type.getMethodList();
+		if (methodList != null) {
+			for (MethodDefinition method : methodList) {
+				result.add(indent + " method " + method.getUniqueId() + " " + method.getFullQualifiedName() + " end " + method.getEndLocation() + " modifier " + method.getModifierFlag()
+						+ " constructor " + method.isConstructor() + " auto " + method.isAutoGenerated() + " " + method.getClass().getSimpleName());
+				describeTypeReference(result, indent + "  return ", method.getReturnType());
+				describeTypeParameterList(result, indent + "  ", method.getTypeParameterList());
+				List<VariableDefinition> parameterList = method.getParameterList();
+				if (parameterList != null) {
+					for (VariableDefinition parameter : parameterList) {
+						result.add(indent + "  parameter " + parameter.getUniqueId() + " " + parameter.getDefinitionKind());
+						describeTypeReference(result, indent + "   ", parameter.getType());
+					}
+				}
+				describeTypeReferenceList(result, indent + "  throws ", method.getThrowTypeList());
+			}
+		}
+
+		List<ImportedTypeDefinition> memberTypeList = type.getTypeList();
+		if (memberTypeList != null) {
+			for (ImportedTypeDefinition memberType : memberTypeList) describeType(result, indent + "  ", memberType);
+		}
+	}
+
+	static void describeTypeParameterList(List<String> result, String indent, List<TypeParameterDefinition> typeParameterList) {
+		if (typeParameterList == null) return;
+		for (TypeParameterDefinition typeParameter : typeParameterList) {
+			result.add(indent + "type parameter " + typeParameter.getUniqueId() + " in " + typeParameter.getScope().getScopeName());
+		}
+	}
+
+	static void describeTypeReferenceList(List<String> result, String indent, List<TypeReference> referenceList) {
+		if (referenceList == null) return;
+		for (TypeReference reference : referenceList) describeTypeReference(result, indent, reference);
+	}
+
+	/**
+	 * Describe the shape of a type reference, i.e. its class, name, location, dimension, kind and scope, and its sub-references
+	 */
+	static void describeTypeReference(List<String> result, String indent, TypeReference reference) {
+		if (reference == null) {
+			result.add(indent + "null");
+			return;
+		}
+		result.add(indent + reference.getClass().getSimpleName() + " " + reference.getName() + " at " + reference.getLocation() + " dimension " + reference.getDimension()
+				+ " " + reference.getTypeKind() + " in " + (reference.getScope() == null ? "null" : reference.getScope().getScopeName()));
+		if (reference instanceof QualifiedTypeReference) {
+			QualifiedTypeReference qualifiedReference = (QualifiedTypeReference)reference;
+			result.add(indent + " full name " + qualifiedReference.getFullQualifiedName());
+			describeTypeReference(result, indent + " qualifier ", qualifiedReference.getQualifier());
+		} else if (reference instanceof NamedTypeReference) {
+			NamedTypeReference namedReference = (NamedTypeReference)reference;
+			result.add(indent + " full name " + namedReference.getFullQualifiedName());
+			NameReference qualifier = namedReference.getQualifier();
+			if (qualifier == null || qualifier.isTypeReference()) describeTypeReference(result, indent + " qualifier ", (TypeReference)qualifier);
+			else result.add(indent + " qualifier " + qualifier.getName());
+		} else if (reference instanceof ParameterizedTypeReference) {
+			ParameterizedTypeReference parameterizedReference = (ParameterizedTypeReference)reference;
+			describeTypeReference(result, indent + " primary ", parameterizedReference.getPrimaryType());
+			describeTypeReferenceList(result, indent + " argument ", parameterizedReference.getArgumentList());
+		} else if (reference instanceof WildcardTypeReference) {
+			WildcardTypeReference wildcardReference = (WildcardTypeReference)reference;
+			result.add(indent + " upper bound " + wildcardReference.isUpperBound());
+			describeTypeReference(result, indent + " bound ", wildcardReference.getBound());
+		} else if (reference instanceof IntersectionTypeReference) {
+			describeTypeReferenceList(result, indent + " type ", ((IntersectionTypeReference)reference).getTypeList());
+		} else if (reference instanceof UnionTypeReference) {
+			describeTypeReferenceList(result, indent + " type ", ((UnionTypeReference)reference).getTypeList());
+		}
+	}
+}
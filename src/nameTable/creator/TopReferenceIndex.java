@@ -0,0 +1,249 @@
+package nameTable.creator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import nameTable.nameDefinition.DetailedTypeDefinition;
+import nameTable.nameDefinition.EnumConstantDefinition;
+import nameTable.nameDefinition.FieldDefinition;
+import nameTable.nameDefinition.ImportedTypeDefinition;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.NameDefinitionKind;
+import nameTable.nameDefinition.TypeDefinition;
+import nameTable.nameDefinition.TypeParameterDefinition;
+import nameTable.nameDefinition.VariableDefinition;
+import nameTable.nameReference.NameReference;
+import nameTable.nameReference.NameReferenceLabel;
+import nameTable.nameReference.TypeReference;
+import nameTable.nameScope.CompilationUnitScope;
+import nameTable.nameScope.SystemScope;
+import nameTable.visitor.NameDefinitionVisitor;
+import nameTable.visitor.NameReferenceVisitor;
+
+/**
+ * An index of the top-level references of the compilation units and imported types in a system scope, i.e. the references stored
+ * in scopes or held by definitions (the types of fields and variables, the return types of methods, the super types, the initializers
+ * of fields and the arguments of enum constants). A reference tree is indexed by the names of all references in the tree and the last
+ * segments of the qualified names, so NameTableUpdater only visits the references with the changed names rather than all references
+ * of the system. A declared type (i.e. the type of a field or a variable, or the return type of a method) is also mapped to its
+ * definition, since the references bound to the definition may be changed when the declared type is changed.
+ * <p>The index is created in a single pass when the table is updated firstly. After that, NameTableUpdater removes the references
+ * of the removed compilation units, adds the references of the new compilation units and imported types, and then records the
+ * modification count of the system scope. Like NameDefinitionIndex, NameTableManager creates it again if the system scope has been
+ * changed by others.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017107
+ * @version 1.0
+ *
+ */
+public class TopReferenceIndex {
+	private SystemScope systemScope = null;
+	private int modificationCount = 0;
+
+	private Map<String, Set<NameReference>> nameReferenceMap = new HashMap<String, Set<NameReference>>();
+	private Map<CompilationUnitScope, List<NameReference>> unitReferenceMap = new IdentityHashMap<CompilationUnitScope, List<NameReference>>();
+	private Set<ImportedTypeDefinition> importedTypeSet = Collections.newSetFromMap(new IdentityHashMap<ImportedTypeDefinition, Boolean>());
+	private Map<NameReference, NameDefinition> declaredTypeMap = new IdentityHashMap<NameReference, NameDefinition>();
+	private int referenceNumber = 0;
+
+	public TopReferenceIndex(SystemScope systemScope, List<CompilationUnitScope> unitList) {
+		this.systemScope = systemScope;
+		this.modificationCount = systemScope.getModificationCount();
+
+		if (unitList != null) {
+			for (CompilationUnitScope unit : unitList) addUnit(unit);
+		}
+		addImportedTypes(systemScope.getImportedTypeList());
+	}
+
+	/**
+	 * Test if the index is still consistent with the given system scope, i.e. it is created from the scope, and the definitions of
+	 * the scope have not been changed after the index is created or updated.
+	 */
+	public boolean isCreatedFrom(SystemScope systemScope) {
+		return this.systemScope == systemScope && modificationCount == systemScope.getModificationCount();
+	}
+
+	/**
+	 * Return the number of the reference trees in the index
+	 */
+	public int getReferenceNumber() {
+		return referenceNumber;
+	}
+
+	/**
+	 * Record the modification count of the system scope after the index has been updated with the changes of the scope
+	 */
+	void synchronize() {
+		modificationCount = systemScope.getModificationCount();
+	}
+
+	/**
+	 * Add the reference trees which have a reference with the given name (or the given last segment of a qualified name) to the result
+	 */
+	void collectReferences(String name, Set<NameReference> result) {
+		Set<NameReference> referenceSet = nameReferenceMap.get(name);
+		if (referenceSet != null) result.addAll(referenceSet);
+	}
+
+	/**
+	 * Return the definition whose declared type is the given reference, or null if the reference is not a declared type
+	 */
+	NameDefinition getDefinitionOfDeclaredType(NameReference reference) {
+		return declaredTypeMap.get(reference);
+	}
+
+	/**
+	 * Index the top-level references of a compilation unit
+	 */
+	void addUnit(CompilationUnitScope unit) {
+		List<NameReference> referenceList = new ArrayList<NameReference>();
+		Set<NameReference> referenceSet = Collections.newSetFromMap(new IdentityHashMap<NameReference, Boolean>());
+
+		NameReferenceVisitor referenceVisitor = new NameReferenceVisitor();
+		unit.accept(referenceVisitor);
+		for (NameReference reference : referenceVisitor.getResult()) addTopReference(reference, null, referenceList, referenceSet);
+		List<NameReference> staticImportList = unit.getImportedStaticMemberList();
+		if (staticImportList != null) {
+			for (NameReference reference : staticImportList) addTopReference(reference, null, referenceList, referenceSet);
+		}
+
+		NameDefinitionVisitor definitionVisitor = new NameDefinitionVisitor();
+		unit.accept(definitionVisitor);
+		for (NameDefinition definition : definitionVisitor.getResult()) addDefinitionReferences(definition, referenceList, referenceSet);
+		unitReferenceMap.put(unit, referenceList);
+	}
+
+	/**
+	 * Remove the top-level references of a compilation unit from the index
+	 */
+	void removeUnit(CompilationUnitScope unit) {
+		List<NameReference> referenceList = unitReferenceMap.remove(unit);
+		if (referenceList == null) return;
+		for (NameReference reference : referenceList) {
+			for (String name : getReferenceNames(reference)) {
+				Set<NameReference> referenceSet = nameReferenceMap.get(name);
+				if (referenceSet == null) continue;
+				referenceSet.remove(reference);
+				if (referenceSet.isEmpty()) nameReferenceMap.remove(name);
+			}
+			declaredTypeMap.remove(reference);
+			referenceNumber--;
+		}
+	}
+
+	/**
+	 * Index the references held by the imported types which have not been indexed
+	 */
+	void addImportedTypes(List<ImportedTypeDefinition> importedTypeList) {
+		if (importedTypeList == null) return;
+		List<NameReference> referenceList = new ArrayList<NameReference>();
+		Set<NameReference> referenceSet = Collections.newSetFromMap(new IdentityHashMap<NameReference, Boolean>());
+		for (ImportedTypeDefinition importedType : importedTypeList) {
+			if (importedTypeSet.add(importedType)) addImportedTypeReferences(importedType, referenceList, referenceSet);
+		}
+	}
+
+	private void addImportedTypeReferences(ImportedTypeDefinition type, List<NameReference> referenceList, Set<NameReference> referenceSet) {
+		addDefinitionReferences(type, referenceList, referenceSet);
+		List<FieldDefinition> fieldList = type.getFieldList();
+		if (fieldList != null) {
+			for (FieldDefinition field : fieldList) addDefinitionReferences(field, referenceList, referenceSet);
+		}
+		List<MethodDefinition> methodList = type.getMethodList();
+		if (methodList != null) {
+			for (MethodDefinition method : methodList) {
+				addDefinitionReferences(method, referenceList, referenceSet);
+				List<VariableDefinition> parameterList = method.getParameterList();
+				if (parameterList == null) continue;
+				for (VariableDefinition parameter : parameterList) addDefinitionReferences(parameter, referenceList, referenceSet);
+			}
+		}
+		List<ImportedTypeDefinition> typeList = type.getTypeList();
+		if (typeList != null) {
+			for (ImportedTypeDefinition memberType : typeList) addImportedTypeReferences(memberType, referenceList, referenceSet);
+		}
+	}
+
+	private void addDefinitionReferences(NameDefinition definition, List<NameReference> referenceList, Set<NameReference> referenceSet) {
+		NameDefinitionKind kind = definition.getDefinitionKind();
+		if (kind == NameDefinitionKind.NDK_FIELD) {
+			FieldDefinition field = (FieldDefinition)definition;
+			addTopReference(field.getType(), field, referenceList, referenceSet);
+			addTopReference(field.getInitializer(), null, referenceList, referenceSet);
+		} else if (kind == NameDefinitionKind.NDK_VARIABLE || kind == NameDefinitionKind.NDK_PARAMETER) {
+			addTopReference(((VariableDefinition)definition).getType(), definition, referenceList, referenceSet);
+		} else if (kind == NameDefinitionKind.NDK_METHOD) {
+			MethodDefinition method = (MethodDefinition)definition;
+			addTopReference(method.getReturnType(), method, referenceList, referenceSet);
+			List<TypeReference> throwTypeList = method.getThrowTypeList();
+			if (throwTypeList != null) {
+				for (TypeReference throwType : throwTypeList) addTopReference(throwType, null, referenceList, referenceSet);
+			}
+		} else if (kind == NameDefinitionKind.NDK_ENUM_CONSTANT) {
+			List<NameReference> argumentList = ((EnumConstantDefinition)definition).getArgumentList();
+			if (argumentList != null) {
+				for (NameReference argument : argumentList) addTopReference(argument, null, referenceList, referenceSet);
+			}
+		} else if (kind == NameDefinitionKind.NDK_TYPE) {
+			TypeDefinition type = (TypeDefinition)definition;
+			List<TypeReference> superList = type.getSuperList();
+			if (superList != null) {
+				for (TypeReference superType : superList) addTopReference(superType, null, referenceList, referenceSet);
+			}
+			List<TypeParameterDefinition> typeParameterList = null;
+			if (type.isDetailedType()) typeParameterList = ((DetailedTypeDefinition)type).getTypeParameterList();
+			else if (type.isImportedType()) typeParameterList = ((ImportedTypeDefinition)type).getTypeParameterList();
+			if (typeParameterList != null) {
+				for (TypeParameterDefinition typeParameter : typeParameterList) addDefinitionReferences(typeParameter, referenceList, referenceSet);
+			}
+		}
+	}
+
+	private void addTopReference(NameReference reference, NameDefinition declaringDefinition, List<NameReference> referenceList, Set<NameReference> referenceSet) {
+		if (reference == null) return;
+		// A declared type may also be stored in its scope, so it may have been indexed without its definition
+		if (declaringDefinition != null) declaredTypeMap.put(reference, declaringDefinition);
+		if (!referenceSet.add(reference)) return;
+		referenceList.add(reference);
+		for (String name : getReferenceNames(reference)) {
+			Set<NameReference> sameNameSet = nameReferenceMap.get(name);
+			if (sameNameSet == null) {
+				sameNameSet = Collections.newSetFromMap(new IdentityHashMap<NameReference, Boolean>());
+				nameReferenceMap.put(name, sameNameSet);
+			}
+			sameNameSet.add(reference);
+		}
+		referenceNumber++;
+	}
+
+	/**
+	 * Return the names of all references in a reference tree, including the last segments of the qualified names
+	 */
+	private Set<String> getReferenceNames(NameReference reference) {
+		Set<String> result = new HashSet<String>();
+		collectReferenceNames(reference, result);
+		return result;
+	}
+
+	private void collectReferenceNames(NameReference reference, Set<String> result) {
+		String name = reference.getName();
+		if (name != null) {
+			result.add(name);
+			int dotIndex = name.lastIndexOf(NameReferenceLabel.NAME_QUALIFIER);
+			if (dotIndex >= 0) result.add(name.substring(dotIndex + 1));
+		}
+		List<NameReference> subReferenceList = reference.getSubReferenceList();
+		if (subReferenceList != null) {
+			for (NameReference subReference : subReferenceList) collectReferenceNames(subReference, result);
+		}
+	}
+}
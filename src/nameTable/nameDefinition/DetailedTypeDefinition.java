@@ -25,6 +25,11 @@ import sourceCodeAST.SourceCodeLocation;
  * 
  * @update 2016/11/5
  * 		Refactor the class according to the design document
+ * 
+ * @update 2017/10/02
+ * 		Find the candidates of a reference in the hash tables of the members (see MemberDefinitionTable) in resolve()
+ * @update 2017/10/07
+ * 		Keep the hash tables in a MemberDefinitionTable.Holder, and drop them after (not before) a member is defined
  */
 public class DetailedTypeDefinition extends TypeDefinition implements NameScope {
 	private List<FieldDefinition> fieldList = null;			// The fields of the type
@@ -39,6 +44,9 @@ public class DetailedTypeDefinition extends TypeDefinition implements NameScope
 	private int modifier = 0; 									// The modifier flag of the detailed type
 															// The first super type must be the super class of the type
 	private List<NameReference> referenceList = null;
+
+	// The hash tables of the members, which are created when they are used at the first time, and are not saved in a snapshot
+	private final transient MemberDefinitionTable.Holder memberTable = new MemberDefinitionTable.Holder();
 	
 	public DetailedTypeDefinition(String simpleName, String fullQualifiedName, SourceCodeLocation location, NameScope scope, SourceCodeLocation endLocation) {
 		super(simpleName, fullQualifiedName, location, scope);
@@ -90,6 +98,7 @@ public class DetailedTypeDefinition extends TypeDefinition implements NameScope
 		default:
 			throw new IllegalNameDefinition("The kind of name definition in a type have to be NDK_TYPE, NDK_METHOD or NDK_FIELD!");
 		}
+		resetMemberTable();
 	}
 
 	/* (non-Javadoc)
@@ -149,15 +158,17 @@ public class DetailedTypeDefinition extends TypeDefinition implements NameScope
 	public boolean resolve(NameReference reference) {
 		NameReferenceKind refKind = reference.getReferenceKind();
 		if (refKind == NameReferenceKind.NRK_FIELD || refKind == NameReferenceKind.NRK_VARIABLE) {
-			if (fieldList != null) {
-				for (FieldDefinition field : fieldList) {
-					if (field.match(reference)) return true;
-				}
+			List<FieldDefinition> candidateList = getMemberTable().getFieldCandidates(reference.getName());
+			for (FieldDefinition field : candidateList) {
+				if (field.match(reference)) return true;
 			}
 		} else if (refKind == NameReferenceKind.NRK_METHOD) {
 			if (methodList != null) {
 				MethodReference methodRef = (MethodReference)reference;
-				for (MethodDefinition method : methodList) {
+				// Only the methods with the same name and the same number of parameters as the reference may match it
+				List<NameReference> argumentList = methodRef.getArgumentList();
+				List<MethodDefinition> candidateList = getMemberTable().getMethodCandidates(reference.getName(), (argumentList == null) ? 0 : argumentList.size());
+				for (MethodDefinition method : candidateList) {
 					if (method.matchMethod(methodRef)) {
 						methodRef.addAlternative(method);
 						
@@ -180,10 +191,9 @@ public class DetailedTypeDefinition extends TypeDefinition implements NameScope
 			}
 		} else if (refKind == NameReferenceKind.NRK_TYPE) {
 			if (this.match(reference)) return true;
-			if (typeList != null) {
-				for (TypeDefinition type : typeList) {
-					if (type.match(reference)) return true;
-				}
+			List<TypeDefinition> candidateList = getMemberTable().getTypeCandidates(reference.getName());
+			for (TypeDefinition type : candidateList) {
+				if (type.match(reference)) return true;
 			}
 			if (reference.isTypeReference()) {
 				if (typeParameterList != null) {
@@ -218,6 +228,20 @@ public class DetailedTypeDefinition extends TypeDefinition implements NameScope
 		return false;
 	}
 
+	/**
+	 * Return the hash tables of the members, and create them if they have not been created or a member is defined after they are created
+	 */
+	private MemberDefinitionTable getMemberTable() {
+		return memberTable.get(fieldList, methodList, typeList);
+	}
+
+	/**
+	 * Drop the hash tables of the members, which should be called after a member is defined or the parameters of a method are changed
+	 */
+	void resetMemberTable() {
+		memberTable.reset();
+	}
+
 	/**
 	 * Get the list of fields defined in this type
 	 */
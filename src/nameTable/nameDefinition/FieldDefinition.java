@@ -23,6 +23,12 @@ import sourceCodeAST.SourceCodeLocation;
  * 
  * @update 2015/11/5
  * 		Refactor the class according to the design document
+ * 
+ * @update 2017/09/24
+ * 		Do not reset the type reference if the type parameter is frozen
+ * 
+ * @update 2017/10/05
+ * 		Add getModifierFlag(), so the field of an imported type can be written to a library file (see ImportedTypeLibrary)
  */
 public class FieldDefinition extends NameDefinition {
 	private TypeReference type = null;			// The type of the field
@@ -92,7 +98,7 @@ public class FieldDefinition extends NameDefinition {
 		if (type != null) {
 			for (TypeParameterDefinition typeParameter : typeParameterList) {
 				if (type.getName().equals(typeParameter.getSimpleName())) {
-					type.resetBinding();
+					if (!typeParameter.isFrozen()) type.resetBinding();
 					return;
 				}
 			}
@@ -142,6 +148,13 @@ public class FieldDefinition extends NameDefinition {
 		this.modifier = flag;
 	}
 	
+	/**
+	 * Get the modifier flag 
+	 */
+	public int getModifierFlag() {
+		return modifier;
+	}
+	
 	/**
 	 * Test if the class is public according to the modifier flag
 	 */
@@ -0,0 +1,129 @@
+package nameTable.nameDefinition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nameTable.nameReference.NameReferenceLabel;
+
+/**
+ * The hash tables of the member definitions (i.e. fields, methods and member types) of a type or the types of a package, which
+ * are used to find the candidates of a name reference instead of matching the reference with all members one by one.
+ * <p>A definition is put into the table by its simple name, and also by its full qualified name if the name is qualified, since
+ * NameDefinition.match() matches a qualified reference name with the full qualified name and other names with the simple name.
+ * The methods are grouped by their names and the number of their parameters, so only the methods which may match a method reference
+ * (see MethodDefinition.matchMethod()) are returned. The candidates in a list are in the order of the original member list, so
+ * the result of resolving a reference by the table is the same as by the member list.
+ * <p>A table can not be changed after it is created, and the owner should create it again after a new member is defined. A type
+ * keeps its table in a Holder, which creates the table when it is used at the first time and drops it when it is reset.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017102
+ * @version 1.0
+ * @update 2017/10/07
+ * 		Add Holder, which is shared by DetailedTypeDefinition and ImportedTypeDefinition to create and drop their tables
+ *
+ */
+public class MemberDefinitionTable {
+	private Map<String, List<FieldDefinition>> fieldMap = null;
+	private Map<String, List<MethodDefinition>> methodMap = null;
+	private Map<String, List<TypeDefinition>> typeMap = null;
+
+	/**
+	 * @param fieldList, methodList, typeList : the lists of the members, which can be null
+	 */
+	public MemberDefinitionTable(List<? extends FieldDefinition> fieldList, List<? extends MethodDefinition> methodList, List<? extends TypeDefinition> typeList) {
+		if (fieldList != null) {
+			fieldMap = new HashMap<String, List<FieldDefinition>>();
+			for (FieldDefinition field : fieldList) {
+				if (field.simpleName != null) put(fieldMap, field.simpleName, field);
+				if (isQualifiedName(field.fullQualifiedName)) put(fieldMap, field.fullQualifiedName, field);
+			}
+		}
+		if (methodList != null) {
+			methodMap = new HashMap<String, List<MethodDefinition>>();
+			for (MethodDefinition method : methodList) {
+				List<VariableDefinition> parameterList = method.getParameterList();
+				int parameterNumber = (parameterList == null) ? 0 : parameterList.size();
+				if (method.simpleName != null) put(methodMap, getMethodKey(method.simpleName, parameterNumber), method);
+				if (isQualifiedName(method.fullQualifiedName)) put(methodMap, getMethodKey(method.fullQualifiedName, parameterNumber), method);
+			}
+		}
+		if (typeList != null) {
+			typeMap = new HashMap<String, List<TypeDefinition>>();
+			for (TypeDefinition type : typeList) {
+				if (type.simpleName != null) put(typeMap, type.simpleName, type);
+				if (isQualifiedName(type.fullQualifiedName)) put(typeMap, type.fullQualifiedName, type);
+			}
+		}
+	}
+
+	/**
+	 * Return the fields which may match the reference name, or an empty list if there is no such field
+	 */
+	public List<FieldDefinition> getFieldCandidates(String referenceName) {
+		if (fieldMap == null || referenceName == null) return Collections.emptyList();
+		return emptyIfNull(fieldMap.get(referenceName));
+	}
+
+	/**
+	 * Return the methods which have the given name and the given number of parameters, or an empty list if there is no such method
+	 */
+	public List<MethodDefinition> getMethodCandidates(String referenceName, int argumentNumber) {
+		if (methodMap == null || referenceName == null) return Collections.emptyList();
+		return emptyIfNull(methodMap.get(getMethodKey(referenceName, argumentNumber)));
+	}
+
+	/**
+	 * Return the types which may match the reference name, or an empty list if there is no such type
+	 */
+	public List<TypeDefinition> getTypeCandidates(String referenceName) {
+		if (typeMap == null || referenceName == null) return Collections.emptyList();
+		return emptyIfNull(typeMap.get(referenceName));
+	}
+
+	private static boolean isQualifiedName(String name) {
+		return name != null && name.contains(NameReferenceLabel.NAME_QUALIFIER);
+	}
+
+	private static <T> List<T> emptyIfNull(List<T> list) {
+		if (list == null) return Collections.emptyList();
+		return list;
+	}
+
+	private static String getMethodKey(String name, int parameterNumber) {
+		return name + "/" + parameterNumber;
+	}
+
+	/**
+	 * The lazily created table of the members of a type. The owner should call reset() after the member lists are changed (not
+	 * before), so a table created from the old lists is never kept.
+	 */
+	static class Holder {
+		private volatile MemberDefinitionTable table = null;
+
+		MemberDefinitionTable get(List<? extends FieldDefinition> fieldList, List<? extends MethodDefinition> methodList, List<? extends TypeDefinition> typeList) {
+			MemberDefinitionTable result = table;
+			if (result == null) {
+				result = new MemberDefinitionTable(fieldList, methodList, typeList);
+				table = result;
+			}
+			return result;
+		}
+
+		void reset() {
+			table = null;
+		}
+	}
+
+	private static <T> void put(Map<String, List<T>> map, String key, T definition) {
+		List<T> list = map.get(key);
+		if (list == null) {
+			list = new ArrayList<T>(2);
+			map.put(key, list);
+		}
+		list.add(definition);
+	}
+}
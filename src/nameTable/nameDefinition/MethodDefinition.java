@@ -32,6 +32,15 @@ import sourceCodeAST.SourceCodeLocation;
  * 
  * @update 2016/11/5
  * 		Refactor the class according to the design document
+ * 
+ * @update 2017/09/24
+ * 		Add getTypeParameterList(), and do not reset the return type reference if the type parameter is frozen
+ * 
+ * @update 2017/10/02
+ * 		Reset the hash tables of the members of the enclosing type after a parameter is defined, since the methods are grouped by the number of parameters
+ * 
+ * @update 2017/10/05
+ * 		Add getModifierFlag(), so the method of an imported type can be written to a library file (see ImportedTypeLibrary)
  */
 public class MethodDefinition extends NameDefinition implements NameScope {
 	private TypeReference returnType = null;				// The return type of the method
@@ -72,6 +81,8 @@ public class MethodDefinition extends NameDefinition implements NameScope {
 		if (nameDef.getDefinitionKind() == NameDefinitionKind.NDK_PARAMETER) {
 			if (parameterList == null) parameterList = new ArrayList<VariableDefinition>();
 			parameterList.add((VariableDefinition)nameDef);
+			if (scope instanceof DetailedTypeDefinition) ((DetailedTypeDefinition)scope).resetMemberTable();
+			else if (scope instanceof ImportedTypeDefinition) ((ImportedTypeDefinition)scope).resetMemberTable();
 		} else if (nameDef.getDefinitionKind() == NameDefinitionKind.NDK_TYPE_PARAMETER) {
 			if (typeParameterList == null) typeParameterList = new ArrayList<TypeParameterDefinition>();
 			typeParameterList.add((TypeParameterDefinition) nameDef);
@@ -194,6 +205,13 @@ public class MethodDefinition extends NameDefinition implements NameScope {
 		this.returnType = returnType;
 	}
 
+	/**
+	 * Return the type parameters of a generic method, or null if the method is not generic
+	 */
+	public List<TypeParameterDefinition> getTypeParameterList() {
+		return typeParameterList;
+	}
+
 	/**
 	 * @return the parameters
 	 */
@@ -208,7 +226,7 @@ public class MethodDefinition extends NameDefinition implements NameScope {
 		if (returnType != null) {
 			for (TypeParameterDefinition typeParameter : typeParameterList) {
 				if (returnType.getName().equals(typeParameter.getSimpleName())) {
-					returnType.resetBinding();
+					if (!typeParameter.isFrozen()) returnType.resetBinding();
 					return;
 				}
 			}
@@ -431,6 +449,13 @@ public class MethodDefinition extends NameDefinition implements NameScope {
 		this.modifier = flag;
 	}
 	
+	/**
+	 * Get the modifier flag 
+	 */
+	public int getModifierFlag() {
+		return modifier;
+	}
+	
 	/**
 	 * Test if the class is public according to the modifier flag
 	 */
@@ -18,6 +18,12 @@ import nameTable.visitor.NameTableVisitor;
  * 
  * @update 2015/11/5
  * 		Refactor the class according to the design document
+ * 
+ * @update 2017/09/17
+ * 		Add removeCompilationUnitScope() for incremental update of the name table.
+ * 
+ * @update 2017/10/02
+ * 		Match a reference with the types of the package by a hash table of the types (see MemberDefinitionTable)
  */
 public class PackageDefinition extends NameDefinition implements NameScope {
 	private static final String UNNAMED_PACKAGE_NAME = "<UnnamedPckage>";	// The name of the unnamed package
@@ -25,6 +31,7 @@ public class PackageDefinition extends NameDefinition implements NameScope {
 	
 	private List<NameReference> referenceList = null;			// The references defined in the package directly
 															// Generally, it should be null!
+	private transient volatile MemberDefinitionTable typeTable = null;	// The hash table of the types of all compilation units in the package, which is not saved in a snapshot
 	/**
 	 * Constructor for unnamed package
 	 */
@@ -73,17 +80,7 @@ public class PackageDefinition extends NameDefinition implements NameScope {
 	public boolean resolve(NameReference reference) {
 		// In package definition, we match the name reference to the type defined in the package, i.e. 
 		// the package member type definition. 
-		if (unitList != null) {
-			for (CompilationUnitScope unit : unitList) {
-				List<TypeDefinition> types = unit.getTypeList();
-				
-				if (types != null) {
-					for (TypeDefinition type : types) {
-						if (type.match(reference)) return true;
-					}
-				}
-			}
-		}
+		if (matchTypeWithReference(reference)) return true;
 		return getEnclosingScope().resolve(reference);
 	}
 
@@ -92,12 +89,37 @@ public class PackageDefinition extends NameDefinition implements NameScope {
 	 */
 	public boolean matchTypeWithReference(NameReference reference) {
 		if (unitList == null) return false;
-		for (CompilationUnitScope unit : unitList) {
-			if (unit.match(reference)) return true;
+		for (TypeDefinition type : getTypeTable().getTypeCandidates(reference.getName())) {
+			if (type.match(reference)) return true;
 		}
 		return false;
 	}
 	
+	/**
+	 * Return the hash table of the types of all compilation units in the package, and create it if it has not been created or the
+	 * types of the package are changed after it is created
+	 */
+	private MemberDefinitionTable getTypeTable() {
+		MemberDefinitionTable table = typeTable;
+		if (table == null) {
+			List<TypeDefinition> typeList = new ArrayList<TypeDefinition>();
+			for (CompilationUnitScope unit : unitList) {
+				List<TypeDefinition> types = unit.getTypeList();
+				if (types != null) typeList.addAll(types);
+			}
+			table = new MemberDefinitionTable(null, null, typeList);
+			typeTable = table;
+		}
+		return table;
+	}
+	
+	/**
+	 * Drop the hash table of the types of the package, which should be called after a type is defined in a compilation unit of the package
+	 */
+	public void resetTypeTable() {
+		typeTable = null;
+	}
+	
 	/**
 	 * Return the compilation unit scope defined in the package
 	 */
@@ -129,6 +151,16 @@ public class PackageDefinition extends NameDefinition implements NameScope {
 	public void addCompilationUnitScope(CompilationUnitScope compUnit) {
 		if (unitList == null) unitList = new ArrayList<CompilationUnitScope>();
 		unitList.add(compUnit);
+		typeTable = null;
+	}
+	
+	/**
+	 * Remove a compilation unit scope from the package. Return false if the unit is not in the package.
+	 */
+	public boolean removeCompilationUnitScope(CompilationUnitScope compUnit) {
+		if (unitList == null) return false;
+		typeTable = null;
+		return unitList.remove(compUnit);
 	}
 	
 	/**
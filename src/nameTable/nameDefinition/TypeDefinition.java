@@ -6,7 +6,9 @@ import nameTable.nameReference.NameReference;
 import nameTable.nameReference.NameReferenceLabel;
 import nameTable.nameReference.TypeReference;
 import nameTable.nameScope.NameScope;
+import nameTable.nameScope.NameScopeKind;
 import nameTable.nameScope.SystemScope;
+import nameTable.nameScope.TypeHierarchyIndex;
 import sourceCodeAST.SourceCodeLocation;
 
 /**
@@ -21,8 +23,27 @@ import sourceCodeAST.SourceCodeLocation;
  * 
  * @update 2015/11/5
  * 		Refactor the class according to the design document
+ * 
+ * @update 2017/10/01
+ * 		Test the sub-type relation by the type hierarchy index of the system scope (see TypeHierarchyIndex) if it has been created
  */
 public abstract class TypeDefinition extends NameDefinition {
+	private static final String[][] subtypeRelations = {
+			{NameReferenceLabel.TYPE_BYTE, NameReferenceLabel.TYPE_SHORT},
+			{NameReferenceLabel.TYPE_BYTE, NameReferenceLabel.TYPE_INT},
+			{NameReferenceLabel.TYPE_BYTE, NameReferenceLabel.TYPE_LONG},
+			{NameReferenceLabel.TYPE_BYTE, NameReferenceLabel.TYPE_FLOAT},
+			{NameReferenceLabel.TYPE_BYTE, NameReferenceLabel.TYPE_DOUBLE},
+			{NameReferenceLabel.TYPE_SHORT, NameReferenceLabel.TYPE_INT},
+			{NameReferenceLabel.TYPE_SHORT, NameReferenceLabel.TYPE_LONG},
+			{NameReferenceLabel.TYPE_SHORT, NameReferenceLabel.TYPE_FLOAT},
+			{NameReferenceLabel.TYPE_SHORT, NameReferenceLabel.TYPE_DOUBLE},
+			{NameReferenceLabel.TYPE_INT, NameReferenceLabel.TYPE_LONG},
+			{NameReferenceLabel.TYPE_INT, NameReferenceLabel.TYPE_FLOAT},
+			{NameReferenceLabel.TYPE_INT, NameReferenceLabel.TYPE_DOUBLE},
+			{NameReferenceLabel.TYPE_FLOAT, NameReferenceLabel.TYPE_DOUBLE},
+	};
+
 	protected boolean isInterface = false;
 	protected boolean isPackageMember = true;
 
@@ -113,6 +134,8 @@ public abstract class TypeDefinition extends NameDefinition {
 	 */
 	public boolean isSubtypeOf(TypeDefinition parent) {
 		if (this == parent) return true;
+		TypeHierarchyIndex index = getTypeHierarchyIndex();
+		if (index != null && index.contains(this)) return index.isSubtypeOf(this, parent);
 
 		List<TypeReference> superList = getSuperList();
 		if (superList != null) {
@@ -137,6 +160,16 @@ public abstract class TypeDefinition extends NameDefinition {
 	}
 	
 	
+	/**
+	 * Return the type hierarchy index of the system scope of the type, or null if it has not been created or it is out of date
+	 */
+	private TypeHierarchyIndex getTypeHierarchyIndex() {
+		NameScope currentScope = scope;
+		while (currentScope != null && currentScope.getEnclosingScope() != null) currentScope = currentScope.getEnclosingScope();
+		if (currentScope == null || currentScope.getScopeKind() != NameScopeKind.NSK_SYSTEM) return null;
+		return ((SystemScope)currentScope).getTypeHierarchyIndex();
+	}
+	
 	/**
 	 * We often need to resolve reference in EnumTypeDefinition and DetailedTypeDefinition, but we only get 
 	 * the object of type definition, and we do not want to cast the object to EnumTypeDefinition or DetailedTypeDefinition
@@ -146,28 +179,28 @@ public abstract class TypeDefinition extends NameDefinition {
 		return false;
 	}
 		
-	protected static boolean matchSubtypeRelationsOfPrimitiveTypes(String subTypeName, String superTypeName) {
+	/**
+	 * Test whether a type without super list is the sub-type of another type by their names, i.e. each type is a sub-type of
+	 * java.lang.Object, and a primitive type is a sub-type of the primitive types which it can be widened to.
+	 */
+	public static boolean matchSubtypeRelationsOfPrimitiveTypes(String subTypeName, String superTypeName) {
 		// Each type is a sub-type of ROOT_OBJECT_NAME (i.e. java.lang.Object)
 		if (superTypeName.equals(SystemScope.ROOT_OBJECT_NAME)) return true; 
 		
-		String subtypeRelations[][] = {
-				{NameReferenceLabel.TYPE_BYTE, NameReferenceLabel.TYPE_SHORT},
-				{NameReferenceLabel.TYPE_BYTE, NameReferenceLabel.TYPE_INT},
-				{NameReferenceLabel.TYPE_BYTE, NameReferenceLabel.TYPE_LONG},
-				{NameReferenceLabel.TYPE_BYTE, NameReferenceLabel.TYPE_FLOAT},
-				{NameReferenceLabel.TYPE_BYTE, NameReferenceLabel.TYPE_DOUBLE},
-				{NameReferenceLabel.TYPE_SHORT, NameReferenceLabel.TYPE_INT},
-				{NameReferenceLabel.TYPE_SHORT, NameReferenceLabel.TYPE_LONG},
-				{NameReferenceLabel.TYPE_SHORT, NameReferenceLabel.TYPE_FLOAT},
-				{NameReferenceLabel.TYPE_SHORT, NameReferenceLabel.TYPE_DOUBLE},
-				{NameReferenceLabel.TYPE_INT, NameReferenceLabel.TYPE_LONG},
-				{NameReferenceLabel.TYPE_INT, NameReferenceLabel.TYPE_FLOAT},
-				{NameReferenceLabel.TYPE_INT, NameReferenceLabel.TYPE_DOUBLE},
-				{NameReferenceLabel.TYPE_FLOAT, NameReferenceLabel.TYPE_DOUBLE},
-		};
 		for (int index = 0; index < subtypeRelations.length; index++) {
 			if (subTypeName.equals(subtypeRelations[index][0]) && superTypeName.equals(subtypeRelations[index][1])) return true;
 		}
 		return false;
 	}
+	
+	/**
+	 * Test whether a type with the given name may be the super type of a type without super list by their names
+	 */
+	public static boolean isSupertypeByName(String superTypeName) {
+		if (superTypeName.equals(SystemScope.ROOT_OBJECT_NAME)) return true; 
+		for (int index = 0; index < subtypeRelations.length; index++) {
+			if (superTypeName.equals(subtypeRelations[index][1])) return true;
+		}
+		return false;
+	}
 }
@@ -15,12 +15,18 @@ import sourceCodeAST.SourceCodeLocation;
  * @since 2016115
  * @version 1.0
  *
+ * @update 2017/09/24
+ * 		Keep the current value in a thread local variable after the name table is frozen (see NameTableManager.freeze()), so that
+ * 		many threads can instantiate the type parameter at the same time.
  */
 public class TypeParameterDefinition extends TypeDefinition {
 	private List<TypeReference> boundList = null;
 	// 2017/08/17 The value of the current type parameter, which is a temporary value for resolving
 	// a reference
 	private TypeReference value = null;
+	// 2017/09/24 The current value of each thread after the name table is frozen, it is null if the table is not frozen. It is
+	// not saved in a snapshot, as the frozen flag of the system scope, so a loaded table is not frozen
+	private transient ThreadLocal<TypeReference> frozenValue = null;
 	
 	public TypeParameterDefinition(String simpleName, String fullQualifiedName, SourceCodeLocation location, NameScope scope) {
 		super(simpleName, fullQualifiedName, location, scope);
@@ -54,6 +60,7 @@ public class TypeParameterDefinition extends TypeDefinition {
 	 * Get current value store in this type parameter definition
 	 */
 	public TypeReference getCurrentValue() {
+		if (frozenValue != null) return frozenValue.get();
 		return value;
 	}
 
@@ -61,7 +68,22 @@ public class TypeParameterDefinition extends TypeDefinition {
 	 * Set current value, which is a type reference for instantiate the parameter for the current resolving reference
 	 */
 	public void setCurrentValue(TypeReference type) {
-		this.value = type;
+		if (frozenValue != null) frozenValue.set(type);
+		else this.value = type;
+	}
+	
+	/**
+	 * Keep the current value of each thread separately. After that, the references of this type parameter in the definitions
+	 * are not reset for resolving again, but TypeReference.getDefinition() returns the definition of the current value of the thread.  
+	 */
+	public void freeze() {
+		if (frozenValue != null) return;
+		value = null;
+		frozenValue = new ThreadLocal<TypeReference>();
+	}
+	
+	public boolean isFrozen() {
+		return frozenValue != null;
 	}
 
 	public List<TypeReference> getBoundList() {
@@ -88,8 +110,9 @@ public class TypeParameterDefinition extends TypeDefinition {
 		
 		// Note that if matched, then the type reference is bind to this parameter definition yet
 		// in the method NameDefinition.match()
-		if (value != null) {
-			if (value.isResolved()) type.bindTo(value.getDefinition());
+		TypeReference currentValue = getCurrentValue();
+		if (currentValue != null) {
+			if (currentValue.isResolved()) type.bindTo(currentValue.getDefinition());
 		}
 		return true;
 	}
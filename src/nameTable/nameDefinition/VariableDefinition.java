@@ -19,6 +19,9 @@ import sourceCodeAST.SourceCodeLocation;
  * 
  * @update 2015/11/5
  * 		Refactor the class according to the design document
+ * 
+ * @update 2017/09/24
+ * 		Do not reset the type reference if the type parameter is frozen
  */
 public class VariableDefinition extends NameDefinition {
 	private NameDefinitionKind kind = NameDefinitionKind.NDK_VARIABLE;
@@ -93,7 +96,7 @@ public class VariableDefinition extends NameDefinition {
 		if (type != null) {
 			for (TypeParameterDefinition typeParameter : typeParameterList) {
 				if (type.getName().equals(typeParameter.getSimpleName())) {
-					type.resetBinding();
+					if (!typeParameter.isFrozen()) type.resetBinding();
 					return;
 				}
 			}
@@ -16,6 +16,9 @@ import sourceCodeAST.SourceCodeLocation;
  * @update 2015/11/5
  * 		Refactor the class according to the design document. 
  *  	Important notes: The method arguments and type arguments should be setted when we create the method reference.
+ * 
+ * @update 2017/09/17
+ * 		Reset the alternative methods in resetBinding(), so that the reference can be resolved again.
  */
 public class MethodReference extends NameReference {
 	private List<NameReference> argumentList = null;		// The arguments in the method call
@@ -52,6 +55,15 @@ public class MethodReference extends NameReference {
 		alternativeList.addAll(methods);
 	}
 
+	/**
+	 * Reset the binding of the method call, including its alternative methods
+	 */
+	@Override
+	public void resetBinding() {
+		super.resetBinding();
+		alternativeList = null;
+	}
+
 	public List<NameReference> getArgumentList() {
 		return argumentList;
 	}
@@ -16,6 +16,8 @@ import sourceCodeAST.SourceCodeLocation;
  * @author Zhou Xiaocong
  * @since 2016116
  * @version 1.0
+ * @update 2017/10/05
+ * 		Add getFullQualifiedName()
  *
  */
 public class NamedTypeReference extends TypeReference {
@@ -42,6 +44,10 @@ public class NamedTypeReference extends TypeReference {
 		return qualifier;
 	}
 
+	public String getFullQualifiedName() {
+		return fullQualifiedName;
+	}
+
 	/**
 	 * @param qualifier the qualifier to set
 	 */
@@ -1,5 +1,8 @@
 package nameTable.nameReference;
 
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.NameDefinitionKind;
+import nameTable.nameDefinition.TypeParameterDefinition;
 import nameTable.nameScope.NameScope;
 import sourceCodeAST.SourceCodeLocation;
 
@@ -15,11 +18,15 @@ import sourceCodeAST.SourceCodeLocation;
  * 
  * @update 2015/11/6
  * 		Refactor the class according to the design document
+ * @update 2017/09/24
+ * 		Return the definition of the current value if the reference is binded to a frozen type parameter
  */
 public class TypeReference extends NameReference {
 	// If the type reference refers to a array type, we save its dimension
 	protected int dimension = 0;
 	protected TypeReferenceKind typeKind = TypeReferenceKind.TRK_SIMPLE;
+	// 2017/09/24 Whether the reference is held by a definition and binded to a type parameter when the name table is frozen
+	protected boolean typeParameterReference = false;
 
 	public TypeReference(String name, SourceCodeLocation location,	NameScope scope) {
 		super(name, location, scope, NameReferenceKind.NRK_TYPE);
@@ -105,6 +112,32 @@ public class TypeReference extends NameReference {
 		else return false;
 	}
 
+	/**
+	 * Mark the reference as a reference of a type parameter held by a definition, when the name table is frozen
+	 */
+	public void setTypeParameterReference() {
+		typeParameterReference = true;
+	}
+	
+	/**
+	 * Return the definition binded to the reference. For a reference of a type parameter held by a definition of a frozen name table, 
+	 * return the definition of the current value of the type parameter in this thread, since the reference is not reset and resolved 
+	 * again when the type parameter is instantiated. Like resolving the reference again, the type parameter itself is returned if the 
+	 * parameter has no value or the value is not resolved.
+	 */
+	@Override
+	public NameDefinition getDefinition() {
+		if (typeParameterReference && definition != null && definition.getDefinitionKind() == NameDefinitionKind.NDK_TYPE_PARAMETER) {
+			TypeParameterDefinition typeParameter = (TypeParameterDefinition)definition;
+			if (typeParameter.isFrozen()) {
+				TypeReference value = typeParameter.getCurrentValue();
+				// Do not use value.getDefinition(), since the value may be a reference of the same type parameter
+				if (value != null && value.definition != null) return value.definition;
+			}
+		}
+		return definition;
+	}
+
 	@Override
 	public boolean resolveBinding() {
 		if (definition != null) return true;
@@ -30,6 +30,12 @@ import nameTable.visitor.NameTableVisitor;
  * 
  * @update 2016/11/6
  * 		Refactor the class according to the design document
+ * 
+ * @update 2017/09/17
+ * 		Extract bindImportDeclaration(NameReference, SystemScope) to bind a single import declaration again after incremental update.
+ * 
+ * @update 2017/10/02
+ * 		Reset the hash table of the types of the enclosing package after a type is defined
  */
 public class CompilationUnitScope implements NameScope, Comparable<CompilationUnitScope> {
 	// File name of the compilation unit. It is used to generation the source code location of the name definitions and name references
@@ -62,6 +68,7 @@ public class CompilationUnitScope implements NameScope, Comparable<CompilationUn
 			if (!typeDef.isPackageMember()) throw new IllegalNameDefinition("The name defined in a compilation unit must be a top level type!");
 			if (typeList == null) typeList = new ArrayList<TypeDefinition>();
 			typeList.add(typeDef);
+			if (enclosingPackage != null) enclosingPackage.resetTypeTable();
 		} else throw new IllegalNameDefinition("The name defined in a compilation unit must be a type!");
 	}
 
@@ -218,38 +225,44 @@ public class CompilationUnitScope implements NameScope, Comparable<CompilationUn
 		
 		if (importedTypeList == null) return;
 		
-		for (NameReference importDecl : importedTypeList) {
-			if (importDecl.getReferenceKind() == NameReferenceKind.NRK_TYPE) {
-				// The import declaration is a single-type-import declaration
-				boolean success = false;
-				String name = importDecl.getName(); 
-				int dotIndex = name.lastIndexOf(NameReferenceLabel.NAME_QUALIFIER);
-				if (dotIndex < 1) throw new AssertionError("The imported type [" + name + "] at " + importDecl.getLocation().getFileUnitName() + " have not package name!");
-				
-				String packageName = name.substring(0, dotIndex);
-				String typeName = name.substring(dotIndex + 1);
-				
-				PackageDefinition packageDef = systemScope.findPackageByName(packageName);
-				if (packageDef != null) {
-					success =  packageDef.matchTypeWithReference(importDecl);
-				} else {
-					success = systemScope.resolve(importDecl);
-				}
+		for (NameReference importDecl : importedTypeList) bindImportDeclaration(importDecl, systemScope);
+	}
+	
+	/**
+	 * Bind a type reference in the import list to the appropriate type definition. It is also used to bind an import declaration 
+	 * again after the name table is updated incrementally.
+	 */
+	public void bindImportDeclaration(NameReference importDecl, SystemScope systemScope) {
+		if (importDecl.getReferenceKind() == NameReferenceKind.NRK_TYPE) {
+			// The import declaration is a single-type-import declaration
+			boolean success = false;
+			String name = importDecl.getName(); 
+			int dotIndex = name.lastIndexOf(NameReferenceLabel.NAME_QUALIFIER);
+			if (dotIndex < 1) throw new AssertionError("The imported type [" + name + "] at " + importDecl.getLocation().getFileUnitName() + " have not package name!");
+			
+			String packageName = name.substring(0, dotIndex);
+			String typeName = name.substring(dotIndex + 1);
+			
+			PackageDefinition packageDef = systemScope.findPackageByName(packageName);
+			if (packageDef != null) {
+				success =  packageDef.matchTypeWithReference(importDecl);
+			} else {
+				success = systemScope.resolve(importDecl);
+			}
 
-				if (!success) {
-					ImportedTypeDefinition typeDef = new ImportedTypeDefinition(typeName, name, systemScope);
-					systemScope.define(typeDef);
-					importDecl.bindTo(typeDef);
-				} else {
-					if (importDecl.getDefinition() == null) throw new AssertionError("Internal error for bind imported type!");
-				}
+			if (!success) {
+				ImportedTypeDefinition typeDef = new ImportedTypeDefinition(typeName, name, systemScope);
+				systemScope.define(typeDef);
+				importDecl.bindTo(typeDef);
 			} else {
-				// The import declaration is an on-demand import, and it refer to a package reference
-				String packageName = importDecl.getName();
-				PackageDefinition packageDef = systemScope.findPackageByName(packageName);
-				// If we find a package definition, we bind the reference to this package definition, otherwise we do nothing!
-				if (packageDef != null) importDecl.bindTo(packageDef);
+				if (importDecl.getDefinition() == null) throw new AssertionError("Internal error for bind imported type!");
 			}
+		} else {
+			// The import declaration is an on-demand import, and it refer to a package reference
+			String packageName = importDecl.getName();
+			PackageDefinition packageDef = systemScope.findPackageByName(packageName);
+			// If we find a package definition, we bind the reference to this package definition, otherwise we do nothing!
+			if (packageDef != null) importDecl.bindTo(packageDef);
 		}
 	}
 
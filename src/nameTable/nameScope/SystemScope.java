@@ -9,10 +9,12 @@ import nameTable.nameDefinition.DetailedTypeDefinition;
 import nameTable.nameDefinition.IllegalNameDefinition;
 import nameTable.nameDefinition.ImportedStaticMemberDefinition;
 import nameTable.nameDefinition.ImportedTypeDefinition;
+import nameTable.nameDefinition.MemberDefinitionTable;
 import nameTable.nameDefinition.MethodDefinition;
 import nameTable.nameDefinition.NameDefinition;
 import nameTable.nameDefinition.NameDefinitionKind;
 import nameTable.nameDefinition.PackageDefinition;
+import nameTable.nameDefinition.TypeDefinition;
 import nameTable.nameReference.NameReference;
 import nameTable.nameReference.NameReferenceKind;
 import nameTable.visitor.NameDefinitionVisitor;
@@ -24,6 +26,27 @@ import nameTable.visitor.NameTableVisitor;
  * @author Zhou Xiaocong
  * @since 2013-2-21
  * @version 1.0
+ * 
+ * @update 2017/09/17
+ * 		Add removePackage() and releaseDetailedTypeBuffer() for incremental update of the name table.
+ * 
+ * @update 2017/09/18
+ * 		Add getModificationCount() to check if an index of the definitions (see NameDefinitionIndex) is out of date.
+ * 
+ * @update 2017/09/23
+ * 		Create the buffer of all detailed type definitions under the lock of the system scope, so it can be used by many threads.
+ * 
+ * @update 2017/09/24
+ * 		Add freeze() to reject the changes of a frozen name table (see NameTableManager.freeze()), and read the buffer of all 
+ * 		detailed type definitions without the lock after it has been created.
+ * 
+ * @update 2017/10/01
+ * 		Add createTypeHierarchyIndex(), and find the override methods by the type hierarchy index (see TypeHierarchyIndex) if it
+ * 		has been created and it is up to date.
+ * 
+ * @update 2017/10/05
+ * 		Match a reference with the imported types by a hash table of their names, since the imported types may be loaded from a large 
+ * 		library file (see ImportedTypeLibrary).
  */
 public class SystemScope implements NameScope {
 	public static final String SYSTEM_PACKAGE_NAME = "java.lang";
@@ -33,21 +56,33 @@ public class SystemScope implements NameScope {
 	private List<PackageDefinition> packageList = null;			// The packages of the system
 	
 	private List<ImportedTypeDefinition> importedTypeList = null;
+	// The hash table of the imported types, which is created when it is used firstly, and is dropped after a type is defined
+	private transient volatile MemberDefinitionTable importedTypeTable = null;
 	private List<ImportedStaticMemberDefinition> importedStaticMemberList = null;
 	
 	private List<NameReference> referenceList = null;				// The references occurs in the system scope. Generally, it will be null!
 	
-	private List<DetailedTypeDefinition> allDetailedTypeList = null;	// A buffer to store a list of all detailed type definition.
+	private volatile List<DetailedTypeDefinition> allDetailedTypeList = null;	// A buffer to store a list of all detailed type definition.
 	private ImportedTypeDefinition rootObject = null;
+	// The type hierarchy index, which is created by createTypeHierarchyIndex(), and is not used after the definitions are changed
+	private transient volatile TypeHierarchyIndex typeHierarchyIndex = null;
+	
+	// The number of changes of the definitions in the system, which is used to check if an index of the definitions is out of date
+	private transient int modificationCount = 0;
+	// Whether the name table has been frozen, i.e. all references in the table have been resolved and the table can not be changed
+	private transient boolean frozen = false;
 	
 	@Override
 	public void define(NameDefinition nameDef) throws IllegalNameDefinition {
+		checkNotFrozen("define " + nameDef.getUniqueId());
+		modificationCount++;
 		if (nameDef.getDefinitionKind() == NameDefinitionKind.NDK_PACKAGE) {
 			if (packageList == null) packageList = new ArrayList<PackageDefinition>();
 			packageList.add((PackageDefinition) nameDef);
 		} else if (nameDef.getDefinitionKind() == NameDefinitionKind.NDK_TYPE) {
 			if (importedTypeList == null) importedTypeList = new ArrayList<ImportedTypeDefinition>();
 			importedTypeList.add((ImportedTypeDefinition)nameDef);
+			importedTypeTable = null;
 			if (nameDef.getSimpleName().equals(ROOT_OBJECT_NAME) && nameDef.getFullQualifiedName().equals(SYSTEM_PACKAGE_NAME + "." + ROOT_OBJECT_NAME)) 
 				rootObject = (ImportedTypeDefinition)nameDef;
 		} else if (nameDef.getDefinitionKind() == NameDefinitionKind.NDK_STATIC_MEMBER) {
@@ -100,7 +135,7 @@ public class SystemScope implements NameScope {
 		}
 		
 		if (importedTypeList != null){
-			for (ImportedTypeDefinition importedType : importedTypeList) {
+			for (TypeDefinition importedType : getImportedTypeTable().getTypeCandidates(reference.getName())) {
 				if (importedType.match(reference)) return true;
 			}
 		}
@@ -137,6 +172,51 @@ public class SystemScope implements NameScope {
 		return null;
 	}
 	
+	/**
+	 * Remove a package from the system. Return false if the package is not in the system.
+	 */
+	public boolean removePackage(PackageDefinition packageDef) {
+		if (packageList == null) return false;
+		checkNotFrozen("remove package " + packageDef.getFullQualifiedName());
+		modificationCount++;
+		return packageList.remove(packageDef);
+	}
+	
+	/**
+	 * Release the buffer of all detailed type definitions, so that it will be created again when it is required. It should be called
+	 * after the compilation units of the system are changed.
+	 */
+	public synchronized void releaseDetailedTypeBuffer() {
+		checkNotFrozen("release the buffer of detailed types");
+		allDetailedTypeList = null;
+		modificationCount++;
+	}
+	
+	/**
+	 * Return the number of changes of the definitions in the system, i.e. the times of defining a global name, removing a package, 
+	 * or changing compilation units (see releaseDetailedTypeBuffer()). An index of the definitions is out of date if this number is changed.
+	 */
+	public int getModificationCount() {
+		return modificationCount;
+	}
+	
+	/**
+	 * Mark the name table as frozen. After that, defining a global name, removing a package or releasing the buffer of detailed types 
+	 * throws an AssertionError. The buffer of all detailed type definitions is created before the table is frozen.
+	 */
+	public void freeze() {
+		getAllDetailedTypeDefinitions();
+		frozen = true;
+	}
+	
+	public boolean isFrozen() {
+		return frozen;
+	}
+	
+	private void checkNotFrozen(String operation) {
+		if (frozen) throw new AssertionError("The name table has been frozen, and can not " + operation + "!");
+	}
+	
 	public PackageDefinition getUnnamedPackageDefinition() {
 		if (packageList == null) return null;
 		for (PackageDefinition packageDef : packageList) {
@@ -152,6 +232,18 @@ public class SystemScope implements NameScope {
 		return importedTypeList;
 	}
 
+	/**
+	 * Return the hash table of the imported types, and create it if it has not been created or a type is defined after it is created
+	 */
+	private MemberDefinitionTable getImportedTypeTable() {
+		MemberDefinitionTable table = importedTypeTable;
+		if (table == null) {
+			table = new MemberDefinitionTable(null, null, new ArrayList<ImportedTypeDefinition>(importedTypeList));
+			importedTypeTable = table;
+		}
+		return table;
+	}
+
 	/**
 	 * @return the imported static member list
 	 */
@@ -162,6 +254,7 @@ public class SystemScope implements NameScope {
 	@Override
 	public void addReference(NameReference reference) {
 		if (reference == null) return;
+		checkNotFrozen("add reference " + reference.getUniqueId());
 		if (referenceList == null) referenceList = new ArrayList<NameReference>();
 		referenceList.add(reference);
 		
@@ -184,27 +277,59 @@ public class SystemScope implements NameScope {
 
 	
 	public List<DetailedTypeDefinition> getAllDetailedTypeDefinitions() {
-		// If this method has been called, then we return the result directly
+		// If this method has been called, then we return the result directly without the lock
+		List<DetailedTypeDefinition> typeList = allDetailedTypeList;
+		if (typeList != null) return typeList;
+		return createDetailedTypeBuffer();
+	}
+	
+	private synchronized List<DetailedTypeDefinition> createDetailedTypeBuffer() {
 		if (allDetailedTypeList != null) return allDetailedTypeList;	
 		
 		NameDefinitionVisitor visitor = new NameDefinitionVisitor();
 		visitor.setFilter(new DetailedTypeDefinitionFilter());
 		
 		this.accept(visitor);
-		allDetailedTypeList = new ArrayList<DetailedTypeDefinition>();
+		// Fill the list before storing it to the buffer, so that other threads never see a partial list
+		List<DetailedTypeDefinition> typeList = new ArrayList<DetailedTypeDefinition>();
 		List<NameDefinition> resultList = visitor.getResult();
 		for (NameDefinition definition : resultList) {
-			allDetailedTypeList.add((DetailedTypeDefinition)definition);
+			typeList.add((DetailedTypeDefinition)definition);
 		}
+		allDetailedTypeList = typeList;
 		
 		return allDetailedTypeList;
 	}
 
+	/**
+	 * Create the type hierarchy index of the system scope. It should be called after the import declarations of all compilation units
+	 * are bound and the global names are defined, and it should be called again after the definitions of the system are changed.
+	 */
+	public synchronized TypeHierarchyIndex createTypeHierarchyIndex() {
+		TypeHierarchyIndex index = typeHierarchyIndex;
+		if (index != null && index.isCreatedFrom(this)) return index;
+		index = new TypeHierarchyIndex(this);
+		typeHierarchyIndex = index;
+		return index;
+	}
+	
+	/**
+	 * Return the type hierarchy index, or null if it has not been created or the definitions of the system have been changed after it
+	 * was created
+	 */
+	public TypeHierarchyIndex getTypeHierarchyIndex() {
+		TypeHierarchyIndex index = typeHierarchyIndex;
+		if (index != null && index.isCreatedFrom(this)) return index;
+		return null;
+	}
 	
 	/**
 	 * Return all methods defined in the sub-type of the baseType (and not equal to baseType), and redefine (i.e. override) the given method!
 	 */
 	public List<MethodDefinition> getAllOverrideMethods(DetailedTypeDefinition baseType, MethodDefinition method) {
+		TypeHierarchyIndex index = getTypeHierarchyIndex();
+		if (index != null) return index.getAllOverrideMethods(baseType, method);
+		
 		List<MethodDefinition> result = new ArrayList<MethodDefinition>();
 		
 		List<DetailedTypeDefinition> allDetailedTypeList = getAllDetailedTypeDefinitions();
@@ -228,6 +353,9 @@ public class SystemScope implements NameScope {
 	 * Return all methods defined in the sub-type of the baseType (and not equal to baseType), and redefine (i.e. override) the given method!
 	 */
 	public List<MethodDefinition> getAllOverrideMethods(ImportedTypeDefinition baseType, MethodDefinition method) {
+		TypeHierarchyIndex index = getTypeHierarchyIndex();
+		if (index != null) return index.getAllOverrideMethods(baseType, method);
+		
 		List<MethodDefinition> result = new ArrayList<MethodDefinition>();
 		
 		for (ImportedTypeDefinition type : importedTypeList) {
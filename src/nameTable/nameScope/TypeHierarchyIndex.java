@@ -0,0 +1,370 @@
+package nameTable.nameScope;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import nameTable.filter.NameDefinitionKindFilter;
+import nameTable.nameDefinition.DetailedTypeDefinition;
+import nameTable.nameDefinition.ImportedTypeDefinition;
+import nameTable.nameDefinition.MethodDefinition;
+import nameTable.nameDefinition.NameDefinition;
+import nameTable.nameDefinition.NameDefinitionKind;
+import nameTable.nameDefinition.TypeDefinition;
+import nameTable.nameDefinition.VariableDefinition;
+import nameTable.nameReference.TypeReference;
+import nameTable.visitor.NameDefinitionVisitor;
+
+/**
+ * The type hierarchy of all types in a system scope, so that TypeDefinition.isSubtypeOf() and SystemScope.getAllOverrideMethods()
+ * do not need to traverse the super types recursively or scan all types of the system.
+ * <p>The types are numbered in the order of NameDefinitionVisitor, then the imported types in the system scope, and then the other
+ * super types found in the super lists of these types. The super type references are resolved when the index is created, and
+ * the index stores the direct super types and sub types of each type, and the sorted numbers of all super types (including itself)
+ * of each type as the transitive closure. A type whose super types include a cycle is not in the index, so it is still handled by
+ * the original recursive algorithm (which reports the cycle).
+ * <p>The types without super list are subtypes of java.lang.Object and primitive types by their names (see TypeDefinition), so we
+ * also store the super types without super list of each type. The override candidates of a method, i.e. the methods with the same
+ * name and the same number of parameters in the sub types, are found once and kept in the index, and then only the candidates are
+ * checked by MethodDefinition.isOverrideMethod() (which depends on the current bindings of the return types and parameter types).
+ * <p>The index is a snapshot of the system scope. It records the modification count of the system scope when it is created, and it
+ * is not used after the count is changed (see SystemScope.getTypeHierarchyIndex()).
+ *
+ * @author Zhou Xiaocong
+ * @since 2017101
+ * @version 1.0
+ *
+ */
+public class TypeHierarchyIndex {
+	private static final int UNVISITED = 0;
+	private static final int VISITING = 1;
+	private static final int INDEXED = 2;
+	private static final int CYCLIC = 3;
+	private static final int[] EMPTY_ARRAY = new int[0];
+
+	private SystemScope systemScope = null;
+	private int modificationCount = 0;
+
+	private List<TypeDefinition> typeList = new ArrayList<TypeDefinition>();
+	private Map<TypeDefinition, Integer> typeIndexMap = new IdentityHashMap<TypeDefinition, Integer>();
+	// The numbers of the imported types of the system scope are in [importedTypeStart, importedTypeEnd)
+	private int importedTypeStart = 0;
+	private int importedTypeEnd = 0;
+
+	private int[][] directSupertypes = null;
+	private int[][] directSubtypes = null;
+	private int[][] allSupertypes = null;		// The sorted numbers of all super types of each type, including itself
+	private int[][] allSubtypes = null;			// The numbers of all sub types of each type in order, not including itself
+	private int[][] openSupertypes = null;		// The numbers of all super types without super list of each type
+	private int[] states = null;
+
+	private Map<MethodDefinition, OverrideCandidates> overrideCandidateMap = new ConcurrentHashMap<MethodDefinition, OverrideCandidates>();
+
+	/**
+	 * Create the index of the given system scope. It should be called after the import declarations of all compilation units are
+	 * bound and the global names are defined, i.e. the super type references can be resolved.
+	 */
+	public TypeHierarchyIndex(SystemScope systemScope) {
+		this.systemScope = systemScope;
+		this.modificationCount = systemScope.getModificationCount();
+
+		NameDefinitionVisitor visitor = new NameDefinitionVisitor();
+		visitor.setFilter(new NameDefinitionKindFilter(NameDefinitionKind.NDK_TYPE));
+		systemScope.accept(visitor);
+		for (NameDefinition definition : visitor.getResult()) numberType((TypeDefinition)definition);
+		importedTypeStart = typeList.size();
+		List<ImportedTypeDefinition> importedTypeList = systemScope.getImportedTypeList();
+		if (importedTypeList != null) {
+			for (ImportedTypeDefinition type : importedTypeList) numberType(type);
+		}
+		importedTypeEnd = typeList.size();
+
+		// 1. Resolve the super types, and number the super types which have not been numbered
+		List<int[]> supertypeList = new ArrayList<int[]>();
+		for (int index = 0; index < typeList.size(); index++) {
+			List<TypeReference> superList = typeList.get(index).getSuperList();
+			if (superList == null || superList.isEmpty()) {
+				supertypeList.add(EMPTY_ARRAY);
+				continue;
+			}
+			int[] supertypes = new int[superList.size()];
+			int number = 0;
+			for (TypeReference superType : superList) {
+				if (!superType.isResolved()) superType.resolveBinding();
+				NameDefinition definition = superType.getDefinition();
+				if (definition instanceof TypeDefinition) supertypes[number++] = numberType((TypeDefinition)definition);
+			}
+			supertypeList.add((number < supertypes.length) ? Arrays.copyOf(supertypes, number) : supertypes);
+		}
+		int typeNumber = typeList.size();
+		directSupertypes = supertypeList.toArray(new int[typeNumber][]);
+
+		// 2. Calculate the transitive closure of the super types
+		allSupertypes = new int[typeNumber][];
+		openSupertypes = new int[typeNumber][];
+		states = new int[typeNumber];
+		for (int index = 0; index < typeNumber; index++) calculateSupertypes(index);
+
+		// 3. Invert the super types, so the sub types of each type are in the order of numbers
+		int[] directSubtypeNumbers = new int[typeNumber];
+		int[] allSubtypeNumbers = new int[typeNumber];
+		for (int index = 0; index < typeNumber; index++) {
+			for (int supertype : directSupertypes[index]) directSubtypeNumbers[supertype]++;
+			if (states[index] != INDEXED) continue;
+			for (int supertype : allSupertypes[index]) if (supertype != index) allSubtypeNumbers[supertype]++;
+		}
+		directSubtypes = new int[typeNumber][];
+		allSubtypes = new int[typeNumber][];
+		for (int index = 0; index < typeNumber; index++) {
+			directSubtypes[index] = new int[directSubtypeNumbers[index]];
+			allSubtypes[index] = new int[allSubtypeNumbers[index]];
+		}
+		Arrays.fill(directSubtypeNumbers, 0);
+		Arrays.fill(allSubtypeNumbers, 0);
+		for (int index = 0; index < typeNumber; index++) {
+			for (int supertype : directSupertypes[index]) directSubtypes[supertype][directSubtypeNumbers[supertype]++] = index;
+			if (states[index] != INDEXED) continue;
+			for (int supertype : allSupertypes[index]) {
+				if (supertype != index) allSubtypes[supertype][allSubtypeNumbers[supertype]++] = index;
+			}
+		}
+	}
+
+	private int numberType(TypeDefinition type) {
+		Integer index = typeIndexMap.get(type);
+		if (index != null) return index;
+		int newIndex = typeList.size();
+		typeList.add(type);
+		typeIndexMap.put(type, newIndex);
+		return newIndex;
+	}
+
+	/**
+	 * Calculate all super types of the given type, and return false if they include a cycle
+	 */
+	private boolean calculateSupertypes(int index) {
+		if (states[index] == INDEXED) return true;
+		if (states[index] != UNVISITED) {
+			states[index] = CYCLIC;
+			return false;
+		}
+		states[index] = VISITING;
+
+		boolean acyclic = true;
+		for (int supertype : directSupertypes[index]) {
+			if (supertype == index || !calculateSupertypes(supertype)) acyclic = false;
+		}
+		if (!acyclic) {
+			states[index] = CYCLIC;
+			return false;
+		}
+
+		int size = 1;
+		for (int supertype : directSupertypes[index]) size += allSupertypes[supertype].length;
+		int[] supertypes = new int[size];
+		supertypes[0] = index;
+		int position = 1;
+		for (int supertype : directSupertypes[index]) {
+			System.arraycopy(allSupertypes[supertype], 0, supertypes, position, allSupertypes[supertype].length);
+			position += allSupertypes[supertype].length;
+		}
+		allSupertypes[index] = sortAndRemoveDuplicates(supertypes);
+
+		if (typeList.get(index).getSuperList() == null) openSupertypes[index] = new int[] {index};
+		else {
+			int openSize = 0;
+			for (int supertype : directSupertypes[index]) openSize += openSupertypes[supertype].length;
+			int[] open = new int[openSize];
+			position = 0;
+			for (int supertype : directSupertypes[index]) {
+				System.arraycopy(openSupertypes[supertype], 0, open, position, openSupertypes[supertype].length);
+				position += openSupertypes[supertype].length;
+			}
+			openSupertypes[index] = sortAndRemoveDuplicates(open);
+		}
+		states[index] = INDEXED;
+		return true;
+	}
+
+	private static int[] sortAndRemoveDuplicates(int[] array) {
+		if (array.length <= 1) return array;
+		Arrays.sort(array);
+		int size = 1;
+		for (int index = 1; index < array.length; index++) {
+			if (array[index] != array[size - 1]) array[size++] = array[index];
+		}
+		return (size < array.length) ? Arrays.copyOf(array, size) : array;
+	}
+
+	/**
+	 * Test if the index is still consistent with the given system scope, i.e. it is created from the scope, and the definitions of
+	 * the scope have not been changed after that.
+	 */
+	public boolean isCreatedFrom(SystemScope systemScope) {
+		return this.systemScope == systemScope && modificationCount == systemScope.getModificationCount();
+	}
+
+	/**
+	 * Test if the super types of the type are in the index, i.e. the type is in the system scope and its super types do not include a cycle
+	 */
+	public boolean contains(TypeDefinition type) {
+		Integer index = typeIndexMap.get(type);
+		return index != null && states[index] == INDEXED;
+	}
+
+	public int getTypeNumber() {
+		return typeList.size();
+	}
+
+	/**
+	 * Test whether the type is the sub-type of the given parent type in the same way as TypeDefinition.isSubtypeOf(). The type
+	 * should be in the index (see contains()).
+	 */
+	public boolean isSubtypeOf(TypeDefinition type, TypeDefinition parent) {
+		if (type == parent) return true;
+		int index = typeIndexMap.get(type);
+		Integer parentIndex = typeIndexMap.get(parent);
+		if (parentIndex != null && Arrays.binarySearch(allSupertypes[index], parentIndex) >= 0) return true;
+
+		// The super types without super list are the sub-types of the types given by their names
+		String parentName = parent.getSimpleName();
+		for (int open : openSupertypes[index]) {
+			if (TypeDefinition.matchSubtypeRelationsOfPrimitiveTypes(typeList.get(open).getSimpleName(), parentName)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Return the definitions of the super types in the super list of the type, or an empty list if the type is not in the index
+	 */
+	public List<TypeDefinition> getDirectSupertypes(TypeDefinition type) {
+		Integer index = typeIndexMap.get(type);
+		if (index == null) return new ArrayList<TypeDefinition>();
+		return getTypes(directSupertypes[index]);
+	}
+
+	/**
+	 * Return the types whose super lists include the given type, or an empty list if the type is not in the index
+	 */
+	public List<TypeDefinition> getDirectSubtypes(TypeDefinition type) {
+		Integer index = typeIndexMap.get(type);
+		if (index == null) return new ArrayList<TypeDefinition>();
+		return getTypes(directSubtypes[index]);
+	}
+
+	/**
+	 * Return all super types of the type in the super lists recursively, not including the type itself. Return an empty list if the
+	 * type is not in the index.
+	 */
+	public List<TypeDefinition> getAllSupertypes(TypeDefinition type) {
+		List<TypeDefinition> result = new ArrayList<TypeDefinition>();
+		if (!contains(type)) return result;
+		int index = typeIndexMap.get(type);
+		for (int supertype : allSupertypes[index]) {
+			if (supertype != index) result.add(typeList.get(supertype));
+		}
+		return result;
+	}
+
+	/**
+	 * Return all types whose super lists include the given type recursively, not including the type itself. Note that a type without
+	 * super list (e.g. java.lang.Object) is only the super type of the types in its sub tree.
+	 */
+	public List<TypeDefinition> getAllSubtypes(TypeDefinition type) {
+		Integer index = typeIndexMap.get(type);
+		if (index == null) return new ArrayList<TypeDefinition>();
+		return getTypes(allSubtypes[index]);
+	}
+
+	private List<TypeDefinition> getTypes(int[] indexes) {
+		List<TypeDefinition> result = new ArrayList<TypeDefinition>(indexes.length);
+		for (int index : indexes) result.add(typeList.get(index));
+		return result;
+	}
+
+	/**
+	 * Return all methods defined in the sub-type of the base type (and not equal to base type), and redefine (i.e. override) the
+	 * given method, in the same order as SystemScope.getAllOverrideMethods(). If the base type is a detailed type, only the detailed
+	 * types are searched, otherwise only the imported types of the system scope are searched.
+	 */
+	public List<MethodDefinition> getAllOverrideMethods(TypeDefinition baseType, MethodDefinition method) {
+		List<MethodDefinition> candidateList = getOverrideCandidates(baseType, method);
+		List<MethodDefinition> result = new ArrayList<MethodDefinition>();
+		for (MethodDefinition candidate : candidateList) {
+			if (candidate.isOverrideMethod(method)) result.add(candidate);
+		}
+		return result;
+	}
+
+	private List<MethodDefinition> getOverrideCandidates(TypeDefinition baseType, MethodDefinition method) {
+		OverrideCandidates candidates = overrideCandidateMap.get(method);
+		if (candidates != null && candidates.baseType == baseType) return candidates.methodList;
+
+		List<MethodDefinition> candidateList = new ArrayList<MethodDefinition>();
+		boolean detailedBase = baseType.isDetailedType();
+		String methodName = method.getSimpleName();
+		int parameterNumber = getParameterNumber(method);
+		for (int subtype : getSubtypeIndexes(baseType)) {
+			TypeDefinition type = typeList.get(subtype);
+			if (detailedBase) {
+				if (!type.isDetailedType() || subtype >= importedTypeStart) continue;
+			} else if (subtype < importedTypeStart || subtype >= importedTypeEnd) continue;
+
+			List<MethodDefinition> methodList = getMethodList(type);
+			if (methodList == null) continue;
+			for (MethodDefinition methodInSubType : methodList) {
+				if (methodInSubType.getSimpleName().equals(methodName) && getParameterNumber(methodInSubType) == parameterNumber) candidateList.add(methodInSubType);
+			}
+		}
+		candidateList = Collections.unmodifiableList(candidateList);
+		overrideCandidateMap.put(method, new OverrideCandidates(baseType, candidateList));
+		return candidateList;
+	}
+
+	/**
+	 * Return the numbers of the types which are sub-types of the base type (and not equal to the base type) in order
+	 */
+	private int[] getSubtypeIndexes(TypeDefinition baseType) {
+		Integer baseIndex = typeIndexMap.get(baseType);
+		if (!TypeDefinition.isSupertypeByName(baseType.getSimpleName())) {
+			// Only the types in the sub tree of the base type can be its sub types
+			if (baseIndex == null) return EMPTY_ARRAY;
+			return allSubtypes[baseIndex];
+		}
+
+		// The base type may be a super type of the types without super list by its name (e.g. java.lang.Object), so check all types
+		int[] result = new int[typeList.size()];
+		int size = 0;
+		for (int index = 0; index < typeList.size(); index++) {
+			TypeDefinition type = typeList.get(index);
+			if (type == baseType) continue;
+			if (states[index] == INDEXED ? isSubtypeOf(type, baseType) : type.isSubtypeOf(baseType)) result[size++] = index;
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	private static List<MethodDefinition> getMethodList(TypeDefinition type) {
+		if (type.isDetailedType()) return ((DetailedTypeDefinition)type).getMethodList();
+		if (type.isImportedType()) return ((ImportedTypeDefinition)type).getMethodList();
+		return null;
+	}
+
+	private static int getParameterNumber(MethodDefinition method) {
+		List<VariableDefinition> parameterList = method.getParameterList();
+		return (parameterList == null) ? -1 : parameterList.size();
+	}
+
+	private static class OverrideCandidates {
+		TypeDefinition baseType = null;
+		List<MethodDefinition> methodList = null;
+
+		OverrideCandidates(TypeDefinition baseType, List<MethodDefinition> methodList) {
+			this.baseType = baseType;
+			this.methodList = methodList;
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package sourceCodeAST;
+
+/**
+ * Receive the source code files parsed by SourceCodeBatchParser.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017927
+ * @version 1.0
+ *
+ */
+public interface ISourceCodeFileSink {
+
+	/**
+	 * Accept a source code file after its batch is parsed. The file holds its AST, which is given by hasCreatedAST() and
+	 * getASTRoot() as usual, and the sink can release the AST after using it.
+	 */
+	public void accept(SourceCodeFile codeFile, String unitName);
+}
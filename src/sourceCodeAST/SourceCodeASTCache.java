@@ -0,0 +1,211 @@
+package sourceCodeAST;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The policy of keeping the ASTs of the files in a source code file set, which is used by
+ * SourceCodeFileSet.findSourceCodeFileASTRootByFileUnitName(). The cache records the files which hold their ASTs in the order of
+ * access. When the number of the resident ASTs or the total length of their source code (the size of an AST is roughly proportional
+ * to the length of its source code) exceeds the capacity, the ASTs and the contents of the least recently used files are released.
+ * If the soft reference is used, a released AST is kept by a soft reference, and it can be used again if it has not been collected
+ * by the garbage collector. Otherwise the file is parsed again when its AST is needed.
+ * <p>The capacity is unlimited by default, i.e. the ASTs are kept until they are released explicitly. Note that the capacity should
+ * not be less than the number of the files used at the same time (e.g. by MethodFlowAnalysisDriver), otherwise a file may be parsed
+ * many times.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017925
+ * @version 1.0
+ *
+ */
+public class SourceCodeASTCache {
+	public static final int UNLIMITED = 0;
+
+	private int maxASTNumber = UNLIMITED;
+	private long maxSourceLength = UNLIMITED;
+	private boolean useSoftReference = false;
+
+	// The files holding their ASTs, in the order of access, and the length of their source code
+	private LinkedHashMap<SourceCodeFile, Integer> residentFileMap = null;
+	private long totalSourceLength = 0;
+
+	private int hitNumber = 0;
+	private int missNumber = 0;
+	private int reparseNumber = 0;
+	private int restoreNumber = 0;
+	private int evictionNumber = 0;
+
+	SourceCodeASTCache() {
+		residentFileMap = new LinkedHashMap<SourceCodeFile, Integer>(16, 0.75f, true);
+	}
+
+	/**
+	 * Set the maximal number of the resident ASTs and the maximal total length (in characters) of the source code of the resident
+	 * ASTs. Use UNLIMITED (i.e. 0) for no limitation. The ASTs exceeding the new capacity are released immediately.
+	 */
+	public void setCapacity(int maxASTNumber, long maxSourceLength) {
+		if (maxASTNumber < 0 || maxSourceLength < 0) {
+			throw new AssertionError("The capacity of AST cache should not be negative, but it is " + maxASTNumber + " ASTs and " + maxSourceLength + " characters");
+		}
+		List<SourceCodeFile> victimList = null;
+		synchronized (this) {
+			this.maxASTNumber = maxASTNumber;
+			this.maxSourceLength = maxSourceLength;
+			victimList = evictExcessFiles(null);
+		}
+		releaseFiles(victimList);
+	}
+
+	public synchronized int getMaxASTNumber() {
+		return maxASTNumber;
+	}
+
+	public synchronized long getMaxSourceLength() {
+		return maxSourceLength;
+	}
+
+	/**
+	 * Set whether a released AST is kept by a soft reference, so it can be used again if it has not been collected.
+	 */
+	public synchronized void setUseSoftReference(boolean useSoftReference) {
+		this.useSoftReference = useSoftReference;
+	}
+
+	public synchronized boolean isUseSoftReference() {
+		return useSoftReference;
+	}
+
+	/**
+	 * Record an access of the AST of the file. The parameter parsed is true if the file has been parsed for the access, and
+	 * reparsed is true if the file had been parsed before that. The parameter restored is true if the AST was released and is
+	 * restored from the soft reference. The ASTs of the least recently used files are released if the capacity is exceeded.
+	 */
+	void access(SourceCodeFile codeFile, boolean parsed, boolean reparsed, boolean restored) {
+		// Check the file before getting the lock of the cache, since another thread may be parsing the file under its lock
+		boolean resident = codeFile.isASTResident();
+		int length = codeFile.getSourceLength();
+		List<SourceCodeFile> victimList = null;
+		synchronized (this) {
+			if (parsed) {
+				missNumber++;
+				if (reparsed) reparseNumber++;
+			} else {
+				hitNumber++;
+				if (restored) restoreNumber++;
+			}
+
+			Integer oldLength = residentFileMap.remove(codeFile);
+			if (oldLength != null) totalSourceLength -= oldLength;
+			if (resident) {
+				residentFileMap.put(codeFile, length);
+				totalSourceLength += length;
+			}
+			victimList = evictExcessFiles(codeFile);
+		}
+		// Release the ASTs without the lock of the cache, so we never hold the locks of the cache and a file at the same time
+		releaseFiles(victimList);
+	}
+
+	/**
+	 * Remove the file from the cache, e.g. after its AST is released explicitly or it is replaced in the file set
+	 */
+	synchronized void remove(SourceCodeFile codeFile) {
+		Integer length = residentFileMap.remove(codeFile);
+		if (length != null) totalSourceLength -= length;
+	}
+
+	/**
+	 * Remove all files from the cache. The counters are not changed.
+	 */
+	public synchronized void clear() {
+		residentFileMap.clear();
+		totalSourceLength = 0;
+	}
+
+	/**
+	 * Remove the least recently used files until the capacity is not exceeded, and return them. The current file is never removed.
+	 */
+	private List<SourceCodeFile> evictExcessFiles(SourceCodeFile currentFile) {
+		List<SourceCodeFile> victimList = null;
+		Iterator<Map.Entry<SourceCodeFile, Integer>> iterator = residentFileMap.entrySet().iterator();
+		while (isExceeded() && iterator.hasNext()) {
+			Map.Entry<SourceCodeFile, Integer> entry = iterator.next();
+			if (entry.getKey() == currentFile) continue;
+			if (victimList == null) victimList = new ArrayList<SourceCodeFile>();
+			victimList.add(entry.getKey());
+			totalSourceLength -= entry.getValue();
+			iterator.remove();
+			evictionNumber++;
+		}
+		return victimList;
+	}
+
+	private boolean isExceeded() {
+		if (maxASTNumber != UNLIMITED && residentFileMap.size() > maxASTNumber) return true;
+		if (maxSourceLength != UNLIMITED && totalSourceLength > maxSourceLength) return true;
+		return false;
+	}
+
+	private void releaseFiles(List<SourceCodeFile> victimList) {
+		if (victimList == null) return;
+		boolean soft = isUseSoftReference();
+		for (SourceCodeFile codeFile : victimList) {
+			if (soft) codeFile.softlyReleaseAST();
+			else codeFile.releaseAST();
+			codeFile.releaseFileContent();
+		}
+	}
+
+	public synchronized int size() {
+		return residentFileMap.size();
+	}
+
+	public synchronized long getTotalSourceLength() {
+		return totalSourceLength;
+	}
+
+	public synchronized int getHitNumber() {
+		return hitNumber;
+	}
+
+	public synchronized int getMissNumber() {
+		return missNumber;
+	}
+
+	/**
+	 * Return the number of the files which are parsed again since their ASTs have been released
+	 */
+	public synchronized int getReparseNumber() {
+		return reparseNumber;
+	}
+
+	/**
+	 * Return the number of the ASTs which are restored from the soft references
+	 */
+	public synchronized int getRestoreNumber() {
+		return restoreNumber;
+	}
+
+	public synchronized int getEvictionNumber() {
+		return evictionNumber;
+	}
+
+	public synchronized void resetCounters() {
+		hitNumber = 0;
+		missNumber = 0;
+		reparseNumber = 0;
+		restoreNumber = 0;
+		evictionNumber = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		String capacity = (maxASTNumber == UNLIMITED ? "unlimited" : "" + maxASTNumber) + " ASTs/" + (maxSourceLength == UNLIMITED ? "unlimited" : "" + maxSourceLength) + " chars";
+		return "SourceCodeASTCache[size " + residentFileMap.size() + " ASTs/" + totalSourceLength + " chars, capacity " + capacity +
+				", hit " + hitNumber + ", miss " + missNumber + ", reparse " + reparseNumber + ", restore " + restoreNumber + ", eviction " + evictionNumber + "]";
+	}
+}
@@ -0,0 +1,113 @@
+package sourceCodeAST;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+
+/**
+ * Parse the files of a source code file set in batches by ASTParser.createASTs(), instead of creating a parser for each file. The
+ * files are parsed in the order of the set, and the files of a batch are given to the sink in the same order after the batch is
+ * parsed, so at most one batch of ASTs are held by the files at the same time (unless the sink keeps them).
+ * <p>The parser configuration of the set is used, and its compiler options are shared by all batches. If the bindings are resolved, the classpath entries and the start path of the
+ * set (as the source path) are used as the environment of the parser, and the bootstrap classpath of the running VM is included.
+ * <p>The encoding of a file is the charset of the set or the file if it is given. Otherwise the charset used to load the content of
+ * the file is used if it has been loaded, or the charset is detected before the batch is parsed (see SourceCodeFile.getEncoding()),
+ * so a file is decoded by the same charset when it is parsed in a batch and when it is parsed alone again. A file which is not
+ * accepted by the parser (e.g. it can not be read) is given to the sink too, and it will be parsed alone when its AST is needed.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017927
+ * @version 1.0
+ * @update 2017/10/06
+ * 		Detect the charset of a file which has not been loaded, instead of using the default charset of the platform
+ *
+ */
+public class SourceCodeBatchParser {
+	public static final int DEFAULT_BATCH_SIZE = 64;
+
+	private SourceCodeFileSet codeFileSet = null;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private boolean resolveBindings = false;
+	private String[] classpathEntries = null;
+
+	public SourceCodeBatchParser(SourceCodeFileSet codeFileSet) {
+		this.codeFileSet = codeFileSet;
+	}
+
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) throw new AssertionError("The batch size should be positive, but it is " + batchSize);
+		this.batchSize = batchSize;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set whether the bindings are resolved, and the classpath entries (the jar files or the directories of class files) used to
+	 * resolve the bindings. The entries may be null.
+	 */
+	public void setResolveBindings(boolean resolveBindings, String[] classpathEntries) {
+		this.resolveBindings = resolveBindings;
+		this.classpathEntries = classpathEntries;
+	}
+
+	public boolean isResolveBindings() {
+		return resolveBindings;
+	}
+
+	/**
+	 * Parse all files of the set in batches, and give them to the sink in the order of the set
+	 */
+	public void parse(ISourceCodeFileSink sink) {
+		List<SourceCodeFile> batch = new ArrayList<SourceCodeFile>(batchSize);
+		for (SourceCodeFile codeFile : codeFileSet) {
+			batch.add(codeFile);
+			if (batch.size() >= batchSize) {
+				parseBatch(batch, sink);
+				batch.clear();
+			}
+		}
+		if (batch.size() > 0) parseBatch(batch, sink);
+	}
+
+	private void parseBatch(List<SourceCodeFile> batch, ISourceCodeFileSink sink) {
+		String[] paths = new String[batch.size()];
+		String[] encodings = new String[batch.size()];
+		final Map<String, SourceCodeFile> pathMap = new HashMap<String, SourceCodeFile>();
+		for (int index = 0; index < batch.size(); index++) {
+			SourceCodeFile codeFile = batch.get(index);
+			paths[index] = codeFile.getFileHandle().getAbsolutePath();
+			encodings[index] = codeFile.getEncoding();
+			pathMap.put(paths[index], codeFile);
+		}
+
+		ASTParser parser = codeFileSet.getParserConfiguration().createParser();
+		if (resolveBindings) {
+			String[] sourcepathEntries = {new File(codeFileSet.getStartPath()).getAbsolutePath()};
+			String[] classpath = (classpathEntries != null) ? classpathEntries : new String[0];
+			parser.setEnvironment(classpath, sourcepathEntries, null, true);
+			parser.setResolveBindings(true);
+			parser.setBindingsRecovery(true);
+		} else {
+			parser.setEnvironment(new String[0], null, null, true);
+		}
+
+		FileASTRequestor requestor = new FileASTRequestor() {
+			@Override
+			public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+				SourceCodeFile codeFile = pathMap.get(sourceFilePath);
+				if (codeFile != null) codeFile.setASTRoot(ast, resolveBindings);
+			}
+		};
+		parser.createASTs(paths, encodings, new String[0], requestor, null);
+
+		for (SourceCodeFile codeFile : batch) sink.accept(codeFile, codeFileSet.getFileUnitName(codeFile));
+	}
+}
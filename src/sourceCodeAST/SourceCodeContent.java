@@ -0,0 +1,173 @@
+package sourceCodeAST;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * The content of a source code file loaded by NIO. The bytes of the file are read by a file channel (a large file is mapped to
+ * memory), and decoded once to a char array, which can be given to ASTParser.setSource() directly.
+ * <p>The line terminators ("\r\n", "\r" or "\n") are replaced by "\n", and a "\n" is appended to the last line if it has no
+ * terminator. So the content is the same as the content read line by line by LineNumberReader, which is used before.
+ * <p>If the charset is not given, it is detected as following: if the file starts with a byte order mark, use UTF-8, UTF-16BE
+ * or UTF-16LE given by the mark; if the bytes are valid UTF-8, use UTF-8; otherwise use the default charset of the platform.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017926
+ * @version 1.0
+ * @update 2017/10/06
+ * 		Add detectCharset(), so that a file parsed by SourceCodeBatchParser is decoded by the same charset as its loaded content
+ *
+ */
+class SourceCodeContent {
+	// The files larger than this size are mapped to memory, and the smaller files are read to a heap buffer
+	static final long MAPPING_THRESHOLD = 1024 * 1024;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final Charset UTF_16BE = Charset.forName("UTF-16BE");
+	private static final Charset UTF_16LE = Charset.forName("UTF-16LE");
+
+	private char[] content = null;
+	private int lineNumber = 0;
+	private Charset charset = null;
+
+	private SourceCodeContent(char[] content, int lineNumber, Charset charset) {
+		this.content = content;
+		this.lineNumber = lineNumber;
+		this.charset = charset;
+	}
+
+	char[] getContent() {
+		return content;
+	}
+
+	int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Return the charset used to decode the file
+	 */
+	Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Load the content of the file by the given charset. If the charset is null, detect the charset of the file.
+	 */
+	static SourceCodeContent load(File file, Charset charset) throws IOException {
+		ByteBuffer bytes = readBytes(file);
+
+		if (charset == null) {
+			charset = detectByteOrderMark(bytes);
+			if (charset == null) {
+				// Try to decode the bytes strictly by UTF-8, and use the default charset if they are not valid UTF-8 bytes
+				SourceCodeContent result = decode(bytes, UTF_8, CodingErrorAction.REPORT);
+				if (result != null) return result;
+				charset = Charset.defaultCharset();
+			}
+		}
+		return decode(bytes, charset, CodingErrorAction.REPLACE);
+	}
+
+	/**
+	 * Detect the charset of the file as load() does, without keeping the content of the file
+	 */
+	static Charset detectCharset(File file) throws IOException {
+		ByteBuffer bytes = readBytes(file);
+		Charset charset = detectByteOrderMark(bytes);
+		if (charset != null) return charset;
+		if (decode(bytes, UTF_8, CodingErrorAction.REPORT) != null) return UTF_8;
+		return Charset.defaultCharset();
+	}
+
+	private static ByteBuffer readBytes(File file) throws IOException {
+		FileInputStream stream = new FileInputStream(file);
+		try {
+			FileChannel channel = stream.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) throw new IOException("The file " + file.getPath() + " is too large to be loaded!");
+			if (size > MAPPING_THRESHOLD) return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+			ByteBuffer buffer = ByteBuffer.allocate((int)size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) break;
+			}
+			buffer.flip();
+			return buffer;
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Return the charset given by the byte order mark of the bytes, and skip the mark. Return null if there is no such mark.
+	 */
+	private static Charset detectByteOrderMark(ByteBuffer bytes) {
+		int remaining = bytes.remaining();
+		int position = bytes.position();
+		if (remaining >= 3 && (bytes.get(position) & 0xFF) == 0xEF && (bytes.get(position + 1) & 0xFF) == 0xBB && (bytes.get(position + 2) & 0xFF) == 0xBF) {
+			bytes.position(position + 3);
+			return UTF_8;
+		}
+		if (remaining >= 2 && (bytes.get(position) & 0xFF) == 0xFE && (bytes.get(position + 1) & 0xFF) == 0xFF) {
+			bytes.position(position + 2);
+			return UTF_16BE;
+		}
+		if (remaining >= 2 && (bytes.get(position) & 0xFF) == 0xFF && (bytes.get(position + 1) & 0xFF) == 0xFE) {
+			bytes.position(position + 2);
+			return UTF_16LE;
+		}
+		return null;
+	}
+
+	/**
+	 * Decode the bytes to a char array, and replace the line terminators. Return null if the action is REPORT and the bytes can
+	 * not be decoded by the charset. The position of the bytes is not changed.
+	 */
+	private static SourceCodeContent decode(ByteBuffer bytes, Charset charset, CodingErrorAction action) throws IOException {
+		CharsetDecoder decoder = charset.newDecoder().onMalformedInput(action).onUnmappableCharacter(action);
+		ByteBuffer input = bytes.duplicate();
+		// Reserve a char for the "\n" appended to the last line
+		CharBuffer output = CharBuffer.allocate((int)(input.remaining() * (double)decoder.maxCharsPerByte()) + 1);
+		try {
+			CoderResult result = decoder.decode(input, output, true);
+			if (!result.isUnderflow()) result.throwException();
+			result = decoder.flush(output);
+			if (!result.isUnderflow()) result.throwException();
+		} catch (CharacterCodingException exc) {
+			if (action == CodingErrorAction.REPORT) return null;
+			throw exc;
+		}
+
+		// Replace the line terminators in place, since the content never becomes longer except the last "\n"
+		char[] chars = output.array();
+		int length = output.position();
+		int newLength = 0;
+		int lineNumber = 0;
+		for (int index = 0; index < length; index++) {
+			char ch = chars[index];
+			if (ch == '\r') {
+				if (index + 1 < length && chars[index + 1] == '\n') index++;
+				ch = '\n';
+			}
+			if (ch == '\n') lineNumber++;
+			chars[newLength++] = ch;
+		}
+		if (newLength > 0 && chars[newLength - 1] != '\n') {
+			chars[newLength++] = '\n';
+			lineNumber++;
+		}
+		if (newLength < chars.length) chars = Arrays.copyOf(chars, newLength);
+		return new SourceCodeContent(chars, lineNumber, charset);
+	}
+}
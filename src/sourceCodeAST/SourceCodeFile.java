@@ -1,14 +1,11 @@
 package sourceCodeAST;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.LineNumberReader;
-import java.util.Map;
+import java.lang.ref.SoftReference;
+import java.nio.charset.Charset;
 
-import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.compiler.IProblem;
-import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 
@@ -18,17 +15,43 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
  * @since 2016928
  * @version 1.0
  *
+ * @update 2017/09/23
+ * 		Load the content and create the AST under the lock of the object, so a file can be used by many threads.
+ * @update 2017/09/25
+ * 		Count the parsing of the file, and add softlyReleaseAST() for SourceCodeASTCache. Do not count the lines again
+ * 		when the content is loaded again.
+ * @update 2017/09/26
+ * 		Load the content to a char array by SourceCodeContent (NIO) with a given or detected charset, and parse the array directly.
+ * @update 2017/09/27
+ * 		Share the compiler options by all parsers, and add setASTRoot() for SourceCodeBatchParser.
+ * @update 2017/09/28
+ * 		Parse the file by a SourceCodeParserConfiguration instead of the hard-coded Java 1.8 levels.
+ * @update 2017/10/06
+ * 		Detect the charset in getEncoding() if the content has not been loaded, so that batch parsing and parsing the file alone decode it by the same charset.
  */
 public class SourceCodeFile {
 	private File fileHandle = null;					// Handle of the source code file
 	// The unit name of the source code file, which is related to the root path of the whole source code file set
 	private String unitName = null;					
 	
+	// The content is kept as a char array for parsing, and the string of the content is created when it is used firstly
+	private char[] contentChars = null;
 	private String fileContent = null;
+	// The charset given by the client, or null to detect the charset of the file, and the charset used to decode the file
+	private Charset charset = null;
+	private Charset contentCharset = null;
+	// The configuration (the language levels) to parse the file
+	private SourceCodeParserConfiguration configuration = SourceCodeParserConfiguration.getDefaultConfiguration();
 
 	private CompilationUnit rootASTNode = null;
 	private String parsingErrorMessage = null;
 	private boolean hasParsingError = false;
+	// The AST released softly, which can be used again if it has not been collected
+	private SoftReference<CompilationUnit> softASTRoot = null;
+	private int parseNumber = 0;		// The times of parsing the file
+	// Whether the bindings of the AST are resolved, and then only the syntax errors are parsing errors
+	private boolean bindingsResolved = false;
+	private int sourceLength = 0;		// The length of the file content when it is loaded
 	
 	private int totalLines = 0; 		// The line number of the file;
 	private long totalSpaces = 0;		// The total spaces of the file  
@@ -62,18 +85,66 @@ public class SourceCodeFile {
 		return unitName;
 	}
 	
-	public String getFileContent() {
-		if (fileContent == null) loadContent();
+	public synchronized String getFileContent() {
+		if (contentChars == null) loadContent();
+		if (fileContent == null && contentChars != null) fileContent = new String(contentChars);
 		return fileContent;
 	}
+
+	/**
+	 * Set the charset to decode the file. If it is null, the charset is detected when the file is loaded. It is used when the 
+	 * content is loaded next time. 
+	 */
+	public synchronized void setCharset(Charset charset) {
+		this.charset = charset;
+	}
+
+	/**
+	 * Set the configuration to parse the file. It is used when the file is parsed next time. 
+	 */
+	public synchronized void setParserConfiguration(SourceCodeParserConfiguration configuration) {
+		if (configuration == null) configuration = SourceCodeParserConfiguration.getDefaultConfiguration();
+		this.configuration = configuration;
+	}
+
+	public synchronized SourceCodeParserConfiguration getParserConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * Return the name of the charset to parse the file by a batch parser, i.e. the given charset, or the charset used to decode 
+	 * the content. If both are unknown, the charset is detected in the same way as the content is loaded. Return null if the file
+	 * can not be read.
+	 */
+	synchronized String getEncoding() {
+		if (charset != null) return charset.name();
+		if (contentCharset != null) return contentCharset.name();
+		if (fileHandle == null) return null;
+		try {
+			return SourceCodeContent.detectCharset(fileHandle).name();
+		} catch (IOException exc) {
+			return null;
+		}
+	}
+
+	/**
+	 * Return the charset used to decode the content, or null if the content has not been loaded
+	 */
+	public synchronized Charset getContentCharset() {
+		return contentCharset;
+	}
 	
 	/**
 	 * Check if the AST of the source code file has been created successfully. If the current object does not 
 	 * hold the AST root node (i.e. rootASTNode == null), it will try to create AST for this file automatically.
 	 * <p>If created AST with no parse error, then return true, otherwise return false.  
 	 */
-	public boolean hasCreatedAST() {
+	public synchronized boolean hasCreatedAST() {
 		if (hasParsingError) return false;
+		if (rootASTNode == null && softASTRoot != null) {
+			rootASTNode = softASTRoot.get();
+			softASTRoot = null;
+		}
 		if (rootASTNode == null) createAST();
 		if (rootASTNode == null) {
 			hasParsingError = true;
@@ -87,7 +158,8 @@ public class SourceCodeFile {
 			msg = new StringBuilder(); 
 			for (int i=0; i < errors.length; ++i) {
 				IProblem problem = errors[i];
-				if (problem.isError()) {
+				// The problems of unresolved names are not parsing errors
+				if (problem.isError() && (!bindingsResolved || (problem.getID() & IProblem.Syntax) != 0)) {
 					hasParsingError = true;
 					String message = "Line " + problem.getSourceLineNumber() + ": " + problem.getMessage();	
 					msg.append(message);
@@ -102,26 +174,38 @@ public class SourceCodeFile {
 		else return true;
 	}
 
+	/**
+	 * Set the AST root created by a batch parser. The parsing errors are checked in hasCreatedAST() as usual. 
+	 */
+	synchronized void setASTRoot(CompilationUnit root, boolean bindingsResolved) {
+		rootASTNode = root;
+		this.bindingsResolved = bindingsResolved;
+		softASTRoot = null;
+		parsingErrorMessage = null;
+		hasParsingError = false;
+		parseNumber++;
+	}
+
 	/**
 	 * @pre-condition The client must have called hasCreatedAST()!
 	 */
-	public CompilationUnit getASTRoot() {
+	public synchronized CompilationUnit getASTRoot() {
 		return rootASTNode;
 	}
 
 	/**
 	 * pre-condition: The client must have called hasCreatedAST()!
 	 */
-	public String getParsingErrorMessage() {
+	public synchronized String getParsingErrorMessage() {
 		return parsingErrorMessage;
 	}
 	
-	public int getTotalLines() {
+	public synchronized int getTotalLines() {
 		if (totalLines == 0) loadContent();
 		return totalLines;
 	}
 	
-	public long getTotalSpaces() {
+	public synchronized long getTotalSpaces() {
 		if (totalSpaces == 0) loadContent();
 		return totalSpaces;
 	}
@@ -129,57 +213,81 @@ public class SourceCodeFile {
 	/**
 	 * Set file content to null for release the memory occupied by it, since file content may use many memories. 
 	 */
-	public void releaseFileContent() {
+	public synchronized void releaseFileContent() {
+		contentChars = null;
 		fileContent = null;
 	}
 	
 	/**
 	 * Set AST root to null for release the memory occupied by it, since AST root may use many memories. 
 	 */
-	public void releaseAST() {
+	public synchronized void releaseAST() {
 		rootASTNode = null;
+		softASTRoot = null;
 		parsingErrorMessage = null;
 		hasParsingError = false;		
 	}
+
+	/**
+	 * Keep the AST root by a soft reference, so it can be used again if it has not been collected by the garbage collector. 
+	 */
+	synchronized void softlyReleaseAST() {
+		if (rootASTNode != null) softASTRoot = new SoftReference<CompilationUnit>(rootASTNode);
+		rootASTNode = null;
+	}
+
+	/**
+	 * Test if the object holds the AST root strongly
+	 */
+	synchronized boolean isASTResident() {
+		return rootASTNode != null;
+	}
+
+	/**
+	 * Test if the object holds the AST root by a soft reference, which has not been collected
+	 */
+	synchronized boolean hasSoftAST() {
+		return softASTRoot != null && softASTRoot.get() != null;
+	}
+
+	synchronized int getParseNumber() {
+		return parseNumber;
+	}
+
+	synchronized int getSourceLength() {
+		return sourceLength;
+	}
 	
 
 	private void loadContent() {
 		if (fileHandle == null) return;
 		
 		try {
-			LineNumberReader reader = new LineNumberReader(new FileReader(fileHandle));
-			String line = reader.readLine();
-			StringBuffer buffer = new StringBuffer(); 
-			while (line != null) {
-				buffer.append(line + "\n");
-				totalLines = totalLines + 1;
-				line = reader.readLine();
-			}
-			reader.close(); 
-			fileContent = buffer.toString();
+			SourceCodeContent content = SourceCodeContent.load(fileHandle, charset);
+			contentChars = content.getContent();
+			fileContent = null;
+			contentCharset = content.getCharset();
+			totalLines = content.getLineNumber();
+			sourceLength = contentChars.length;
 			totalSpaces = fileHandle.getTotalSpace();
 		} catch (IOException exc) {
+			contentChars = null;
 			fileContent = null;
 		}
 	}
 	
-	@SuppressWarnings({"rawtypes", "unchecked" })
 	private void createAST() {
 		if (fileHandle == null) return;
-		if (fileContent == null) loadContent();
-		if (fileContent == null) return;
+		if (contentChars == null) loadContent();
+		if (contentChars == null) return;
 		
-		ASTParser parser = ASTParser.newParser(AST.JLS8);
-		parser.setKind(ASTParser.K_COMPILATION_UNIT);
-
-		// For parsing the source code in Java 1.8, the compile options must be set!
-		Map options = JavaCore.getOptions();
-		JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
-		parser.setCompilerOptions(options);
-
-		parser.setSource(fileContent.toCharArray());
+		// The AST level and the compile options must be given by the configuration for parsing the source code in the right level!
+		ASTParser parser = configuration.createParser();
+		parser.setSource(contentChars);
+		bindingsResolved = false;
 		parsingErrorMessage = null;
 		hasParsingError = false;
 		rootASTNode = (CompilationUnit) parser.createAST(null);
+		parseNumber++;
 	}
 }
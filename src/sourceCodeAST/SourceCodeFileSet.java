@@ -2,6 +2,7 @@ package sourceCodeAST;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.TreeMap;
@@ -17,6 +18,16 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
  * @since 2016928
  * @version 1.0
  *
+ * @update 2017/09/17
+ * 		Add updateSourceCodeFile() to reload a changed, added or deleted file for incremental update of the name table.
+ * @update 2017/09/23
+ * 		Get the AST of a file under the lock of the file, so the set can be read by many threads.
+ * @update 2017/09/25
+ * 		Keep the ASTs got by findSourceCodeFileASTRootByFileUnitName() in a SourceCodeASTCache, which can limit the resident ASTs.
+ * @update 2017/09/26
+ * 		Add setCharset() to give the charset of all files in the set.
+ * @update 2017/09/28
+ * 		Add setParserConfiguration() to give the language levels to parse all files in the set.
  */
 public class SourceCodeFileSet implements Iterable<SourceCodeFile> {
 	public final String pathSeparator = "\\";
@@ -24,6 +35,11 @@ public class SourceCodeFileSet implements Iterable<SourceCodeFile> {
 	private String startPath = null;
 	private String rootFile = null;
 	private TreeMap<String, SourceCodeFile> fileMap = null;
+	private SourceCodeASTCache astCache = new SourceCodeASTCache();
+	// The charset of the files, or null to detect the charset of each file
+	private Charset charset = null;
+	// The configuration to parse the files
+	private SourceCodeParserConfiguration parserConfiguration = SourceCodeParserConfiguration.getDefaultConfiguration();
 
 	/**
 	 * @param rootFile: it should be either the full name of a Java source code file or a start path of a source code file set. 
@@ -107,14 +123,32 @@ public class SourceCodeFileSet implements Iterable<SourceCodeFile> {
 	}
 
 	/**
-	 * Get AST root node of the source code file given by the file unit name
+	 * Get AST root node of the source code file given by the file unit name. The file is parsed again if its AST has been released,
+	 * and the AST cache of the set may release the ASTs of other files.
 	 */
 	public CompilationUnit findSourceCodeFileASTRootByFileUnitName(String fileUnitName) {
 		SourceCodeFile sourceCodeFile = fileMap.get(fileUnitName);
-		if (sourceCodeFile.hasCreatedAST())
-			return sourceCodeFile.getASTRoot();
-		else
-			return null;
+		CompilationUnit result = null;
+		boolean parsed = false;
+		boolean reparsed = false;
+		boolean restored = false;
+		// Check and get the AST under the lock of the file, so another thread can not release the AST between them
+		synchronized (sourceCodeFile) {
+			int parseNumber = sourceCodeFile.getParseNumber();
+			restored = !sourceCodeFile.isASTResident() && sourceCodeFile.hasSoftAST();
+			if (sourceCodeFile.hasCreatedAST()) result = sourceCodeFile.getASTRoot();
+			parsed = sourceCodeFile.getParseNumber() > parseNumber;
+			reparsed = parsed && parseNumber > 0;
+		}
+		astCache.access(sourceCodeFile, parsed, reparsed, restored);
+		return result;
+	}
+
+	/**
+	 * Return the cache of the ASTs, which can be used to set its capacity and get its counters
+	 */
+	public SourceCodeASTCache getASTCache() {
+		return astCache;
 	}
 
 	/**
@@ -133,6 +167,7 @@ public class SourceCodeFileSet implements Iterable<SourceCodeFile> {
 		Collection<SourceCodeFile> fileSet = fileMap.values();
 		for (SourceCodeFile sourceCodeFile : fileSet)
 			sourceCodeFile.releaseAST();
+		astCache.clear();
 	}
 
 	/**
@@ -149,14 +184,64 @@ public class SourceCodeFileSet implements Iterable<SourceCodeFile> {
 	 */
 	public void releaseAST(String fileUnitName) {
 		SourceCodeFile codeFile = fileMap.get(fileUnitName);
-		if (codeFile != null)
-			codeFile.releaseFileContent();
+		if (codeFile != null) {
+			codeFile.releaseAST();
+			astCache.remove(codeFile);
+		}
+	}
+
+	/**
+	 * Set the charset to decode all files in the set, or null to detect the charset of each file when it is loaded. The contents
+	 * which have been loaded are not changed.
+	 */
+	public void setCharset(Charset charset) {
+		this.charset = charset;
+		for (SourceCodeFile sourceCodeFile : fileMap.values()) sourceCodeFile.setCharset(charset);
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Set the configuration (i.e. the language levels) to parse all files in the set. If it is null, the default configuration (Java
+	 * 1.8) is used. The ASTs which have been created are not changed, so the configuration should be given before parsing the files.
+	 */
+	public void setParserConfiguration(SourceCodeParserConfiguration configuration) {
+		if (configuration == null) configuration = SourceCodeParserConfiguration.getDefaultConfiguration();
+		this.parserConfiguration = configuration;
+		for (SourceCodeFile sourceCodeFile : fileMap.values()) sourceCodeFile.setParserConfiguration(configuration);
+	}
+
+	public SourceCodeParserConfiguration getParserConfiguration() {
+		return parserConfiguration;
 	}
 
 	public String getStartPath() {
 		return startPath;
 	}
 
+	/**
+	 * Reload the source code file given by its unit name after it is changed, added or deleted. If the file still exists, a new 
+	 * source code file object replaces the old one in the set, otherwise the file is removed from the set and return null.
+	 */
+	public SourceCodeFile updateSourceCodeFile(String fileUnitName) {
+		File file = new File(startPath + fileUnitName);
+		SourceCodeFile oldFile = null;
+		if (!file.isFile()) {
+			oldFile = fileMap.remove(fileUnitName);
+			if (oldFile != null) astCache.remove(oldFile);
+			return null;
+		}
+		SourceCodeFile sourceCodeFile = new SourceCodeFile(file);
+		sourceCodeFile.setFileUnitName(fileUnitName);
+		sourceCodeFile.setCharset(charset);
+		sourceCodeFile.setParserConfiguration(parserConfiguration);
+		oldFile = fileMap.put(fileUnitName, sourceCodeFile);
+		if (oldFile != null) astCache.remove(oldFile);
+		return sourceCodeFile;
+	}
+
 	class JavaSourceFileFilter implements FileFilter {
 		@Override
 		public boolean accept(File pathname) {
@@ -0,0 +1,131 @@
+package sourceCodeAST;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+
+/**
+ * The configuration of parsing the source code files, i.e. the JDT AST level, the source level, the compliance level and whether the
+ * preview features are enabled. A configuration can not be changed after it is created, and its compiler options are created once
+ * and shared by all parsers created by it.
+ * <p>The levels are checked when the configuration is created, so a level which is not supported by the JDT used by the project
+ * (i.e. it is not in the list of the supported versions, e.g. a level newer than the JDT) is rejected with an AssertionError instead
+ * of parsing the files by a wrong level. The option of preview features is given to the JDT, and it takes effect only if the JDT
+ * supports preview features.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017928
+ * @version 1.0
+ * @update 2017/10/06
+ * 		Check and compare the levels by the ordered list of the public JavaCore.VERSION_* constants, instead of the internal
+ * 		CompilerOptions of the JDT
+ *
+ */
+public class SourceCodeParserConfiguration {
+	// The option of the JDT which supports preview features (i.e. JavaCore.COMPILER_PB_ENABLE_PREVIEW_FEATURES)
+	public static final String ENABLE_PREVIEW_FEATURES_OPTION = "org.eclipse.jdt.core.compiler.problem.enablePreviewFeatures";
+
+	// The versions supported by the JDT, from the lowest to the highest. It should be extended when the JDT is upgraded
+	private static final List<String> SUPPORTED_VERSIONS = Collections.unmodifiableList(Arrays.asList(
+			JavaCore.VERSION_1_1, JavaCore.VERSION_1_2, JavaCore.VERSION_1_3, JavaCore.VERSION_1_4,
+			JavaCore.VERSION_1_5, JavaCore.VERSION_1_6, JavaCore.VERSION_1_7, JavaCore.VERSION_1_8));
+
+	// Parse the source code in Java 1.8 by default
+	private static final SourceCodeParserConfiguration defaultConfiguration = new SourceCodeParserConfiguration(AST.JLS8, JavaCore.VERSION_1_8, JavaCore.VERSION_1_8, false);
+
+	private int astLevel = AST.JLS8;
+	private String sourceLevel = null;
+	private String complianceLevel = null;
+	private boolean enablePreview = false;
+	private Map<String, String> compilerOptions = null;
+
+	/**
+	 * @param astLevel: the JLS level of the JDT AST, e.g. AST.JLS8
+	 * @param sourceLevel: the source level, e.g. JavaCore.VERSION_1_8 (i.e. "1.8")
+	 * @param complianceLevel: the compliance level, which should not be lower than the source level
+	 * @param enablePreview: whether the preview features are enabled
+	 */
+	@SuppressWarnings("unchecked")
+	public SourceCodeParserConfiguration(int astLevel, String sourceLevel, String complianceLevel, boolean enablePreview) {
+		try {
+			AST.newAST(astLevel);
+		} catch (IllegalArgumentException exc) {
+			throw new AssertionError("The AST level " + astLevel + " is not supported by the JDT!");
+		}
+		int sourceIndex = SUPPORTED_VERSIONS.indexOf(sourceLevel);
+		int complianceIndex = SUPPORTED_VERSIONS.indexOf(complianceLevel);
+		if (sourceIndex < 0) throw new AssertionError("The source level " + sourceLevel + " is not supported by the JDT!");
+		if (complianceIndex < 0) throw new AssertionError("The compliance level " + complianceLevel + " is not supported by the JDT!");
+		if (sourceIndex > complianceIndex) {
+			throw new AssertionError("The source level " + sourceLevel + " is higher than the compliance level " + complianceLevel);
+		}
+
+		this.astLevel = astLevel;
+		this.sourceLevel = sourceLevel;
+		this.complianceLevel = complianceLevel;
+		this.enablePreview = enablePreview;
+
+		Map<String, String> options = JavaCore.getOptions();
+		JavaCore.setComplianceOptions(complianceLevel, options);
+		options.put(JavaCore.COMPILER_SOURCE, sourceLevel);
+		if (enablePreview) options.put(ENABLE_PREVIEW_FEATURES_OPTION, JavaCore.ENABLED);
+		compilerOptions = Collections.unmodifiableMap(options);
+	}
+
+	/**
+	 * Return the versions (i.e. the source levels and the compliance levels) supported by the JDT, from the lowest to the highest
+	 */
+	public static List<String> getSupportedVersions() {
+		return SUPPORTED_VERSIONS;
+	}
+
+	/**
+	 * Return the configuration to parse the source code in Java 1.8, which is used if no configuration is given
+	 */
+	public static SourceCodeParserConfiguration getDefaultConfiguration() {
+		return defaultConfiguration;
+	}
+
+	public int getASTLevel() {
+		return astLevel;
+	}
+
+	public String getSourceLevel() {
+		return sourceLevel;
+	}
+
+	public String getComplianceLevel() {
+		return complianceLevel;
+	}
+
+	public boolean isEnablePreview() {
+		return enablePreview;
+	}
+
+	/**
+	 * Return the compiler options, which can not be changed
+	 */
+	public Map<String, String> getCompilerOptions() {
+		return compilerOptions;
+	}
+
+	/**
+	 * Create a parser of compilation units with the AST level and the compiler options of the configuration
+	 */
+	public ASTParser createParser() {
+		ASTParser parser = ASTParser.newParser(astLevel);
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setCompilerOptions(compilerOptions);
+		return parser;
+	}
+
+	@Override
+	public String toString() {
+		return "JLS" + astLevel + ", source " + sourceLevel + ", compliance " + complianceLevel + (enablePreview ? ", preview" : "");
+	}
+}
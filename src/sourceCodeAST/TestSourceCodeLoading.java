@@ -0,0 +1,107 @@
+package sourceCodeAST;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.util.Arrays;
+
+/**
+ * A benchmark of loading the source code files, which compares the NIO loader (SourceCodeContent) with the old way, i.e. reading
+ * the file line by line by LineNumberReader and getting the char array of the content for parsing. It also checks that both ways
+ * give the same content and line number when the charset of the files is the default charset.
+ *
+ * @author Zhou Xiaocong
+ * @since 2017926
+ * @version 1.0
+ *
+ */
+public class TestSourceCodeLoading {
+
+	public static void main(String[] args) {
+		String rootPath = "C:\\";
+
+		String[] paths = {"C:\\QualitasPacking\\recent\\eclipse_SDK\\eclipse_SDK-4.3\\", "C:\\QualitasPacking\\recent\\jfreechart\\jfreechart-1.0.13\\",
+							rootPath + "ZxcWork\\ProgramAnalysis\\src\\", rootPath + "ZxcWork\\JAnalyzer\\src\\",
+							rootPath + "ZxcTools\\JDKSource\\", rootPath + "ZxcTools\\apache_ant_1_9_3\\src\\",
+		};
+
+		String path = paths[3];
+		if (args.length > 0) path = args[0];
+		int rounds = 5;
+		if (args.length > 1) rounds = Integer.parseInt(args[1]);
+
+		try {
+			testLoading(path, rounds);
+		} catch (IOException exc) {
+			exc.printStackTrace();
+		}
+	}
+
+	public static void testLoading(String path, int rounds) throws IOException {
+		SourceCodeFileSet fileSet = new SourceCodeFileSet(path);
+		File[] files = new File[fileSet.getFileNumber()];
+		int fileIndex = 0;
+		long totalBytes = 0;
+		for (SourceCodeFile codeFile : fileSet) {
+			files[fileIndex++] = codeFile.getFileHandle();
+			totalBytes += codeFile.getFileHandle().length();
+		}
+		System.out.println("Files: " + files.length + ", bytes: " + totalBytes);
+
+		int differentNumber = 0;
+		for (File file : files) {
+			char[] oldContent = loadByLineReader(file);
+			SourceCodeContent newContent = SourceCodeContent.load(file, null);
+			int oldLineNumber = 0;
+			for (char ch : oldContent) {
+				if (ch == '\n') oldLineNumber++;
+			}
+			if (!Arrays.equals(oldContent, newContent.getContent()) || oldLineNumber != newContent.getLineNumber()) {
+				differentNumber++;
+				System.out.println("Different content (charset " + newContent.getCharset() + "): " + file.getPath());
+			}
+		}
+		System.out.println("Files with different content: " + differentNumber);
+
+		// Warm up
+		for (File file : files) {
+			loadByLineReader(file);
+			SourceCodeContent.load(file, null);
+		}
+
+		for (int round = 1; round <= rounds; round++) {
+			long start = System.nanoTime();
+			long chars = 0;
+			for (File file : files) chars += loadByLineReader(file).length;
+			long oldTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (File file : files) chars -= SourceCodeContent.load(file, null).getContent().length;
+			long newTime = System.nanoTime() - start;
+
+			System.out.println("Round " + round + ": line reader " + oldTime / 1000000 + " ms (" + getThroughput(totalBytes, oldTime) + " MB/s), NIO " +
+					newTime / 1000000 + " ms (" + getThroughput(totalBytes, newTime) + " MB/s), difference of chars " + chars);
+		}
+	}
+
+	/**
+	 * Load the file in the way used before, and return the char array given to the parser
+	 */
+	private static char[] loadByLineReader(File file) throws IOException {
+		LineNumberReader reader = new LineNumberReader(new FileReader(file));
+		String line = reader.readLine();
+		StringBuffer buffer = new StringBuffer();
+		while (line != null) {
+			buffer.append(line + "\n");
+			line = reader.readLine();
+		}
+		reader.close();
+		return buffer.toString().toCharArray();
+	}
+
+	private static String getThroughput(long bytes, long nanoTime) {
+		if (nanoTime <= 0) return "-";
+		return String.format("%.1f", bytes * 1000.0 / nanoTime);
+	}
+}